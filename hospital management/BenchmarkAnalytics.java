@@ -0,0 +1,85 @@
+import database.AnalyticsReport;
+import database.DatabaseManager;
+import models.Appointment;
+import models.Doctor;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures revenue and utilization reports over a year of appointments: the first report for
+ * each period, a report served from the cache, and a report rebuilt after one appointment changes.
+ * Doctors see 16 patients on every weekday of the year.
+ * Usage: java -Xmx3g BenchmarkAnalytics [doctors]
+ */
+public class BenchmarkAnalytics {
+    private static final LocalDate YEAR = LocalDate.of(2024, 1, 1);
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Pediatrics", "Orthopedics", "Neurology", "Dermatology"};
+    private static final String[] STATUSES = {"COMPLETED", "COMPLETED", "COMPLETED", "CANCELLED", "NO_SHOW", "SCHEDULED"};
+    private static final int PER_DAY = 16;
+    private static final int ROUNDS = 10;
+    private static long sink;
+    
+    public static void main(String[] args) {
+        int doctorCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(31);
+        for (int i = 0; i < doctorCount; i++) {
+            db.addDoctor(new Doctor(0, "Dr. Bench " + i, SPECIALIZATIONS[i % SPECIALIZATIONS.length], "555-" + i,
+                "bench" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 100 + i % 7 * 25));
+        }
+        LocalDate end = YEAR.plusYears(1).minusDays(1);
+        for (Doctor doctor : db.getAllDoctors()) {
+            List<Appointment> batch = new ArrayList<>();
+            for (LocalDate day = YEAR; !day.isAfter(end); day = day.plusDays(1)) {
+                if (day.getDayOfWeek().getValue() > 5) {
+                    continue;
+                }
+                for (int slot = 0; slot < PER_DAY; slot++) {
+                    batch.add(new Appointment(0, 1 + random.nextInt(3), doctor.getDoctorId(),
+                        day.atTime(9, 0).plusMinutes(30L * slot), STATUSES[random.nextInt(STATUSES.length)], null));
+                }
+            }
+            db.addAppointments(batch);
+        }
+        System.out.println("Analytics benchmark: " + doctorCount + " doctors, "
+            + db.getAllAppointments().size() + " appointments over " + YEAR.getYear());
+        
+        for (AnalyticsReport.Period period : AnalyticsReport.Period.values()) {
+            measure("Build " + period.name().toLowerCase(Locale.ROOT) + " report", () -> {
+                db.updateAppointment(changed(db));
+                sink += db.getAnalytics(YEAR, end, period).getDoctorLines().size();
+            });
+        }
+        measure("Cached monthly report", () -> sink += db.getAnalytics(YEAR, end, AnalyticsReport.Period.MONTH).getDoctorLines().size());
+        AnalyticsReport report = db.getAnalytics(YEAR, end, AnalyticsReport.Period.MONTH);
+        System.out.printf("Revenue %.0f, cancellation rate %.3f, no-show rate %.3f, utilization %.3f%n",
+            report.getTotal().getRevenue(), report.getTotal().getCancellationRate(),
+            report.getTotal().getNoShowRate(), report.getTotal().getUtilization());
+        System.out.println("(sink " + sink + ")");
+    }
+    
+    // Flips one appointment between scheduled and completed, so the next report is rebuilt
+    private static Appointment changed(DatabaseManager db) {
+        Appointment first = db.getAllAppointments().get(0);
+        String status = "COMPLETED".equals(first.getStatus()) ? "SCHEDULED" : "COMPLETED";
+        return new Appointment(first.getAppointmentId(), first.getPatientId(), first.getDoctorId(),
+            first.getAppointmentDateTime(), status, first.getNotes());
+    }
+    
+    // Reports the median of several rounds after one warm-up round
+    private static void measure(String name, Runnable work) {
+        work.run();
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            work.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-24s %10.2f ms%n", name, nanos[ROUNDS / 2] / 1e6);
+    }
+}
\ No newline at end of file
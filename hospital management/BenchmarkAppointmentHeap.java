@@ -0,0 +1,110 @@
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import models.Appointment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures the heap an appointment history occupies: as plain Appointment objects, and in the
+ * store after reopening it from a checkpoint and reading every appointment once.
+ * Usage: java -Xmx3g BenchmarkAppointmentHeap [appointments]
+ */
+public class BenchmarkAppointmentHeap {
+    private static final LocalDateTime START = LocalDateTime.of(2015, 1, 5, 9, 0);
+    private static final String[] STATUSES = {"COMPLETED", "COMPLETED", "CANCELLED", "SCHEDULED"};
+    private static final String[] COMMON_NOTES = {"", "Follow-up", "Annual check-up", "Bring previous test results"};
+    private static final int BATCH = 10_000;
+    
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.println("Appointment heap benchmark: " + count + " appointments");
+        
+        long empty = usedHeap();
+        List<Appointment> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add(appointment(i));
+        }
+        long objectBytes = usedHeap() - empty;
+        report("Plain objects", objectBytes, count);
+        objects = null;
+        
+        Path directory = Files.createTempDirectory("hms-bench-heap");
+        try {
+            DatabaseManager writer = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER, Long.MAX_VALUE);
+            List<Appointment> batch = new ArrayList<>(BATCH);
+            for (int i = 0; i < count; i++) {
+                batch.add(appointment(i));
+                if (batch.size() == BATCH || i == count - 1) {
+                    writer.addAppointments(batch);
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+            writer.close();
+            writer = null;
+            
+            empty = usedHeap();
+            long start = System.nanoTime();
+            DatabaseManager db = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER, Long.MAX_VALUE);
+            double openMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            long noteChars = 0;
+            int read = 0;
+            for (Appointment appointment : db.getAllAppointments()) {
+                String notes = appointment.getNotes();
+                noteChars += notes != null ? notes.length() : 0;
+                read++;
+            }
+            double scanMillis = (System.nanoTime() - start) / 1e6;
+            long storeBytes = usedHeap() - empty;
+            report("Store, after a full read", storeBytes, count);
+            System.out.printf("Reopen: %.1f ms, full read: %.1f ms (%,d note chars)%n", openMillis, scanMillis, noteChars);
+            System.out.printf("Heap reduction: %.1fx%n", (double) objectBytes / Math.max(1, storeBytes));
+            check("every appointment read back", read == count);
+            db.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(BenchmarkAppointmentHeap::delete);
+            }
+        }
+    }
+    
+    // Three doctors with a booking every half hour each; notes are mostly stock phrases, a quarter free text
+    private static Appointment appointment(int i) {
+        String notes = i % 4 == 3 ? "Patient reports symptoms since visit " + i : COMMON_NOTES[(i / 4) % COMMON_NOTES.length];
+        return new Appointment(0, 1 + i % 2, 1 + i % 3, START.plusMinutes(30L * (i / 3)), STATUSES[i % STATUSES.length], notes);
+    }
+    
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static void report(String label, long bytes, int count) {
+        System.out.printf("%-26s %,8.1f MB  %,6.1f bytes/appointment%n", label, bytes / 1e6, (double) bytes / count);
+    }
+    
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    private static void check(String name, boolean ok) {
+        if (!ok) {
+            System.out.println("FAIL " + name);
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,238 @@
+import database.AppointmentFilter;
+import database.DatabaseManager;
+import database.Page;
+import database.PageRequest;
+import gui.AppointmentTableModel;
+import gui.DoctorTableModel;
+import gui.PatientTableModel;
+import gui.SnapshotRowSorter;
+import gui.SnapshotTableModel;
+import models.Appointment;
+import models.AppointmentView;
+import models.Doctor;
+import models.Patient;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Headless micro-benchmarks for DatabaseManager CRUD, lookups, patient search and paged queries, and for the row building,
+ * filtering and sorting behind each panel's table, at several store sizes. Each benchmark is warmed up and
+ * then run for a fixed time; it reports throughput and bytes allocated per operation, so
+ * regressions in either show up run to run. The same CRUD, lookup and row-building cases run under
+ * JMH from jmh/ (mvn -P jmh package; java -jar target/benchmarks.jar -prof gc).
+ * Usage: java -Xmx3g BenchmarkDatabase [size ...]   (default 1000 100000 1000000)
+ */
+public class BenchmarkDatabase {
+    private static final long WARMUP_NANOS = 500_000_000L;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+    private static final int DOCTORS = 50;
+    private static final int DAYS = 365;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED"};
+    private static final int SEARCH_LIMIT = 500;
+    private static final int SLOTS_PER_DAY = 16;
+    private static final int PAGE_ROWS = 50;
+    
+    // Results are parked here so the JIT cannot discard the work being measured
+    private static volatile Object sink;
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] {1_000, 100_000, 1_000_000};
+        for (int i = 0; i < args.length; i++) {
+            sizes[i] = Integer.parseInt(args[i]);
+        }
+        System.out.printf("%-9s %-52s %16s %12s%n", "records", "benchmark", "ops/s", "bytes/op");
+        for (int size : sizes) {
+            run(size);
+            System.gc();
+        }
+    }
+    
+    private static void run(int size) {
+        DatabaseManager db = populate(size);
+        Random random = new Random(42);
+        int firstPatient = db.getAllPatients().get(0).getPatientId();
+        int firstDoctor = db.getAllDoctors().get(0).getDoctorId();
+        int firstAppointment = db.getAllAppointments().get(0).getAppointmentId();
+        
+        measure(size, "getPatientById", () -> sink = db.getPatientById(firstPatient + random.nextInt(size)));
+        measure(size, "getAppointmentById", () -> sink = db.getAppointmentById(firstAppointment + random.nextInt(size)));
+        measure(size, "getAppointmentsForDoctorOn", () -> sink = db.getAppointmentsForDoctorOn(
+            firstDoctor + random.nextInt(DOCTORS), FIRST_DAY.plusDays(random.nextInt(DAYS))));
+        measure(size, "getAppointmentsForPatient", () -> sink = db.getAppointmentsForPatient(firstPatient + random.nextInt(size)));
+        measure(size, "getAppointmentsByStatusBetween (1 day)", () -> {
+            LocalDateTime from = FIRST_DAY.plusDays(random.nextInt(DAYS)).atStartOfDay();
+            sink = db.getAppointmentsByStatusBetween("COMPLETED", from, from.plusDays(1));
+        });
+        measure(size, "addPatient + deletePatient", () -> {
+            Patient patient = newPatient(size);
+            db.addPatient(patient);
+            db.deletePatient(patient.getPatientId());
+        });
+        measure(size, "updatePatient", () -> {
+            Patient patient = newPatient(random.nextInt(size));
+            patient.setPatientId(firstPatient + random.nextInt(size));
+            db.updatePatient(patient);
+        });
+        // Builds the dashboard totals, so the writes below also keep them current
+        measure(size, "getDailySummary (dashboard header)", () -> sink = db.getDailySummary(FIRST_DAY.plusDays(random.nextInt(DAYS))));
+        LocalDateTime unbooked = FIRST_DAY.plusYears(50).atTime(9, 0); // each booking is deleted again, so the slot stays free
+        measure(size, "add/update/deleteAppointment", () -> {
+            Appointment appointment = new Appointment(0, firstPatient + random.nextInt(size), firstDoctor + random.nextInt(DOCTORS),
+                unbooked, "SCHEDULED", "Note");
+            db.addAppointment(appointment);
+            appointment.setStatus("COMPLETED");
+            db.updateAppointment(appointment);
+            db.deleteAppointment(appointment.getAppointmentId());
+        });
+        measure(size, "getAllPatients", () -> sink = db.getAllPatients());
+        measure(size, "findFreeSlots (next 10, one specialty)", () -> sink = db.findFreeSlots(
+            "Specialty " + random.nextInt(7), FIRST_DAY.plusDays(random.nextInt(DAYS)).atTime(8, 0), 10));
+        
+        long start = System.nanoTime();
+        db.searchPatients("warmup", 1); // the search index is built on first use
+        System.out.printf("%-9d (search index built in %.0f ms)%n", size, (System.nanoTime() - start) / 1e6);
+        measure(size, "searchPatients prefix", () -> sink = db.searchPatients("patient " + random.nextInt(size / 10 + 1), SEARCH_LIMIT));
+        measure(size, "searchPatients phone digits", () -> sink = db.searchPatients("555" + random.nextInt(size), SEARCH_LIMIT));
+        measure(size, "searchPatients substring", () -> sink = db.searchPatients("ench", SEARCH_LIMIT));
+        measure(size, "searchPatients fuzzy", () -> sink = db.searchPatients("histroy " + random.nextInt(size), SEARCH_LIMIT));
+        
+        // One screen of rows in a stable order, against sorting the whole list to cut the same screen out of it
+        PageRequest byName = new PageRequest(PageRequest.Sort.NAME, false, PAGE_ROWS);
+        start = System.nanoTime();
+        String middle = db.getPatientsPage(byName.atOffset(size / 2)).getNextCursor(); // the order index is built on first use
+        System.out.printf("%-9d (name order built in %.0f ms)%n", size, (System.nanoTime() - start) / 1e6);
+        measure(size, "getPatientsPage by name, cursor mid-list", () -> sink = db.getPatientsPage(byName.after(middle)));
+        measure(size, "getPatientsPage by name, offset mid-list", () -> sink = db.getPatientsPage(byName.atOffset(size / 2)));
+        measure(size, "sort every patient by name for the same rows", () -> {
+            List<Patient> sorted = new ArrayList<>(db.getAllPatients());
+            sorted.sort(Comparator.comparing(Patient::getName, String.CASE_INSENSITIVE_ORDER));
+            sink = sorted.subList(size / 2, size / 2 + PAGE_ROWS);
+        });
+        PageRequest byDate = new PageRequest(PageRequest.Sort.DATE, false, PAGE_ROWS);
+        Page<AppointmentView> firstScreen = db.getAppointmentViewsPage(AppointmentFilter.ALL, byDate);
+        measure(size, "getAppointmentViewsPage by date, next screen", () ->
+            sink = db.getAppointmentViewsPage(AppointmentFilter.ALL, byDate.after(firstScreen.getNextCursor())));
+        
+        // Row building behind each panel's refreshTable: load the rows, then read every cell as the table would
+        PatientTableModel patientModel = new PatientTableModel();
+        DoctorTableModel doctorModel = new DoctorTableModel();
+        AppointmentTableModel appointmentModel = new AppointmentTableModel();
+        measure(size, "PatientPanel.refreshTable rows", () -> {
+            patientModel.setRows(db.getAllPatients());
+            readAllCells(patientModel);
+        });
+        measure(size, "DoctorPanel.refreshTable rows", () -> {
+            doctorModel.setRows(db.getAllDoctors());
+            readAllCells(doctorModel);
+        });
+        measure(size, "AppointmentPanel.refreshTable rows", () -> {
+            appointmentModel.setRows(db.getAppointmentViews());
+            readAllCells(appointmentModel);
+        });
+        measure(size, "AppointmentPanel filtered rows (doctor+status+month)", () -> {
+            LocalDateTime from = FIRST_DAY.plusDays(random.nextInt(DAYS - 30)).atStartOfDay();
+            appointmentModel.setRows(db.getAppointmentViews(new AppointmentFilter(
+                "COMPLETED", firstDoctor + random.nextInt(DOCTORS), 0, from, from.plusDays(30))));
+            readAllCells(appointmentModel);
+        });
+        // Sorting after a reload pays for building the date keys as well as for the sort
+        List<AppointmentView> allViews = db.getAppointmentViews();
+        SnapshotRowSorter<AppointmentTableModel> sorter = new SnapshotRowSorter<>(appointmentModel);
+        new JTable(appointmentModel).setRowSorter(sorter);
+        measure(size, "AppointmentPanel sort by date", () -> {
+            appointmentModel.setRows(allViews);
+            sorter.setSortKeys(Collections.singletonList(new RowSorter.SortKey(3, SortOrder.ASCENDING)));
+        });
+        sorter.setSortKeys(null);
+        Appointment touched = db.getAppointmentById(firstAppointment);
+        measure(size, "AppointmentPanel.refreshTable after a change", () -> {
+            db.updateAppointment(touched); // invalidates the cached join
+            appointmentModel.setRows(db.getAppointmentViews());
+            readAllCells(appointmentModel);
+        });
+    }
+    
+    private static DatabaseManager populate(int size) {
+        long start = System.nanoTime();
+        DatabaseManager db = DatabaseManager.inMemory();
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctors.add(new Doctor(0, "Dr. Bench " + i, "Specialty " + i % 7, "555-2" + i, "bench" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 100 + i));
+        }
+        db.addDoctors(doctors);
+        List<Patient> patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            patients.add(newPatient(i));
+        }
+        db.addPatients(patients);
+        List<Appointment> appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            appointments.add(newAppointment(patients.get(i).getPatientId(), doctors.get(i % DOCTORS).getDoctorId(), i / DOCTORS));
+        }
+        db.addAppointments(appointments);
+        System.out.printf("%-9d (populated in %.0f ms)%n", size, (System.nanoTime() - start) / 1e6);
+        return db;
+    }
+    
+    private static Patient newPatient(int i) {
+        return new Patient(0, "Patient " + i, 20 + i % 70, i % 2 == 0 ? "Female" : "Male", "555-" + i, i + " Bench St", "History " + i);
+    }
+    
+    // The doctor's i-th booking: spread over the days of a year, then over the half-hour slots of each day, so a doctor is never double-booked
+    private static Appointment newAppointment(int patientId, int doctorId, int i) {
+        int day = i % DAYS + i / (DAYS * SLOTS_PER_DAY) * DAYS;
+        LocalDateTime dateTime = FIRST_DAY.plusDays(day).atTime(9, 0).plusMinutes(30 * (i / DAYS % SLOTS_PER_DAY));
+        return new Appointment(0, patientId, doctorId, dateTime, STATUSES[i % STATUSES.length], "Note " + i);
+    }
+    
+    private static void readAllCells(SnapshotTableModel<?> model) {
+        Object last = null;
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                last = model.getValueAt(row, column);
+            }
+        }
+        sink = last;
+    }
+    
+    private static void measure(int size, String name, Runnable operation) {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            operation.run();
+        }
+        long operations = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long deadline = start + MEASURE_NANOS;
+        do {
+            operation.run();
+            operations++;
+        } while (System.nanoTime() < deadline);
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%-9d %-52s %,16.1f %,12.0f%n", size, name,
+            operations * 1e9 / elapsed, THREADS != null ? (double) allocated / operations : Double.NaN);
+    }
+    
+    // HotSpot reports per-thread allocation; every benchmark runs on the main thread
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+    
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import models.Appointment;
+import models.Patient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Measures write throughput of the durable store under each fsync policy, and how long
+ * startup takes to recover from the write-ahead log alone and from a mapped snapshot.
+ * Usage: java BenchmarkDurability [patients]
+ */
+public class BenchmarkDurability {
+    private static final int THREADS = 8;
+    
+    public static void main(String[] args) throws Exception {
+        int patientCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        System.out.println("Durable store benchmark: " + patientCount + " patients + " + patientCount
+            + " appointments, " + THREADS + " writer threads");
+        
+        Path crashed = null;
+        for (FsyncPolicy policy : FsyncPolicy.values()) {
+            Path directory = Files.createTempDirectory("hms-bench-" + policy.name().toLowerCase());
+            DatabaseManager db = DatabaseManager.openDurable(directory, policy, Long.MAX_VALUE);
+            long start = System.nanoTime();
+            writeRecords(db, patientCount);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-8s %,10.0f writes/sec  (%.2f s)%n", policy, 2 * patientCount / seconds, seconds);
+            if (policy == FsyncPolicy.ALWAYS) {
+                crashed = directory; // never closed: every acknowledged write must come back from the log
+            } else {
+                db.close();
+                deleteRecursively(directory);
+            }
+        }
+        
+        int expectedPatients = patientCount + 2; // plus the sample data seeded into a new directory
+        int expectedAppointments = patientCount;
+        
+        long start = System.nanoTime();
+        DatabaseManager recovered = DatabaseManager.openDurable(crashed, FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        System.out.printf("Recovery from log only:  %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        check("log replay restores patients", recovered.getAllPatients().size() == expectedPatients);
+        check("log replay restores appointments", recovered.getAllAppointments().size() == expectedAppointments);
+        recovered.close(); // checkpoints, leaving only the snapshot
+        
+        start = System.nanoTime();
+        DatabaseManager reopened = DatabaseManager.openDurable(crashed, FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        System.out.printf("Recovery from snapshot:  %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        // The snapshot is mapped and decoded lazily, so the first full read pays for materialization
+        start = System.nanoTime();
+        reopened.getPatientById(patientCount / 2);
+        System.out.printf("First patient lookup:    %.3f ms%n", (System.nanoTime() - start) / 1e6);
+        start = System.nanoTime();
+        int materialized = reopened.getAllPatients().size();
+        System.out.printf("Materialize all patients: %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        check("snapshot restores patients", materialized == expectedPatients);
+        check("snapshot restores appointments", reopened.getAllAppointments().size() == expectedAppointments);
+        Patient fresh = new Patient(0, "After Restart", 40, "Other", "555-9999", "New St", "");
+        reopened.addPatient(fresh);
+        check("ids continue after recovery", fresh.getPatientId() > patientCount);
+        reopened.close();
+        deleteRecursively(crashed);
+    }
+    
+    // Each thread adds patients and books one appointment for each, half of them already completed
+    private static void writeRecords(DatabaseManager db, int patientCount) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            futures.add(pool.submit(() -> {
+                for (int i = thread; i < patientCount; i += THREADS) {
+                    Patient patient = new Patient(0, "Bench Patient " + i, 20 + i % 60, "Other", "555-" + i, i + " Bench Rd", "History " + i);
+                    db.addPatient(patient);
+                    db.addAppointment(new Appointment(0, patient.getPatientId(), 1 + i % 3,
+                        LocalDateTime.of(2025, 1, 1, 9, 0).plusMinutes(30L * i), i % 2 == 0 ? "COMPLETED" : "SCHEDULED", "Visit " + i));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+    }
+    
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+    
+    private static void check(String name, boolean ok) {
+        System.out.println((ok ? "PASS " : "FAIL ") + name);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
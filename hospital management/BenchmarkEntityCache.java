@@ -0,0 +1,136 @@
+import database.CachingRepository;
+import database.DatabaseManager;
+import database.EntityCache;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Replays a front-desk day through a {@link CachingRepository} with each eviction policy and
+ * reports hit rates, evictions and replay time. The store holds years of history; the caches
+ * hold a small share of it. Through the day the desk works through the appointments of the
+ * coming hour: it opens each one, its doctor and its patient several times as the patient checks
+ * in, waits and is seen, and marks it completed. Between those come phone calls about patients
+ * from the whole register and, now and then, a records request that reads a run of old
+ * appointments once.
+ * Usage: java -Xmx2g BenchmarkEntityCache [patients]
+ */
+public class BenchmarkEntityCache {
+    private static final LocalDate TODAY = LocalDate.of(2025, 6, 2);
+    private static final int DOCTORS = 300;
+    private static final int WORKING_TODAY = 120;
+    private static final int SLOTS_TODAY = 16;
+    private static final int HISTORY_DAYS = 1500;
+    private static final int PATIENT_CACHE = 2_000, DOCTOR_CACHE = 200, APPOINTMENT_CACHE = 2_000;
+    private static final int READ_PATIENT = 0, READ_DOCTOR = 1, READ_APPOINTMENT = 2, COMPLETE_APPOINTMENT = 3;
+    
+    public static void main(String[] args) {
+        int patientCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        DatabaseManager store = DatabaseManager.inMemory();
+        Random random = new Random(53);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < patientCount; i++) {
+            patients.add(new Patient(0, "Trace Patient " + i, 20 + i % 70, i % 2 == 0 ? "Female" : "Male", "555-" + i, i + " Trace St", ""));
+        }
+        store.addPatients(patients);
+        for (int i = 0; i < DOCTORS; i++) {
+            store.addDoctor(new Doctor(0, "Dr. Trace " + i, "General", "555-9" + i, "trace" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 120));
+        }
+        List<Doctor> doctors = store.getAllDoctors();
+        int firstPatient = patients.get(0).getPatientId();
+        List<Appointment> history = new ArrayList<>();
+        for (int day = HISTORY_DAYS; day > 0; day--) {
+            for (int i = 0; i < 400; i++) {
+                Doctor doctor = doctors.get(i % DOCTORS);
+                history.add(new Appointment(0, firstPatient + random.nextInt(patientCount), doctor.getDoctorId(),
+                    TODAY.minusDays(day).atTime(9, 0).plusMinutes(30L * (i / DOCTORS)), "COMPLETED", null));
+            }
+        }
+        store.addAppointments(history);
+        List<Appointment> today = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS_TODAY; slot++) {
+            for (int i = 0; i < WORKING_TODAY; i++) {
+                today.add(new Appointment(0, firstPatient + random.nextInt(patientCount), doctors.get(i).getDoctorId(),
+                    TODAY.atTime(9, 0).plusMinutes(30L * slot), "SCHEDULED", null));
+            }
+        }
+        store.addAppointments(today);
+        int[][] trace = trace(random, patientCount, firstPatient, history, today);
+        System.out.println("Entity cache benchmark: " + patientCount + " patients, " + DOCTORS + " doctors, "
+            + store.getAllAppointments().size() + " appointments; " + trace[0].length + " operations, caches of "
+            + PATIENT_CACHE + "/" + DOCTOR_CACHE + "/" + APPOINTMENT_CACHE);
+        
+        for (EntityCache.Policy policy : EntityCache.Policy.values()) {
+            CachingRepository repository = new CachingRepository(store, new EntityCache<>(policy, PATIENT_CACHE),
+                new EntityCache<>(policy, DOCTOR_CACHE), new EntityCache<>(policy, APPOINTMENT_CACHE));
+            long start = System.nanoTime();
+            replay(repository, trace);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("\n" + policy + " (" + millis + " ms)");
+            System.out.println("  patients:     " + repository.getPatientStats());
+            System.out.println("  doctors:      " + repository.getDoctorStats());
+            System.out.println("  appointments: " + repository.getAppointmentStats());
+        }
+    }
+    
+    // Operation codes and ids, generated once so every policy sees the same day
+    private static int[][] trace(Random random, int patientCount, int firstPatient, List<Appointment> history, List<Appointment> today) {
+        List<int[]> operations = new ArrayList<>();
+        for (int slot = 0; slot < SLOTS_TODAY; slot++) {
+            // The desk works on this slot's and the next slot's appointments at once
+            List<Appointment> current = new ArrayList<>(today.subList(slot * WORKING_TODAY, Math.min(today.size(), (slot + 2) * WORKING_TODAY)));
+            for (int step = 0; step < 6_000; step++) {
+                int kind = random.nextInt(1000);
+                if (kind < 850) {
+                    Appointment appointment = current.get(random.nextInt(current.size()));
+                    operations.add(new int[] {READ_APPOINTMENT, appointment.getAppointmentId()});
+                    operations.add(new int[] {READ_DOCTOR, appointment.getDoctorId()});
+                    operations.add(new int[] {READ_PATIENT, appointment.getPatientId()});
+                    if (kind < 30) {
+                        operations.add(new int[] {COMPLETE_APPOINTMENT, appointment.getAppointmentId()});
+                    }
+                } else if (kind < 998) {
+                    operations.add(new int[] {READ_PATIENT, firstPatient + random.nextInt(patientCount)});
+                } else {
+                    int from = random.nextInt(history.size() - 200);
+                    for (int i = from; i < from + 200; i++) {
+                        operations.add(new int[] {READ_APPOINTMENT, history.get(i).getAppointmentId()});
+                        operations.add(new int[] {READ_PATIENT, history.get(i).getPatientId()});
+                    }
+                }
+            }
+        }
+        int[][] trace = new int[2][operations.size()];
+        for (int i = 0; i < operations.size(); i++) {
+            trace[0][i] = operations.get(i)[0];
+            trace[1][i] = operations.get(i)[1];
+        }
+        return trace;
+    }
+    
+    private static void replay(CachingRepository repository, int[][] trace) {
+        for (int i = 0; i < trace[0].length; i++) {
+            int id = trace[1][i];
+            switch (trace[0][i]) {
+                case READ_PATIENT:
+                    repository.getPatientById(id);
+                    break;
+                case READ_DOCTOR:
+                    repository.getDoctorById(id);
+                    break;
+                case READ_APPOINTMENT:
+                    repository.getAppointmentById(id);
+                    break;
+                default:
+                    Appointment appointment = repository.getAppointmentById(id);
+                    repository.updateAppointment(new Appointment(id, appointment.getPatientId(), appointment.getDoctorId(),
+                        appointment.getAppointmentDateTime(), "COMPLETED", appointment.getNotes()));
+                    break;
+            }
+        }
+    }
+}
\ No newline at end of file
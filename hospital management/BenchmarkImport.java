@@ -0,0 +1,125 @@
+import database.BulkTransfer;
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import database.TransferReport;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Measures bulk import and export throughput in records/sec, for CSV and JSON Lines, into an
+ * in-memory store and a durable one that fsyncs every write, against adding the same records
+ * one at a time. Usage: java BenchmarkImport [patients]
+ */
+public class BenchmarkImport {
+    private static final int DOCTORS = 200;
+    private static final int SLOTS_PER_DAY = 16;
+    
+    public static void main(String[] args) throws Exception {
+        int patientCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int appointmentCount = patientCount * 2;
+        System.out.println("Bulk import benchmark: " + patientCount + " patients, " + DOCTORS + " doctors, "
+            + appointmentCount + " appointments");
+        
+        DatabaseManager source = DatabaseManager.inMemory();
+        populate(source, patientCount, appointmentCount);
+        Path directory = Files.createTempDirectory("hms-bench-import");
+        BulkTransfer exporter = new BulkTransfer(source);
+        for (String extension : new String[] {"csv", "jsonl"}) {
+            for (BulkTransfer.Entity entity : BulkTransfer.Entity.values()) {
+                Path file = directory.resolve(entity + "." + extension);
+                print("export " + extension, exporter.exportFile(entity, file));
+            }
+            System.out.printf("  %s files: %,d KB%n", extension, size(directory, extension) / 1024);
+        }
+        
+        for (String extension : new String[] {"csv", "jsonl"}) {
+            importAll("in-memory, " + extension, DatabaseManager.inMemory(), directory, extension);
+        }
+        Path durable = Files.createTempDirectory("hms-bench-import-wal");
+        DatabaseManager store = DatabaseManager.openDurable(durable, FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        importAll("durable ALWAYS, csv", store, directory, "csv");
+        store.close();
+        deleteRecursively(durable);
+        
+        // Baseline: the same patients added one record at a time, as the forms do
+        int sample = Math.min(patientCount, 5_000);
+        List<Patient> patients = source.getAllPatients().subList(0, sample);
+        durable = Files.createTempDirectory("hms-bench-import-wal");
+        store = DatabaseManager.openDurable(durable, FsyncPolicy.ALWAYS, Long.MAX_VALUE);
+        long start = System.nanoTime();
+        for (Patient patient : patients) {
+            store.addPatient(new Patient(0, patient.getName(), patient.getAge(), patient.getGender(), patient.getPhone(),
+                patient.getAddress(), patient.getMedicalHistory()));
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-28s %,.0f records/sec (%,d patients)%n", "one at a time, durable", sample / seconds, sample);
+        store.close();
+        deleteRecursively(durable);
+        deleteRecursively(directory);
+    }
+    
+    private static void importAll(String label, DatabaseManager db, Path directory, String extension) throws IOException {
+        BulkTransfer importer = new BulkTransfer(db);
+        long records = 0;
+        long start = System.nanoTime();
+        for (BulkTransfer.Entity entity : BulkTransfer.Entity.values()) {
+            TransferReport report = importer.importFile(entity, directory.resolve(entity + "." + extension));
+            print("import " + label, report);
+            if (report.getRejected() > 0) {
+                System.out.println("  unexpected rejections: " + report.getErrors().subList(0, Math.min(3, report.getErrors().size())));
+            }
+            records += report.getRecordsRead();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-28s %,.0f records/sec over all files (%.2f s)%n", "import " + label, records / seconds, seconds);
+    }
+    
+    private static void print(String label, TransferReport report) {
+        System.out.printf("%-28s %s%n", label, report);
+    }
+    
+    // Each doctor works every day from 9:00 in back-to-back half-hour slots, so no booking clashes
+    private static void populate(DatabaseManager db, int patientCount, int appointmentCount) {
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < patientCount; i++) {
+            patients.add(new Patient(0, "Import Patient " + i, 1 + i % 90, i % 2 == 0 ? "Female" : "Male", "555-" + i,
+                i + " Import Rd, Springfield", i % 5 == 0 ? "Allergies: \"penicillin\", latex" : ""));
+        }
+        db.addPatients(patients);
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctors.add(new Doctor(0, "Dr. Import " + i, "Specialty " + i % 12, "555-9" + i, "d" + i + "@hospital.com", "Daily 9AM-5PM", 100 + i % 50));
+        }
+        db.addDoctors(doctors);
+        List<Appointment> appointments = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        for (int i = 0; i < appointmentCount; i++) {
+            int slot = i / DOCTORS;
+            appointments.add(new Appointment(0, patients.get(i % patientCount).getPatientId(), doctors.get(i % DOCTORS).getDoctorId(),
+                start.plusDays(slot / SLOTS_PER_DAY).plusMinutes(30L * (slot % SLOTS_PER_DAY)),
+                i % 3 == 0 ? "COMPLETED" : "SCHEDULED", "Follow-up " + i));
+        }
+        db.addAppointments(appointments);
+    }
+    
+    private static long size(Path directory, String extension) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith("." + extension)).mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+    
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
\ No newline at end of file
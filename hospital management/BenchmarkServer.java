@@ -0,0 +1,296 @@
+import database.DatabaseManager;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import server.HospitalServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Load test for the HTTP server: client threads issue a front-desk mix of requests (patient
+ * lookups, a doctor's day, name searches, free slots, booking and cancelling) as fast as the
+ * server answers, and the harness reports requests/sec and p50/p99 latency per kind of request.
+ * Without a URL it serves a seeded in-memory store itself on a free port.
+ * Usage: java -Xmx2g BenchmarkServer [seconds] [clients] [base URL]   (default 10 16)
+ */
+public class BenchmarkServer {
+    private static final int PATIENTS = 20_000;
+    private static final int DOCTORS = 50;
+    private static final int APPOINTMENTS = 100_000;
+    private static final int DAYS = 365;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 1, 1);
+    private static final String[] SPECIALIZATIONS = {"Cardiology", "Pediatrics", "Orthopedics", "Neurology", "Dermatology"};
+    private static final String[] OPERATIONS = {"GET patient", "GET doctor's day", "search patients", "free slots", "book", "cancel"};
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        HospitalServer server = null;
+        String base;
+        if (args.length > 2) {
+            base = args[2].replaceAll("/$", "");
+        } else {
+            server = new HospitalServer(populate(), 0);
+            server.start();
+            base = "http://localhost:" + server.getPort();
+            System.out.println("Serving a seeded store on " + base + (server.usesVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
+        }
+        int[] patientIds = ids(get(base + "/patients"));
+        int[] doctorIds = ids(get(base + "/doctors"));
+        System.out.printf("%d patients, %d doctors; %d clients for %d s after %d s of warm-up%n",
+            patientIds.length, doctorIds.length, clients, seconds, WARMUP_NANOS / 1_000_000_000L);
+        
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        Client[] workers = new Client[clients];
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicLong errors = new AtomicLong();
+        for (int c = 0; c < clients; c++) {
+            workers[c] = new Client(base, c, patientIds, doctorIds, warmupEnd, end, errors, done);
+            new Thread(workers[c], "load-" + c).start();
+        }
+        done.await();
+        if (server != null) {
+            server.close();
+        }
+        
+        System.out.printf("%n%-18s %10s %12s %10s %10s %10s%n", "request", "count", "requests/s", "p50 ms", "p99 ms", "max ms");
+        long[] all = new long[0];
+        for (int op = 0; op < OPERATIONS.length; op++) {
+            long[] latencies = new long[0];
+            for (Client worker : workers) {
+                latencies = concat(latencies, worker.latencies[op].toArray());
+            }
+            report(OPERATIONS[op], latencies, seconds);
+            all = concat(all, latencies);
+        }
+        report("all", all, seconds);
+        System.out.println("errors: " + errors.get());
+    }
+    
+    private static DatabaseManager populate() {
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(42);
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctors.add(new Doctor(0, "Dr. Load " + i, SPECIALIZATIONS[i % SPECIALIZATIONS.length], "555-7" + i,
+                "load" + i + "@hospital.com", "Mon-Sun 8AM-8PM", 100 + i));
+        }
+        db.addDoctors(doctors);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < PATIENTS; i++) {
+            patients.add(new Patient(0, "Patient " + i + " Surname" + (i % 997), 1 + i % 99, i % 2 == 0 ? "Female" : "Male",
+                "555-" + i, i + " Main St", "History " + i));
+        }
+        db.addPatients(patients);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            // Each doctor works through the day in half-hour slots, so no two bookings clash
+            int slot = i / DOCTORS;
+            LocalDateTime time = FIRST_DAY.plusDays(slot / 24 % DAYS).atTime(8, 0).plusMinutes(30L * (slot % 24));
+            appointments.add(new Appointment(0, patients.get(random.nextInt(PATIENTS)).getPatientId(),
+                doctors.get(i % DOCTORS).getDoctorId(), time, "SCHEDULED", "Load test"));
+        }
+        db.addAppointments(appointments);
+        return db;
+    }
+    
+    private static void report(String name, long[] latencies, int seconds) {
+        Arrays.sort(latencies);
+        if (latencies.length == 0) {
+            System.out.printf("%-18s %10d%n", name, 0);
+            return;
+        }
+        System.out.printf("%-18s %,10d %,12.0f %10.2f %10.2f %10.2f%n", name, latencies.length, latencies.length / (double) seconds,
+            percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, latencies[latencies.length - 1] / 1e6);
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+    
+    private static long[] concat(long[] a, long[] b) {
+        long[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+    
+    private static int[] ids(String body) {
+        List<Integer> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    private static String get(String url) throws IOException {
+        return exchange("GET", url, null);
+    }
+    
+    // Reads the whole response so the connection goes back to the keep-alive pool
+    private static String exchange(String method, String url, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        if (in != null) {
+            byte[] buffer = new byte[8192];
+            try {
+                for (int read; (read = in.read(buffer)) > 0; ) {
+                    response.write(buffer, 0, read);
+                }
+            } finally {
+                in.close();
+            }
+        }
+        if (status >= 400) {
+            throw new IOException(method + " " + url + " answered " + status + ": " + response);
+        }
+        return new String(response.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    private static final class Client implements Runnable {
+        final LongList[] latencies = new LongList[OPERATIONS.length];
+        private final String base;
+        private final int number;
+        private final int[] patientIds;
+        private final int[] doctorIds;
+        private final long warmupEnd;
+        private final long end;
+        private final AtomicLong errors;
+        private final CountDownLatch done;
+        private final Random random;
+        private final List<Integer> booked = new ArrayList<>();
+        private int bookings;
+        
+        Client(String base, int number, int[] patientIds, int[] doctorIds, long warmupEnd, long end, AtomicLong errors, CountDownLatch done) {
+            this.base = base;
+            this.number = number;
+            this.patientIds = patientIds;
+            this.doctorIds = doctorIds;
+            this.warmupEnd = warmupEnd;
+            this.end = end;
+            this.errors = errors;
+            this.done = done;
+            this.random = new Random(number);
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                latencies[op] = new LongList();
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                long now;
+                while ((now = System.nanoTime()) < end) {
+                    int op = pick();
+                    try {
+                        perform(op);
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    long elapsed = System.nanoTime() - now;
+                    if (now >= warmupEnd) {
+                        latencies[op].add(elapsed);
+                    }
+                }
+            } finally {
+                done.countDown();
+            }
+        }
+        
+        // Mostly reads, as at a front desk: 50% lookups, 20% a doctor's day, 10% searches, 10% free slots, 10% bookings and cancellations
+        private int pick() {
+            int roll = random.nextInt(100);
+            if (roll < 50) {
+                return 0;
+            }
+            if (roll < 70) {
+                return 1;
+            }
+            if (roll < 80) {
+                return 2;
+            }
+            if (roll < 90) {
+                return 3;
+            }
+            return booked.isEmpty() || random.nextBoolean() ? 4 : 5;
+        }
+        
+        private void perform(int op) throws IOException {
+            switch (op) {
+                case 0:
+                    get(base + "/patients/" + patientIds[random.nextInt(patientIds.length)]);
+                    break;
+                case 1: {
+                    LocalDate day = FIRST_DAY.plusDays(random.nextInt(DAYS));
+                    get(base + "/appointments?doctorId=" + doctorIds[random.nextInt(doctorIds.length)] + "&from=" + day + "&to=" + day);
+                    break;
+                }
+                case 2:
+                    get(base + "/patients?limit=20&q=surname" + random.nextInt(997));
+                    break;
+                case 3:
+                    get(base + "/slots?count=5&specialization=" + SPECIALIZATIONS[random.nextInt(SPECIALIZATIONS.length)]
+                        + "&from=" + FIRST_DAY.plusDays(random.nextInt(DAYS)) + "T09:00");
+                    break;
+                case 4: {
+                    // Every client books its own run of slots well after the seeded ones, so bookings never clash
+                    LocalDateTime time = FIRST_DAY.plusYears(5 + number).atTime(0, 0).plusMinutes(30L * bookings++);
+                    String body = "{\"patientId\":" + patientIds[random.nextInt(patientIds.length)] + ",\"doctorId\":"
+                        + doctorIds[random.nextInt(doctorIds.length)] + ",\"dateTime\":\"" + time.toLocalDate() + " "
+                        + time.toLocalTime() + "\",\"notes\":\"Booked at the desk\"}";
+                    Matcher matcher = ID.matcher(exchange("POST", base + "/appointments", body));
+                    if (matcher.find()) {
+                        booked.add(Integer.parseInt(matcher.group(1)));
+                    }
+                    break;
+                }
+                default:
+                    exchange("DELETE", base + "/appointments/" + booked.remove(booked.size() - 1), null);
+                    break;
+            }
+        }
+    }
+    
+    private static final class LongList {
+        private long[] values = new long[1024];
+        private int size;
+        
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+        
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,102 @@
+import database.DatabaseManager;
+import database.TextStorage;
+import models.Patient;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares keeping patient histories on the heap with keeping them off-heap: heap and direct
+ * memory in use, the time a full collection takes, and the cost of listing patients and of
+ * showing one record. Usage: java -Xmx3g BenchmarkTextStorage [patients] [history characters]
+ */
+public class BenchmarkTextStorage {
+    private static final int BATCH = 10_000;
+    
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int length = args.length > 1 ? Integer.parseInt(args[1]) : 4_000;
+        System.out.println("Text storage benchmark: " + count + " patients, histories of ~" + length + " characters");
+        for (TextStorage storage : TextStorage.values()) {
+            run(storage, count, length);
+        }
+    }
+    
+    private static void run(TextStorage storage, int count, int length) throws InterruptedException {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+        DatabaseManager db = DatabaseManager.inMemory(storage);
+        Random random = new Random(42);
+        List<Patient> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Patient(0, "Patient " + i, 20 + i % 70, i % 2 == 0 ? "Female" : "Male", "555-" + i, i + " Main St", history(random, length)));
+            if (batch.size() == BATCH || i == count - 1) {
+                db.addPatients(batch);
+                batch = new ArrayList<>(BATCH);
+            }
+        }
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirect() - directBefore;
+        
+        long start = System.nanoTime();
+        System.gc();
+        double gcMillis = (System.nanoTime() - start) / 1e6;
+        
+        // What the patient table reads, then what the form reads for one selected record
+        start = System.nanoTime();
+        long nameChars = 0;
+        for (Patient patient : db.getAllPatients()) {
+            nameChars += patient.getName().length();
+        }
+        double listMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        int shown = 1000;
+        long historyChars = 0;
+        for (int i = 0; i < shown; i++) {
+            historyChars += db.getPatientById(1 + random.nextInt(count)).getMedicalHistory().length();
+        }
+        double showMicros = (System.nanoTime() - start) / 1e3 / shown;
+        
+        System.out.printf("%-8s heap %,8.1f MB  off-heap %,8.1f MB  full GC %,7.1f ms  list %,6.1f ms  show one %,6.1f us%n",
+            storage, heap / 1e6, direct / 1e6, gcMillis, listMillis, showMicros);
+        check("every record read", nameChars > 0 && historyChars > 0);
+        db = null;
+        usedHeap();
+    }
+    
+    private static String history(Random random, int length) {
+        StringBuilder text = new StringBuilder(length + 64);
+        while (text.length() < length) {
+            text.append(random.nextInt(28)).append("/0").append(1 + random.nextInt(9))
+                .append(": seen for follow-up, medication reviewed (").append(random.nextInt(1000)).append(" mg). ");
+        }
+        return text.toString();
+    }
+    
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static long usedDirect() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+    
+    private static void check(String name, boolean ok) {
+        if (!ok) {
+            System.out.println("FAIL " + name);
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
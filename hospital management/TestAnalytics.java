@@ -0,0 +1,153 @@
+import database.AnalyticsReport;
+import database.DatabaseManager;
+import models.Appointment;
+import models.Doctor;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class TestAnalytics {
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "COMPLETED", "CANCELLED", "NO_SHOW"};
+    
+    public static void main(String[] args) {
+        System.out.println("Testing revenue and utilization analytics...");
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(29);
+        
+        db.addDoctor(new Doctor(0, "Dr. Ada Weekday", "Neurology", "555-0101", "ada@hospital.com", "Mon-Fri 9AM-5PM", 200.0));
+        db.addDoctor(new Doctor(0, "Dr. Ben Night", "neurology ", "555-0102", "ben@hospital.com", "Sun 10PM-6AM", 90.5));
+        db.addDoctor(new Doctor(0, "Dr. Cy Unreadable", "", "555-0103", "cy@hospital.com", "whenever", 75.0));
+        db.addDoctor(new Doctor(0, "Dr. Dee Leaving", "Oncology", "555-0104", "dee@hospital.com", "Sat 9AM-1PM", 300.0));
+        List<Doctor> doctors = db.getAllDoctors();
+        
+        // Four months of bookings, some without a time, all clear of each other per doctor
+        List<Appointment> bookings = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            for (int i = 0; i < 1200; i++) {
+                LocalDateTime time = START.atTime(8, 0).plusDays(i / 10).plusMinutes(30L * (i % 10));
+                bookings.add(new Appointment(0, 1 + random.nextInt(3), doctor.getDoctorId(), i % 97 == 0 ? null : time,
+                    STATUSES[random.nextInt(STATUSES.length)], null));
+            }
+        }
+        db.addAppointments(bookings);
+        int leaving = doctors.get(doctors.size() - 1).getDoctorId();
+        db.deleteDoctor(leaving);
+        
+        LocalDate from = START.plusDays(3);
+        LocalDate to = START.plusDays(100);
+        boolean matches = true;
+        for (AnalyticsReport.Period period : AnalyticsReport.Period.values()) {
+            matches &= matchesReference(db, db.getAnalytics(from, to, period), period);
+        }
+        TestSupport.check("parallel counts match a straightforward count for every period", matches);
+        
+        AnalyticsReport weekly = db.getAnalytics(from, to, AnalyticsReport.Period.WEEK);
+        TestSupport.check("weeks start on Monday", weekly.getPeriods().get(0).equals(from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)))
+            && weekly.getPeriods().stream().allMatch(day -> day.getDayOfWeek() == DayOfWeek.MONDAY));
+        
+        AnalyticsReport.Line ada = line(weekly.getDoctorTotals(), doctors.get(doctors.size() - 4).getDoctorId());
+        long weekdays = 0;
+        long sundays = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            weekdays += day.getDayOfWeek().getValue() <= 5 ? 1 : 0;
+            sundays += day.getDayOfWeek() == DayOfWeek.SUNDAY ? 1 : 0;
+        }
+        TestSupport.check("a weekday schedule offers 16 slots a working day", ada.getSlots() == weekdays * 16 && ada.getUtilization() > 0);
+        TestSupport.check("a night shift counts on the day it starts", line(weekly.getDoctorTotals(), doctors.get(doctors.size() - 3).getDoctorId())
+            .getSlots() == sundays * 16);
+        TestSupport.check("an unreadable schedule offers no slots", line(weekly.getDoctorTotals(), doctors.get(doctors.size() - 2).getDoctorId()).getSlots() == 0);
+        AnalyticsReport.Line unknown = line(weekly.getDoctorTotals(), 0);
+        TestSupport.check("appointments of a deleted doctor are counted without revenue", unknown != null
+            && unknown.getAppointments() > 0 && unknown.getRevenue() == 0);
+        TestSupport.check("specializations group regardless of case and spacing", weekly.getSpecializationTotals().stream()
+            .filter(s -> s.getLabel().equalsIgnoreCase("neurology")).count() == 1
+            && weekly.getSpecializationTotals().stream().anyMatch(s -> s.getLabel().equals("Unspecified")));
+        TestSupport.check("rates are shares of the appointments", Math.abs(weekly.getTotal().getCancellationRate()
+            - (double) weekly.getTotal().getCancelled() / weekly.getTotal().getAppointments()) < 1e-12
+            && weekly.getTotal().getNoShows() > 0);
+        
+        // Reports are reused until appointments or doctors change
+        TestSupport.check("an unchanged store returns the cached report", db.getAnalytics(from, to, AnalyticsReport.Period.WEEK) == weekly);
+        Appointment completed = db.getAllAppointments().stream().filter(a -> "COMPLETED".equals(a.getStatus())
+            && a.getAppointmentDateTime() != null && !a.getAppointmentDateTime().toLocalDate().isBefore(from)
+            && !a.getAppointmentDateTime().toLocalDate().isAfter(to) && a.getDoctorId() == ada.getDoctorId()).findFirst().get();
+        db.updateAppointment(new Appointment(completed.getAppointmentId(), completed.getPatientId(), completed.getDoctorId(),
+            completed.getAppointmentDateTime(), "CANCELLED", completed.getNotes()));
+        AnalyticsReport changed = db.getAnalytics(from, to, AnalyticsReport.Period.WEEK);
+        TestSupport.check("an appointment change rebuilds the report", changed != weekly
+            && line(changed.getDoctorTotals(), ada.getDoctorId()).getRevenue() == ada.getRevenue() - 200.0
+            && matchesReference(db, changed, AnalyticsReport.Period.WEEK));
+        Doctor raised = db.getDoctorById(ada.getDoctorId());
+        db.updateDoctor(new Doctor(raised.getDoctorId(), raised.getName(), raised.getSpecialization(), raised.getPhone(),
+            raised.getEmail(), raised.getSchedule(), 400.0));
+        TestSupport.check("a fee change rebuilds the report", matchesReference(db, db.getAnalytics(from, to, AnalyticsReport.Period.WEEK),
+            AnalyticsReport.Period.WEEK));
+        
+        TestSupport.check("a range ending before it starts is refused", refused(() -> db.getAnalytics(to, from, AnalyticsReport.Period.DAY)));
+        TestSupport.check("ten years by day is refused, by month allowed", refused(() -> db.getAnalytics(from, from.plusYears(10), AnalyticsReport.Period.DAY))
+            && db.getAnalytics(from, from.plusYears(10), AnalyticsReport.Period.MONTH).getPeriods().size() == 121);
+        AnalyticsReport empty = db.getAnalytics(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 31), AnalyticsReport.Period.MONTH);
+        TestSupport.check("a range without appointments counts only slots", empty.getTotal().getAppointments() == 0
+            && empty.getTotal().getSlots() > 0 && empty.getTotal().getRevenue() == 0);
+        
+        System.out.println("\nRevenue and utilization analytics working correctly!");
+    }
+    
+    // Counts appointment by appointment and compares every doctor line
+    private static boolean matchesReference(DatabaseManager db, AnalyticsReport report, AnalyticsReport.Period period) {
+        Map<Integer, Doctor> doctors = new HashMap<>();
+        for (Doctor doctor : db.getAllDoctors()) {
+            doctors.put(doctor.getDoctorId(), doctor);
+        }
+        Map<String, int[]> expected = new HashMap<>();
+        for (Appointment appointment : db.getAllAppointments()) {
+            LocalDateTime time = appointment.getAppointmentDateTime();
+            if (time == null || time.toLocalDate().isBefore(report.getFrom()) || time.toLocalDate().isAfter(report.getTo())) {
+                continue;
+            }
+            LocalDate day = time.toLocalDate();
+            LocalDate start = period == AnalyticsReport.Period.DAY ? day : period == AnalyticsReport.Period.WEEK
+                ? day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) : day.withDayOfMonth(1);
+            int doctorId = doctors.containsKey(appointment.getDoctorId()) ? appointment.getDoctorId() : 0;
+            int[] counts = expected.computeIfAbsent(start + "/" + doctorId, k -> new int[4]);
+            counts[0]++;
+            counts[1] += "COMPLETED".equals(appointment.getStatus()) ? 1 : 0;
+            counts[2] += "CANCELLED".equals(appointment.getStatus()) ? 1 : 0;
+            counts[3] += "NO_SHOW".equals(appointment.getStatus()) ? 1 : 0;
+        }
+        int linesWithAppointments = 0;
+        double revenue = 0;
+        for (AnalyticsReport.Line line : report.getDoctorLines()) {
+            int[] counts = expected.getOrDefault(line.getPeriodStart() + "/" + line.getDoctorId(), new int[4]);
+            Doctor doctor = doctors.get(line.getDoctorId());
+            double fee = doctor != null ? doctor.getConsultationFee() : 0;
+            if (line.getAppointments() != counts[0] || line.getCompleted() != counts[1] || line.getCancelled() != counts[2]
+                || line.getNoShows() != counts[3] || line.getRevenue() != counts[1] * fee) {
+                return false;
+            }
+            linesWithAppointments += counts[0] > 0 ? 1 : 0;
+            revenue += line.getRevenue();
+        }
+        return linesWithAppointments == expected.size() && Math.abs(revenue - report.getTotal().getRevenue()) < 1e-6;
+    }
+    
+    private static AnalyticsReport.Line line(List<AnalyticsReport.Line> lines, int doctorId) {
+        return lines.stream().filter(l -> l.getDoctorId() == doctorId).findFirst().orElse(null);
+    }
+    
+    private static boolean refused(Runnable query) {
+        try {
+            query.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+import database.AppointmentFilter;
+import database.DatabaseManager;
+import gui.AppointmentTableModel;
+import gui.SnapshotRowSorter;
+import models.Appointment;
+import models.AppointmentView;
+import models.Doctor;
+import models.Patient;
+import javax.swing.JTable;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TestAppointmentFilter {
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED"};
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 9, 0);
+    
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("Testing appointment filters...");
+        
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(11);
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            doctors.add(new Doctor(0, "Dr. Filter " + i, "General", "555-3" + i, "f" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 100));
+        }
+        db.addDoctors(doctors);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            patients.add(new Patient(0, "Patient " + (char) ('A' + random.nextInt(26)) + i, 30, "Other", "555-" + i, "Street", ""));
+        }
+        db.addPatients(patients);
+        List<Appointment> appointments = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            appointments.add(new Appointment(0, patients.get(random.nextInt(patients.size())).getPatientId(),
+                doctors.get(random.nextInt(doctors.size())).getDoctorId(), START.plusMinutes(30L * i),
+                STATUSES[random.nextInt(STATUSES.length)], ""));
+        }
+        db.addAppointments(appointments);
+        
+        // Every combination of criteria must agree with a full scan
+        boolean allMatch = true;
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime from = random.nextBoolean() ? START.plusDays(random.nextInt(1000)) : null;
+            AppointmentFilter filter = new AppointmentFilter(
+                random.nextBoolean() ? STATUSES[random.nextInt(STATUSES.length)] : null,
+                random.nextBoolean() ? doctors.get(random.nextInt(doctors.size())).getDoctorId() : 0,
+                random.nextInt(3) == 0 ? patients.get(random.nextInt(patients.size())).getPatientId() : 0,
+                from,
+                random.nextBoolean() ? (from != null ? from : START).plusDays(random.nextInt(200)) : null);
+            allMatch &= ids(db.getAppointmentViews(filter)).equals(scan(db, filter));
+        }
+        TestSupport.check("filtered views match a full scan", allMatch);
+        TestSupport.check("unknown doctor matches nothing", db.getAppointmentViews(new AppointmentFilter(null, 9999, 0, null, null)).isEmpty());
+        TestSupport.check("unrestricted filter returns everything", db.getAppointmentViews(AppointmentFilter.ALL).size() == db.getAllAppointments().size());
+        
+        Appointment moved = appointments.get(0);
+        moved.setStatus("CANCELLED");
+        db.updateAppointment(moved);
+        TestSupport.check("filters follow updates", ids(db.getAppointmentViews(new AppointmentFilter("CANCELLED", moved.getDoctorId(), moved.getPatientId(), null, null)))
+            .contains(moved.getAppointmentId()));
+        
+        // The sorter orders by the raw date/time and by name, not by the formatted cells
+        AppointmentTableModel model = new AppointmentTableModel();
+        model.setRows(db.getAppointmentViews());
+        SnapshotRowSorter<AppointmentTableModel> sorter = new SnapshotRowSorter<>(model);
+        new JTable(model).setRowSorter(sorter); // the table forwards model changes to the sorter
+        sorter.setSortKeys(Collections.singletonList(new RowSorter.SortKey(3, SortOrder.ASCENDING)));
+        boolean ordered = true;
+        for (int row = 1; row < model.getRowCount(); row++) {
+            ordered &= !viewRow(model, sorter, row - 1).getAppointmentDateTime().isAfter(viewRow(model, sorter, row).getAppointmentDateTime());
+        }
+        TestSupport.check("sorted by date/time", ordered);
+        sorter.setSortKeys(Collections.singletonList(new RowSorter.SortKey(1, SortOrder.DESCENDING)));
+        ordered = true;
+        for (int row = 1; row < model.getRowCount(); row++) {
+            ordered &= viewRow(model, sorter, row - 1).getPatientName().compareTo(viewRow(model, sorter, row).getPatientName()) >= 0;
+        }
+        TestSupport.check("sorted by patient name", ordered);
+        model.setRows(db.getAppointmentViews(new AppointmentFilter("COMPLETED", 0, 0, null, null)));
+        ordered = sorter.getViewRowCount() == model.getRowCount();
+        for (int row = 1; row < model.getRowCount(); row++) {
+            ordered &= viewRow(model, sorter, row - 1).getPatientName().compareTo(viewRow(model, sorter, row).getPatientName()) >= 0;
+        }
+        TestSupport.check("sorter follows new rows", ordered);
+        
+        System.out.println("\nAppointment filters working correctly!");
+    }
+    
+    private static AppointmentView viewRow(AppointmentTableModel model, SnapshotRowSorter<AppointmentTableModel> sorter, int row) {
+        return model.getRow(sorter.convertRowIndexToModel(row));
+    }
+    
+    private static Set<Integer> ids(List<AppointmentView> views) {
+        Set<Integer> ids = new HashSet<>();
+        for (AppointmentView view : views) {
+            ids.add(view.getAppointmentId());
+        }
+        return ids;
+    }
+    
+    private static Set<Integer> scan(DatabaseManager db, AppointmentFilter filter) {
+        Set<Integer> ids = new HashSet<>();
+        for (Appointment appointment : db.getAllAppointments()) {
+            LocalDateTime time = appointment.getAppointmentDateTime();
+            if ((filter.getStatus() == null || filter.getStatus().equals(appointment.getStatus()))
+                    && (filter.getDoctorId() == 0 || filter.getDoctorId() == appointment.getDoctorId())
+                    && (filter.getPatientId() == 0 || filter.getPatientId() == appointment.getPatientId())
+                    && (filter.getFrom() == null || !time.isBefore(filter.getFrom()))
+                    && (filter.getTo() == null || !time.isAfter(filter.getTo()))) {
+                ids.add(appointment.getAppointmentId());
+            }
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,221 @@
+import database.BookingConflictException;
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import models.Appointment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TestAppointmentStore {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 9, 0);
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED"};
+    private static int nextSlot;
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing columnar appointment store...");
+        
+        // Every field reads back as written, including missing times and notes and statuses outside the usual three
+        DatabaseManager db = DatabaseManager.inMemory();
+        Appointment odd = new Appointment(0, 1, 2, null, "NO_SHOW", null);
+        db.addAppointment(odd);
+        Appointment stored = db.getAppointmentById(odd.getAppointmentId());
+        TestSupport.check("missing time, missing notes and unusual status round-trip", stored.getAppointmentDateTime() == null
+            && stored.getNotes() == null && stored.getStatus().equals("NO_SHOW") && stored.getPatientId() == 1 && stored.getDoctorId() == 2);
+        Appointment precise = new Appointment(0, 1, 3, MONDAY.plusDays(30).withSecond(42).withNano(7), "SCHEDULED", "Bring X-rays é中");
+        db.addAppointment(precise);
+        stored = db.getAppointmentById(precise.getAppointmentId());
+        TestSupport.check("times are kept to the minute", stored.getAppointmentDateTime().equals(MONDAY.plusDays(30)));
+        TestSupport.check("non-ASCII notes round-trip", stored.getNotes().equals("Bring X-rays é中"));
+        
+        // Editing a stored appointment changes only the copy until it is saved
+        Appointment before = db.getAppointmentById(precise.getAppointmentId());
+        Appointment edited = db.getAppointmentById(precise.getAppointmentId());
+        edited.setStatus("COMPLETED");
+        edited.setNotes("Seen");
+        TestSupport.check("setters do not write through", db.getAppointmentById(precise.getAppointmentId()).getStatus().equals("SCHEDULED")
+            && edited.getStatus().equals("COMPLETED") && edited.getPatientId() == 1);
+        db.updateAppointment(edited);
+        TestSupport.check("saved edits are stored", db.getAppointmentById(precise.getAppointmentId()).getNotes().equals("Seen")
+            && db.getAppointmentsByStatus("COMPLETED").size() == 1);
+        TestSupport.check("earlier reads keep their version", before.getStatus().equals("SCHEDULED") && before.getNotes().startsWith("Bring"));
+        
+        // Random adds, updates and deletes (enough to compact the store and its notes) against a reference map
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        for (Appointment appointment : db.getAllAppointments()) {
+            expected.put(appointment.getAppointmentId(), describe(appointment));
+        }
+        Random random = new Random(17);
+        List<Integer> ids = new ArrayList<>(expected.keySet());
+        boolean matches = true;
+        for (int i = 0; i < 20000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || ids.isEmpty()) {
+                List<Appointment> batch = new ArrayList<>();
+                for (int j = 0; j < 1 + random.nextInt(choice == 0 ? 400 : 3); j++) {
+                    batch.add(randomAppointment(random, 0));
+                }
+                db.addAppointments(batch);
+                for (Appointment appointment : batch) {
+                    expected.put(appointment.getAppointmentId(), describe(appointment));
+                    ids.add(appointment.getAppointmentId());
+                }
+            } else if (choice < 7) {
+                Appointment appointment = randomAppointment(random, ids.get(random.nextInt(ids.size())));
+                db.updateAppointment(appointment);
+                expected.put(appointment.getAppointmentId(), describe(appointment));
+            } else {
+                int id = ids.remove(random.nextInt(ids.size()));
+                db.deleteAppointment(id);
+                expected.remove(id);
+            }
+            if (i % 1000 == 0) {
+                matches &= sameAsExpected(db.getAllAppointments(), expected);
+            }
+        }
+        while (ids.size() > 50) {
+            int id = ids.remove(random.nextInt(ids.size()));
+            db.deleteAppointment(id);
+            expected.remove(id);
+        }
+        matches &= sameAsExpected(db.getAllAppointments(), expected);
+        TestSupport.check("store matches a reference map through compaction", matches);
+        
+        // A version already handed out never changes, even when later writes reuse slots it can see
+        List<Appointment> version = db.getAllAppointments();
+        List<String> described = describeAll(version);
+        db.deleteAppointment(version.get(version.size() - 1).getAppointmentId());
+        db.addAppointment(randomAppointment(random, 0));
+        db.updateAppointment(randomAppointment(random, version.get(0).getAppointmentId()));
+        TestSupport.check("old versions unchanged by later writes", describeAll(version).equals(described));
+        
+        // Queries resolve index hits against the store
+        Appointment any = db.getAllAppointments().get(0);
+        TestSupport.check("index queries return stored rows", db.getAppointmentsForPatient(any.getPatientId()).stream()
+            .anyMatch(a -> a.getAppointmentId() == any.getAppointmentId() && describe(a).equals(describe(any))));
+        
+        // Rows attached from a checkpoint read their notes from the mapping, and survive removals and edits around them
+        Path directory = Files.createTempDirectory("hms-appointment-store");
+        try {
+            DatabaseManager durable = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            List<Appointment> saved = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                saved.add(new Appointment(0, 1 + i % 2, 1 + i % 3, MONDAY.plusMinutes(30L * i),
+                    STATUSES[i % 3], i % 10 == 0 ? null : "Mapped note " + i));
+            }
+            durable.addAppointments(saved);
+            durable.close();
+            DatabaseManager reopened = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            Map<Integer, String> reference = new LinkedHashMap<>();
+            for (Appointment appointment : saved) {
+                reference.put(appointment.getAppointmentId(), describe(appointment));
+            }
+            TestSupport.check("attached rows read back", sameAsExpected(reopened.getAllAppointments(), reference));
+            for (int i = 0; i < 2800; i++) {
+                int id = saved.get(i).getAppointmentId();
+                if (i % 7 == 0) {
+                    Appointment appointment = reopened.getAppointmentById(id);
+                    appointment.setNotes("Edited " + i);
+                    reopened.updateAppointment(appointment);
+                    reference.put(id, describe(appointment));
+                } else {
+                    reopened.deleteAppointment(id);
+                    reference.remove(id);
+                }
+            }
+            TestSupport.check("attached rows survive edits, removals and compaction", sameAsExpected(reopened.getAllAppointments(), reference));
+            reopened.close();
+            DatabaseManager again = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            TestSupport.check("edits persist across a checkpoint", sameAsExpected(again.getAllAppointments(), reference));
+            
+            // A batch whose journal write fails part-way keeps what it stored and frees the slots of the rest
+            LocalDateTime later = MONDAY.plusYears(3);
+            Appointment unwritable = new Appointment(0, 1, 1, later.plusMinutes(30), "SCHEDULED", "") {
+                @Override
+                public String getNotes() {
+                    throw new IllegalStateException("cannot encode");
+                }
+            };
+            List<Appointment> batch = Arrays.asList(new Appointment(0, 1, 1, later, "SCHEDULED", ""), unwritable,
+                new Appointment(0, 1, 1, later.plusMinutes(60), "SCHEDULED", ""));
+            boolean failed = false;
+            try {
+                again.addAppointments(batch);
+            } catch (IllegalStateException e) {
+                failed = true;
+            }
+            TestSupport.check("failed batch keeps the appointments written before it failed", failed
+                && again.getAppointmentById(batch.get(0).getAppointmentId()) != null
+                && again.getAppointmentById(batch.get(2).getAppointmentId()) == null);
+            boolean freed = true;
+            try {
+                again.addAppointment(new Appointment(0, 1, 1, later.plusMinutes(30), "SCHEDULED", ""));
+                again.addAppointment(new Appointment(0, 1, 1, later.plusMinutes(60), "SCHEDULED", ""));
+            } catch (BookingConflictException e) {
+                freed = false;
+            }
+            TestSupport.check("failed batch frees the slots it did not store", freed);
+            again.close();
+            DatabaseManager last = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            TestSupport.check("journal still replays after the failed batch", last.getAppointmentsForDoctorOn(1, later.toLocalDate()).size() == 3);
+            last.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TestAppointmentStore::delete);
+            }
+        }
+        
+        System.out.println("\nColumnar appointment store working correctly!");
+    }
+    
+    // Every appointment gets a slot of its own, so random bookings never clash
+    private static Appointment randomAppointment(Random random, int id) {
+        String notes = random.nextInt(4) == 0 ? null : random.nextBoolean() ? "Follow-up" : "Note " + random.nextInt(100000);
+        return new Appointment(id, 1 + random.nextInt(2), 1 + random.nextInt(3),
+            MONDAY.plusYears(1).plusMinutes(30L * nextSlot++), STATUSES[random.nextInt(3)], notes);
+    }
+    
+    private static String describe(Appointment appointment) {
+        return appointment.getAppointmentId() + "|" + appointment.getPatientId() + "|" + appointment.getDoctorId() + "|"
+            + appointment.getAppointmentDateTime() + "|" + appointment.getStatus() + "|" + appointment.getNotes();
+    }
+    
+    private static List<String> describeAll(List<Appointment> appointments) {
+        List<String> described = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            described.add(describe(appointment));
+        }
+        return described;
+    }
+    
+    private static boolean sameAsExpected(List<Appointment> snapshot, Map<Integer, String> expected) {
+        if (snapshot.size() != expected.size()) {
+            return false;
+        }
+        int index = 0;
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Appointment appointment = snapshot.get(index++);
+            if (appointment.getAppointmentId() != entry.getKey() || !Objects.equals(describe(appointment), entry.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
\ No newline at end of file
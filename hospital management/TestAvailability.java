@@ -0,0 +1,142 @@
+import database.BookingConflictException;
+import database.DatabaseManager;
+import models.Appointment;
+import models.Doctor;
+import models.FreeSlot;
+import models.WeeklySchedule;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TestAvailability {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 0, 0);
+    
+    public static void main(String[] args) {
+        System.out.println("Testing doctor availability...");
+        
+        // Schedule parsing
+        WeeklySchedule weekdays = WeeklySchedule.parse("Mon-Fri 9AM-5PM");
+        TestSupport.check("weekday hours covered", weekdays.covers(MONDAY.plusHours(9), 30) && weekdays.covers(MONDAY.plusDays(4).plusHours(16).plusMinutes(30), 30));
+        TestSupport.check("evenings and weekends not covered", !weekdays.covers(MONDAY.plusHours(16).plusMinutes(45), 30) && !weekdays.covers(MONDAY.plusDays(5).plusHours(10), 30));
+        WeeklySchedule split = WeeklySchedule.parse("Mon, Wed 8:30AM-12PM; Sat 10am-2pm");
+        TestSupport.check("day lists and several parts", split.covers(MONDAY.plusDays(2).plusHours(8).plusMinutes(30), 30)
+            && !split.covers(MONDAY.plusDays(1).plusHours(9), 30) && split.covers(MONDAY.plusDays(5).plusHours(13).plusMinutes(30), 30));
+        WeeklySchedule overnight = WeeklySchedule.parse("Sun 10PM-6AM");
+        TestSupport.check("overnight shift wraps into Monday", overnight.covers(MONDAY.plusHours(5).plusMinutes(30), 30) && overnight.covers(MONDAY.plusDays(6).plusHours(23), 30));
+        TestSupport.check("24-hour times", WeeklySchedule.parse("Weekdays 13:00-17:30").covers(MONDAY.plusDays(3).plusHours(17), 30));
+        TestSupport.check("next slot rounds up to the grid", weekdays.nextSlot(MONDAY.plusHours(9).plusMinutes(10), 30).equals(MONDAY.plusHours(9).plusMinutes(30)));
+        TestSupport.check("next slot skips the weekend", weekdays.nextSlot(MONDAY.plusDays(4).plusHours(17), 30).equals(MONDAY.plusDays(7).plusHours(9)));
+        TestSupport.check("unparseable schedule is rejected", rejects("Whenever"));
+        TestSupport.check("bad hour is rejected", rejects("Mon-Fri 13PM-5PM"));
+        
+        DatabaseManager db = DatabaseManager.inMemory();
+        Doctor cardiologist = new Doctor(0, "Dr. Heart", "Cardiology", "555-1", "h@hospital.com", "Mon-Fri 9AM-5PM", 150);
+        Doctor cardiologist2 = new Doctor(0, "Dr. Valve", "cardiology", "555-2", "v@hospital.com", "Tue 8AM-10AM", 150);
+        db.addDoctor(cardiologist);
+        db.addDoctor(cardiologist2);
+        
+        // Conflicts
+        Appointment first = book(db, cardiologist, MONDAY.plusHours(10), "SCHEDULED");
+        TestSupport.check("overlapping booking rejected", conflicts(db, cardiologist, MONDAY.plusHours(10).plusMinutes(15)));
+        TestSupport.check("same start rejected", conflicts(db, cardiologist, MONDAY.plusHours(10)));
+        TestSupport.check("back-to-back booking allowed", book(db, cardiologist, MONDAY.plusHours(10).plusMinutes(30), "SCHEDULED") != null);
+        TestSupport.check("other doctor unaffected", book(db, cardiologist2, MONDAY.plusHours(10), "SCHEDULED") != null);
+        first.setNotes("Updated in place");
+        db.updateAppointment(first);
+        TestSupport.check("updating keeps its own slot", db.getAppointmentById(first.getAppointmentId()).getNotes().equals("Updated in place"));
+        first.setStatus("CANCELLED");
+        db.updateAppointment(first);
+        TestSupport.check("cancelling frees the slot", book(db, cardiologist, MONDAY.plusHours(10), "SCHEDULED") != null);
+        Appointment moved = book(db, cardiologist, MONDAY.plusHours(14), "SCHEDULED");
+        moved.setAppointmentDateTime(MONDAY.plusHours(10).plusMinutes(30));
+        TestSupport.check("moving onto a booked slot rejected", rejectsUpdate(db, moved));
+        TestSupport.check("rejected move keeps holding the old slot", conflicts(db, cardiologist, MONDAY.plusHours(14)));
+        
+        // Free slots: earliest first across doctors, never clashing with bookings and always within hours
+        List<FreeSlot> slots = db.findFreeSlots("Cardiology", MONDAY.plusHours(8), 6);
+        TestSupport.check("first free slot is 9:00", slots.get(0).getStart().equals(MONDAY.plusHours(9)));
+        TestSupport.check("booked time is skipped", contains(slots, cardiologist, MONDAY.plusHours(9).plusMinutes(30))
+            && !contains(slots, cardiologist, MONDAY.plusHours(10)) && !contains(slots, cardiologist, MONDAY.plusHours(10).plusMinutes(30)));
+        TestSupport.check("slots come earliest first", ordered(slots));
+        
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime time = MONDAY.plusDays(random.nextInt(30)).plusHours(8 + random.nextInt(10)).plusMinutes(15 * random.nextInt(4));
+            try {
+                book(db, random.nextBoolean() ? cardiologist : cardiologist2, time, "SCHEDULED");
+            } catch (BookingConflictException e) {
+                // expected for many random picks
+            }
+        }
+        slots = db.findFreeSlots("Cardiology", MONDAY, 200);
+        TestSupport.check("200 slots found", slots.size() == 200 && ordered(slots));
+        boolean valid = true;
+        for (FreeSlot slot : slots) {
+            valid &= WeeklySchedule.parse(slot.getDoctor().getSchedule()).covers(slot.getStart(), 30);
+            for (Appointment booked : db.getAppointmentsForDoctor(slot.getDoctor().getDoctorId())) {
+                valid &= "CANCELLED".equals(booked.getStatus())
+                    || !booked.getAppointmentDateTime().isBefore(slot.getEnd()) || !booked.getAppointmentDateTime().plusMinutes(30).isAfter(slot.getStart());
+            }
+        }
+        TestSupport.check("free slots are in hours and unbooked", valid);
+        TestSupport.check("no doctors, no slots", db.findFreeSlots("Dermatology", MONDAY, 5).isEmpty());
+        
+        System.out.println("\nDoctor availability working correctly!");
+    }
+    
+    private static Appointment book(DatabaseManager db, Doctor doctor, LocalDateTime time, String status) {
+        Appointment appointment = new Appointment(0, 1, doctor.getDoctorId(), time, status, "");
+        db.addAppointment(appointment);
+        return appointment;
+    }
+    
+    private static boolean conflicts(DatabaseManager db, Doctor doctor, LocalDateTime time) {
+        try {
+            book(db, doctor, time, "SCHEDULED");
+            return false;
+        } catch (BookingConflictException e) {
+            return true;
+        }
+    }
+    
+    private static boolean rejectsUpdate(DatabaseManager db, Appointment appointment) {
+        try {
+            db.updateAppointment(appointment);
+            return false;
+        } catch (BookingConflictException e) {
+            return true;
+        }
+    }
+    
+    private static boolean rejects(String schedule) {
+        try {
+            WeeklySchedule.parse(schedule);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+    
+    private static boolean contains(List<FreeSlot> slots, Doctor doctor, LocalDateTime start) {
+        for (FreeSlot slot : slots) {
+            if (slot.getDoctor().getDoctorId() == doctor.getDoctorId() && slot.getStart().equals(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static boolean ordered(List<FreeSlot> slots) {
+        List<LocalDateTime> starts = new ArrayList<>();
+        for (FreeSlot slot : slots) {
+            starts.add(slot.getStart());
+        }
+        for (int i = 1; i < starts.size(); i++) {
+            if (starts.get(i).isBefore(starts.get(i - 1))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+import database.BulkTransfer;
+import database.DatabaseManager;
+import database.TransferFormat;
+import database.TransferReport;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestBulkTransfer {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 9, 0);
+    
+    public static void main(String[] args) throws IOException {
+        System.out.println("Testing bulk import and export...");
+        
+        // A source store whose text needs quoting: commas, quotes, line breaks and non-ASCII
+        DatabaseManager source = DatabaseManager.inMemory();
+        source.addPatient(new Patient(0, "O'Neil, \"Rosie\"", 61, "Female", "555-0199", "12 Elm St\nApt 4", "Penicillin allergy;\r\nasthma"));
+        source.addPatient(new Patient(0, "José Álvarez", 8, "Male", "555-0200", "", ""));
+        source.addDoctor(new Doctor(0, "Dr. Nights", "Emergency", "555-0300", "n@hospital.com", "Sun 10PM-6AM", 99.5));
+        for (int i = 0; i < 5000; i++) {
+            source.addAppointment(new Appointment(0, 1 + i % 4, 1 + i % 3, MONDAY.plusMinutes(30L * i), i % 7 == 0 ? "CANCELLED" : "SCHEDULED", "Visit " + i + ", room \"B\""));
+        }
+        
+        for (TransferFormat format : TransferFormat.values()) {
+            DatabaseManager target = DatabaseManager.inMemory();
+            BulkTransfer importer = new BulkTransfer(target);
+            BulkTransfer exporter = new BulkTransfer(source);
+            TransferReport patients = importer.importRecords(BulkTransfer.Entity.PATIENTS,
+                new StringReader(export(exporter, BulkTransfer.Entity.PATIENTS, format)), format);
+            TransferReport doctors = importer.importRecords(BulkTransfer.Entity.DOCTORS,
+                new StringReader(export(exporter, BulkTransfer.Entity.DOCTORS, format)), format);
+            TransferReport appointments = importer.importRecords(BulkTransfer.Entity.APPOINTMENTS,
+                new StringReader(export(exporter, BulkTransfer.Entity.APPOINTMENTS, format)), format);
+            TestSupport.check(format + ": every record imported", patients.getTransferred() == 4 && doctors.getTransferred() == 4
+                && appointments.getTransferred() == 5000 && appointments.getRejected() == 0);
+            TestSupport.check(format + ": throughput reported", appointments.getRecordsPerSecond() > 0);
+            // Imported records get new ids after the target's sample data, so compare by content
+            TestSupport.check(format + ": quoted text survives", target.getPatientById(5).getName().equals("O'Neil, \"Rosie\"")
+                && target.getPatientById(5).getAddress().equals("12 Elm St\nApt 4")
+                && target.getPatientById(5).getMedicalHistory().equals("Penicillin allergy;\r\nasthma")
+                && target.getPatientById(6).getName().equals("José Álvarez"));
+            TestSupport.check(format + ": doctor fields survive", target.getDoctorById(7).getSchedule().equals("Sun 10PM-6AM")
+                && target.getDoctorById(7).getConsultationFee() == 99.5);
+            boolean referencesMapped = true;
+            for (Appointment original : source.getAllAppointments()) {
+                Appointment copy = target.getAppointmentById(original.getAppointmentId());
+                referencesMapped &= copy != null && copy.getNotes().equals(original.getNotes())
+                    && copy.getAppointmentDateTime().equals(original.getAppointmentDateTime())
+                    && copy.getStatus().equals(original.getStatus())
+                    && target.getPatientById(copy.getPatientId()).getName().equals(source.getPatientById(original.getPatientId()).getName())
+                    && target.getDoctorById(copy.getDoctorId()).getName().equals(source.getDoctorById(original.getDoctorId()).getName());
+            }
+            TestSupport.check(format + ": references follow the imported records", referencesMapped);
+            TestSupport.check(format + ": re-importing patients is refused", importer.importRecords(BulkTransfer.Entity.PATIENTS,
+                new StringReader(export(exporter, BulkTransfer.Entity.PATIENTS, format)), format).getTransferred() == 0);
+        }
+        
+        // Invalid rows are reported by line and skipped; the rest go in
+        DatabaseManager db = DatabaseManager.inMemory();
+        BulkTransfer transfer = new BulkTransfer(db);
+        TransferReport report = transfer.importRecords(BulkTransfer.Entity.PATIENTS, new StringReader(
+            "Name,Age,Phone,Gender,Notes\r\n"
+            + "Ann Lee,40,555-1,Female,ignored column\r\n"
+            + "\r\n"
+            + "\"Multi\nLine\",abc,555-2,Male,\r\n"
+            + ",30,555-3,Male,\r\n"
+            + "Old Timer,151,555-4,Male,\r\n"
+            + "Ben Ray,55,555-5,Male,\r\n"), TransferFormat.CSV);
+        TestSupport.check("valid rows imported", report.getTransferred() == 2 && report.getRecordsRead() == 5);
+        TestSupport.check("errors name their lines", report.getErrors().size() == 3
+            && report.getErrors().get(0).startsWith("line 4: age")
+            && report.getErrors().get(1).equals("line 6: name is required")
+            && report.getErrors().get(2).startsWith("line 7: age"));
+        TestSupport.check("missing required column refused", refuses(transfer, "name,phone\nAnn,555\n"));
+        
+        report = transfer.importRecords(BulkTransfer.Entity.APPOINTMENTS, new StringReader(
+            "{\"patientId\":1,\"doctorId\":1,\"dateTime\":\"2025-03-03 09:00\",\"notes\":\"ok\"}\n"
+            + "{\"patientId\":1,\"doctorId\":1,\"dateTime\":\"2025-03-03T09:15\"}\n"
+            + "{\"patientId\":999,\"doctorId\":1,\"dateTime\":\"2025-03-03 11:00\"}\n"
+            + "{\"patientId\":1,\"doctorId\":42,\"dateTime\":\"2025-03-03 11:00\"}\n"
+            + "{\"patientId\":2,\"doctorId\":2,\"dateTime\":\"2025-03-03 09:00\",\"status\":\"done\"}\n"
+            + "{\"patientId\":2,\"doctorId\":2,\"dateTime\":\"March 3rd\"}\n"
+            + "{\"patientId\":2,\"doctorId\":[2]}\n"
+            + "{\"patientId\":2,\"doctorId\":2,\"dateTime\":\"2025-03-03 09:00\",\"status\":\"completed\"}\n"), TransferFormat.JSONL);
+        TestSupport.check("clashes, unknown references and bad values rejected", report.getTransferred() == 2 && report.getRejected() == 6);
+        TestSupport.check("conflicting booking named", report.getErrors().get(0).startsWith("line 2: Doctor #1 already has appointment"));
+        TestSupport.check("unknown references named", report.getErrors().get(1).equals("line 3: unknown patient id 999")
+            && report.getErrors().get(2).equals("line 4: unknown doctor id 42"));
+        TestSupport.check("statuses normalized", db.getAppointmentsByStatus("COMPLETED").size() == 1
+            && db.getAppointmentsByStatus("SCHEDULED").size() == 1);
+        
+        // Batches: several thousand records across batch boundaries, with a clash in the middle
+        StringBuilder bulk = new StringBuilder("patientId,doctorId,dateTime,status\n");
+        int rows = BulkTransfer.BATCH_SIZE * 3 + 17;
+        for (int i = 0; i < rows; i++) {
+            bulk.append(i % 2 + 1).append(",3,").append(MONDAY.plusDays(1).plusMinutes(30L * (i == 4321 ? 4320 : i)).toString().replace('T', ' ')).append(",SCHEDULED\n");
+        }
+        report = transfer.importRecords(BulkTransfer.Entity.APPOINTMENTS, new StringReader(bulk.toString()), TransferFormat.CSV);
+        TestSupport.check("batched import keeps all but the clash", report.getTransferred() == rows - 1
+            && db.getAppointmentsForDoctor(3).size() == rows - 1);
+        TestSupport.check("clash reported once", report.getErrors().size() == 1 && report.getErrors().get(0).startsWith("line 4323:"));
+        List<Appointment> all = new ArrayList<>(db.getAppointmentsForDoctor(3));
+        boolean inOrder = true;
+        for (int i = 1; i < all.size(); i++) {
+            inOrder &= all.get(i).getAppointmentId() > all.get(i - 1).getAppointmentId();
+        }
+        TestSupport.check("batches inserted in file order", inOrder);
+        
+        System.out.println("\nBulk import and export working correctly!");
+    }
+    
+    private static String export(BulkTransfer transfer, BulkTransfer.Entity entity, TransferFormat format) throws IOException {
+        StringWriter out = new StringWriter();
+        transfer.exportRecords(entity, out, format);
+        return out.toString();
+    }
+    
+    private static boolean refuses(BulkTransfer transfer, String csv) throws IOException {
+        try {
+            transfer.importRecords(BulkTransfer.Entity.PATIENTS, new StringReader(csv), TransferFormat.CSV);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+import database.BulkTransfer;
+import database.ChangeEvent;
+import database.ChangeSet;
+import database.DatabaseManager;
+import database.TransferFormat;
+import gui.CoalescingListener;
+import gui.PatientTableModel;
+import gui.RecordComboModel;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import javax.swing.SwingUtilities;
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class TestChangeEvents {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 9, 0);
+    
+    public static void main(String[] args) throws Exception {
+        System.setProperty("java.awt.headless", "true");
+        System.out.println("Testing change events...");
+        
+        // Every mutation reports its entity, type and id
+        DatabaseManager db = DatabaseManager.inMemory();
+        List<ChangeEvent> events = new CopyOnWriteArrayList<>();
+        db.addChangeListener(events::addAll);
+        Patient patient = new Patient(0, "Eve Events", 40, "Female", "555-0101", "Street", "");
+        db.addPatient(patient);
+        TestSupport.check("add publishes created", last(events).getType() == ChangeEvent.Type.CREATED
+            && last(events).getEntity() == ChangeEvent.Entity.PATIENT && last(events).getId() == patient.getPatientId());
+        patient.setAge(41);
+        db.updatePatient(patient);
+        TestSupport.check("update publishes updated", last(events).getType() == ChangeEvent.Type.UPDATED && last(events).getId() == patient.getPatientId());
+        Doctor doctor = new Doctor(0, "Dr. Events", "General", "555-0102", "e@hospital.com", "Mon-Fri 9AM-5PM", 100);
+        db.addDoctor(doctor);
+        Appointment appointment = new Appointment(0, patient.getPatientId(), doctor.getDoctorId(), MONDAY, "SCHEDULED", "");
+        db.addAppointment(appointment);
+        db.deleteAppointment(appointment.getAppointmentId());
+        TestSupport.check("delete publishes deleted", last(events).getType() == ChangeEvent.Type.DELETED
+            && last(events).getEntity() == ChangeEvent.Entity.APPOINTMENT && last(events).getId() == appointment.getAppointmentId());
+        events.clear();
+        List<Patient> batch = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            batch.add(new Patient(0, "Batch " + i, 20, "Other", "555-1" + i, "", ""));
+        }
+        db.addPatients(batch);
+        TestSupport.check("batch publishes one event per record", events.size() == 50 && events.get(49).getId() == batch.get(49).getPatientId());
+        
+        // Events for one record fold into its net effect
+        ChangeSet changes = new ChangeSet();
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.CREATED, 1));
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.UPDATED, 1));
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.CREATED, 2));
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.DELETED, 2));
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.UPDATED, 3));
+        changes.add(new ChangeEvent(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.DELETED, 3));
+        TestSupport.check("created then updated stays created, created then deleted vanishes",
+            changes.getChanged(ChangeEvent.Entity.PATIENT).equals(Collections.singleton(1)) && !changes.getAll(ChangeEvent.Entity.PATIENT).contains(2));
+        TestSupport.check("updated then deleted is deleted", changes.getDeleted(ChangeEvent.Entity.PATIENT).equals(Collections.singleton(3)));
+        TestSupport.check("other entities untouched", !changes.touches(ChangeEvent.Entity.DOCTOR));
+        
+        // Applying random deltas to a table gives the same rows as reloading it
+        PatientTableModel model = new PatientTableModel();
+        model.setRows(db.getAllPatients());
+        Random random = new Random(5);
+        boolean same = true;
+        for (int round = 0; round < 20; round++) {
+            events.clear();
+            List<Patient> all = db.getAllPatients();
+            for (int i = 0; i < 1 + random.nextInt(150); i++) {
+                int choice = random.nextInt(3);
+                if (choice == 0 || all.isEmpty()) {
+                    db.addPatient(new Patient(0, "Random " + round + "-" + i, 30, "Male", "555-2" + i, "", ""));
+                } else {
+                    Patient target = all.get(random.nextInt(all.size()));
+                    if (choice == 1) {
+                        target.setName(target.getName() + "'");
+                        db.updatePatient(target);
+                    } else {
+                        db.deletePatient(target.getPatientId());
+                    }
+                }
+            }
+            ChangeSet delta = new ChangeSet();
+            delta.addAll(events);
+            model.applyChanges(delta.getChanged(ChangeEvent.Entity.PATIENT),
+                db.getPatientsByIds(delta.getChanged(ChangeEvent.Entity.PATIENT)), delta.getDeleted(ChangeEvent.Entity.PATIENT));
+            same &= rows(model).equals(names(db.getAllPatients()));
+        }
+        TestSupport.check("deltas match a full reload", same);
+        
+        // Pick lists keep their selection by id and drop it when the record is deleted
+        RecordComboModel<Patient> combo = new RecordComboModel<>(Patient::getPatientId, true);
+        combo.setAll(db.getAllPatients());
+        Patient selected = db.getAllPatients().get(3);
+        combo.setSelectedItem(selected);
+        selected.setName("Renamed");
+        db.updatePatient(selected);
+        combo.applyChanges(Collections.singleton(selected.getPatientId()), db.getPatientsByIds(Collections.singleton(selected.getPatientId())),
+            Collections.<Integer>emptySet());
+        TestSupport.check("selection follows an update", ((Patient) combo.getSelectedItem()).getName().equals("Renamed")
+            && combo.getSize() == db.getAllPatients().size() + 1 && combo.getElementAt(0) == null);
+        db.deletePatient(selected.getPatientId());
+        combo.applyChanges(Collections.<Integer>emptySet(), Collections.<Patient>emptyList(), Collections.singleton(selected.getPatientId()));
+        TestSupport.check("selection cleared on delete", combo.getSelectedItem() == null && combo.getSize() == db.getAllPatients().size() + 1);
+        
+        // A 10,000-row import reaches the UI as a handful of coalesced change sets
+        List<ChangeSet> delivered = new CopyOnWriteArrayList<>();
+        db.addChangeListener(new CoalescingListener(delivered::add));
+        StringBuilder csv = new StringBuilder("id,name,age,gender,phone,address,medicalHistory\n");
+        for (int i = 0; i < 10000; i++) {
+            csv.append(i + 1000).append(",Imported ").append(i).append(",33,Female,555-9").append(i).append(",,\n");
+        }
+        new BulkTransfer(db).importRecords(BulkTransfer.Entity.PATIENTS, new StringReader(csv.toString()), TransferFormat.CSV);
+        Thread.sleep(2 * CoalescingListener.DEFAULT_DELAY_MILLIS);
+        SwingUtilities.invokeAndWait(() -> { });
+        Set<Integer> imported = new HashSet<>();
+        for (ChangeSet set : delivered) {
+            imported.addAll(set.getChanged(ChangeEvent.Entity.PATIENT));
+        }
+        System.out.println("  10,000 imported rows delivered in " + delivered.size() + " change set(s)");
+        TestSupport.check("import coalesced", delivered.size() >= 1 && delivered.size() <= 10 && imported.size() == 10000);
+        
+        System.out.println("\nChange events working correctly!");
+    }
+    
+    private static ChangeEvent last(List<ChangeEvent> events) {
+        return events.get(events.size() - 1);
+    }
+    
+    private static List<String> rows(PatientTableModel model) {
+        List<Patient> patients = new ArrayList<>();
+        for (int row = 0; row < model.getRowCount(); row++) {
+            patients.add(model.getRow(row));
+        }
+        return names(patients);
+    }
+    
+    // Row order may differ from a reload, so compare sorted id/name pairs
+    private static List<String> names(List<Patient> patients) {
+        List<String> names = new ArrayList<>();
+        for (Patient patient : patients) {
+            names.add(patient.getPatientId() + ":" + patient.getName());
+        }
+        Collections.sort(names);
+        return names;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+import database.BookingConflictException;
+import database.DatabaseManager;
+import models.Appointment;
+import models.Patient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConcurrentDatabase {
+    private static final int WRITERS = 16;
+    private static final int RECORDS_PER_WRITER = 5000;
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing concurrent database access...");
+        
+        DatabaseManager db = DatabaseManager.getInstance();
+        int initialPatients = db.getAllPatients().size();
+        int initialAppointments = db.getAllAppointments().size();
+        
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch writersDone = new CountDownLatch(WRITERS);
+        
+        // Writers add patients and appointments, and update/delete some of their own records
+        for (int w = 0; w < WRITERS; w++) {
+            final int writer = w;
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < RECORDS_PER_WRITER; i++) {
+                        Patient patient = new Patient(0, "Writer " + writer + " #" + i, 30, "Other", "555-0000", "Stress St");
+                        db.addPatient(patient);
+                        // Every booking gets its own half-hour so none of them conflict
+                        Appointment appointment = new Appointment(0, patient.getPatientId(), 1,
+                            LocalDateTime.of(2025, 1, 1, 9, 0).plusMinutes(30L * (writer * RECORDS_PER_WRITER + i)), "SCHEDULED", "");
+                        db.addAppointment(appointment);
+                        if (i % 10 == 0) {
+                            patient.setAge(31);
+                            db.updatePatient(patient);
+                            db.deleteAppointment(appointment.getAppointmentId());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    writersDone.countDown();
+                }
+            });
+        }
+        
+        // Readers keep scanning while the writers run
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(pool.submit(() -> {
+                while (writersDone.getCount() > 0) {
+                    for (Patient p : db.getAllPatients()) {
+                        if (db.getPatientById(p.getPatientId()) == null) {
+                            throw new IllegalStateException("Patient vanished: " + p.getPatientId());
+                        }
+                    }
+                }
+            }));
+        }
+        
+        start.countDown();
+        writersDone.await();
+        for (Future<?> reader : readers) {
+            reader.get(); // rethrows anything a reader saw
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        
+        int added = WRITERS * RECORDS_PER_WRITER;
+        int deleted = WRITERS * (RECORDS_PER_WRITER / 10);
+        TestSupport.check("patient count", db.getAllPatients().size() == initialPatients + added);
+        TestSupport.check("appointment count", db.getAllAppointments().size() == initialAppointments + added - deleted);
+        TestSupport.check("unique patient ids", uniquePatientIds(db.getAllPatients()));
+        TestSupport.check("unique appointment ids", uniqueAppointmentIds(db.getAllAppointments()));
+        TestSupport.check("one winner when racing for a slot", raceForSlot(db) == 1);
+        
+        System.out.println("Patients: " + db.getAllPatients().size() + ", appointments: " + db.getAllAppointments().size());
+        System.out.println("\nConcurrent database operations working correctly!");
+    }
+    
+    // Many threads try to book the same doctor at the same time; the conflict check must let exactly one through
+    private static int raceForSlot(DatabaseManager db) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger booked = new AtomicInteger();
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int t = 0; t < WRITERS; t++) {
+            attempts.add(pool.submit(() -> {
+                start.await();
+                try {
+                    db.addAppointment(new Appointment(0, 1, 2, LocalDateTime.of(2030, 6, 3, 10, 0), "SCHEDULED", ""));
+                    booked.incrementAndGet();
+                } catch (BookingConflictException e) {
+                    // expected for all but one thread
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> attempt : attempts) {
+            attempt.get();
+        }
+        pool.shutdown();
+        return booked.get();
+    }
+    
+    private static boolean uniquePatientIds(List<Patient> patients) {
+        Set<Integer> ids = new HashSet<>();
+        for (Patient p : patients) {
+            if (!ids.add(p.getPatientId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean uniqueAppointmentIds(List<Appointment> appointments) {
+        Set<Integer> ids = new HashSet<>();
+        for (Appointment a : appointments) {
+            if (!ids.add(a.getAppointmentId())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+import database.DailySummary;
+import database.DatabaseManager;
+import models.Appointment;
+import models.Doctor;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class TestDailyTotals {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 2, 8, 0);
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED", "NO_SHOW", "completed "};
+    private static final int DAYS = 5;
+    
+    public static void main(String[] args) {
+        System.out.println("Testing incremental dashboard totals...");
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(37);
+        Set<LocalDate> days = new HashSet<>();
+        for (int day = -1; day <= DAYS; day++) {
+            days.add(START.toLocalDate().plusDays(day));
+        }
+        
+        // Totals built from the existing history match a full recount
+        for (int i = 0; i < 300; i++) {
+            add(db, appointment(random, 0));
+        }
+        TestSupport.check("totals built on first use match a recount", consistent(db, days));
+        
+        // Then every kind of write keeps them matching
+        boolean consistent = true;
+        for (int step = 0; step < 3000; step++) {
+            List<Appointment> all = db.getAllAppointments();
+            Appointment existing = all.get(random.nextInt(all.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                    add(db, appointment(random, 0));
+                    break;
+                case 1:
+                    // A status transition, leaving day and doctor alone
+                    update(db, new Appointment(existing.getAppointmentId(), existing.getPatientId(), existing.getDoctorId(),
+                        existing.getAppointmentDateTime(), STATUSES[random.nextInt(STATUSES.length)], existing.getNotes()));
+                    break;
+                case 2:
+                    // Moved to another day, doctor or patient, or out of the calendar altogether
+                    update(db, appointment(random, existing.getAppointmentId()));
+                    break;
+                case 3:
+                    db.deleteAppointment(existing.getAppointmentId());
+                    break;
+                case 4:
+                    // Re-adding an existing id replaces it
+                    add(db, appointment(random, existing.getAppointmentId()));
+                    break;
+                default:
+                    List<Appointment> batch = new ArrayList<>();
+                    for (int i = 0; i < 5; i++) {
+                        batch.add(appointment(random, random.nextBoolean() ? 0 : all.get(random.nextInt(all.size())).getAppointmentId()));
+                    }
+                    try {
+                        db.addAppointments(batch);
+                    } catch (RuntimeException e) {
+                        // a clash inside the batch adds none of it
+                    }
+                    break;
+            }
+            if (step % 50 == 0) {
+                consistent &= consistent(db, days);
+            }
+        }
+        TestSupport.check("adds, status changes, moves and deletes keep the totals exact", consistent && consistent(db, days));
+        
+        // Revenue follows the doctor's current fee; patients seen counts each patient once
+        LocalDate day = START.toLocalDate().plusDays(30);
+        Doctor doctor = db.getAllDoctors().get(0);
+        for (int i = 0; i < 3; i++) {
+            db.addAppointment(new Appointment(0, 1, doctor.getDoctorId(), day.atTime(9 + i, 0), "COMPLETED", null));
+        }
+        db.addAppointment(new Appointment(0, 2, doctor.getDoctorId(), day.atTime(14, 0), "CANCELLED", null));
+        DailySummary summary = db.getDailySummary(day);
+        TestSupport.check("a day's summary counts statuses, patients seen and revenue", summary.getCompleted() == 3 && summary.getCancelled() == 1
+            && summary.getScheduled() == 0 && summary.getPatientsSeen() == 1 && summary.getRevenue() == 3 * doctor.getConsultationFee());
+        db.updateDoctor(new Doctor(doctor.getDoctorId(), doctor.getName(), doctor.getSpecialization(), doctor.getPhone(),
+            doctor.getEmail(), doctor.getSchedule(), 10.0));
+        TestSupport.check("revenue uses the current fee", db.getDailySummary(day).getRevenue() == 30.0);
+        TestSupport.check("an empty day is all zeros", db.getDailySummary(LocalDate.of(1999, 1, 1)).getCounts().isEmpty()
+            && db.getDailySummary(LocalDate.of(1999, 1, 1)).getRevenue() == 0);
+        
+        System.out.println("\nIncremental dashboard totals working correctly!");
+    }
+    
+    // Random day, doctor, patient and status; one in ten has no time
+    private static Appointment appointment(Random random, int id) {
+        LocalDateTime time = random.nextInt(10) == 0 ? null
+            : START.plusDays(random.nextInt(DAYS)).plusMinutes(30L * random.nextInt(2000 / 30));
+        return new Appointment(id, 1 + random.nextInt(3), 1 + random.nextInt(3), time, STATUSES[random.nextInt(STATUSES.length)], null);
+    }
+    
+    // Double bookings are refused and change nothing, which the recount must agree with too
+    private static void add(DatabaseManager db, Appointment appointment) {
+        try {
+            db.addAppointment(appointment);
+        } catch (RuntimeException e) {
+            // booking conflict
+        }
+    }
+    
+    private static void update(DatabaseManager db, Appointment appointment) {
+        try {
+            db.updateAppointment(appointment);
+        } catch (RuntimeException e) {
+            // booking conflict
+        }
+    }
+    
+    // The consistency checker: recounts every appointment from scratch and compares each key
+    private static boolean consistent(DatabaseManager db, Set<LocalDate> days) {
+        Map<String, Integer> expected = new HashMap<>();
+        Map<LocalDate, Set<Integer>> seen = new HashMap<>();
+        Map<LocalDate, Double> revenue = new HashMap<>();
+        Map<Integer, Double> fees = new HashMap<>();
+        for (Doctor doctor : db.getAllDoctors()) {
+            fees.put(doctor.getDoctorId(), doctor.getConsultationFee());
+        }
+        for (Appointment appointment : db.getAllAppointments()) {
+            if (appointment.getAppointmentDateTime() == null) {
+                continue;
+            }
+            LocalDate day = appointment.getAppointmentDateTime().toLocalDate();
+            String status = appointment.getStatus().trim().toUpperCase(Locale.ROOT);
+            expected.merge(day + "/" + appointment.getDoctorId() + "/" + status, 1, Integer::sum);
+            expected.merge(day + "/0/" + status, 1, Integer::sum);
+            if (status.equals("COMPLETED")) {
+                seen.computeIfAbsent(day, d -> new HashSet<>()).add(appointment.getPatientId());
+                revenue.merge(day, fees.getOrDefault(appointment.getDoctorId(), 0.0), Double::sum);
+            }
+        }
+        for (LocalDate day : days) {
+            for (int doctorId = 0; doctorId <= 3; doctorId++) {
+                for (String status : new String[] {"SCHEDULED", "COMPLETED", "CANCELLED", "NO_SHOW"}) {
+                    if (db.countAppointments(day, doctorId, status) != expected.getOrDefault(day + "/" + doctorId + "/" + status, 0)) {
+                        return false;
+                    }
+                }
+            }
+            DailySummary summary = db.getDailySummary(day);
+            if (summary.getPatientsSeen() != seen.getOrDefault(day, new HashSet<>()).size()
+                || Math.abs(summary.getRevenue() - revenue.getOrDefault(day, 0.0)) > 1e-6) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,118 @@
+import database.CacheStats;
+import database.CachingRepository;
+import database.DatabaseManager;
+import database.EntityCache;
+import models.Appointment;
+import models.Patient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestEntityCache {
+    
+    public static void main(String[] args) {
+        System.out.println("Testing the bounded entity cache...");
+        
+        for (EntityCache.Policy policy : EntityCache.Policy.values()) {
+            // The bound holds however many records pass through
+            EntityCache<String> cache = new EntityCache<>(policy, 100);
+            for (int key = 1; key <= 10_000; key++) {
+                cache.put(key, "record " + key);
+            }
+            CacheStats stats = cache.stats();
+            TestSupport.check(policy + ": stays within its bound", stats.getSize() == 100 && stats.getEvictions() == 9_900);
+            
+            // Records read again and again outlast a scan over ten times as many read once
+            cache = new EntityCache<>(policy, 100);
+            for (int round = 0; round < 5; round++) {
+                for (int key = 1; key <= 20; key++) {
+                    cache.get(key, k -> "hot " + k);
+                }
+            }
+            for (int key = 1000; key < 2000; key++) {
+                cache.get(key, k -> "cold " + k);
+            }
+            int resident = 0;
+            for (int key = 1; key <= 20; key++) {
+                resident += cache.getIfPresent(key) != null ? 1 : 0;
+            }
+            TestSupport.check(policy + ": a scan does not push out the hot records", resident == 20);
+            
+            // Weighted: a heavy record takes the room of several light ones
+            EntityCache<String> weighted = new EntityCache<>(policy, 1_000, String::length);
+            for (int key = 1; key <= 200; key++) {
+                weighted.put(key, key % 10 == 0 ? repeat('x', 200) : repeat('y', 10));
+            }
+            TestSupport.check(policy + ": weight stays within its bound", weighted.stats().getWeight() <= 1_000);
+        }
+        
+        // Hits, misses and loads
+        EntityCache<String> cache = new EntityCache<>(EntityCache.Policy.W_TINY_LFU, 10);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, k -> { loads.incrementAndGet(); return "one"; });
+        cache.get(1, k -> { loads.incrementAndGet(); return "one"; });
+        cache.get(2, k -> { loads.incrementAndGet(); return null; });
+        cache.get(2, k -> { loads.incrementAndGet(); return null; });
+        TestSupport.check("a record is loaded once and then hit", loads.get() == 3 && cache.stats().getHits() == 1 && cache.stats().getMisses() == 3);
+        
+        // A load that overlaps a write returns what it read but leaves the write's value cached
+        String read = cache.get(3, k -> {
+            cache.put(3, "written");
+            return "stale";
+        });
+        TestSupport.check("a load overlapping a write does not replace it", read.equals("stale") && cache.getIfPresent(3).equals("written"));
+        
+        // Read-through and write-through over a store
+        DatabaseManager store = DatabaseManager.inMemory();
+        CachingRepository repository = new CachingRepository(store,
+            new EntityCache<>(EntityCache.Policy.SEGMENTED_LRU, 4),
+            new EntityCache<>(EntityCache.Policy.W_TINY_LFU, 4),
+            new EntityCache<>(EntityCache.Policy.W_TINY_LFU, 4));
+        Patient patient = new Patient(0, "Cache Patient", 40, "Female", "555-0300", "1 Cache St", "");
+        repository.addPatient(patient);
+        TestSupport.check("an add reaches the store and assigns an id", patient.getPatientId() != 0
+            && store.getPatientById(patient.getPatientId()) != null);
+        repository.getPatientById(patient.getPatientId());
+        TestSupport.check("a record just written is read from the cache", repository.getPatientStats().getHits() == 1);
+        Patient moved = new Patient(patient.getPatientId(), "Cache Patient", 40, "Female", "555-0300", "2 Moved Rd", "");
+        repository.updatePatient(moved);
+        TestSupport.check("an update reaches the store and the cache", store.getPatientById(patient.getPatientId()).getAddress().equals("2 Moved Rd")
+            && repository.getPatientById(patient.getPatientId()).getAddress().equals("2 Moved Rd"));
+        repository.deletePatient(patient.getPatientId());
+        TestSupport.check("a delete drops the cached record", repository.getPatientById(patient.getPatientId()) == null);
+        Patient zombie = new Patient(patient.getPatientId(), "Zombie", 40, "Female", "555-0300", "2 Moved Rd", "");
+        TestSupport.check("an update of a deleted record reports it", !repository.updatePatient(zombie));
+        TestSupport.check("and does not bring it back", repository.getPatientById(patient.getPatientId()) == null
+            && store.getPatientById(patient.getPatientId()) == null);
+        
+        int doctorId = store.getAllDoctors().get(0).getDoctorId();
+        Appointment first = new Appointment(0, 1, doctorId, LocalDateTime.of(2025, 6, 2, 9, 0), "SCHEDULED", null);
+        repository.addAppointment(first);
+        store.addAppointment(new Appointment(0, 2, doctorId, LocalDateTime.of(2025, 6, 2, 10, 0), "SCHEDULED", null));
+        Appointment clash = new Appointment(first.getAppointmentId(), 1, doctorId, LocalDateTime.of(2025, 6, 2, 10, 0), "SCHEDULED", null);
+        try {
+            repository.updateAppointment(clash);
+        } catch (RuntimeException e) {
+            // double booking
+        }
+        TestSupport.check("a write the store refuses leaves the cache alone",
+            repository.getAppointmentById(first.getAppointmentId()).getAppointmentDateTime().getHour() == 9);
+        
+        List<Appointment> imported = new ArrayList<>();
+        imported.add(new Appointment(first.getAppointmentId(), 1, doctorId, LocalDateTime.of(2025, 6, 3, 9, 0), "COMPLETED", null));
+        repository.addAppointments(imported);
+        TestSupport.check("a bulk insert drops the records it replaces",
+            repository.getAppointmentById(first.getAppointmentId()).getStatus().equals("COMPLETED"));
+        
+        System.out.println("\nBounded entity cache working correctly!");
+    }
+    
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
\ No newline at end of file
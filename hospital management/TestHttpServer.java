@@ -0,0 +1,167 @@
+import database.DatabaseManager;
+import database.PageRequest;
+import models.Patient;
+import server.HospitalServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class TestHttpServer {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static String base;
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing HTTP server...");
+        DatabaseManager db = DatabaseManager.inMemory();
+        try (HospitalServer server = new HospitalServer(db, 0)) {
+            server.start();
+            base = "http://localhost:" + server.getPort();
+            
+            // Patient CRUD
+            Response created = request("POST", "/patients", "{\"name\":\"Eve Adams\",\"age\":29,\"gender\":\"Female\",\"phone\":\"555-0303\","
+                + "\"address\":\"7 Cedar Ln\",\"medicalHistory\":\"Asthma \\\"mild\\\" ✓\"}");
+            int patientId = id(created.body);
+            TestSupport.check("POST creates a patient", created.status == 201 && created.location.equals("/patients/" + patientId)
+                && db.getPatientById(patientId).getName().equals("Eve Adams"));
+            Response read = request("GET", "/patients/" + patientId, null);
+            TestSupport.check("GET reads it back with escapes and non-ASCII text intact", read.status == 200
+                && read.body.contains("\"medicalHistory\":\"Asthma \\\"mild\\\" ✓\""));
+            Response updated = request("PUT", "/patients/" + patientId, "{\"name\":\"Eve Adams-Ross\",\"age\":30,\"phone\":\"555-0303\"}");
+            TestSupport.check("PUT replaces it", updated.status == 200 && db.getPatientById(patientId).getAge() == 30
+                && updated.body.contains("Eve Adams-Ross"));
+            TestSupport.check("search finds it", request("GET", "/patients?q=adams", null).body.contains("\"id\":" + patientId + ","));
+            
+            // Invalid input and unknown records
+            TestSupport.check("invalid record is 400", request("POST", "/patients", "{\"name\":\"No Age\",\"phone\":\"1\"}").status == 400);
+            TestSupport.check("malformed JSON is 400", request("POST", "/patients", "{\"name\":").status == 400);
+            TestSupport.check("unknown id is 404", request("GET", "/patients/99999", null).status == 404);
+            TestSupport.check("unknown path is 404", request("GET", "/patients/abc", null).status == 404);
+            TestSupport.check("PUT on the collection is 405", request("PUT", "/patients", "{}").status == 405);
+            TestSupport.check("bad query value is 400", request("GET", "/appointments?from=tomorrow", null).status == 400);
+            
+            // Appointments: references, double bookings and queries
+            String booking = "{\"patientId\":" + patientId + ",\"doctorId\":1,\"dateTime\":\"2031-03-03 10:00\",\"notes\":\"First visit\"}";
+            Response booked = request("POST", "/appointments", booking);
+            int appointmentId = id(booked.body);
+            TestSupport.check("POST books an appointment", booked.status == 201 && booked.body.contains("\"status\":\"SCHEDULED\""));
+            TestSupport.check("double booking is 409", request("POST", "/appointments", booking).status == 409);
+            TestSupport.check("unknown patient is 422", request("POST", "/appointments",
+                "{\"patientId\":99999,\"doctorId\":1,\"dateTime\":\"2031-03-03 11:00\"}").status == 422);
+            Response forDoctor = request("GET", "/appointments?doctorId=1&from=2031-03-03&to=2031-03-03", null);
+            TestSupport.check("appointment query by doctor and day", forDoctor.status == 200 && ids(forDoctor.body).equals(listOf(appointmentId)));
+            TestSupport.check("appointment query by status", ids(request("GET", "/appointments?status=scheduled&patientId=" + patientId, null).body)
+                .equals(listOf(appointmentId)));
+            Response slots = request("GET", "/slots?specialization=Cardiology&from=2031-03-03T10:00&count=3", null);
+            TestSupport.check("free slots skip the booking", slots.status == 200 && slots.body.contains("\"start\":\"2031-03-03 10:30\"")
+                && !slots.body.contains("\"start\":\"2031-03-03 10:00\""));
+            Response analytics = request("GET", "/analytics?from=2031-03-01&to=2031-03-31&period=week&by=specialization", null);
+            TestSupport.check("analytics count the booking by week", analytics.status == 200
+                && analytics.body.contains("{\"periodStart\":\"2031-03-03\",\"doctorId\":0,\"label\":\"Cardiology\",\"specialization\":\"Cardiology\",\"appointments\":1,"));
+            TestSupport.check("bad analytics period is 400", request("GET", "/analytics?period=year", null).status == 400);
+            TestSupport.check("too many analytics periods is 400", request("GET", "/analytics?from=2000-01-01&to=2031-12-31&period=day", null).status == 400);
+            TestSupport.check("a no-show can be recorded", request("PUT", "/appointments/" + appointmentId,
+                booking.replace("}", ",\"status\":\"no_show\"}")).status == 200);
+            TestSupport.check("and counts in the no-show rate", request("GET", "/analytics?from=2031-03-01&to=2031-03-31&period=week&by=specialization", null)
+                .body.contains("\"noShows\":1,"));
+            TestSupport.check("DELETE removes it", request("DELETE", "/appointments/" + appointmentId, null).status == 204
+                && db.getAppointmentById(appointmentId) == null);
+            TestSupport.check("DELETE of a missing record is 404", request("DELETE", "/appointments/" + appointmentId, null).status == 404);
+            
+            // A large list is streamed rather than sent with a length
+            List<Patient> many = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                many.add(new Patient(0, "Stream " + i, 40, "Male", "555-9" + i, "Somewhere", "History " + i));
+            }
+            db.addPatients(many);
+            HttpURLConnection connection = (HttpURLConnection) new URL(base + "/patients").openConnection();
+            String list = read(connection);
+            TestSupport.check("large list is chunked", "chunked".equalsIgnoreCase(connection.getHeaderField("Transfer-Encoding")));
+            TestSupport.check("large list holds every patient", list.startsWith("[") && list.trim().endsWith("]")
+                && ids(list).size() == db.getAllPatients().size());
+            
+            // Paged lists: the total and the next cursor come back as headers
+            HttpURLConnection first = (HttpURLConnection) new URL(base + "/patients?sort=name&limit=40").openConnection();
+            List<Integer> firstIds = ids(read(first));
+            String cursor = first.getHeaderField("X-Next-Cursor");
+            TestSupport.check("paged list reports the total", String.valueOf(db.getAllPatients().size()).equals(first.getHeaderField("X-Total-Count"))
+                && firstIds.size() == 40 && cursor != null);
+            List<Integer> nextIds = ids(request("GET", "/patients?sort=name&limit=40&cursor=" + cursor, null).body);
+            TestSupport.check("cursor continues where the page ended", nextIds.size() == 40 && db.getPatientsPage(
+                new PageRequest(PageRequest.Sort.NAME, false, 40, 40, null)).getItems().get(0).getPatientId() == nextIds.get(0));
+            TestSupport.check("bad sort is 400", request("GET", "/doctors?sort=fee", null).status == 400);
+            
+            TestSupport.check("DELETE removes a patient", request("DELETE", "/patients/" + patientId, null).status == 204
+                && db.getPatientById(patientId) == null);
+        }
+        
+        System.out.println("\nHTTP server working correctly!");
+    }
+    
+    private static Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(base + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Response response = new Response();
+        response.status = connection.getResponseCode();
+        response.location = connection.getHeaderField("Location");
+        response.body = read(connection);
+        return response;
+    }
+    
+    private static String read(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getResponseCode() < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in == null) {
+            return "";
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                body.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    private static int id(String body) {
+        Matcher matcher = ID.matcher(body);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+    
+    private static List<Integer> ids(String body) {
+        List<Integer> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids;
+    }
+    
+    private static List<Integer> listOf(int id) {
+        List<Integer> ids = new ArrayList<>();
+        ids.add(id);
+        return ids;
+    }
+    
+    private static class Response {
+        int status;
+        String location;
+        String body;
+    }
+}
\ No newline at end of file
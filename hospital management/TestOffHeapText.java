@@ -0,0 +1,171 @@
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import database.TextStorage;
+import models.Appointment;
+import models.Patient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TestOffHeapText {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 9, 0);
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing off-heap text storage...");
+        
+        // Histories of every size and alphabet read back as written
+        DatabaseManager db = DatabaseManager.inMemory(TextStorage.OFF_HEAP);
+        TestSupport.check("sample histories read back", db.getAllPatients().get(1).getMedicalHistory().equals("Diabetes Type 2"));
+        String longHistory = history(new Random(1), 200_000) + " Allergie: Pénicilline, 青霉素";
+        Patient patient = new Patient(0, "Carol Long", 61, "Female", "555-0199", "9 Elm St", longHistory);
+        db.addPatient(patient);
+        TestSupport.check("long non-ASCII history round-trips", db.getPatientById(patient.getPatientId()).getMedicalHistory().equals(longHistory));
+        Patient empty = new Patient(0, "Dan Null", 30, "Male", "555-0198", "1 Pine St", null);
+        db.addPatient(empty);
+        TestSupport.check("missing history round-trips", db.getPatientById(empty.getPatientId()).getMedicalHistory() == null);
+        
+        // Saving a patient keeps its history unless the history itself was set
+        Patient edited = db.getPatientById(patient.getPatientId());
+        edited.setName("Carol Longworth");
+        db.updatePatient(edited);
+        Patient saved = db.getPatientById(patient.getPatientId());
+        TestSupport.check("history kept when other fields change", saved.getName().equals("Carol Longworth") && saved.getMedicalHistory().equals(longHistory));
+        saved.setMedicalHistory("Recovered");
+        db.updatePatient(saved);
+        TestSupport.check("set history is saved", db.getPatientById(patient.getPatientId()).getMedicalHistory().equals("Recovered"));
+        TestSupport.check("search covers off-heap histories", db.searchPatients("recovered", 5).stream()
+            .anyMatch(p -> p.getPatientId() == patient.getPatientId()));
+        
+        // Enough rewritten histories to rebuild the pool; a version taken earlier still reads its own texts
+        Random random = new Random(18);
+        Map<Integer, String> expected = new HashMap<>();
+        List<Patient> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            batch.add(new Patient(0, "Patient " + i, 20 + i % 60, "Female", "555-1" + i, i + " Oak Ave", history(random, 2000)));
+        }
+        db.addPatients(batch);
+        for (Patient added : batch) {
+            expected.put(added.getPatientId(), added.getMedicalHistory());
+        }
+        List<Patient> earlier = db.getAllPatients();
+        List<String> earlierHistories = histories(earlier);
+        for (int round = 0; round < 10; round++) {
+            for (Patient added : batch) {
+                Patient update = db.getPatientById(added.getPatientId());
+                if (update == null) {
+                    continue;
+                }
+                if (random.nextInt(20) == 0) {
+                    db.deletePatient(update.getPatientId());
+                    expected.remove(update.getPatientId());
+                } else {
+                    String rewritten = random.nextInt(5) == 0 ? null : history(random, 2000);
+                    db.updatePatient(new Patient(update.getPatientId(), update.getName(), update.getAge(), update.getGender(),
+                        update.getPhone(), update.getAddress(), rewritten));
+                    expected.put(update.getPatientId(), rewritten);
+                }
+            }
+        }
+        boolean matches = true;
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            matches &= Objects.equals(db.getPatientById(entry.getKey()).getMedicalHistory(), entry.getValue());
+        }
+        TestSupport.check("histories survive rewrites and pool rebuilds", matches);
+        TestSupport.check("earlier versions keep reading their own histories", histories(earlier).equals(earlierHistories));
+        
+        // Appointment notes live off-heap too
+        Appointment appointment = new Appointment(0, 1, 1, MONDAY, "SCHEDULED", "Fasting required ✓");
+        db.addAppointment(appointment);
+        TestSupport.check("off-heap notes round-trip", db.getAppointmentById(appointment.getAppointmentId()).getNotes().equals("Fasting required ✓"));
+        
+        // Histories of a reopened store stay in the mapped snapshot until they are changed
+        Path directory = Files.createTempDirectory("hms-offheap-text");
+        try {
+            DatabaseManager durable = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            List<Patient> patients = new ArrayList<>();
+            for (int i = 0; i < 1500; i++) {
+                patients.add(new Patient(0, "Mapped " + i, 40, "Male", "555-2" + i, "2 Birch Rd", i % 9 == 0 ? null : history(random, 500)));
+            }
+            durable.addPatients(patients);
+            durable.close();
+            Map<Integer, String> reference = new HashMap<>();
+            for (Patient added : patients) {
+                reference.put(added.getPatientId(), added.getMedicalHistory());
+            }
+            DatabaseManager reopened = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER, DatabaseManager.DEFAULT_CHECKPOINT_EVERY, TextStorage.OFF_HEAP);
+            TestSupport.check("mapped histories read back", sameHistories(reopened, reference));
+            for (int i = 0; i < patients.size(); i++) {
+                int id = patients.get(i).getPatientId();
+                Patient stored = reopened.getPatientById(id);
+                if (i % 3 == 0) {
+                    reopened.deletePatient(id);
+                    reference.remove(id);
+                } else if (i % 3 == 1) {
+                    stored.setAge(41);
+                    reopened.updatePatient(stored);
+                } else {
+                    stored.setMedicalHistory("Reviewed " + i);
+                    reopened.updatePatient(stored);
+                    reference.put(id, stored.getMedicalHistory());
+                }
+            }
+            TestSupport.check("mapped and pooled histories mix through edits and removals", sameHistories(reopened, reference));
+            reopened.close();
+            DatabaseManager again = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER, DatabaseManager.DEFAULT_CHECKPOINT_EVERY, TextStorage.OFF_HEAP);
+            TestSupport.check("histories persist across a checkpoint", sameHistories(again, reference));
+            again.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TestOffHeapText::delete);
+            }
+        }
+        
+        System.out.println("\nOff-heap text storage working correctly!");
+    }
+    
+    private static String history(Random random, int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("Visit ").append(random.nextInt(100000)).append(": reviewed medication. ");
+        }
+        return text.toString();
+    }
+    
+    private static List<String> histories(List<Patient> patients) {
+        List<String> histories = new ArrayList<>();
+        for (Patient patient : patients) {
+            histories.add(patient.getMedicalHistory());
+        }
+        return histories;
+    }
+    
+    private static boolean sameHistories(DatabaseManager db, Map<Integer, String> reference) {
+        int matched = 0;
+        for (Patient patient : db.getAllPatients()) {
+            if (reference.containsKey(patient.getPatientId())) {
+                if (!Objects.equals(patient.getMedicalHistory(), reference.get(patient.getPatientId()))) {
+                    return false;
+                }
+                matched++;
+            }
+        }
+        return matched == reference.size();
+    }
+    
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+import database.AppointmentFilter;
+import database.DatabaseManager;
+import database.Page;
+import database.PageRequest;
+import models.Appointment;
+import models.AppointmentView;
+import models.Doctor;
+import models.Patient;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class TestPagination {
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 3, 3, 9, 0);
+    private static final String[] NAMES = {"alice", "Alice", "Bob", "bob", "Émile", "Zoë", "carol", "Dave", "dave", ""};
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED"};
+    
+    public static void main(String[] args) {
+        System.out.println("Testing paged queries...");
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(23);
+        
+        // Explicit ids out of insertion order, and many equal names, so only the id can break ties
+        List<Patient> added = new ArrayList<>();
+        for (int i = 0; i < 700; i++) {
+            added.add(new Patient(5000 - i * 3, NAMES[random.nextInt(NAMES.length)], 30, "Female", "555-" + i, "Street", "History"));
+        }
+        db.addPatients(added);
+        db.addPatient(new Patient(0, "Late Arrival", 40, "Male", "555-1", "Street", null));
+        
+        Comparator<Patient> byId = Comparator.comparingInt(Patient::getPatientId);
+        Comparator<Patient> byName = Comparator.comparing(Patient::getName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Patient::getName).thenComparing(byId);
+        List<Patient> all = new ArrayList<>(db.getAllPatients());
+        TestSupport.check("cursors walk every patient in id order", ids(walk(db::getPatientsPage, PageRequest.Sort.ID, false, 7),
+            Patient::getPatientId).equals(sortedIds(all, byId)));
+        TestSupport.check("cursors walk every patient in name order", ids(walk(db::getPatientsPage, PageRequest.Sort.NAME, false, 13),
+            Patient::getPatientId).equals(sortedIds(all, byName)));
+        TestSupport.check("descending name order is the reverse", ids(walk(db::getPatientsPage, PageRequest.Sort.NAME, true, 50),
+            Patient::getPatientId).equals(sortedIds(all, byName.reversed())));
+        
+        Page<Patient> deep = db.getPatientsPage(new PageRequest(PageRequest.Sort.NAME, false, 333, 20, null));
+        TestSupport.check("an offset lands on the same rows", ids(deep.getItems(), Patient::getPatientId)
+            .equals(sortedIds(all, byName).subList(333, 353)) && deep.getTotal() == all.size());
+        Page<Patient> last = db.getPatientsPage(new PageRequest(PageRequest.Sort.ID, false, all.size() - 5, 20, null));
+        TestSupport.check("the last page has no cursor", last.getItems().size() == 5 && !last.hasMore());
+        
+        // A cursor stays valid while records are added and removed around it
+        Page<Patient> page = db.getPatientsPage(new PageRequest(PageRequest.Sort.NAME, false, 100));
+        Patient boundary = page.getItems().get(99);
+        db.deletePatient(boundary.getPatientId());
+        db.addPatient(new Patient(0, "aaron", 50, "Male", "555-2", "Street", null));
+        List<Patient> rest = walk(request -> db.getPatientsPage(request.getCursor() == null ? request.after(page.getNextCursor()) : request),
+            PageRequest.Sort.NAME, false, 100);
+        List<Patient> before = new ArrayList<>(page.getItems().subList(0, 99));
+        before.addAll(rest);
+        all = new ArrayList<>(db.getAllPatients());
+        all.removeIf(p -> p.getName().equals("aaron"));
+        TestSupport.check("writes around a cursor neither repeat nor skip rows", ids(before, Patient::getPatientId).equals(sortedIds(all, byName)));
+        
+        // Renames move a record in name order
+        Patient renamed = new Patient(page.getItems().get(0).getPatientId(), "zzz Last", 30, "Male", "555-3", "Street", null);
+        db.updatePatient(renamed);
+        List<Integer> renamedOrder = ids(walk(db::getPatientsPage, PageRequest.Sort.NAME, false, 100), Patient::getPatientId);
+        TestSupport.check("a renamed patient moves to its new place", renamedOrder.equals(sortedIds(db.getAllPatients(), byName))
+            && renamedOrder.indexOf(renamed.getPatientId()) > 0);
+        
+        // Doctors page the same way
+        List<Doctor> doctors = walk(db::getDoctorsPage, PageRequest.Sort.NAME, false, 2);
+        TestSupport.check("doctors page in name order", doctors.size() == db.getAllDoctors().size()
+            && ids(doctors, Doctor::getDoctorId).equals(db.getAllDoctors().stream()
+                .sorted(Comparator.comparing(Doctor::getName, String.CASE_INSENSITIVE_ORDER).thenComparing(Doctor::getName)
+                    .thenComparingInt(Doctor::getDoctorId)).map(Doctor::getDoctorId).collect(Collectors.toList())));
+        
+        // Appointments page by date or id under any filter, and agree with the unpaged query
+        List<Appointment> bookings = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            bookings.add(new Appointment(0, 1 + random.nextInt(3), 1 + i % 3, MONDAY.plusMinutes(30L * (i / 3)),
+                STATUSES[random.nextInt(3)], null));
+        }
+        db.addAppointments(bookings);
+        AppointmentFilter[] filters = {
+            AppointmentFilter.ALL,
+            new AppointmentFilter("COMPLETED", 0, 0, null, null),
+            new AppointmentFilter("SCHEDULED", 2, 0, MONDAY.plusDays(1), MONDAY.plusDays(4)),
+            new AppointmentFilter(null, 1, 2, null, MONDAY.plusDays(2).withSecond(30)),
+            new AppointmentFilter("NO_SHOW", 0, 0, null, null),
+            new AppointmentFilter(null, 0, 0, MONDAY.plusDays(5), MONDAY.plusDays(4)),
+        };
+        boolean byDate = true;
+        boolean byAppointmentId = true;
+        boolean totals = true;
+        boolean uncounted = true;
+        for (AppointmentFilter filter : filters) {
+            List<Integer> expected = ids(db.getAppointmentViews(filter), AppointmentView::getAppointmentId);
+            if (filter.isUnrestricted()) {
+                expected = db.getAllAppointments().stream().sorted(Comparator.comparing(Appointment::getAppointmentDateTime)
+                    .thenComparingInt(Appointment::getAppointmentId)).map(Appointment::getAppointmentId).collect(Collectors.toList());
+            }
+            byDate &= ids(walk(request -> db.getAppointmentViewsPage(filter, request), PageRequest.Sort.DATE, false, 37),
+                AppointmentView::getAppointmentId).equals(expected);
+            List<Integer> sortedById = new ArrayList<>(expected);
+            sortedById.sort(Comparator.reverseOrder());
+            byAppointmentId &= ids(walk(request -> db.getAppointmentsPage(filter, request), PageRequest.Sort.ID, true, 41),
+                Appointment::getAppointmentId).equals(sortedById);
+            totals &= db.getAppointmentsPage(filter, new PageRequest(PageRequest.Sort.DATE, false, 0)).getTotal() == expected.size();
+            uncounted &= db.getAppointmentsPage(filter, new PageRequest(PageRequest.Sort.DATE, false, 10).withoutTotal())
+                .getTotal() == Page.UNCOUNTED;
+        }
+        TestSupport.check("appointment pages in date order match the filter", byDate);
+        TestSupport.check("appointment pages in id order match the filter", byAppointmentId);
+        TestSupport.check("totals count every match", totals);
+        TestSupport.check("a page asked for without its total skips the count", uncounted);
+        
+        // Orders that do not apply, and cursors that were not handed out, are refused
+        TestSupport.check("patients cannot be sorted by date", refused(() -> db.getPatientsPage(new PageRequest(PageRequest.Sort.DATE, false, 10))));
+        TestSupport.check("appointments cannot be sorted by name", refused(() -> db.getAppointmentsPage(AppointmentFilter.ALL,
+            new PageRequest(PageRequest.Sort.NAME, false, 10))));
+        TestSupport.check("a malformed cursor is refused", refused(() -> db.getAppointmentsPage(AppointmentFilter.ALL,
+            new PageRequest(PageRequest.Sort.DATE, false, 0, 10, "yesterday"))));
+        TestSupport.check("a negative limit is refused", refused(() -> new PageRequest(PageRequest.Sort.ID, false, -1)));
+        
+        System.out.println("\nPaged queries working correctly!");
+    }
+    
+    // Follows cursors from the first page to the last
+    private static <T> List<T> walk(Function<PageRequest, Page<T>> source, PageRequest.Sort sort, boolean descending, int limit) {
+        List<T> rows = new ArrayList<>();
+        PageRequest request = new PageRequest(sort, descending, limit);
+        while (true) {
+            Page<T> page = source.apply(request);
+            rows.addAll(page.getItems());
+            if (!page.hasMore()) {
+                return rows;
+            }
+            request = request.after(page.getNextCursor()).withoutTotal(); // the first page told the length
+        }
+    }
+    
+    private static <T> List<Integer> ids(List<T> records, Function<T, Integer> id) {
+        return records.stream().map(id).collect(Collectors.toList());
+    }
+    
+    private static List<Integer> sortedIds(List<Patient> patients, Comparator<Patient> order) {
+        return patients.stream().sorted(order).map(Patient::getPatientId).collect(Collectors.toList());
+    }
+    
+    private static boolean refused(Runnable query) {
+        try {
+            query.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,86 @@
+import database.DatabaseManager;
+import models.Patient;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class TestPatientSearch {
+    private static final String[] NAMES = {"Alice", "Bob", "Carol", "David", "Jonathan", "Johanna", "Smith", "Rodriguez"};
+    private static final String[] HISTORIES = {"Diabetes Type 2", "Asthma", "Hypertension", "No known allergies", "Penicillin allergy"};
+    
+    public static void main(String[] args) {
+        System.out.println("Testing patient search...");
+        
+        DatabaseManager db = DatabaseManager.inMemory();
+        Random random = new Random(7);
+        List<Patient> patients = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            patients.add(new Patient(0, NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)] + "son",
+                30, "Other", "555-" + (1000 + random.nextInt(9000)), random.nextInt(999) + " Oak Ave", HISTORIES[random.nextInt(HISTORIES.length)]));
+        }
+        db.addPatients(patients);
+        
+        // Prefix and substring matches must agree with a brute-force scan
+        for (String query : new String[] {"rodri", "jon smith", "555", "diab", "ergies", "oak 123"}) {
+            TestSupport.check("\"" + query + "\" matches a full scan", ids(db.searchPatients(query, Integer.MAX_VALUE)).equals(scan(db, query)));
+        }
+        
+        TestSupport.check("typo finds jonathan", db.searchPatients("jonahtan", 10).get(0).getName().toLowerCase().contains("jonathan"));
+        TestSupport.check("typo finds hypertension", db.searchPatients("hypertensoin", 10).get(0).getMedicalHistory().equals("Hypertension"));
+        TestSupport.check("limit is respected", db.searchPatients("oak", 25).size() == 25);
+        
+        Patient patient = patients.get(5);
+        TestSupport.check("phone digits without separators", db.searchPatients(patient.getPhone().replace("-", ""), 100).contains(patient));
+        
+        // The index follows updates and deletes
+        patient.setName("Zebedee Quux");
+        db.updatePatient(patient);
+        TestSupport.check("updated name is found", db.searchPatients("zebedee", 5).size() == 1 && db.searchPatients("quux zeb", 5).size() == 1);
+        db.deletePatient(patient.getPatientId());
+        TestSupport.check("deleted patient is gone", db.searchPatients("zebedee", 5).isEmpty());
+        TestSupport.check("added patient is found", addAndFind(db));
+        
+        // Removal from long posting lists, and words that empty out and come back
+        for (Patient oak : db.searchPatients("oak", 40)) {
+            db.deletePatient(oak.getPatientId());
+        }
+        TestSupport.check("\"oak\" after deletes matches a full scan", ids(db.searchPatients("oak", Integer.MAX_VALUE)).equals(scan(db, "oak")));
+        db.deletePatient(db.searchPatients("xanthe", 5).get(0).getPatientId());
+        TestSupport.check("a word no patient has any more finds nobody", db.searchPatients("xanthe", 5).isEmpty());
+        TestSupport.check("and is found again once it comes back", addAndFind(db) && db.searchPatients("xanthe", 5).size() == 1);
+        
+        System.out.println("\nPatient search working correctly!");
+    }
+    
+    private static boolean addAndFind(DatabaseManager db) {
+        Patient patient = new Patient(0, "Xanthe Brightwater", 41, "Female", "555-7777", "1 River Rd", "Migraine");
+        db.addPatient(patient);
+        return db.searchPatients("brightw migr", 5).contains(patient);
+    }
+    
+    private static Set<Integer> ids(List<Patient> patients) {
+        Set<Integer> ids = new HashSet<>();
+        for (Patient patient : patients) {
+            ids.add(patient.getPatientId());
+        }
+        return ids;
+    }
+    
+    // Every query word must occur somewhere in the searchable fields
+    private static Set<Integer> scan(DatabaseManager db, String query) {
+        Set<Integer> ids = new HashSet<>();
+        for (Patient patient : db.getAllPatients()) {
+            String text = (patient.getName() + " " + patient.getPhone() + " " + patient.getAddress() + " " + patient.getMedicalHistory()).toLowerCase();
+            boolean all = true;
+            for (String word : query.split(" ")) {
+                all &= text.contains(word);
+            }
+            if (all) {
+                ids.add(patient.getPatientId());
+            }
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+import database.DatabaseManager;
+import models.Appointment;
+import models.AppointmentView;
+import models.PatientTimeline;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestPatientTimeline {
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 2, 12, 0);
+    
+    public static void main(String[] args) {
+        System.out.println("Testing patient visit timelines...");
+        DatabaseManager db = DatabaseManager.inMemory();
+        int patientId = db.getAllPatients().get(0).getPatientId();
+        int otherId = db.getAllPatients().get(1).getPatientId();
+        int doctorId = db.getAllDoctors().get(0).getDoctorId();
+        int chronicDoctorId = db.getAllDoctors().get(1).getDoctorId();
+        
+        db.addAppointment(new Appointment(0, patientId, doctorId, NOW.minusDays(10), "COMPLETED", null));
+        db.addAppointment(new Appointment(0, patientId, doctorId, null, "SCHEDULED", null));
+        db.addAppointment(new Appointment(0, patientId, doctorId, NOW.plusDays(1), "CANCELLED", null));
+        db.addAppointment(new Appointment(0, patientId, doctorId, NOW.plusDays(3), "SCHEDULED", null));
+        db.addAppointment(new Appointment(0, patientId, doctorId, NOW.minusHours(1), "SCHEDULED", null));
+        db.addAppointment(new Appointment(0, otherId, doctorId, NOW.plusHours(2), "SCHEDULED", null));
+        
+        PatientTimeline timeline = db.getPatientTimeline(patientId, NOW);
+        List<AppointmentView> visits = timeline.getVisits();
+        TestSupport.check("every visit of the patient is listed, and only theirs", visits.size() == 5
+            && visits.stream().allMatch(visit -> visit.getAppointment().getPatientId() == patientId));
+        boolean newestFirst = true;
+        for (int i = 1; i < 4; i++) {
+            newestFirst &= visits.get(i - 1).getAppointmentDateTime().isAfter(visits.get(i).getAppointmentDateTime());
+        }
+        TestSupport.check("visits are newest first", newestFirst && visits.get(0).getAppointmentDateTime().equals(NOW.plusDays(3)));
+        TestSupport.check("visits without a time come last", visits.get(4).getAppointmentDateTime() == null);
+        TestSupport.check("doctor names are joined in", visits.get(0).getDoctorName().equals(db.getDoctorById(doctorId).getName()));
+        TestSupport.check("the next visit skips past and cancelled ones", timeline.getNextVisit() != null
+            && timeline.getNextVisit().getAppointmentDateTime().equals(NOW.plusDays(3)));
+        TestSupport.check("nothing ahead means no next visit", db.getPatientTimeline(patientId, NOW.plusDays(4)).getNextVisit() == null);
+        PatientTimeline unknown = db.getPatientTimeline(999_999, NOW);
+        TestSupport.check("an unknown patient has an empty timeline", unknown.getVisits().isEmpty() && unknown.getNextVisit() == null);
+        
+        // A chronic patient's long history is read from their own index bucket
+        List<Appointment> history = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            history.add(new Appointment(0, otherId, chronicDoctorId, NOW.minusDays(1).minusHours(i), "COMPLETED", null));
+        }
+        db.addAppointments(history);
+        db.getPatientTimeline(otherId, NOW);
+        long start = System.nanoTime();
+        PatientTimeline chronic = db.getPatientTimeline(otherId, NOW);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.println("  5001 visits read in " + millis + " ms");
+        TestSupport.check("a chronic patient's timeline has every visit", chronic.getVisits().size() == 5001
+            && chronic.getNextVisit().getAppointmentDateTime().equals(NOW.plusHours(2)));
+        TestSupport.check("and reads quickly", millis < 500);
+        
+        // Writes show up on the next read
+        db.updateAppointment(new Appointment(chronic.getNextVisit().getAppointmentId(), otherId, doctorId,
+            NOW.plusHours(2), "CANCELLED", null));
+        TestSupport.check("a cancelled next visit is no longer next", db.getPatientTimeline(otherId, NOW).getNextVisit() == null);
+        
+        System.out.println("\nPatient visit timelines working correctly!");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+import database.DatabaseManager;
+import database.FsyncPolicy;
+import models.Patient;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+public class TestSnapshots {
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing store snapshots...");
+        
+        // Random adds, updates and deletes (enough to force compaction) against a reference map
+        DatabaseManager db = DatabaseManager.inMemory();
+        Map<Integer, String> expected = new LinkedHashMap<>();
+        for (Patient patient : db.getAllPatients()) {
+            expected.put(patient.getPatientId(), patient.getName());
+        }
+        Random random = new Random(8);
+        List<Integer> ids = new ArrayList<>(expected.keySet());
+        boolean matches = true;
+        for (int i = 0; i < 30000; i++) {
+            int choice = random.nextInt(10);
+            if (choice < 5 || ids.isEmpty()) {
+                List<Patient> batch = new ArrayList<>();
+                for (int j = 0; j < 1 + random.nextInt(choice == 0 ? 600 : 3); j++) {
+                    batch.add(new Patient(0, "Snap " + i + "-" + j, 30, "Other", "555-" + i, "", ""));
+                }
+                db.addPatients(batch);
+                for (Patient patient : batch) {
+                    expected.put(patient.getPatientId(), patient.getName());
+                    ids.add(patient.getPatientId());
+                }
+            } else if (choice < 7) {
+                int id = ids.get(random.nextInt(ids.size()));
+                Patient patient = new Patient(id, "Updated " + i, 31, "Other", "555-" + i, "", "");
+                db.updatePatient(patient);
+                expected.put(id, patient.getName());
+            } else {
+                int id = ids.remove(random.nextInt(ids.size()));
+                db.deletePatient(id);
+                expected.remove(id);
+            }
+            if (i % 1000 == 0) {
+                matches &= sameAsExpected(db.getAllPatients(), expected);
+            }
+        }
+        matches &= sameAsExpected(db.getAllPatients(), expected);
+        // Emptying most chunks compacts the store
+        while (ids.size() > 100) {
+            int id = ids.remove(random.nextInt(ids.size()));
+            db.deletePatient(id);
+            expected.remove(id);
+        }
+        matches &= sameAsExpected(db.getAllPatients(), expected);
+        TestSupport.check("snapshots match a reference map in insertion order", matches);
+        
+        // A snapshot already handed out never changes
+        List<Patient> before = db.getAllPatients();
+        List<String> names = names(before);
+        Patient first = before.get(0);
+        db.deletePatient(first.getPatientId());
+        db.addPatient(new Patient(0, "Later", 40, "Other", "555-9", "", ""));
+        TestSupport.check("old snapshot unchanged by later writes", names(before).equals(names) && before.get(0) == first);
+        TestSupport.check("new snapshot sees the writes", db.getAllPatients().size() == before.size() && db.getAllPatients().get(0) != first);
+        TestSupport.check("listing copies nothing", db.getAllPatients() == db.getAllPatients());
+        TestSupport.check("snapshots are read-only", rejectsChange(db.getAllPatients()));
+        
+        // Readers see whole batches: pairs are always added together, so every snapshot holds an even count
+        DatabaseManager pairs = DatabaseManager.inMemory();
+        int base = pairs.getAllPatients().size();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                List<Patient> snapshot = pairs.getAllPatients();
+                int count = 0;
+                for (Iterator<Patient> it = snapshot.iterator(); it.hasNext(); it.next()) {
+                    count++;
+                }
+                if ((snapshot.size() - base) % 2 != 0 || count != snapshot.size()) {
+                    torn.set("size " + snapshot.size() + ", iterated " + count);
+                }
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            List<Patient> pair = new ArrayList<>();
+            pair.add(new Patient(0, "Left " + i, 1, "Other", "1", "", ""));
+            pair.add(new Patient(0, "Right " + i, 1, "Other", "2", "", ""));
+            pairs.addPatients(pair);
+        }
+        done.set(true);
+        reader.join();
+        TestSupport.check("concurrent readers never see half a batch" + (torn.get() != null ? " (" + torn.get() + ")" : ""), torn.get() == null);
+        
+        // Records mapped from a checkpoint load lazily, once, and stay the same object in every later version
+        Path directory = Files.createTempDirectory("hms-snapshots");
+        try {
+            DatabaseManager durable = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            List<Patient> saved = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                saved.add(new Patient(0, "Durable " + i, 50, "Other", "555-" + i, "", "History " + i));
+            }
+            durable.addPatients(saved);
+            durable.close();
+            DatabaseManager reopened = DatabaseManager.openDurable(directory, FsyncPolicy.NEVER);
+            List<Patient> mapped = reopened.getAllPatients();
+            Patient loaded = mapped.get(1000);
+            reopened.deletePatient(mapped.get(999).getPatientId()); // moves its neighbours within their chunk
+            reopened.updatePatient(new Patient(mapped.get(1001).getPatientId(), "Changed", 1, "Other", "1", "", ""));
+            TestSupport.check("lazy record keeps its identity across versions", reopened.getPatientById(loaded.getPatientId()) == loaded
+                && mapped.get(1000) == loaded && reopened.getAllPatients().contains(loaded));
+            TestSupport.check("unloaded rows still read after removals", reopened.getAllPatients().size() == mapped.size() - 1
+                && reopened.getAllPatients().get(2000).getName().equals(mapped.get(2001).getName())
+                && reopened.getPatientById(mapped.get(2500).getPatientId()).getMedicalHistory().equals(mapped.get(2500).getMedicalHistory()));
+            reopened.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(TestSnapshots::delete);
+            }
+        }
+        
+        System.out.println("\nStore snapshots working correctly!");
+    }
+    
+    private static boolean sameAsExpected(List<Patient> snapshot, Map<Integer, String> expected) {
+        if (snapshot.size() != expected.size()) {
+            return false;
+        }
+        int index = 0;
+        Iterator<Patient> iterated = snapshot.iterator();
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Patient byIndex = snapshot.get(index++);
+            Patient byIterator = iterated.next();
+            if (byIndex != byIterator || byIndex.getPatientId() != entry.getKey() || !byIndex.getName().equals(entry.getValue())) {
+                return false;
+            }
+        }
+        return !iterated.hasNext();
+    }
+    
+    private static List<String> names(List<Patient> patients) {
+        List<String> names = new ArrayList<>();
+        for (Patient patient : patients) {
+            names.add(patient.getName());
+        }
+        return names;
+    }
+    
+    private static boolean rejectsChange(List<Patient> patients) {
+        try {
+            patients.remove(0);
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return true;
+        }
+    }
+    
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,130 @@
+import database.DatabaseManager;
+import database.HospitalRepository;
+import database.RepositoryException;
+import database.SqliteRepository;
+import models.*;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TestSqliteRepository {
+    
+    public static void main(String[] args) throws Exception {
+        System.out.println("Testing SQLite repository against the in-memory store...");
+        
+        try {
+            Class.forName("org.sqlite.JDBC");
+        } catch (ClassNotFoundException e) {
+            System.out.println("SKIPPED: sqlite-jdbc driver is not on the classpath");
+            return;
+        }
+        
+        File dbFile = File.createTempFile("hospital-test", ".db");
+        dbFile.deleteOnExit();
+        try (SqliteRepository sqlite = new SqliteRepository("jdbc:sqlite:" + dbFile.getAbsolutePath())) {
+            HospitalRepository memory = DatabaseManager.getInstance();
+            List<Integer> memoryIds = runScript(memory);
+            List<Integer> sqliteIds = runScript(sqlite);
+            
+            for (int i = 0; i < memoryIds.size(); i += 3) {
+                TestSupport.check("patient #" + i, samePatient(memory.getPatientById(memoryIds.get(i)), sqlite.getPatientById(sqliteIds.get(i))));
+                TestSupport.check("doctor #" + i, sameDoctor(memory.getDoctorById(memoryIds.get(i + 1)), sqlite.getDoctorById(sqliteIds.get(i + 1))));
+                TestSupport.check("appointment #" + i, sameAppointment(memory.getAppointmentById(memoryIds.get(i + 2)), sqlite.getAppointmentById(sqliteIds.get(i + 2))));
+            }
+            
+            // Bulk insert keeps the same results as one-by-one inserts
+            List<Patient> batch = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                batch.add(new Patient(0, "Batch " + i, 20 + i % 60, "Other", "555-1" + i, "Batch Rd", ""));
+            }
+            int before = sqlite.getAllPatients().size();
+            sqlite.addPatients(batch);
+            TestSupport.check("batch insert count", sqlite.getAllPatients().size() == before + batch.size());
+            TestSupport.check("batch insert ids assigned", batch.get(999).getPatientId() != 0
+                && samePatient(batch.get(999), sqlite.getPatientById(batch.get(999).getPatientId())));
+            
+            // Rows with and without ids go in list order, and an id already stored is refused, not replaced
+            Patient explicit = new Patient(batch.get(999).getPatientId() + 10, "Explicit Id", 50, "Male", "555-2000", "Id Rd", "");
+            List<Patient> mixed = Arrays.asList(new Patient(0, "Before Explicit", 40, "Female", "555-2001", "Id Rd", ""),
+                explicit, new Patient(0, "After Explicit", 41, "Female", "555-2002", "Id Rd", ""));
+            sqlite.addPatients(mixed);
+            boolean allStored = true;
+            for (Patient patient : mixed) {
+                allStored &= samePatient(patient, sqlite.getPatientById(patient.getPatientId()));
+            }
+            TestSupport.check("mixed batch stores every row under its own id", allStored
+                && mixed.get(2).getPatientId() > explicit.getPatientId());
+            int count = sqlite.getAllPatients().size();
+            sqlite.addPatients(Arrays.asList(new Patient(batch.get(0).getPatientId(), "Replaced", 30, "Other", "555-2004", "Id Rd", "")));
+            TestSupport.check("a stored id replaces that row, as in memory", sqlite.getAllPatients().size() == count
+                && sqlite.getPatientById(batch.get(0).getPatientId()).getName().equals("Replaced"));
+            Patient rolledBack = new Patient(0, "Rolled Back", 30, "Other", "555-2003", "Id Rd", "");
+            boolean refused = false;
+            try {
+                sqlite.addPatients(Arrays.asList(rolledBack, new Patient(900000, "Own Id", 30, "Other", "555-2005", "Id Rd", ""),
+                    new Patient(0, null, 30, "Other", "555-2006", "Id Rd", "")));
+            } catch (RepositoryException e) {
+                refused = true;
+            }
+            TestSupport.check("a failed batch stores nothing and assigns no ids", refused && sqlite.getAllPatients().size() == count
+                && rolledBack.getPatientId() == 0);
+        }
+        
+        System.out.println("\nSQLite repository matches the in-memory store!");
+    }
+    
+    // Adds, updates and deletes the same records; returns the ids as [patient, doctor, appointment]*
+    private static List<Integer> runScript(HospitalRepository repo) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Patient patient = new Patient(0, "Parity Patient " + i, 30 + i, "Female", "555-020" + i, i + " Test Ln", "History " + i);
+            repo.addPatient(patient);
+            Doctor doctor = new Doctor(0, "Dr. Parity " + i, "General", "555-030" + i, "dr" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 100.0 + i);
+            repo.addDoctor(doctor);
+            Appointment appointment = new Appointment(0, patient.getPatientId(), doctor.getDoctorId(),
+                LocalDateTime.of(2025, 3, 1 + i, 10, 30), "SCHEDULED", "Note " + i);
+            repo.addAppointment(appointment);
+            ids.add(patient.getPatientId());
+            ids.add(doctor.getDoctorId());
+            ids.add(appointment.getAppointmentId());
+            
+            if (i % 2 == 0) {
+                patient.setAddress("Moved " + i);
+                repo.updatePatient(patient);
+                appointment.setStatus("COMPLETED");
+                repo.updateAppointment(appointment);
+            }
+        }
+        repo.deleteDoctor(ids.get(1 + 3 * 4));
+        repo.deleteAppointment(ids.get(2 + 3 * 3));
+        return ids;
+    }
+    
+    private static boolean samePatient(Patient a, Patient b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getName().equals(b.getName()) && a.getAge() == b.getAge() && a.getGender().equals(b.getGender())
+            && a.getPhone().equals(b.getPhone()) && a.getAddress().equals(b.getAddress())
+            && a.getMedicalHistory().equals(b.getMedicalHistory());
+    }
+    
+    private static boolean sameDoctor(Doctor a, Doctor b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getName().equals(b.getName()) && a.getSpecialization().equals(b.getSpecialization())
+            && a.getPhone().equals(b.getPhone()) && a.getEmail().equals(b.getEmail())
+            && a.getSchedule().equals(b.getSchedule()) && a.getConsultationFee() == b.getConsultationFee();
+    }
+    
+    private static boolean sameAppointment(Appointment a, Appointment b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        return a.getAppointmentDateTime().equals(b.getAppointmentDateTime()) && a.getStatus().equals(b.getStatus())
+            && a.getNotes().equals(b.getNotes());
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * Shared by the Test* programs: prints each check as it runs and stops at the first failure, so
+ * a failing run exits non-zero with the failed check as the last line.
+ */
+final class TestSupport {
+    private TestSupport() {
+    }
+    
+    static void check(String name, boolean ok) {
+        System.out.println((ok ? "PASS " : "FAIL ") + name);
+        if (!ok) {
+            System.exit(1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package benchmark;
+
+import models.Appointment;
+import models.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes through DatabaseManager. Every benchmark leaves the store as large as it found it, so
+ * the size holds over the run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class CrudBenchmark {
+    // Each booking is deleted again, so the slot stays free
+    private static final LocalDateTime UNBOOKED = Store.FIRST_DAY.plusYears(50).atTime(9, 0);
+    
+    @Benchmark
+    public void addAndDeletePatient(Store store) {
+        Patient patient = Store.newPatient(store.size);
+        store.db.addPatient(patient);
+        store.db.deletePatient(patient.getPatientId());
+    }
+    
+    @Benchmark
+    public boolean updatePatient(Store store) {
+        int i = ThreadLocalRandom.current().nextInt(store.size);
+        Patient patient = Store.newPatient(i);
+        patient.setPatientId(store.firstPatient + i);
+        return store.db.updatePatient(patient);
+    }
+    
+    @Benchmark
+    public void addUpdateDeleteAppointment(Store store) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Appointment appointment = new Appointment(0, store.firstPatient + random.nextInt(store.size),
+            store.firstDoctor + random.nextInt(Store.DOCTORS), UNBOOKED, "SCHEDULED", "Note");
+        store.db.addAppointment(appointment);
+        appointment.setStatus("COMPLETED");
+        store.db.updateAppointment(appointment);
+        store.db.deleteAppointment(appointment.getAppointmentId());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package benchmark;
+
+import database.AppointmentFilter;
+import database.Page;
+import database.PageRequest;
+import models.Appointment;
+import models.AppointmentView;
+import models.Patient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Reads by id, by doctor and patient, full-text search and one screen of a paged list. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class LookupBenchmark {
+    private static final int SEARCH_LIMIT = 500;
+    private static final int PAGE_ROWS = 50;
+    
+    /** Cursors into the middle of the name order and just past the first screen of appointments. */
+    @State(Scope.Benchmark)
+    public static class Cursors {
+        final PageRequest byName = new PageRequest(PageRequest.Sort.NAME, false, PAGE_ROWS).withoutTotal();
+        final PageRequest byDate = new PageRequest(PageRequest.Sort.DATE, false, PAGE_ROWS).withoutTotal();
+        String middleByName;
+        String secondScreenByDate;
+        
+        @Setup(Level.Trial)
+        public void find(Store store) {
+            middleByName = store.db.getPatientsPage(byName.atOffset(store.size / 2)).getNextCursor();
+            secondScreenByDate = store.db.getAppointmentViewsPage(AppointmentFilter.ALL, byDate).getNextCursor();
+        }
+    }
+    
+    @Benchmark
+    public Patient getPatientById(Store store) {
+        return store.db.getPatientById(store.firstPatient + ThreadLocalRandom.current().nextInt(store.size));
+    }
+    
+    @Benchmark
+    public Appointment getAppointmentById(Store store) {
+        return store.db.getAppointmentById(store.firstAppointment + ThreadLocalRandom.current().nextInt(store.size));
+    }
+    
+    @Benchmark
+    public List<Appointment> getAppointmentsForDoctorOn(Store store) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return store.db.getAppointmentsForDoctorOn(store.firstDoctor + random.nextInt(Store.DOCTORS),
+            Store.FIRST_DAY.plusDays(random.nextInt(Store.DAYS)));
+    }
+    
+    @Benchmark
+    public List<Appointment> getAppointmentsForPatient(Store store) {
+        return store.db.getAppointmentsForPatient(store.firstPatient + ThreadLocalRandom.current().nextInt(store.size));
+    }
+    
+    @Benchmark
+    public List<Patient> searchPatientsPrefix(Store store) {
+        return store.db.searchPatients("patient " + ThreadLocalRandom.current().nextInt(store.size / 10 + 1), SEARCH_LIMIT);
+    }
+    
+    @Benchmark
+    public List<Patient> searchPatientsFuzzy(Store store) {
+        return store.db.searchPatients("histroy " + ThreadLocalRandom.current().nextInt(store.size), SEARCH_LIMIT);
+    }
+    
+    @Benchmark
+    public Page<Patient> getPatientsPageByNameCursor(Store store, Cursors cursors) {
+        return store.db.getPatientsPage(cursors.byName.after(cursors.middleByName));
+    }
+    
+    @Benchmark
+    public Page<AppointmentView> getAppointmentViewsPageNextScreen(Store store, Cursors cursors) {
+        return store.db.getAppointmentViewsPage(AppointmentFilter.ALL, cursors.byDate.after(cursors.secondScreenByDate));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package benchmark;
+
+import database.AppointmentFilter;
+import gui.AppointmentTableModel;
+import gui.DoctorTableModel;
+import gui.PatientTableModel;
+import gui.SnapshotTableModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The row building behind each panel's refreshTable: load the rows into the table model, then
+ * read every cell as the table would when painting them all.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.awt.headless=true"})
+public class RowBuildingBenchmark {
+    
+    /** One set of table models per thread, as each panel owns its own. */
+    @State(Scope.Thread)
+    public static class Models {
+        final PatientTableModel patients = new PatientTableModel();
+        final DoctorTableModel doctors = new DoctorTableModel();
+        final AppointmentTableModel appointments = new AppointmentTableModel();
+    }
+    
+    @Benchmark
+    public void patientRows(Store store, Models models, Blackhole sink) {
+        models.patients.setRows(store.db.getAllPatients());
+        readAllCells(models.patients, sink);
+    }
+    
+    @Benchmark
+    public void doctorRows(Store store, Models models, Blackhole sink) {
+        models.doctors.setRows(store.db.getAllDoctors());
+        readAllCells(models.doctors, sink);
+    }
+    
+    @Benchmark
+    public void appointmentRows(Store store, Models models, Blackhole sink) {
+        models.appointments.setRows(store.db.getAppointmentViews());
+        readAllCells(models.appointments, sink);
+    }
+    
+    @Benchmark
+    public void filteredAppointmentRows(Store store, Models models, Blackhole sink) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime from = Store.FIRST_DAY.plusDays(random.nextInt(Store.DAYS - 30)).atStartOfDay();
+        models.appointments.setRows(store.db.getAppointmentViews(new AppointmentFilter(
+            "COMPLETED", store.firstDoctor + random.nextInt(Store.DOCTORS), 0, from, from.plusDays(30))));
+        readAllCells(models.appointments, sink);
+    }
+    
+    private static void readAllCells(SnapshotTableModel<?> model, Blackhole sink) {
+        for (int row = 0; row < model.getRowCount(); row++) {
+            for (int column = 0; column < model.getColumnCount(); column++) {
+                sink.consume(model.getValueAt(row, column));
+            }
+        }
+    }
+}
\ No newline at end of file
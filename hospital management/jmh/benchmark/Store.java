@@ -0,0 +1,77 @@
+package benchmark;
+
+import database.DatabaseManager;
+import database.PageRequest;
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A store filled as BenchmarkDatabase fills it: 50 doctors over seven specialties, and as many
+ * patients and appointments as the size, the appointments spread over the half-hour slots of a
+ * year so no doctor is double-booked. Built once per trial, with the lazy indexes the lookups
+ * read already built, so no benchmark pays for building one.
+ */
+@State(Scope.Benchmark)
+public class Store {
+    static final int DOCTORS = 50;
+    static final int DAYS = 365;
+    static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+    private static final String[] STATUSES = {"SCHEDULED", "COMPLETED", "CANCELLED"};
+    private static final int SLOTS_PER_DAY = 16;
+    
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+    
+    DatabaseManager db;
+    int firstPatient;
+    int firstDoctor;
+    int firstAppointment;
+    
+    @Setup(Level.Trial)
+    public void populate() {
+        db = DatabaseManager.inMemory();
+        List<Doctor> doctors = new ArrayList<>();
+        for (int i = 0; i < DOCTORS; i++) {
+            doctors.add(new Doctor(0, "Dr. Bench " + i, "Specialty " + i % 7, "555-2" + i, "bench" + i + "@hospital.com", "Mon-Fri 9AM-5PM", 100 + i));
+        }
+        db.addDoctors(doctors);
+        List<Patient> patients = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            patients.add(newPatient(i));
+        }
+        db.addPatients(patients);
+        List<Appointment> appointments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            appointments.add(newAppointment(patients.get(i).getPatientId(), doctors.get(i % DOCTORS).getDoctorId(), i / DOCTORS));
+        }
+        db.addAppointments(appointments);
+        firstPatient = patients.get(0).getPatientId();
+        firstDoctor = doctors.get(0).getDoctorId();
+        firstAppointment = appointments.get(0).getAppointmentId();
+        
+        db.searchPatients("warmup", 1);
+        db.getPatientsPage(new PageRequest(PageRequest.Sort.NAME, false, 1));
+        db.getDailySummary(FIRST_DAY);
+    }
+    
+    static Patient newPatient(int i) {
+        return new Patient(0, "Patient " + i, 20 + i % 70, i % 2 == 0 ? "Female" : "Male", "555-" + i, i + " Bench St", "History " + i);
+    }
+    
+    // The doctor's i-th booking: spread over the days of a year, then over the half-hour slots of each day
+    private static Appointment newAppointment(int patientId, int doctorId, int i) {
+        int day = i % DAYS + i / (DAYS * SLOTS_PER_DAY) * DAYS;
+        LocalDateTime dateTime = FIRST_DAY.plusDays(day).atTime(9, 0).plusMinutes(30 * (i / DAYS % SLOTS_PER_DAY));
+        return new Appointment(0, patientId, doctorId, dateTime, STATUSES[i % STATUSES.length], "Note " + i);
+    }
+}
\ No newline at end of file
@@ -8,7 +8,7 @@ echo         Enhanced GUI Edition
 echo ========================================
 echo.
 echo Compiling application...
-javac src/models/*.java src/database/*.java src/gui/*.java src/*.java
+javac src/models/*.java src/database/*.java src/gui/*.java src/server/*.java src/*.java
 
 if %errorlevel% equ 0 (
     echo ✓ Compilation successful!
@@ -1,8 +1,17 @@
 import gui.MainFrame;
+import server.HospitalServer;
 import javax.swing.*;
+import java.io.IOException;
+import java.util.Arrays;
 
 public class HospitalManagementApp {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        // Headless mode: serve the store over HTTP instead of opening the window
+        if (args.length > 0 && args[0].equals("--server")) {
+            HospitalServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
         // Use default look and feel
         
         // Create and show the main frame
@@ -0,0 +1,139 @@
+package database;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Revenue and utilization over a date range, per doctor and per specialization, broken down by
+ * day, week or month. Revenue is the doctor's consultation fee for every completed appointment.
+ * Utilization compares the appointments that hold time (all but cancelled ones) with the
+ * 30-minute slots the doctor's weekly schedule offers, so bookings outside working hours can push
+ * it above 1. Weeks start on Monday; a week or month cut by the range counts only its days inside it.
+ */
+public final class AnalyticsReport {
+    public enum Period { DAY, WEEK, MONTH }
+    
+    private final LocalDate from;
+    private final LocalDate to;
+    private final Period period;
+    private final List<LocalDate> periods;
+    private final List<Line> doctorLines;
+    private final List<Line> specializationLines;
+    private final List<Line> doctorTotals;
+    private final List<Line> specializationTotals;
+    private final Line total;
+    
+    AnalyticsReport(LocalDate from, LocalDate to, Period period, List<LocalDate> periods,
+                    List<Line> doctorLines, List<Line> specializationLines,
+                    List<Line> doctorTotals, List<Line> specializationTotals, Line total) {
+        this.from = from;
+        this.to = to;
+        this.period = period;
+        this.periods = Collections.unmodifiableList(periods);
+        this.doctorLines = Collections.unmodifiableList(doctorLines);
+        this.specializationLines = Collections.unmodifiableList(specializationLines);
+        this.doctorTotals = Collections.unmodifiableList(doctorTotals);
+        this.specializationTotals = Collections.unmodifiableList(specializationTotals);
+        this.total = total;
+    }
+    
+    public LocalDate getFrom() { return from; }
+    
+    /** The last day of the range, inclusive. */
+    public LocalDate getTo() { return to; }
+    
+    public Period getPeriod() { return period; }
+    
+    /** The first day of each period, in order; the first may fall before {@link #getFrom}. */
+    public List<LocalDate> getPeriods() { return periods; }
+    
+    /** One line per period and doctor, for doctors with working hours or appointments in that period. */
+    public List<Line> getDoctorLines() { return doctorLines; }
+    
+    /** One line per period and specialization, summing the doctor lines. */
+    public List<Line> getSpecializationLines() { return specializationLines; }
+    
+    /** One line per doctor over the whole range. */
+    public List<Line> getDoctorTotals() { return doctorTotals; }
+    
+    public List<Line> getSpecializationTotals() { return specializationTotals; }
+    
+    public Line getTotal() { return total; }
+    
+    /**
+     * Figures for one doctor or specialization, in one period or over the whole range.
+     * Appointments of doctors no longer on file are kept under doctor id 0, with no fee or schedule.
+     */
+    public static final class Line {
+        private final LocalDate periodStart;
+        private final int doctorId;
+        private final String label;
+        private final String specialization;
+        private int appointments;
+        private int completed;
+        private int cancelled;
+        private int noShows;
+        private long slots;
+        private double revenue;
+        
+        Line(LocalDate periodStart, int doctorId, String label, String specialization) {
+            this.periodStart = periodStart;
+            this.doctorId = doctorId;
+            this.label = label;
+            this.specialization = specialization;
+        }
+        
+        // Only while the report is built
+        void add(int appointments, int completed, int cancelled, int noShows, long slots, double revenue) {
+            this.appointments += appointments;
+            this.completed += completed;
+            this.cancelled += cancelled;
+            this.noShows += noShows;
+            this.slots += slots;
+            this.revenue += revenue;
+        }
+        
+        void add(Line other) {
+            add(other.appointments, other.completed, other.cancelled, other.noShows, other.slots, other.revenue);
+        }
+        
+        /** The first day of the period, or null for a line covering the whole range. */
+        public LocalDate getPeriodStart() { return periodStart; }
+        
+        /** The doctor's id, or 0 on a specialization line. */
+        public int getDoctorId() { return doctorId; }
+        
+        /** The doctor's name, or the specialization on a specialization line. */
+        public String getLabel() { return label; }
+        
+        public String getSpecialization() { return specialization; }
+        
+        public int getAppointments() { return appointments; }
+        
+        public int getCompleted() { return completed; }
+        
+        public int getCancelled() { return cancelled; }
+        
+        public int getNoShows() { return noShows; }
+        
+        /** Slots the schedules offered in the period. */
+        public long getSlots() { return slots; }
+        
+        public double getRevenue() { return revenue; }
+        
+        public double getCancellationRate() {
+            return appointments == 0 ? 0 : (double) cancelled / appointments;
+        }
+        
+        /** Share of the appointments marked NO_SHOW; a past appointment still SCHEDULED is not counted. */
+        public double getNoShowRate() {
+            return appointments == 0 ? 0 : (double) noShows / appointments;
+        }
+        
+        /** Appointments holding time per slot offered; 0 when no slots were offered. */
+        public double getUtilization() {
+            return slots == 0 ? 0 : (double) (appointments - cancelled) / slots;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,336 @@
+package database;
+
+import models.Appointment;
+import models.Doctor;
+import models.WeeklySchedule;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Builds {@link AnalyticsReport}s from the published versions of the appointment and doctor
+ * stores, without taking any lock.
+ *
+ * Appointments are counted straight from the time, doctor and status columns of the store's
+ * chunks, never materialized: the chunks are split into a few ranges per core, each range is
+ * tallied into its own array of counters by period, doctor and outcome on the common fork-join
+ * pool, and the arrays are summed. A report covers at most {@link #MAX_PERIODS} periods, and the
+ * ranges are made larger when needed to keep all the arrays within {@link #MAX_COUNTERS}. Fees and schedules are applied to the summed counters, once per
+ * doctor and period. Reports are cached per range and period along with the versions they were
+ * built from, so any committed change to appointments or doctors makes the next request rebuild.
+ */
+class AppointmentAnalytics {
+    private static final int CACHED_REPORTS = 32;
+    /** Most periods one report covers: over two and a half years by day, and decades by month. */
+    static final int MAX_PERIODS = 1000;
+    // Most counters the tasks of one report hold at once, 64 MB
+    private static final long MAX_COUNTERS = 16L << 20;
+    private static final int MIN_CHUNKS_PER_TASK = 16;
+    private static final int TASKS_PER_CORE = 4;
+    private static final long MINUTES_PER_DAY = 24 * 60;
+    // Counters kept per period and doctor
+    private static final int BOOKED = 0;
+    private static final int COMPLETED = 1;
+    private static final int CANCELLED = 2;
+    private static final int NO_SHOW = 3;
+    private static final int KINDS = 4;
+    
+    private final AppointmentStore appointments;
+    private final IndexedStore<Doctor> doctors;
+    private final Map<Key, Cached> cache = new LinkedHashMap<Key, Cached>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+            return size() > CACHED_REPORTS;
+        }
+    };
+    
+    AppointmentAnalytics(AppointmentStore appointments, IndexedStore<Doctor> doctors) {
+        this.appointments = appointments;
+        this.doctors = doctors;
+    }
+    
+    AnalyticsReport report(LocalDate from, LocalDate to, AnalyticsReport.Period period) {
+        if (from == null || to == null || period == null) {
+            throw new IllegalArgumentException("from, to and period must be given");
+        }
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("The range ends (" + to + ") before it starts (" + from + ")");
+        }
+        long periods = periodCount(from, to, period);
+        if (periods > MAX_PERIODS) {
+            throw new IllegalArgumentException("The range spans " + periods + " " + period.name().toLowerCase(Locale.ROOT)
+                + "s; at most " + MAX_PERIODS + " fit in one report");
+        }
+        ChunkedStore.Snapshot<Appointment, AppointmentStore.Columns> appointmentVersion = appointments.snapshot();
+        List<Doctor> doctorVersion = doctors.snapshot();
+        Key key = new Key(from, to, period);
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null && cached.appointments == appointmentVersion && cached.doctors == doctorVersion) {
+                return cached.report;
+            }
+        }
+        AnalyticsReport report = build(appointmentVersion, doctorVersion, from, to, period);
+        synchronized (cache) {
+            cache.put(key, new Cached(appointmentVersion, doctorVersion, report));
+        }
+        return report;
+    }
+    
+    private static AnalyticsReport build(ChunkedStore.Snapshot<Appointment, AppointmentStore.Columns> appointments,
+                                         List<Doctor> doctors, LocalDate from, LocalDate to, AnalyticsReport.Period period) {
+        int days = (int) (to.toEpochDay() - from.toEpochDay() + 1);
+        List<LocalDate> periods = new ArrayList<>();
+        int[] periodOfDay = new int[days];
+        for (int day = 0; day < days; day++) {
+            LocalDate start = periodStart(from.plusDays(day), period);
+            if (periods.isEmpty() || !periods.get(periods.size() - 1).equals(start)) {
+                periods.add(start);
+            }
+            periodOfDay[day] = periods.size() - 1;
+        }
+        
+        // One column per doctor on file, and a last one for appointments of doctors no longer on file
+        int width = doctors.size() + 1;
+        IntIntHashMap columns = new IntIntHashMap(doctors.size());
+        for (int i = 0; i < doctors.size(); i++) {
+            columns.put(doctors.get(i).getDoctorId(), i);
+        }
+        AppointmentStore.Reader reader = (AppointmentStore.Reader) appointments.reader();
+        byte[] kinds = new byte[reader.statusCount()];
+        for (int code = 0; code < kinds.length; code++) {
+            kinds[code] = (byte) outcome(reader.status((byte) code));
+        }
+        Layout layout = new Layout(from.toEpochDay() * MINUTES_PER_DAY, periodOfDay, periods.size(), width, columns, kinds);
+        Tally tally = new Tally(appointments, 0, appointments.chunkCount(), chunksPerTask(appointments.chunkCount(), layout.size), layout);
+        int[] counts = ForkJoinPool.commonPool().invoke(tally);
+        
+        // Fees and slots apply once per doctor and period
+        long[][] slotsPerPeriod = new long[doctors.size()][periods.size()];
+        for (int i = 0; i < doctors.size(); i++) {
+            int[] slotsPerDay = schedule(doctors.get(i).getSchedule()).slotsPerDay(AvailabilityIndex.SLOT_MINUTES);
+            for (int day = 0; day < days; day++) {
+                slotsPerPeriod[i][periodOfDay[day]] += slotsPerDay[from.plusDays(day).getDayOfWeek().getValue() - 1];
+            }
+        }
+        List<AnalyticsReport.Line> doctorLines = new ArrayList<>();
+        Map<Integer, AnalyticsReport.Line> doctorTotals = new LinkedHashMap<>();
+        List<AnalyticsReport.Line> specializationLines = new ArrayList<>();
+        Map<String, AnalyticsReport.Line> specializationTotals = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        AnalyticsReport.Line total = new AnalyticsReport.Line(null, 0, "All doctors", null);
+        for (int p = 0; p < periods.size(); p++) {
+            Map<String, AnalyticsReport.Line> inPeriod = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (int column = 0; column < width; column++) {
+                Doctor doctor = column < doctors.size() ? doctors.get(column) : null;
+                int base = (p * width + column) * KINDS;
+                long slots = doctor != null ? slotsPerPeriod[column][p] : 0;
+                if (counts[base + BOOKED] == 0 && slots == 0) {
+                    continue;
+                }
+                int doctorId = doctor != null ? doctor.getDoctorId() : 0;
+                String name = doctor != null ? doctor.getName() : "Unknown doctor";
+                String specialization = doctor != null ? specialization(doctor) : "Unknown";
+                double fee = doctor != null ? doctor.getConsultationFee() : 0;
+                AnalyticsReport.Line line = new AnalyticsReport.Line(periods.get(p), doctorId, name, specialization);
+                line.add(counts[base + BOOKED], counts[base + COMPLETED], counts[base + CANCELLED],
+                    counts[base + NO_SHOW], slots, counts[base + COMPLETED] * fee);
+                doctorLines.add(line);
+                doctorTotals.computeIfAbsent(doctorId,
+                    k -> new AnalyticsReport.Line(null, doctorId, name, specialization)).add(line);
+                inPeriod.computeIfAbsent(specialization,
+                    k -> new AnalyticsReport.Line(line.getPeriodStart(), 0, specialization, specialization)).add(line);
+                specializationTotals.computeIfAbsent(specialization,
+                    k -> new AnalyticsReport.Line(null, 0, specialization, specialization)).add(line);
+                total.add(line);
+            }
+            specializationLines.addAll(inPeriod.values());
+        }
+        return new AnalyticsReport(from, to, period, periods, doctorLines, specializationLines,
+            new ArrayList<>(doctorTotals.values()), new ArrayList<>(specializationTotals.values()), total);
+    }
+    
+    private static LocalDate periodStart(LocalDate date, AnalyticsReport.Period period) {
+        switch (period) {
+            case WEEK:
+                return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH:
+                return date.withDayOfMonth(1);
+            default:
+                return date;
+        }
+    }
+    
+    private static long periodCount(LocalDate from, LocalDate to, AnalyticsReport.Period period) {
+        switch (period) {
+            case WEEK:
+                return ChronoUnit.WEEKS.between(periodStart(from, period), periodStart(to, period)) + 1;
+            case MONTH:
+                return ChronoUnit.MONTHS.between(periodStart(from, period), periodStart(to, period)) + 1;
+            default:
+                return ChronoUnit.DAYS.between(from, to) + 1;
+        }
+    }
+    
+    // Enough tasks to keep every core busy while uneven ranges finish, each still worth forking,
+    // but no more than the counter arrays of a wide report leave room for
+    private static int chunksPerTask(int chunkCount, int countersPerTask) {
+        long tasks = Math.min(ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_CORE, Math.max(1, MAX_COUNTERS / countersPerTask));
+        return (int) Math.max(MIN_CHUNKS_PER_TASK, (chunkCount + tasks - 1) / tasks);
+    }
+    
+    private static int outcome(String status) {
+        if (status == null) {
+            return BOOKED;
+        }
+        switch (status.trim().toUpperCase(Locale.ROOT)) {
+            case "COMPLETED":
+                return COMPLETED;
+            case "CANCELLED":
+                return CANCELLED;
+            case "NO_SHOW":
+            case "NO-SHOW":
+            case "NOSHOW":
+                return NO_SHOW;
+            default:
+                return BOOKED;
+        }
+    }
+    
+    private static String specialization(Doctor doctor) {
+        String specialization = doctor.getSpecialization();
+        return specialization == null || specialization.trim().isEmpty() ? "Unspecified" : specialization.trim();
+    }
+    
+    // Unparseable schedules offer no slots, as in slot search
+    private static WeeklySchedule schedule(String text) {
+        try {
+            return WeeklySchedule.parse(text);
+        } catch (IllegalArgumentException e) {
+            return WeeklySchedule.NONE;
+        }
+    }
+    
+    /** Where each appointment's counters go; shared read-only by every task of one report. */
+    private static final class Layout {
+        final long firstMinute;
+        final long endMinute;
+        final int[] periodOfDay;
+        final int width;
+        final int size;
+        final IntIntHashMap columns;
+        final byte[] kinds;
+        
+        Layout(long firstMinute, int[] periodOfDay, int periods, int width, IntIntHashMap columns, byte[] kinds) {
+            this.firstMinute = firstMinute;
+            this.endMinute = firstMinute + periodOfDay.length * MINUTES_PER_DAY;
+            this.periodOfDay = periodOfDay;
+            this.width = width;
+            this.size = periods * width * KINDS;
+            this.columns = columns;
+            this.kinds = kinds;
+        }
+    }
+    
+    /** Counts the appointments of a range of chunks, splitting it in two while it is large. */
+    private static final class Tally extends RecursiveTask<int[]> {
+        private final ChunkedStore.Snapshot<Appointment, AppointmentStore.Columns> appointments;
+        private final int firstChunk;
+        private final int endChunk;
+        private final int chunksPerTask;
+        private final Layout layout;
+        
+        Tally(ChunkedStore.Snapshot<Appointment, AppointmentStore.Columns> appointments,
+              int firstChunk, int endChunk, int chunksPerTask, Layout layout) {
+            this.appointments = appointments;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+            this.chunksPerTask = chunksPerTask;
+            this.layout = layout;
+        }
+        
+        @Override
+        protected int[] compute() {
+            if (endChunk - firstChunk > chunksPerTask) {
+                int middle = (firstChunk + endChunk) >>> 1;
+                Tally left = new Tally(appointments, firstChunk, middle, chunksPerTask, layout);
+                left.fork();
+                int[] counts = new Tally(appointments, middle, endChunk, chunksPerTask, layout).compute();
+                int[] leftCounts = left.join();
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += leftCounts[i];
+                }
+                return counts;
+            }
+            int[] counts = new int[layout.size];
+            int unknown = layout.width - 1;
+            for (int chunk = firstChunk; chunk < endChunk; chunk++) {
+                AppointmentStore.Columns columns = appointments.chunkAt(chunk);
+                long[] minutes = columns.minutes;
+                int[] doctorIds = columns.doctorIds;
+                byte[] statuses = columns.statuses;
+                for (int row = 0, length = columns.length; row < length; row++) {
+                    long minute = minutes[row];
+                    if (minute < layout.firstMinute || minute >= layout.endMinute) {
+                        continue; // also skips appointments without a time
+                    }
+                    int period = layout.periodOfDay[(int) ((minute - layout.firstMinute) / MINUTES_PER_DAY)];
+                    int base = (period * layout.width + layout.columns.get(doctorIds[row], unknown)) * KINDS;
+                    counts[base + BOOKED]++;
+                    int kind = layout.kinds[statuses[row] & 0xFF];
+                    if (kind != BOOKED) {
+                        counts[base + kind]++;
+                    }
+                }
+            }
+            return counts;
+        }
+    }
+    
+    private static final class Key {
+        final LocalDate from;
+        final LocalDate to;
+        final AnalyticsReport.Period period;
+        
+        Key(LocalDate from, LocalDate to, AnalyticsReport.Period period) {
+            this.from = from;
+            this.to = to;
+            this.period = period;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return from.equals(other.from) && to.equals(other.to) && period == other.period;
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(from, to, period);
+        }
+    }
+    
+    private static final class Cached {
+        final Object appointments;
+        final Object doctors;
+        final AnalyticsReport report;
+        
+        Cached(Object appointments, Object doctors, AnalyticsReport report) {
+            this.appointments = appointments;
+            this.doctors = doctors;
+            this.report = report;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package database;
+
+import models.Appointment;
+import java.time.LocalDateTime;
+
+/**
+ * Criteria for listing appointments. A null status or date bound, or an id of 0,
+ * leaves that criterion open; every criterion that is set must match.
+ */
+public final class AppointmentFilter {
+    public static final AppointmentFilter ALL = new AppointmentFilter(null, 0, 0, null, null);
+    
+    private final String status;
+    private final int doctorId;
+    private final int patientId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    
+    public AppointmentFilter(String status, int doctorId, int patientId, LocalDateTime from, LocalDateTime to) {
+        this.status = status;
+        this.doctorId = doctorId;
+        this.patientId = patientId;
+        this.from = from;
+        this.to = to;
+    }
+    
+    public String getStatus() { return status; }
+    
+    public int getDoctorId() { return doctorId; }
+    
+    public int getPatientId() { return patientId; }
+    
+    public LocalDateTime getFrom() { return from; }
+    
+    public LocalDateTime getTo() { return to; }
+    
+    /** Whether the appointment meets every criterion; used to place a changed appointment without re-querying. */
+    public boolean matches(Appointment appointment) {
+        LocalDateTime time = appointment.getAppointmentDateTime();
+        return (status == null || status.equals(appointment.getStatus()))
+            && (doctorId == 0 || doctorId == appointment.getDoctorId())
+            && (patientId == 0 || patientId == appointment.getPatientId())
+            && (from == null || (time != null && !time.isBefore(from)))
+            && (to == null || (time != null && !time.isAfter(to)));
+    }
+    
+    public boolean isUnrestricted() {
+        return status == null && doctorId == 0 && patientId == 0 && from == null && to == null;
+    }
+}
\ No newline at end of file
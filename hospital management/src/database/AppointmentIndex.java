@@ -0,0 +1,305 @@
+package database;
+
+import models.Appointment;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+
+/**
+ * Secondary indexes over appointments: by doctor, by patient, by status and by time.
+ * Every index is time-ordered, so range queries cost O(log n + k); the ids are also kept
+ * in order, for paging through appointments by id.
+ * The key values each appointment was indexed under are remembered, so an
+ * appointment can be unindexed correctly even if the caller mutated it in place.
+ * The indexes hold keys only; the appointments a query returns are read from the store.
+ */
+class AppointmentIndex {
+    private final IntFunction<Appointment> store;
+    private final Map<Integer, NavigableSet<TimeKey>> byDoctor = new HashMap<>();
+    private final Map<Integer, NavigableSet<TimeKey>> byPatient = new HashMap<>();
+    private final Map<String, NavigableSet<TimeKey>> byStatus = new HashMap<>();
+    private final NavigableSet<TimeKey> byTime = new TreeSet<>();
+    private final NavigableSet<Integer> byId = new TreeSet<>();
+    private final Map<Integer, IndexedKeys> indexedKeys = new HashMap<>();
+    
+    /** Creates an index that looks appointments up by id in the given store, under the owner's lock. */
+    AppointmentIndex(IntFunction<Appointment> store) {
+        this.store = store;
+    }
+    
+    public void add(Appointment appointment) {
+        IndexedKeys keys = new IndexedKeys(appointment);
+        indexedKeys.put(appointment.getAppointmentId(), keys);
+        bucket(byDoctor, keys.doctorId).add(keys.time);
+        bucket(byPatient, keys.patientId).add(keys.time);
+        bucket(byStatus, keys.status).add(keys.time);
+        byTime.add(keys.time);
+        byId.add(appointment.getAppointmentId());
+    }
+    
+    public void remove(int appointmentId) {
+        IndexedKeys keys = indexedKeys.remove(appointmentId);
+        if (keys == null) {
+            return;
+        }
+        unbucket(byDoctor, keys.doctorId, keys.time);
+        unbucket(byPatient, keys.patientId, keys.time);
+        unbucket(byStatus, keys.status, keys.time);
+        byTime.remove(keys.time);
+        byId.remove(appointmentId);
+    }
+    
+    public void update(Appointment appointment) {
+        remove(appointment.getAppointmentId());
+        add(appointment);
+    }
+    
+    public List<Appointment> forDoctor(int doctorId, LocalDateTime from, LocalDateTime to) {
+        return range(byDoctor.get(doctorId), from, to);
+    }
+    
+    public List<Appointment> forPatient(int patientId, LocalDateTime from, LocalDateTime to) {
+        return range(byPatient.get(patientId), from, to);
+    }
+    
+    /** The patient's appointments newest first, those without a time last. */
+    public List<Appointment> forPatientNewestFirst(int patientId) {
+        NavigableSet<TimeKey> bucket = byPatient.get(patientId);
+        return bucket == null ? new ArrayList<>() : range(bucket.descendingSet(), null, null);
+    }
+    
+    /** The patient's first appointment at or after {@code from} that is not cancelled, or null. */
+    public Appointment nextForPatient(int patientId, LocalDateTime from) {
+        for (TimeKey key : window(byPatient.get(patientId), from, null)) {
+            if (!"CANCELLED".equals(AppointmentTotals.normalize(indexedKeys.get(key.appointmentId).status))) {
+                return store.apply(key.appointmentId);
+            }
+        }
+        return null;
+    }
+    
+    public List<Appointment> withStatus(String status, LocalDateTime from, LocalDateTime to) {
+        return range(byStatus.get(status), from, to);
+    }
+    
+    public List<Appointment> between(LocalDateTime from, LocalDateTime to) {
+        return range(byTime, from, to);
+    }
+    
+    /**
+     * Returns the appointments matching every criterion of the filter, in time order.
+     * Candidates come from the smallest bucket the filter names (patient, doctor or status),
+     * narrowed to the date range by the bucket's own ordering; the remaining criteria are
+     * checked against the indexed keys of each candidate only.
+     */
+    public List<Appointment> matching(AppointmentFilter filter) {
+        List<Appointment> result = new ArrayList<>();
+        for (TimeKey key : window(candidates(filter), filter.getFrom(), filter.getTo())) {
+            if (matches(indexedKeys.get(key.appointmentId), filter)) {
+                result.add(store.apply(key.appointmentId));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns one page of the appointments matching the filter, in time or id order, with the number
+     * of matches in all. Time order walks the same candidates as {@link #matching}; id order walks
+     * every id and checks each against the filter. Counting the matches visits keys only, and is
+     * free for an unrestricted list; otherwise it walks every match, so a request made
+     * {@link PageRequest#withoutTotal without the total} skips it.
+     */
+    public Page<Appointment> page(AppointmentFilter filter, PageRequest request) {
+        String cursor = request.getCursor();
+        // With at most one of status, doctor and patient set, every candidate in the time window matches
+        boolean exact = (filter.getStatus() != null ? 1 : 0) + (filter.getDoctorId() != 0 ? 1 : 0)
+            + (filter.getPatientId() != 0 ? 1 : 0) <= 1;
+        switch (request.getSort()) {
+            case DATE: {
+                NavigableSet<TimeKey> window = window(candidates(filter), filter.getFrom(), filter.getTo());
+                Predicate<TimeKey> accept = exact ? null : key -> matches(indexedKeys.get(key.appointmentId), filter);
+                return Page.collect(window, cursor != null ? TimeKey.parse(cursor) : null, request, count(window, accept, request),
+                    accept, key -> store.apply(key.appointmentId), TimeKey::toCursor);
+            }
+            case ID: {
+                Predicate<Integer> accept = filter.isUnrestricted() ? null : id -> {
+                    IndexedKeys keys = indexedKeys.get(id);
+                    return matches(keys, filter) && inWindow(keys.time, filter.getFrom(), filter.getTo());
+                };
+                return Page.collect(byId, cursor != null ? OrderIndex.parseId(cursor) : null, request, count(byId, accept, request),
+                    accept, store::apply, String::valueOf);
+            }
+            default:
+                throw new IllegalArgumentException("Appointments can be sorted by id or date, not " + request.getSort());
+        }
+    }
+    
+    // The smallest bucket the filter names, or null if one of them is empty
+    private NavigableSet<TimeKey> candidates(AppointmentFilter filter) {
+        NavigableSet<TimeKey> candidates = byTime;
+        if (filter.getStatus() != null) {
+            candidates = smaller(candidates, byStatus.get(filter.getStatus()));
+        }
+        if (filter.getDoctorId() != 0) {
+            candidates = smaller(candidates, byDoctor.get(filter.getDoctorId()));
+        }
+        if (filter.getPatientId() != 0) {
+            candidates = smaller(candidates, byPatient.get(filter.getPatientId()));
+        }
+        return candidates;
+    }
+    
+    // A subset view counts its size by walking it, so only an unfiltered full index is counted for free
+    private static <K> int count(NavigableSet<K> keys, Predicate<K> accept, PageRequest request) {
+        if (!request.isCounted()) {
+            return Page.UNCOUNTED;
+        }
+        if (accept == null) {
+            return keys.size();
+        }
+        int count = 0;
+        for (K key : keys) {
+            if (accept.test(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    public int countWithStatus(String status) {
+        NavigableSet<TimeKey> bucket = byStatus.get(status);
+        return bucket == null ? 0 : bucket.size();
+    }
+    
+    private List<Appointment> range(NavigableSet<TimeKey> index, LocalDateTime from, LocalDateTime to) {
+        NavigableSet<TimeKey> view = window(index, from, to);
+        List<Appointment> result = new ArrayList<>(view.size());
+        for (TimeKey key : view) {
+            result.add(store.apply(key.appointmentId));
+        }
+        return result;
+    }
+    
+    // A null bound means "unbounded" on that side
+    private static NavigableSet<TimeKey> window(NavigableSet<TimeKey> index, LocalDateTime from, LocalDateTime to) {
+        if (index == null || (from != null && to != null && from.isAfter(to))) {
+            return Collections.emptyNavigableSet();
+        }
+        TimeKey lowest = from != null ? TimeKey.lowest(from) : null;
+        TimeKey highest = to != null ? TimeKey.highest(to) : null;
+        if (lowest != null && highest != null) {
+            return lowest.compareTo(highest) > 0 ? Collections.emptyNavigableSet() : index.subSet(lowest, true, highest, true);
+        } else if (lowest != null) {
+            return index.tailSet(lowest, true);
+        } else if (highest != null) {
+            return index.headSet(highest, true);
+        }
+        return index;
+    }
+    
+    private static boolean inWindow(TimeKey time, LocalDateTime from, LocalDateTime to) {
+        return (from == null || time.compareTo(TimeKey.lowest(from)) >= 0)
+            && (to == null || time.compareTo(TimeKey.highest(to)) <= 0);
+    }
+    
+    // A missing bucket means no appointment has that key, which is the smallest candidate set of all
+    private static NavigableSet<TimeKey> smaller(NavigableSet<TimeKey> current, NavigableSet<TimeKey> bucket) {
+        if (bucket == null) {
+            return null;
+        }
+        return current == null || current.size() <= bucket.size() ? current : bucket;
+    }
+    
+    private static boolean matches(IndexedKeys keys, AppointmentFilter filter) {
+        return (filter.getStatus() == null || filter.getStatus().equals(keys.status))
+            && (filter.getDoctorId() == 0 || filter.getDoctorId() == keys.doctorId)
+            && (filter.getPatientId() == 0 || filter.getPatientId() == keys.patientId);
+    }
+    
+    private static <K> NavigableSet<TimeKey> bucket(Map<K, NavigableSet<TimeKey>> index, K key) {
+        return index.computeIfAbsent(key, k -> new TreeSet<>());
+    }
+    
+    private static <K> void unbucket(Map<K, NavigableSet<TimeKey>> index, K key, TimeKey time) {
+        NavigableSet<TimeKey> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(time);
+            if (bucket.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Orders appointments by start minute (as the store keeps it; no time sorts first), breaking
+     * ties by id so equal times never collide.
+     */
+    static final class TimeKey implements Comparable<TimeKey> {
+        final long minute;
+        final int appointmentId;
+        
+        TimeKey(long minute, int appointmentId) {
+            this.minute = minute;
+            this.appointmentId = appointmentId;
+        }
+        
+        // Stored times are whole minutes, so a bound inside a minute excludes that minute's start from below
+        static TimeKey lowest(LocalDateTime dateTime) {
+            long minute = AppointmentStore.minuteOf(dateTime);
+            boolean whole = dateTime.getSecond() == 0 && dateTime.getNano() == 0;
+            return new TimeKey(whole ? minute : minute + 1, Integer.MIN_VALUE);
+        }
+        
+        static TimeKey highest(LocalDateTime dateTime) {
+            return new TimeKey(AppointmentStore.minuteOf(dateTime), Integer.MAX_VALUE);
+        }
+        
+        String toCursor() {
+            return minute + ":" + appointmentId;
+        }
+        
+        static TimeKey parse(String cursor) {
+            int colon = cursor.indexOf(':');
+            try {
+                return new TimeKey(Long.parseLong(cursor.substring(0, colon)), Integer.parseInt(cursor.substring(colon + 1)));
+            } catch (RuntimeException e) {
+                throw Page.badCursor(cursor);
+            }
+        }
+        
+        @Override
+        public int compareTo(TimeKey other) {
+            int c = Long.compare(minute, other.minute);
+            return c != 0 ? c : Integer.compare(appointmentId, other.appointmentId);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TimeKey)) {
+                return false;
+            }
+            TimeKey other = (TimeKey) o;
+            return appointmentId == other.appointmentId && minute == other.minute;
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(minute) + appointmentId;
+        }
+    }
+    
+    private static final class IndexedKeys {
+        final int doctorId;
+        final int patientId;
+        final String status;
+        final TimeKey time;
+        
+        IndexedKeys(Appointment appointment) {
+            doctorId = appointment.getDoctorId();
+            patientId = appointment.getPatientId();
+            status = appointment.getStatus() != null ? appointment.getStatus() : "";
+            time = new TimeKey(AppointmentStore.minuteOf(appointment.getAppointmentDateTime()), appointment.getAppointmentId());
+        }
+    }
+}
\ No newline at end of file
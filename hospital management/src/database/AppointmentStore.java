@@ -0,0 +1,324 @@
+package database;
+
+import models.Appointment;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * The appointment store, kept column by column so a long history costs a few dozen bytes per
+ * appointment instead of an object graph: ids and foreign keys in int arrays, the time as epoch
+ * minutes in a long array, the status as a byte code and the notes as handles into a
+ * deduplicating {@link StringPool}. Reads hand out {@link StoredAppointment} views of a row, so
+ * an appointment object only exists while someone holds on to it.
+ *
+ * Times are kept to the minute, like the availability index keeps them: seconds are dropped when
+ * an appointment is stored, which loses nothing the forms or the import formats can express.
+ *
+ * Rows attached from a mapped snapshot have their fixed-width columns copied, but their notes
+ * stay in the mapping and are only decoded when read. Notes no row uses any more are dropped
+ * when the store compacts. With {@link TextStorage#OFF_HEAP} the pool's pages are off-heap too.
+ */
+final class AppointmentStore extends ChunkedStore<Appointment, AppointmentStore.Columns> {
+    static final long NULL_MINUTE = Long.MIN_VALUE;
+    private static final int NULL_NOTES = -1; // pool handles are non-negative; -2 - row points into the source
+    private static final int MAX_STATUSES = 256;
+    
+    /** Appointment rows that can also be read field by field, so attaching them builds no objects. */
+    interface ColumnSource extends RowSource<Appointment> {
+        int patientId(int row);
+        
+        int doctorId(int row);
+        
+        /** The start as epoch minutes, or {@link #NULL_MINUTE} for none. */
+        long minute(int row);
+        
+        String status(int row);
+        
+        String notes(int row);
+    }
+    
+    /**
+     * One chunk of rows; changed only while it is writable, like every chunk of the store. A copy
+     * shares its column arrays with the version it was copied from, and clones a column only
+     * before writing a slot that version can see: every version sharing an array is at most as
+     * long as the one copied last, so slots from its length on are free, and appending or
+     * removing the last row copies nothing.
+     */
+    static final class Columns {
+        static final int IDS = 1;
+        static final int PATIENTS = 2;
+        static final int DOCTORS = 4;
+        static final int MINUTES = 8;
+        static final int STATUSES = 16;
+        static final int NOTES = 32;
+        static final int ALL = 63;
+        
+        int[] ids;
+        int[] patientIds;
+        int[] doctorIds;
+        long[] minutes;
+        byte[] statuses;
+        int[] notes;
+        int length;
+        private final int frozen; // longest version this copy shares arrays with; earlier slots are visible to it
+        private int owned; // columns this copy has cloned, and so may write anywhere
+        
+        Columns() {
+            ids = new int[CHUNK_SIZE];
+            patientIds = new int[CHUNK_SIZE];
+            doctorIds = new int[CHUNK_SIZE];
+            minutes = new long[CHUNK_SIZE];
+            statuses = new byte[CHUNK_SIZE];
+            notes = new int[CHUNK_SIZE];
+            frozen = 0;
+        }
+        
+        Columns(Columns other) {
+            ids = other.ids;
+            patientIds = other.patientIds;
+            doctorIds = other.doctorIds;
+            minutes = other.minutes;
+            statuses = other.statuses;
+            notes = other.notes;
+            length = other.length;
+            frozen = Math.max(other.length, other.frozen); // a copy that dropped its last row still shares that slot
+        }
+        
+        // Makes the columns safe to write at the offset
+        void claim(int columns, int offset) {
+            int shared = columns & ~owned;
+            if (shared == 0 || offset >= frozen) {
+                return;
+            }
+            if ((shared & IDS) != 0) {
+                ids = ids.clone();
+            }
+            if ((shared & PATIENTS) != 0) {
+                patientIds = patientIds.clone();
+            }
+            if ((shared & DOCTORS) != 0) {
+                doctorIds = doctorIds.clone();
+            }
+            if ((shared & MINUTES) != 0) {
+                minutes = minutes.clone();
+            }
+            if ((shared & STATUSES) != 0) {
+                statuses = statuses.clone();
+            }
+            if ((shared & NOTES) != 0) {
+                notes = notes.clone();
+            }
+            owned |= shared;
+        }
+    }
+    
+    private StringPool pool;
+    private StringPool compactedPool;
+    // Status names by code; codes are only ever added, so older readers keep their shorter copy
+    private String[] statuses = {null, "SCHEDULED", "COMPLETED", "CANCELLED"};
+    private ColumnSource source; // stands behind the notes of attached rows
+    private Reader reader;
+    
+    AppointmentStore(TextStorage notes) {
+        pool = new StringPool(notes == TextStorage.OFF_HEAP);
+        reader = new Reader(pool, statuses, null);
+    }
+    
+    /** Seeds an empty store with the source's rows and publishes it. */
+    void attach(RowSource<Appointment> rows) {
+        if (!(rows instanceof ColumnSource)) {
+            if (size() != 0) {
+                throw new IllegalStateException("Rows can only be attached to an empty store");
+            }
+            for (int row = 0; row < rows.rowCount(); row++) {
+                put(rows.load(row));
+            }
+            publish();
+            return;
+        }
+        ColumnSource columns = (ColumnSource) rows;
+        seed(columns, (chunk, firstRow, length) -> {
+            for (int i = 0; i < length; i++) {
+                int row = firstRow + i;
+                chunk.ids[i] = columns.id(row);
+                chunk.patientIds[i] = columns.patientId(row);
+                chunk.doctorIds[i] = columns.doctorId(row);
+                chunk.minutes[i] = columns.minute(row);
+                chunk.statuses[i] = statusCode(columns.status(row));
+                chunk.notes[i] = -2 - row;
+            }
+            chunk.length = length;
+        });
+        source = columns;
+        reader = new Reader(pool, statuses, source);
+        publish();
+    }
+    
+    static long minuteOf(LocalDateTime dateTime) {
+        return dateTime == null ? NULL_MINUTE : Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+    
+    static LocalDateTime timeOf(long minute) {
+        return minute == NULL_MINUTE ? null : LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+    
+    @Override
+    protected Columns newChunk() {
+        return new Columns();
+    }
+    
+    @Override
+    protected Columns copyChunk(Columns chunk) {
+        return new Columns(chunk);
+    }
+    
+    @Override
+    protected ChunkReader<Appointment, Columns> reader() {
+        return reader;
+    }
+    
+    @Override
+    protected int idOf(Appointment appointment) {
+        return appointment.getAppointmentId();
+    }
+    
+    @Override
+    protected int idAt(Columns chunk, int offset, int slot) {
+        return chunk.ids[offset];
+    }
+    
+    @Override
+    protected void store(Columns chunk, int offset, Appointment appointment) {
+        int patientId = appointment.getPatientId();
+        int doctorId = appointment.getDoctorId();
+        long minute = minuteOf(appointment.getAppointmentDateTime());
+        byte status = statusCode(appointment.getStatus());
+        String text = appointment.getNotes();
+        int notes = text == null ? NULL_NOTES : pool.add(text);
+        if (offset == chunk.length) {
+            chunk.claim(Columns.ALL, offset);
+            chunk.ids[offset] = appointment.getAppointmentId();
+            chunk.patientIds[offset] = patientId;
+            chunk.doctorIds[offset] = doctorId;
+            chunk.minutes[offset] = minute;
+            chunk.statuses[offset] = status;
+            chunk.notes[offset] = notes;
+            chunk.length++;
+            return;
+        }
+        // A replacement claims only the columns it changes
+        if (chunk.patientIds[offset] != patientId) {
+            chunk.claim(Columns.PATIENTS, offset);
+            chunk.patientIds[offset] = patientId;
+        }
+        if (chunk.doctorIds[offset] != doctorId) {
+            chunk.claim(Columns.DOCTORS, offset);
+            chunk.doctorIds[offset] = doctorId;
+        }
+        if (chunk.minutes[offset] != minute) {
+            chunk.claim(Columns.MINUTES, offset);
+            chunk.minutes[offset] = minute;
+        }
+        if (chunk.statuses[offset] != status) {
+            chunk.claim(Columns.STATUSES, offset);
+            chunk.statuses[offset] = status;
+        }
+        if (chunk.notes[offset] != notes) {
+            chunk.claim(Columns.NOTES, offset);
+            chunk.notes[offset] = notes;
+        }
+    }
+    
+    @Override
+    protected void removeAt(Columns chunk, int chunkIndex, int offset, int count) {
+        int moved = count - offset - 1;
+        chunk.claim(moved > 0 ? Columns.ALL : 0, offset);
+        System.arraycopy(chunk.ids, offset + 1, chunk.ids, offset, moved);
+        System.arraycopy(chunk.patientIds, offset + 1, chunk.patientIds, offset, moved);
+        System.arraycopy(chunk.doctorIds, offset + 1, chunk.doctorIds, offset, moved);
+        System.arraycopy(chunk.minutes, offset + 1, chunk.minutes, offset, moved);
+        System.arraycopy(chunk.statuses, offset + 1, chunk.statuses, offset, moved);
+        System.arraycopy(chunk.notes, offset + 1, chunk.notes, offset, moved);
+        chunk.length--;
+    }
+    
+    @Override
+    protected void beforeCompaction() {
+        compactedPool = pool.emptyCopy();
+    }
+    
+    // Live notes move to the new pool; notes still in the source stay there
+    @Override
+    protected void transfer(Columns from, int fromOffset, int slot, Columns to, int toOffset) {
+        to.ids[toOffset] = from.ids[fromOffset];
+        to.patientIds[toOffset] = from.patientIds[fromOffset];
+        to.doctorIds[toOffset] = from.doctorIds[fromOffset];
+        to.minutes[toOffset] = from.minutes[fromOffset];
+        to.statuses[toOffset] = from.statuses[fromOffset];
+        int notes = from.notes[fromOffset];
+        to.notes[toOffset] = notes >= 0 ? pool.copyTo(notes, compactedPool) : notes;
+        to.length++;
+    }
+    
+    @Override
+    protected void afterCompaction() {
+        pool = compactedPool;
+        compactedPool = null;
+        reader = new Reader(pool, statuses, source);
+    }
+    
+    private byte statusCode(String status) {
+        for (int code = 0; code < statuses.length; code++) {
+            if (status == null ? statuses[code] == null : status.equals(statuses[code])) {
+                return (byte) code;
+            }
+        }
+        if (statuses.length == MAX_STATUSES) {
+            throw new IllegalArgumentException("Too many distinct appointment statuses to store: " + status);
+        }
+        statuses = Arrays.copyOf(statuses, statuses.length + 1);
+        statuses[statuses.length - 1] = status;
+        reader = new Reader(pool, statuses, source);
+        return (byte) (statuses.length - 1);
+    }
+    
+    /** Decodes the rows of published chunks; holds only state that is never changed afterwards. */
+    static final class Reader implements ChunkReader<Appointment, Columns> {
+        private final StringPool pool;
+        private final String[] statuses;
+        private final ColumnSource source;
+        
+        Reader(StringPool pool, String[] statuses, ColumnSource source) {
+            this.pool = pool;
+            this.statuses = statuses;
+            this.source = source;
+        }
+        
+        @Override
+        public int length(Columns chunk) {
+            return chunk.length;
+        }
+        
+        @Override
+        public Appointment read(Columns chunk, int offset, int slot) {
+            return new StoredAppointment(chunk, offset, this);
+        }
+        
+        String status(byte code) {
+            return statuses[code & 0xFF];
+        }
+        
+        /** Statuses seen so far; every code in a chunk read with this reader is below this. */
+        int statusCount() {
+            return statuses.length;
+        }
+        
+        String notes(int handle) {
+            if (handle >= 0) {
+                return pool.get(handle);
+            }
+            return handle == NULL_NOTES ? null : source.notes(-2 - handle);
+        }
+    }
+}
\ No newline at end of file
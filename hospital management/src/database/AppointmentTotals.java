@@ -0,0 +1,129 @@
+package database;
+
+import models.Appointment;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Appointment counts by day, doctor and status, kept current as appointments are written so a
+ * dashboard reads today's figures without scanning the store. A write takes the appointment's
+ * old values out and puts its new ones in, each touching a fixed number of hash entries however
+ * long the history is. Each day also counts the completed appointments of every patient, so the
+ * number of patients seen is the size of that count. Statuses compare case-insensitively, and
+ * appointments without a time are not counted.
+ *
+ * Changed under the appointment write lock and read under its read lock, like the other indexes.
+ */
+class AppointmentTotals {
+    private static final String COMPLETED = "COMPLETED";
+    
+    private final Map<Long, Day> days = new HashMap<>();
+    
+    private static final class Day {
+        final Map<String, int[]> byStatus = new HashMap<>();
+        final Map<Integer, Map<String, int[]>> byDoctor = new HashMap<>();
+        final IntIntHashMap completedByPatient = new IntIntHashMap();
+    }
+    
+    public void add(Appointment appointment) {
+        change(appointment, 1);
+    }
+    
+    /** Takes out an appointment added before; must be given its values as they were added. */
+    public void remove(Appointment appointment) {
+        change(appointment, -1);
+    }
+    
+    /** Appointments on the day with the given status, of one doctor or of all when {@code doctorId} is 0. */
+    public int count(LocalDate date, int doctorId, String status) {
+        Day day = days.get(date.toEpochDay());
+        if (day == null) {
+            return 0;
+        }
+        Map<String, int[]> counts = doctorId == 0 ? day.byStatus : day.byDoctor.get(doctorId);
+        int[] count = counts != null ? counts.get(normalize(status)) : null;
+        return count != null ? count[0] : 0;
+    }
+    
+    /** The day's figures, pricing completed appointments with the fee of their doctor. */
+    public DailySummary summary(LocalDate date, IntToDoubleFunction feeOfDoctor) {
+        Day day = days.get(date.toEpochDay());
+        if (day == null) {
+            return new DailySummary(date, Collections.emptyMap(), 0, 0);
+        }
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map.Entry<String, int[]> entry : day.byStatus.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue()[0]);
+        }
+        double revenue = 0;
+        for (Map.Entry<Integer, Map<String, int[]>> doctor : day.byDoctor.entrySet()) {
+            int[] completed = doctor.getValue().get(COMPLETED);
+            if (completed != null) {
+                revenue += completed[0] * feeOfDoctor.applyAsDouble(doctor.getKey());
+            }
+        }
+        return new DailySummary(date, counts, day.completedByPatient.size(), revenue);
+    }
+    
+    private void change(Appointment appointment, int delta) {
+        LocalDateTime time = appointment.getAppointmentDateTime();
+        if (time == null) {
+            return;
+        }
+        long epochDay = time.toLocalDate().toEpochDay();
+        Day day = days.get(epochDay);
+        if (day == null) {
+            if (delta < 0) {
+                return;
+            }
+            day = new Day();
+            days.put(epochDay, day);
+        }
+        String status = normalize(appointment.getStatus());
+        adjust(day.byStatus, status, delta);
+        int doctorId = appointment.getDoctorId();
+        Map<String, int[]> doctor = day.byDoctor.get(doctorId);
+        if (doctor == null) {
+            doctor = new HashMap<>(4);
+            day.byDoctor.put(doctorId, doctor);
+        }
+        adjust(doctor, status, delta);
+        if (doctor.isEmpty()) {
+            day.byDoctor.remove(doctorId);
+        }
+        if (status.equals(COMPLETED)) {
+            int patientId = appointment.getPatientId();
+            int completed = day.completedByPatient.get(patientId, 0) + delta;
+            if (completed > 0) {
+                day.completedByPatient.put(patientId, completed);
+            } else {
+                day.completedByPatient.remove(patientId, 0);
+            }
+        }
+        if (day.byStatus.isEmpty()) {
+            days.remove(epochDay);
+        }
+    }
+    
+    // Counters that reach zero are dropped, so removed history leaves nothing behind
+    private static void adjust(Map<String, int[]> counts, String status, int delta) {
+        int[] count = counts.get(status);
+        if (count == null) {
+            if (delta < 0) {
+                return;
+            }
+            counts.put(status, new int[] {delta});
+        } else if ((count[0] += delta) <= 0) {
+            counts.remove(status);
+        }
+    }
+    
+    static String normalize(String status) {
+        return status == null ? "" : status.trim().toUpperCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
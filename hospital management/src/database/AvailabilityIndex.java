@@ -0,0 +1,182 @@
+package database;
+
+import models.Appointment;
+import models.Doctor;
+import models.FreeSlot;
+import models.WeeklySchedule;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Booked time per doctor, for rejecting double bookings and finding free slots.
+ *
+ * Every appointment occupies SLOT_MINUTES from its start, so two bookings of one doctor
+ * overlap exactly when their starts are less than SLOT_MINUTES apart. With a single fixed
+ * length, a tree of start times answers the interval-tree question "what overlaps
+ * [s, s + L)?" with one range lookup over (s - L, s + L), in O(log n). Cancelled
+ * appointments hold no time.
+ */
+class AvailabilityIndex {
+    static final int SLOT_MINUTES = 30;
+    private static final int SEARCH_DAYS = 366;
+    
+    // Keys pack the start minute (high 32 bits) with the appointment id (low 32 bits), so equal starts stay distinct
+    private final Map<Integer, NavigableSet<Long>> bookedByDoctor = new HashMap<>();
+    private final Map<Integer, Booking> bookings = new HashMap<>();
+    // Read by concurrent free-slot searches
+    private final Map<String, WeeklySchedule> schedules = new ConcurrentHashMap<>();
+    
+    private static final class Booking {
+        final int doctorId;
+        final long key;
+        
+        Booking(int doctorId, long key) {
+            this.doctorId = doctorId;
+            this.key = key;
+        }
+    }
+    
+    public void add(Appointment appointment) {
+        if (!holdsTime(appointment)) {
+            return;
+        }
+        long key = key(minuteOf(appointment.getAppointmentDateTime()), appointment.getAppointmentId());
+        bookings.put(appointment.getAppointmentId(), new Booking(appointment.getDoctorId(), key));
+        bookedByDoctor.computeIfAbsent(appointment.getDoctorId(), d -> new TreeSet<>()).add(key);
+    }
+    
+    public void remove(int appointmentId) {
+        Booking booking = bookings.remove(appointmentId);
+        if (booking == null) {
+            return;
+        }
+        NavigableSet<Long> booked = bookedByDoctor.get(booking.doctorId);
+        booked.remove(booking.key);
+        if (booked.isEmpty()) {
+            bookedByDoctor.remove(booking.doctorId);
+        }
+    }
+    
+    public void update(Appointment appointment) {
+        remove(appointment.getAppointmentId());
+        add(appointment);
+    }
+    
+    /** Throws if the appointment would overlap another active appointment of its doctor. */
+    public void checkAvailable(Appointment appointment) {
+        if (!holdsTime(appointment)) {
+            return;
+        }
+        long conflict = firstOverlap(appointment.getDoctorId(), minuteOf(appointment.getAppointmentDateTime()),
+            appointment.getAppointmentId());
+        if (conflict != -1) {
+            throw new BookingConflictException(appointment.getDoctorId(), idOf(conflict), timeOf(minuteOf(conflict)));
+        }
+    }
+    
+    /**
+     * Returns up to {@code count} free slots at or after {@code from} across the given doctors, earliest
+     * first, looking at most a year ahead. Each doctor's slots are walked lazily and merged through a
+     * priority queue, so the cost grows with the slots returned and the bookings skipped, not the horizon.
+     */
+    public List<FreeSlot> freeSlots(List<Doctor> doctors, LocalDateTime from, int count) {
+        LocalDateTime horizon = from.plusDays(SEARCH_DAYS);
+        PriorityQueue<FreeSlot> queue = new PriorityQueue<>((a, b) -> {
+            int c = a.getStart().compareTo(b.getStart());
+            return c != 0 ? c : Integer.compare(a.getDoctor().getDoctorId(), b.getDoctor().getDoctorId());
+        });
+        for (Doctor doctor : doctors) {
+            FreeSlot first = nextFree(doctor, from, horizon);
+            if (first != null) {
+                queue.add(first);
+            }
+        }
+        List<FreeSlot> result = new ArrayList<>(Math.min(count, 64));
+        while (result.size() < count && !queue.isEmpty()) {
+            FreeSlot slot = queue.poll();
+            result.add(slot);
+            FreeSlot next = nextFree(slot.getDoctor(), slot.getEnd(), horizon);
+            if (next != null) {
+                queue.add(next);
+            }
+        }
+        return result;
+    }
+    
+    // Walks the doctor's working-hour slots from the given time, jumping past each booking that blocks one
+    private FreeSlot nextFree(Doctor doctor, LocalDateTime from, LocalDateTime horizon) {
+        WeeklySchedule schedule = schedule(doctor.getSchedule());
+        LocalDateTime time = from;
+        while (true) {
+            LocalDateTime slot = schedule.nextSlot(time, SLOT_MINUTES);
+            if (slot == null || slot.isAfter(horizon)) {
+                return null;
+            }
+            long blocking = firstOverlap(doctor.getDoctorId(), minuteOf(slot), 0);
+            if (blocking == -1) {
+                return new FreeSlot(doctor, slot, slot.plusMinutes(SLOT_MINUTES));
+            }
+            time = timeOf(minuteOf(blocking) + SLOT_MINUTES);
+        }
+    }
+    
+    // Key of the earliest booking overlapping a slot starting at the given minute, ignoring one appointment; -1 if none
+    private long firstOverlap(int doctorId, long minute, int ignoredAppointmentId) {
+        NavigableSet<Long> booked = bookedByDoctor.get(doctorId);
+        if (booked == null) {
+            return -1;
+        }
+        for (long key : booked.subSet(key(minute - SLOT_MINUTES + 1, 0), true, key(minute + SLOT_MINUTES, 0), false)) {
+            if (idOf(key) != ignoredAppointmentId) {
+                return key;
+            }
+        }
+        return -1;
+    }
+    
+    // Unparseable schedules offer no slots; the doctor form rejects them for new entries
+    private WeeklySchedule schedule(String text) {
+        if (text == null) {
+            return WeeklySchedule.NONE;
+        }
+        return schedules.computeIfAbsent(text, t -> {
+            try {
+                return WeeklySchedule.parse(t);
+            } catch (IllegalArgumentException e) {
+                return WeeklySchedule.NONE;
+            }
+        });
+    }
+    
+    private static boolean holdsTime(Appointment appointment) {
+        return appointment.getAppointmentDateTime() != null && !"CANCELLED".equals(appointment.getStatus());
+    }
+    
+    private static long key(long minute, int appointmentId) {
+        return minute << 32 | (appointmentId & 0xFFFFFFFFL);
+    }
+    
+    private static int idOf(long key) {
+        return (int) key;
+    }
+    
+    private static long minuteOf(long key) {
+        return key >> 32;
+    }
+    
+    private static long minuteOf(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+    
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package database;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thrown when an appointment would overlap another active appointment of the same doctor.
+ */
+public class BookingConflictException extends RuntimeException {
+    private final int conflictingAppointmentId;
+    
+    public BookingConflictException(int doctorId, int conflictingAppointmentId, LocalDateTime conflictingStart) {
+        super("Doctor #" + doctorId + " already has appointment #" + conflictingAppointmentId + " at "
+            + conflictingStart.toLocalDate() + " " + conflictingStart.toLocalTime());
+        this.conflictingAppointmentId = conflictingAppointmentId;
+    }
+    
+    public int getConflictingAppointmentId() {
+        return conflictingAppointmentId;
+    }
+}
\ No newline at end of file
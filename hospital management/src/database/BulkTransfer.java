@@ -0,0 +1,542 @@
+package database;
+
+import models.Appointment;
+import models.Doctor;
+import models.Patient;
+import models.WeeklySchedule;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * Streaming import and export of patients, doctors and appointments as CSV or JSON Lines.
+ *
+ * An import reads the input in batches of {@link #BATCH_SIZE} records, so memory is bounded by the
+ * few batches in flight rather than by the file. Each batch is validated on a worker pool while the
+ * next one is read; the batches are then taken in file order, their patient and doctor references
+ * resolved with one lookup per batch, and inserted through the store's batch methods, which take
+ * each lock and wait on the write-ahead log once per batch instead of once per record.
+ *
+ * Imported records always get new ids. The id column of an imported patient or doctor file is
+ * remembered, so an appointment file imported afterwards through the same instance refers to
+ * patients and doctors by their ids in the source system; an id that was not imported must name
+ * a record already in the store. Imports through one instance run one at a time.
+ */
+public class BulkTransfer {
+    /** Records per batch: the unit of parallel validation, reference lookup and insertion. */
+    public static final int BATCH_SIZE = 2_000;
+    
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int MAX_IN_FLIGHT = THREADS + 1;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService VALIDATORS = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "hms-import-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter DATE_TIME_INPUT = DateTimeFormatter.ofPattern("yyyy-MM-dd['T'][' ']HH:mm[:ss]");
+    private static final Set<String> STATUSES = new HashSet<>(Arrays.asList("SCHEDULED", "COMPLETED", "CANCELLED", "NO_SHOW"));
+    
+    /** The kinds of record that can be transferred, with the columns of their files. */
+    public enum Entity {
+        PATIENTS("patients", new String[] {"id", "name", "age", "gender", "phone", "address", "medicalHistory"},
+            "name", "age", "phone"),
+        DOCTORS("doctors", new String[] {"id", "name", "specialization", "phone", "email", "schedule", "consultationFee"},
+            "name", "specialization", "phone", "consultationFee"),
+        APPOINTMENTS("appointments", new String[] {"id", "patientId", "doctorId", "dateTime", "status", "notes"},
+            "patientId", "doctorId", "dateTime");
+        
+        private final String label;
+        private final String[] columns;
+        private final String[] required;
+        private final boolean[] numeric;
+        
+        Entity(String label, String[] columns, String... required) {
+            this.label = label;
+            this.columns = columns;
+            this.required = required;
+            this.numeric = new boolean[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                numeric[i] = isNumeric(columns[i]);
+            }
+        }
+        
+        public List<String> getColumns() {
+            return Collections.unmodifiableList(Arrays.asList(columns));
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+        
+        private static boolean isNumeric(String column) {
+            return column.equals("id") || column.endsWith("Id") || column.equals("age") || column.equals("consultationFee");
+        }
+    }
+    
+    private final DatabaseManager db;
+    // Source-system id -> id assigned on import, for resolving references in files imported later
+    private final IntIntHashMap patientIds = new IntIntHashMap();
+    private final IntIntHashMap doctorIds = new IntIntHashMap();
+    
+    public BulkTransfer(DatabaseManager db) {
+        this.db = db;
+    }
+    
+    /** Imports a file, choosing CSV or JSON Lines by its extension. */
+    public TransferReport importFile(Entity entity, Path file) throws IOException {
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importRecords(entity, in, TransferFormat.forFile(file));
+        }
+    }
+    
+    /**
+     * Imports every valid record from the input. Invalid records, and appointments that reference
+     * unknown patients or doctors or clash with another booking, are skipped and reported.
+     * Throws IllegalArgumentException if a CSV header lacks a required column.
+     */
+    public synchronized TransferReport importRecords(Entity entity, Reader in, TransferFormat format) throws IOException {
+        long start = System.nanoTime();
+        RecordSource source = format == TransferFormat.CSV ? new CsvSource(entity, in) : new JsonSource(in);
+        Progress progress = new Progress();
+        Deque<Future<Batch>> inFlight = new ArrayDeque<>();
+        try {
+            Batch batch;
+            while ((batch = source.nextBatch()) != null) {
+                Batch read = batch;
+                inFlight.add(VALIDATORS.submit(() -> validate(entity, read)));
+                if (inFlight.size() >= MAX_IN_FLIGHT) {
+                    insert(entity, await(inFlight.poll()), progress);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                insert(entity, await(inFlight.poll()), progress);
+            }
+        } finally {
+            for (Future<Batch> pending : inFlight) {
+                pending.cancel(true);
+            }
+        }
+        return new TransferReport("Imported", entity.label, progress.read, progress.inserted, progress.errors,
+            System.nanoTime() - start);
+    }
+    
+    /** Exports to a file, choosing CSV or JSON Lines by its extension. */
+    public TransferReport exportFile(Entity entity, Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportRecords(entity, out, TransferFormat.forFile(file));
+        }
+    }
+    
+    /** Writes every record of the entity in the given format, in the columns {@link #importRecords} reads. */
+    public TransferReport exportRecords(Entity entity, Writer out, TransferFormat format) throws IOException {
+        long start = System.nanoTime();
+        Writer buffered = out instanceof BufferedWriter ? out : new BufferedWriter(out);
+        List<?> records = entity == Entity.PATIENTS ? db.getAllPatients()
+            : entity == Entity.DOCTORS ? db.getAllDoctors() : db.getAllAppointments();
+        CsvWriter csv = format == TransferFormat.CSV ? new CsvWriter(buffered) : null;
+        if (csv != null) {
+            csv.writeRecord(entity.columns);
+        }
+        for (Object record : records) {
+            String[] values = values(record);
+            if (csv != null) {
+                csv.writeRecord(values);
+            } else {
+                JsonLines.write(buffered, entity.columns, values, entity.numeric);
+            }
+        }
+        buffered.flush();
+        return new TransferReport("Exported", entity.label, records.size(), records.size(), new ArrayList<>(),
+            System.nanoTime() - start);
+    }
+    
+    /** Writes one patient, doctor or appointment as a JSON object in its export columns, followed by a newline. */
+    public static void writeJson(Writer out, Object record) throws IOException {
+        Entity entity = record instanceof Patient ? Entity.PATIENTS : record instanceof Doctor ? Entity.DOCTORS : Entity.APPOINTMENTS;
+        JsonLines.write(out, entity.columns, values(record), entity.numeric);
+    }
+    
+    /**
+     * Parses one JSON object into a new record, validated as an imported record would be; its id is
+     * left 0 and any id in the object is ignored. Throws IllegalArgumentException naming the problem.
+     */
+    public static Object parseJson(Entity entity, String json) {
+        return parse(entity, columnValues(entity, json));
+    }
+    
+    // Import pipeline
+    
+    private static final class Batch {
+        final List<Object> raw = new ArrayList<>(); // a String[] in column order per CSV record, the line per JSON record
+        final List<Long> lines = new ArrayList<>();
+        Object[] records;
+        int[] sourceIds;
+        String[] errors;
+        
+        int size() {
+            return lines.size();
+        }
+        
+        void reject(int i, String reason) {
+            records[i] = null;
+            errors[i] = reason;
+        }
+    }
+    
+    private static final class Progress {
+        long read;
+        long inserted;
+        final List<String> errors = new ArrayList<>();
+    }
+    
+    private interface RecordSource {
+        /** Reads up to BATCH_SIZE records; null once the input is exhausted. */
+        Batch nextBatch() throws IOException;
+    }
+    
+    // CSV must be split into records sequentially, since a quoted field may span lines
+    private static final class CsvSource implements RecordSource {
+        private final CsvReader reader;
+        private final int[] positions; // file column of each entity column, -1 if absent
+        
+        CsvSource(Entity entity, Reader in) throws IOException {
+            reader = new CsvReader(in);
+            String[] header = reader.next();
+            positions = new int[entity.columns.length];
+            Arrays.fill(positions, -1);
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.length; i++) {
+                for (int c = 0; c < entity.columns.length; c++) {
+                    if (entity.columns[c].equalsIgnoreCase(header[i].trim())) {
+                        positions[c] = i;
+                    }
+                }
+            }
+            for (String column : entity.required) {
+                if (positions[Arrays.asList(entity.columns).indexOf(column)] == -1) {
+                    throw new IllegalArgumentException("The " + entity.label + " file has no \"" + column + "\" column");
+                }
+            }
+        }
+        
+        @Override
+        public Batch nextBatch() throws IOException {
+            Batch batch = new Batch();
+            String[] fields;
+            while (batch.size() < BATCH_SIZE && (fields = reader.next()) != null) {
+                String[] values = new String[positions.length];
+                for (int c = 0; c < positions.length; c++) {
+                    values[c] = positions[c] >= 0 && positions[c] < fields.length ? fields[positions[c]] : null;
+                }
+                batch.raw.add(values);
+                batch.lines.add(reader.getRecordLine());
+            }
+            return batch.size() > 0 ? batch : null;
+        }
+    }
+    
+    // JSON Lines are split here and parsed by the validators, one object per line
+    private static final class JsonSource implements RecordSource {
+        private final BufferedReader reader;
+        private long line;
+        
+        JsonSource(Reader in) {
+            reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        }
+        
+        @Override
+        public Batch nextBatch() throws IOException {
+            Batch batch = new Batch();
+            String text;
+            while (batch.size() < BATCH_SIZE && (text = reader.readLine()) != null) {
+                if (line++ == 0 && text.startsWith("\uFEFF")) {
+                    text = text.substring(1); // byte order mark
+                }
+                if (!text.trim().isEmpty()) {
+                    batch.raw.add(text);
+                    batch.lines.add(line);
+                }
+            }
+            return batch.size() > 0 ? batch : null;
+        }
+    }
+    
+    private static Batch await(Future<Batch> validated) throws IOException {
+        try {
+            return validated.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while importing", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+    
+    // Runs on the validator pool: turns each raw record into a model object or a reason for rejecting it
+    private static Batch validate(Entity entity, Batch batch) {
+        int size = batch.size();
+        batch.records = new Object[size];
+        batch.sourceIds = new int[size];
+        batch.errors = new String[size];
+        for (int i = 0; i < size; i++) {
+            try {
+                String[] values = columnValues(entity, batch.raw.get(i));
+                batch.sourceIds[i] = id(values[0], "id");
+                batch.records[i] = parse(entity, values);
+            } catch (IllegalArgumentException e) {
+                batch.reject(i, e.getMessage());
+            }
+        }
+        batch.raw.clear(); // the raw text is no longer needed while the batch waits to be inserted
+        return batch;
+    }
+    
+    private static String[] columnValues(Entity entity, Object raw) {
+        if (raw instanceof String[]) {
+            return (String[]) raw;
+        }
+        Map<String, String> object = JsonLines.parse((String) raw);
+        String[] values = new String[entity.columns.length];
+        for (int c = 0; c < values.length; c++) {
+            values[c] = object.get(entity.columns[c]);
+        }
+        return values;
+    }
+    
+    private static Object parse(Entity entity, String[] v) {
+        switch (entity) {
+            case PATIENTS: {
+                int age = wholeNumber(required(v[2], "age"), "age");
+                if (age <= 0 || age > 150) {
+                    throw new IllegalArgumentException("age must be from 1 to 150");
+                }
+                return new Patient(0, required(v[1], "name"), age, text(v[3]), required(v[4], "phone"), text(v[5]), text(v[6]));
+            }
+            case DOCTORS: {
+                String schedule = text(v[5]);
+                try {
+                    WeeklySchedule.parse(schedule);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("schedule: " + e.getMessage());
+                }
+                double fee;
+                try {
+                    fee = Double.parseDouble(required(v[6], "consultationFee"));
+                } catch (NumberFormatException e) {
+                    fee = -1;
+                }
+                if (!(fee >= 0) || Double.isInfinite(fee)) {
+                    throw new IllegalArgumentException("consultationFee must be a non-negative number");
+                }
+                return new Doctor(0, required(v[1], "name"), required(v[2], "specialization"), required(v[3], "phone"),
+                    text(v[4]), schedule, fee);
+            }
+            default: {
+                int patientId = id(required(v[1], "patientId"), "patientId");
+                int doctorId = id(required(v[2], "doctorId"), "doctorId");
+                LocalDateTime dateTime;
+                try {
+                    dateTime = LocalDateTime.parse(required(v[3], "dateTime"), DATE_TIME_INPUT);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("dateTime must look like 2025-03-14 09:30");
+                }
+                String status = v[4] == null || v[4].trim().isEmpty() ? "SCHEDULED" : v[4].trim().toUpperCase(Locale.ROOT);
+                if (!STATUSES.contains(status)) {
+                    throw new IllegalArgumentException("status must be SCHEDULED, COMPLETED, CANCELLED or NO_SHOW");
+                }
+                return new Appointment(0, patientId, doctorId, dateTime, status, text(v[5]));
+            }
+        }
+    }
+    
+    private static String required(String value, String column) {
+        if (value == null || value.trim().isEmpty()) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value.trim();
+    }
+    
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+    
+    // A blank id is 0: the record has none in the source system
+    private static int id(String value, String column) {
+        if (value == null || value.trim().isEmpty()) {
+            return 0;
+        }
+        int id = wholeNumber(value.trim(), column);
+        if (id <= 0) {
+            throw new IllegalArgumentException(column + " must be a positive whole number");
+        }
+        return id;
+    }
+    
+    private static int wholeNumber(String value, String column) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " must be a whole number, not \"" + value + "\"");
+        }
+    }
+    
+    // Runs on the importing thread, one batch at a time in file order
+    private void insert(Entity entity, Batch batch, Progress progress) {
+        switch (entity) {
+            case PATIENTS:
+                db.addPatients(newRecords(batch, patientIds, Patient.class));
+                remember(batch, patientIds, record -> ((Patient) record).getPatientId());
+                break;
+            case DOCTORS:
+                db.addDoctors(newRecords(batch, doctorIds, Doctor.class));
+                remember(batch, doctorIds, record -> ((Doctor) record).getDoctorId());
+                break;
+            default:
+                resolveReferences(batch);
+                insertAppointments(batch);
+                break;
+        }
+        progress.read += batch.size();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.records[i] != null) {
+                progress.inserted++;
+            } else if (progress.errors.size() < TransferReport.MAX_ERRORS) {
+                progress.errors.add("line " + batch.lines.get(i) + ": " + batch.errors[i]);
+            }
+        }
+    }
+    
+    // The valid records of a batch; a source id imported before, from this file or an earlier one, would make references ambiguous
+    private static <T> List<T> newRecords(Batch batch, IntIntHashMap imported, Class<T> type) {
+        Set<Integer> seen = new HashSet<>();
+        List<T> added = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            int sourceId = batch.sourceIds[i];
+            if (batch.records[i] == null) {
+                continue;
+            }
+            if (sourceId != 0 && (imported.containsKey(sourceId) || !seen.add(sourceId))) {
+                batch.reject(i, "id " + sourceId + " was already imported");
+            } else {
+                added.add(type.cast(batch.records[i]));
+            }
+        }
+        return added;
+    }
+    
+    private static void remember(Batch batch, IntIntHashMap imported, ToIntFunction<Object> assignedId) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.records[i] != null && batch.sourceIds[i] != 0) {
+                imported.put(batch.sourceIds[i], assignedId.applyAsInt(batch.records[i]));
+            }
+        }
+    }
+    
+    // Maps source ids from earlier imports to the ids they were given, and checks the rest against the store in one lookup each
+    private void resolveReferences(Batch batch) {
+        Set<Integer> unmappedPatients = new HashSet<>();
+        Set<Integer> unmappedDoctors = new HashSet<>();
+        for (Object record : batch.records) {
+            if (record != null) {
+                Appointment appointment = (Appointment) record;
+                if (!patientIds.containsKey(appointment.getPatientId())) {
+                    unmappedPatients.add(appointment.getPatientId());
+                }
+                if (!doctorIds.containsKey(appointment.getDoctorId())) {
+                    unmappedDoctors.add(appointment.getDoctorId());
+                }
+            }
+        }
+        Set<Integer> existingPatients = db.existingPatientIds(unmappedPatients);
+        Set<Integer> existingDoctors = db.existingDoctorIds(unmappedDoctors);
+        for (int i = 0; i < batch.size(); i++) {
+            Appointment appointment = (Appointment) batch.records[i];
+            if (appointment == null) {
+                continue;
+            }
+            int patientId = patientIds.get(appointment.getPatientId(), existingPatients.contains(appointment.getPatientId())
+                ? appointment.getPatientId() : 0);
+            int doctorId = doctorIds.get(appointment.getDoctorId(), existingDoctors.contains(appointment.getDoctorId())
+                ? appointment.getDoctorId() : 0);
+            if (patientId == 0) {
+                batch.reject(i, "unknown patient id " + appointment.getPatientId());
+            } else if (doctorId == 0) {
+                batch.reject(i, "unknown doctor id " + appointment.getDoctorId());
+            } else {
+                appointment.setPatientId(patientId);
+                appointment.setDoctorId(doctorId);
+            }
+        }
+    }
+    
+    // The whole batch goes in at once unless a booking clashes; then it is retried record by record to find the clashes
+    private void insertAppointments(Batch batch) {
+        List<Appointment> added = new ArrayList<>();
+        for (Object record : batch.records) {
+            if (record != null) {
+                added.add((Appointment) record);
+            }
+        }
+        try {
+            db.addAppointments(added);
+            return;
+        } catch (BookingConflictException e) {
+            // fall through
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.records[i] != null) {
+                try {
+                    db.addAppointment((Appointment) batch.records[i]);
+                } catch (BookingConflictException e) {
+                    batch.reject(i, e.getMessage());
+                }
+            }
+        }
+    }
+    
+    private static String[] values(Object record) {
+        if (record instanceof Patient) {
+            Patient p = (Patient) record;
+            return new String[] {String.valueOf(p.getPatientId()), p.getName(), String.valueOf(p.getAge()), p.getGender(),
+                p.getPhone(), p.getAddress(), p.getMedicalHistory()};
+        }
+        if (record instanceof Doctor) {
+            Doctor d = (Doctor) record;
+            return new String[] {String.valueOf(d.getDoctorId()), d.getName(), d.getSpecialization(), d.getPhone(),
+                d.getEmail(), d.getSchedule(), String.valueOf(d.getConsultationFee())};
+        }
+        Appointment a = (Appointment) record;
+        return new String[] {String.valueOf(a.getAppointmentId()), String.valueOf(a.getPatientId()),
+            String.valueOf(a.getDoctorId()), a.getAppointmentDateTime() != null ? a.getAppointmentDateTime().format(DATE_TIME) : null,
+            a.getStatus(), a.getNotes()};
+    }
+}
\ No newline at end of file
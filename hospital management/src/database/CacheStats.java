@@ -0,0 +1,45 @@
+package database;
+
+/**
+ * Counts kept by an {@link EntityCache} since it was created. A miss is a read the cache could
+ * not answer, whether or not the store then had the record; an eviction is a record dropped to
+ * stay within the size bound, including a new record the cache chose not to keep.
+ */
+public final class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    private final long weight;
+    
+    CacheStats(long hits, long misses, long evictions, int size, long weight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.weight = weight;
+    }
+    
+    public long getHits() { return hits; }
+    
+    public long getMisses() { return misses; }
+    
+    public long getEvictions() { return evictions; }
+    
+    /** Records cached now. */
+    public int getSize() { return size; }
+    
+    /** Their total weight, which equals {@link #getSize} without a weigher. */
+    public long getWeight() { return weight; }
+    
+    /** Hits as a share of all reads, or 0 before the first read. */
+    public double getHitRate() {
+        long reads = hits + misses;
+        return reads == 0 ? 0 : (double) hits / reads;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d (%.1f%% hit) evictions=%d size=%d", hits, misses, 100 * getHitRate(), evictions, size);
+    }
+}
\ No newline at end of file
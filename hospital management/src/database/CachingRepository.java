@@ -0,0 +1,215 @@
+package database;
+
+import models.*;
+import java.util.List;
+
+/**
+ * {@link HospitalRepository} that keeps the records read and written most in a bounded
+ * {@link EntityCache} per entity in front of a store that does not hold everything in memory,
+ * such as {@link SqliteRepository}.
+ *
+ * Reads by id go through the cache and load from the store on a miss. Writes go to the store
+ * first and then replace or drop the cached record, so a write the store refuses leaves the cache
+ * as it was, and an update the store finds no record for drops the cached one. Bulk inserts drop
+ * any cached record they replace rather than filling the cache with an import. The getAll
+ * methods read the store directly and cache nothing, so a report does not push out the day's
+ * working set. Records are cached as the objects the store returns or the
+ * caller wrote, like the store itself hands them out.
+ */
+public class CachingRepository implements HospitalRepository, AutoCloseable {
+    public static final int DEFAULT_PATIENTS = 10_000;
+    public static final int DEFAULT_DOCTORS = 1_000;
+    public static final int DEFAULT_APPOINTMENTS = 50_000;
+    
+    private final HospitalRepository store;
+    private final EntityCache<Patient> patients;
+    private final EntityCache<Doctor> doctors;
+    private final EntityCache<Appointment> appointments;
+    
+    /** Caches up to the default number of each record with W-TinyLFU eviction. */
+    public CachingRepository(HospitalRepository store) {
+        this(store, new EntityCache<>(EntityCache.Policy.W_TINY_LFU, DEFAULT_PATIENTS),
+            new EntityCache<>(EntityCache.Policy.W_TINY_LFU, DEFAULT_DOCTORS),
+            new EntityCache<>(EntityCache.Policy.W_TINY_LFU, DEFAULT_APPOINTMENTS));
+    }
+    
+    /** Uses the given caches, each with its own policy and bound. */
+    public CachingRepository(HospitalRepository store, EntityCache<Patient> patients,
+                             EntityCache<Doctor> doctors, EntityCache<Appointment> appointments) {
+        if (store == null || patients == null || doctors == null || appointments == null) {
+            throw new IllegalArgumentException("store and caches must be given");
+        }
+        this.store = store;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+    }
+    
+    public CacheStats getPatientStats() { return patients.stats(); }
+    
+    public CacheStats getDoctorStats() { return doctors.stats(); }
+    
+    public CacheStats getAppointmentStats() { return appointments.stats(); }
+    
+    /** Drops every cached record, e.g. after the store was changed behind this repository's back. */
+    public void invalidateAll() {
+        patients.invalidateAll();
+        doctors.invalidateAll();
+        appointments.invalidateAll();
+    }
+    
+    // Patient operations
+    @Override
+    public void addPatient(Patient patient) {
+        store.addPatient(patient);
+        patients.put(patient.getPatientId(), patient);
+    }
+    
+    @Override
+    public void addPatients(List<Patient> added) {
+        try {
+            store.addPatients(added);
+        } finally {
+            for (Patient patient : added) {
+                patients.invalidate(patient.getPatientId());
+            }
+        }
+    }
+    
+    @Override
+    public List<Patient> getAllPatients() {
+        return store.getAllPatients();
+    }
+    
+    @Override
+    public Patient getPatientById(int id) {
+        return patients.get(id, store::getPatientById);
+    }
+    
+    @Override
+    public boolean updatePatient(Patient patient) {
+        if (store.updatePatient(patient)) {
+            patients.put(patient.getPatientId(), patient);
+            return true;
+        }
+        patients.invalidate(patient.getPatientId());
+        return false;
+    }
+    
+    @Override
+    public void deletePatient(int patientId) {
+        try {
+            store.deletePatient(patientId);
+        } finally {
+            patients.invalidate(patientId);
+        }
+    }
+    
+    // Doctor operations
+    @Override
+    public void addDoctor(Doctor doctor) {
+        store.addDoctor(doctor);
+        doctors.put(doctor.getDoctorId(), doctor);
+    }
+    
+    @Override
+    public void addDoctors(List<Doctor> added) {
+        try {
+            store.addDoctors(added);
+        } finally {
+            for (Doctor doctor : added) {
+                doctors.invalidate(doctor.getDoctorId());
+            }
+        }
+    }
+    
+    @Override
+    public List<Doctor> getAllDoctors() {
+        return store.getAllDoctors();
+    }
+    
+    @Override
+    public Doctor getDoctorById(int id) {
+        return doctors.get(id, store::getDoctorById);
+    }
+    
+    @Override
+    public boolean updateDoctor(Doctor doctor) {
+        if (store.updateDoctor(doctor)) {
+            doctors.put(doctor.getDoctorId(), doctor);
+            return true;
+        }
+        doctors.invalidate(doctor.getDoctorId());
+        return false;
+    }
+    
+    @Override
+    public void deleteDoctor(int doctorId) {
+        try {
+            store.deleteDoctor(doctorId);
+        } finally {
+            doctors.invalidate(doctorId);
+        }
+    }
+    
+    // Appointment operations
+    @Override
+    public void addAppointment(Appointment appointment) {
+        store.addAppointment(appointment);
+        appointments.put(appointment.getAppointmentId(), appointment);
+    }
+    
+    @Override
+    public void addAppointments(List<Appointment> added) {
+        try {
+            store.addAppointments(added);
+        } finally {
+            for (Appointment appointment : added) {
+                appointments.invalidate(appointment.getAppointmentId());
+            }
+        }
+    }
+    
+    @Override
+    public List<Appointment> getAllAppointments() {
+        return store.getAllAppointments();
+    }
+    
+    @Override
+    public Appointment getAppointmentById(int id) {
+        return appointments.get(id, store::getAppointmentById);
+    }
+    
+    @Override
+    public boolean updateAppointment(Appointment appointment) {
+        if (store.updateAppointment(appointment)) {
+            appointments.put(appointment.getAppointmentId(), appointment);
+            return true;
+        }
+        appointments.invalidate(appointment.getAppointmentId());
+        return false;
+    }
+    
+    @Override
+    public void deleteAppointment(int appointmentId) {
+        try {
+            store.deleteAppointment(appointmentId);
+        } finally {
+            appointments.invalidate(appointmentId);
+        }
+    }
+    
+    /** Closes the store if it holds resources. */
+    @Override
+    public void close() {
+        if (store instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) store).close();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RepositoryException("Could not close the store", e);
+            }
+        }
+    }
+}
\ No newline at end of file
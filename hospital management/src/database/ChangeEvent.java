@@ -0,0 +1,29 @@
+package database;
+
+/** One record created, updated or deleted in a {@link DatabaseManager}. */
+public final class ChangeEvent {
+    public enum Entity { PATIENT, DOCTOR, APPOINTMENT }
+    
+    public enum Type { CREATED, UPDATED, DELETED }
+    
+    private final Entity entity;
+    private final Type type;
+    private final int id;
+    
+    public ChangeEvent(Entity entity, Type type, int id) {
+        this.entity = entity;
+        this.type = type;
+        this.id = id;
+    }
+    
+    public Entity getEntity() { return entity; }
+    
+    public Type getType() { return type; }
+    
+    public int getId() { return id; }
+    
+    @Override
+    public String toString() {
+        return entity + " #" + id + " " + type;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package database;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A burst of change events folded into the net change per record: created then updated is
+ * still created, created then deleted cancels out, deleted then created again is an update.
+ * Not thread-safe.
+ */
+public final class ChangeSet {
+    private final Map<ChangeEvent.Entity, Map<Integer, ChangeEvent.Type>> changes = new EnumMap<>(ChangeEvent.Entity.class);
+    
+    public void add(ChangeEvent event) {
+        add(event.getEntity(), event.getId(), event.getType());
+    }
+    
+    public void addAll(List<ChangeEvent> events) {
+        for (ChangeEvent event : events) {
+            add(event);
+        }
+    }
+    
+    public void addAll(ChangeSet other) {
+        for (Map.Entry<ChangeEvent.Entity, Map<Integer, ChangeEvent.Type>> entity : other.changes.entrySet()) {
+            for (Map.Entry<Integer, ChangeEvent.Type> change : entity.getValue().entrySet()) {
+                add(entity.getKey(), change.getKey(), change.getValue());
+            }
+        }
+    }
+    
+    private void add(ChangeEvent.Entity entity, int id, ChangeEvent.Type type) {
+        Map<Integer, ChangeEvent.Type> records = changes.computeIfAbsent(entity, e -> new LinkedHashMap<>());
+        ChangeEvent.Type earlier = records.get(id);
+        if (earlier == null) {
+            records.put(id, type);
+        } else if (earlier == ChangeEvent.Type.CREATED) {
+            if (type == ChangeEvent.Type.DELETED) {
+                records.remove(id);
+            }
+        } else if (earlier == ChangeEvent.Type.DELETED) {
+            if (type != ChangeEvent.Type.DELETED) {
+                records.put(id, ChangeEvent.Type.UPDATED);
+            }
+        } else {
+            records.put(id, type == ChangeEvent.Type.DELETED ? ChangeEvent.Type.DELETED : ChangeEvent.Type.UPDATED);
+        }
+    }
+    
+    public boolean isEmpty() {
+        for (Map<Integer, ChangeEvent.Type> records : changes.values()) {
+            if (!records.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /** Whether any record of the entity changed. */
+    public boolean touches(ChangeEvent.Entity entity) {
+        Map<Integer, ChangeEvent.Type> records = changes.get(entity);
+        return records != null && !records.isEmpty();
+    }
+    
+    /** Ids of the records of the entity that were created or updated, in the order first seen. */
+    public Set<Integer> getChanged(ChangeEvent.Entity entity) {
+        return ids(entity, false);
+    }
+    
+    /** Ids of the records of the entity that were deleted. */
+    public Set<Integer> getDeleted(ChangeEvent.Entity entity) {
+        return ids(entity, true);
+    }
+    
+    /** Ids of the records of the entity that were created, updated or deleted. */
+    public Set<Integer> getAll(ChangeEvent.Entity entity) {
+        Map<Integer, ChangeEvent.Type> records = changes.get(entity);
+        return records == null ? Collections.emptySet() : Collections.unmodifiableSet(records.keySet());
+    }
+    
+    private Set<Integer> ids(ChangeEvent.Entity entity, boolean deleted) {
+        Map<Integer, ChangeEvent.Type> records = changes.get(entity);
+        if (records == null) {
+            return Collections.emptySet();
+        }
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (Map.Entry<Integer, ChangeEvent.Type> change : records.entrySet()) {
+            if ((change.getValue() == ChangeEvent.Type.DELETED) == deleted) {
+                ids.add(change.getKey());
+            }
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,402 @@
+package database;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Id-keyed record store that keeps insertion order and publishes immutable versions of itself.
+ *
+ * Records live in fixed-size chunks of slots, and the chunks in fixed-size blocks, so the store
+ * is a two-level tree; an int map points each id at its chunk and offset, so lookups and
+ * replacements are O(1). A removal closes the gap within its chunk only, so it costs at most
+ * one chunk's worth of moves; chunks left mostly empty are compacted away once they hold more
+ * holes than records.
+ *
+ * Writers change the store under the owner's write lock and then {@link #publish()} it. A
+ * published {@link Snapshot} shares its blocks and chunks with the store: the first change to a
+ * chunk after a publish copies that chunk and the path above it (its block and the small root),
+ * and later changes before the next publish reuse the copies. So a write copies a few
+ * kilobytes whatever the store size, a batch of writes pays once per chunk it touches, and
+ * readers take {@link #snapshot()} without any lock and get a consistent list that later
+ * writes never touch.
+ *
+ * How a chunk holds its records is up to the subclass: {@link IndexedStore} keeps references to
+ * record objects, {@link AppointmentStore} spreads each record over primitive columns.
+ */
+abstract class ChunkedStore<T, C> {
+    static final int CHUNK_BITS = 9;
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS; // slots per chunk, and chunks per block
+    static final int OFFSET_MASK = CHUNK_SIZE - 1;
+    private static final int MISSING = -1;
+    
+    /** Rows that can be read by position, e.g. a column of a mapped snapshot. */
+    interface RowSource<T> {
+        int rowCount();
+        
+        int id(int row);
+        
+        T load(int row);
+    }
+    
+    /**
+     * Reads records out of the chunks of published versions. Chunks never change once published,
+     * so a reader may depend only on the chunk it is given and on state that never changes either.
+     */
+    interface ChunkReader<T, C> {
+        int length(C chunk);
+        
+        T read(C chunk, int offset, int slot);
+    }
+    
+    /** Writes the rows starting at {@code firstRow} into a new chunk, during {@link #seed}. */
+    interface ChunkFiller<C> {
+        void fill(C chunk, int firstRow, int length);
+    }
+    
+    private final IntIntHashMap slotsById = new IntIntHashMap(); // id -> chunk << CHUNK_BITS | offset
+    private Object[][] blocks = new Object[1][];
+    private int chunkCount;
+    private int[] sizes = new int[CHUNK_SIZE]; // records per chunk, for the writer; readers ask the chunk reader
+    private int size;
+    // Blocks and chunks copied or created since the last publish carry the current epoch and may be changed in place
+    private int[] blockEpochs = new int[1];
+    private int[] chunkEpochs = new int[CHUNK_SIZE];
+    private int epoch = 1;
+    private boolean rootShared; // the root array belongs to the published snapshot
+    private boolean changed;
+    private volatile Snapshot<T, C> published = new Snapshot<>(new Object[0][], 0, 0, false, null);
+    
+    /** Creates an empty chunk with room for {@link #CHUNK_SIZE} records. */
+    protected abstract C newChunk();
+    
+    protected abstract C copyChunk(C chunk);
+    
+    /** The reader for the current state, captured by every version published from now on. */
+    protected abstract ChunkReader<T, C> reader();
+    
+    protected abstract int idOf(T record);
+    
+    /** Id of the record at the offset of a chunk; {@code slot} is its position in the tree. */
+    protected abstract int idAt(C chunk, int offset, int slot);
+    
+    /** Writes the record at the offset of a writable chunk, either over a record or just past the last one. */
+    protected abstract void store(C chunk, int offset, T record);
+    
+    /** Closes the gap left by the record at the offset of a writable chunk holding {@code count} records. */
+    protected abstract void removeAt(C chunk, int chunkIndex, int offset, int count);
+    
+    /** Appends the record at the offset of an old chunk (at {@code slot} of the old tree) to a chunk of the compacted tree. */
+    protected abstract void transfer(C from, int fromOffset, int slot, C to, int toOffset);
+    
+    protected void beforeCompaction() {
+    }
+    
+    protected void afterCompaction() {
+    }
+    
+    /**
+     * Fills an empty store with the source's rows, chunk by chunk, reading only their ids for the
+     * lookup map. The caller publishes once it has set up whatever its reader needs.
+     */
+    protected void seed(RowSource<?> rows, ChunkFiller<C> filler) {
+        if (size != 0) {
+            throw new IllegalStateException("Rows can only be attached to an empty store");
+        }
+        int count = rows.rowCount();
+        for (int chunk = 0; chunk << CHUNK_BITS < count; chunk++) {
+            C slots = writableChunk(addChunk());
+            sizes[chunk] = Math.min(CHUNK_SIZE, count - (chunk << CHUNK_BITS));
+            filler.fill(slots, chunk << CHUNK_BITS, sizes[chunk]);
+        }
+        // Chunks are filled completely, so row numbers and slots coincide
+        for (int row = 0; row < count; row++) {
+            slotsById.put(rows.id(row), row);
+        }
+        size = count;
+        changed = true;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean contains(int id) {
+        return slotsById.containsKey(id);
+    }
+    
+    /** Appends the record, or replaces it in place when its id is already stored. */
+    public void put(T record) {
+        if (replace(record)) {
+            return;
+        }
+        int chunk = chunkCount - 1;
+        if (chunk < 0 || sizes[chunk] == CHUNK_SIZE) {
+            chunk = addChunk();
+        }
+        int offset = sizes[chunk]++;
+        store(writableChunk(chunk), offset, record);
+        slotsById.put(idOf(record), chunk << CHUNK_BITS | offset);
+        size++;
+        changed = true;
+    }
+    
+    public T get(int id) {
+        int slot = slotsById.get(id, MISSING);
+        return slot == MISSING ? null : reader().read(chunk(blocks, slot >>> CHUNK_BITS), slot & OFFSET_MASK, slot);
+    }
+    
+    /** Replaces the stored record with the same id; returns false when there is none. */
+    public boolean replace(T record) {
+        int slot = slotsById.get(idOf(record), MISSING);
+        if (slot == MISSING) {
+            return false;
+        }
+        store(writableChunk(slot >>> CHUNK_BITS), slot & OFFSET_MASK, record);
+        changed = true;
+        return true;
+    }
+    
+    /** Removes the record with the id; returns false when there is none. */
+    public boolean remove(int id) {
+        int slot = slotsById.remove(id, MISSING);
+        if (slot == MISSING) {
+            return false;
+        }
+        int chunk = slot >>> CHUNK_BITS;
+        int offset = slot & OFFSET_MASK;
+        C slots = writableChunk(chunk);
+        int count = sizes[chunk]--;
+        removeAt(slots, chunk, offset, count);
+        for (int i = offset; i < count - 1; i++) {
+            slotsById.put(idAt(slots, i, chunk << CHUNK_BITS | i), chunk << CHUNK_BITS | i);
+        }
+        size--;
+        changed = true;
+        int holes = (chunkCount << CHUNK_BITS) - size;
+        if (holes > 2 * CHUNK_SIZE && holes > size) {
+            compact();
+        }
+        return true;
+    }
+    
+    /**
+     * Makes every change since the last publish visible to {@link #snapshot()} readers at once.
+     * Called under the owner's write lock before it is released; a no-op when nothing changed.
+     */
+    public void publish() {
+        if (!changed) {
+            return;
+        }
+        int full = chunkCount == 0 ? 0 : ((chunkCount - 1) << CHUNK_BITS) + sizes[chunkCount - 1];
+        published = new Snapshot<>(blocks, chunkCount, size, size != full, reader());
+        rootShared = true;
+        epoch++;
+        changed = false;
+    }
+    
+    /** Returns the last published version; safe to call without any lock. */
+    public Snapshot<T, C> snapshot() {
+        return published;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <C> C chunk(Object[][] blocks, int chunk) {
+        return (C) blocks[chunk >>> CHUNK_BITS][chunk & OFFSET_MASK];
+    }
+    
+    // Copies the chunk, its block and the root on the first change to them since the last publish
+    private C writableChunk(int chunk) {
+        Object[] block = writableBlock(chunk >>> CHUNK_BITS);
+        int index = chunk & OFFSET_MASK;
+        if (chunkEpochs[chunk] != epoch) {
+            @SuppressWarnings("unchecked")
+            C shared = (C) block[index];
+            block[index] = copyChunk(shared);
+            chunkEpochs[chunk] = epoch;
+        }
+        @SuppressWarnings("unchecked")
+        C writable = (C) block[index];
+        return writable;
+    }
+    
+    private Object[] writableBlock(int block) {
+        if (blockEpochs[block] != epoch) {
+            writableRoot()[block] = blocks[block].clone();
+            blockEpochs[block] = epoch;
+        }
+        return blocks[block];
+    }
+    
+    private Object[][] writableRoot() {
+        if (rootShared) {
+            blocks = blocks.clone();
+            rootShared = false;
+        }
+        return blocks;
+    }
+    
+    private int addChunk() {
+        int chunk = chunkCount;
+        int block = chunk >>> CHUNK_BITS;
+        if (block == blocks.length) {
+            blocks = Arrays.copyOf(blocks, blocks.length << 1);
+            blockEpochs = Arrays.copyOf(blockEpochs, blocks.length);
+            rootShared = false;
+        }
+        if (blocks[block] == null) {
+            writableRoot()[block] = new Object[CHUNK_SIZE];
+            blockEpochs[block] = epoch;
+        }
+        if (chunk == sizes.length) {
+            sizes = Arrays.copyOf(sizes, chunk << 1);
+            chunkEpochs = Arrays.copyOf(chunkEpochs, chunk << 1);
+        }
+        writableBlock(block)[chunk & OFFSET_MASK] = newChunk();
+        chunkEpochs[chunk] = epoch;
+        return chunkCount++;
+    }
+    
+    // Repacks the records into full chunks of a new tree
+    private void compact() {
+        Object[][] oldBlocks = blocks;
+        int oldChunkCount = chunkCount;
+        int[] oldSizes = sizes;
+        blocks = new Object[1][];
+        blockEpochs = new int[1];
+        sizes = new int[CHUNK_SIZE];
+        chunkEpochs = new int[CHUNK_SIZE];
+        chunkCount = 0;
+        rootShared = false;
+        beforeCompaction();
+        int live = 0;
+        C packed = null;
+        for (int chunk = 0; chunk < oldChunkCount; chunk++) {
+            C slots = chunk(oldBlocks, chunk);
+            for (int i = 0; i < oldSizes[chunk]; i++) {
+                if ((live & OFFSET_MASK) == 0) {
+                    packed = writableChunk(addChunk());
+                }
+                transfer(slots, i, chunk << CHUNK_BITS | i, packed, live & OFFSET_MASK);
+                sizes[live >>> CHUNK_BITS]++;
+                slotsById.put(idAt(packed, live & OFFSET_MASK, live), live);
+                live++;
+            }
+        }
+        afterCompaction();
+    }
+    
+    /**
+     * One published version of the store: an unmodifiable list of its records in insertion order.
+     * Taking it copies nothing, and it never changes, whatever is written afterwards.
+     */
+    static final class Snapshot<T, C> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] blocks;
+        private final int chunkCount;
+        private final int size;
+        private final boolean shortChunks; // some chunk before the last is not full, so indexes need the chunk starts
+        private final ChunkReader<T, C> reader;
+        private volatile int[] starts; // list index of each chunk's first record, computed on first use
+        
+        Snapshot(Object[][] blocks, int chunkCount, int size, boolean shortChunks, ChunkReader<T, C> reader) {
+            this.blocks = blocks;
+            this.chunkCount = chunkCount;
+            this.size = size;
+            this.shortChunks = shortChunks;
+            this.reader = reader;
+        }
+        
+        @Override
+        public int size() {
+            return size;
+        }
+        
+        /** Chunks of this version, for scans that read a chunk's slots directly rather than record by record. */
+        int chunkCount() {
+            return chunkCount;
+        }
+        
+        C chunkAt(int chunk) {
+            return chunk(blocks, chunk);
+        }
+        
+        ChunkReader<T, C> reader() {
+            return reader;
+        }
+        
+        @Override
+        public T get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            int chunk = index >>> CHUNK_BITS;
+            int offset = index & OFFSET_MASK;
+            if (shortChunks) {
+                int[] chunkStarts = starts();
+                chunk = chunkOf(chunkStarts, index);
+                offset = index - chunkStarts[chunk];
+            }
+            return reader.read(chunk(blocks, chunk), offset, chunk << CHUNK_BITS | offset);
+        }
+        
+        private int[] starts() {
+            int[] chunkStarts = starts;
+            if (chunkStarts == null) {
+                chunkStarts = new int[chunkCount];
+                for (int chunk = 1; chunk < chunkCount; chunk++) {
+                    chunkStarts[chunk] = chunkStarts[chunk - 1] + reader.length(chunk(blocks, chunk - 1));
+                }
+                starts = chunkStarts;
+            }
+            return chunkStarts;
+        }
+        
+        // Last chunk starting at or before the index; empty chunks share their start with the next one
+        private int chunkOf(int[] chunkStarts, int index) {
+            int low = 0;
+            int high = chunkCount - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                if (chunkStarts[middle] <= index) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return low;
+        }
+        
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int chunk;
+                private int offset;
+                private C slots = chunkCount > 0 ? chunk(blocks, 0) : null;
+                private int length = slots != null ? reader.length(slots) : 0;
+                private int remaining = size;
+                
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+                
+                @Override
+                public T next() {
+                    if (remaining == 0) {
+                        throw new NoSuchElementException();
+                    }
+                    while (offset == length) {
+                        slots = chunk(blocks, ++chunk);
+                        length = reader.length(slots);
+                        offset = 0;
+                    }
+                    remaining--;
+                    int slot = chunk << CHUNK_BITS | offset;
+                    return reader.read(slots, offset++, slot);
+                }
+            };
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Fixed-size pool of JDBC connections. Each pooled connection keeps its own
+ * cache of prepared statements, so hot queries are parsed once per connection.
+ */
+class ConnectionPool implements AutoCloseable {
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> all = new ArrayList<>();
+    
+    ConnectionPool(String url, int size, List<String> initStatements) throws SQLException {
+        idle = new ArrayBlockingQueue<>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection connection = DriverManager.getConnection(url);
+                try (Statement statement = connection.createStatement()) {
+                    for (String sql : initStatements) {
+                        statement.execute(sql);
+                    }
+                }
+                PooledConnection pooled = new PooledConnection(connection);
+                all.add(pooled);
+                idle.add(pooled);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    PooledConnection borrow() {
+        try {
+            return idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepositoryException("Interrupted while waiting for a database connection", e);
+        }
+    }
+    
+    void release(PooledConnection connection) {
+        idle.add(connection);
+    }
+    
+    @Override
+    public void close() {
+        for (PooledConnection pooled : all) {
+            pooled.close();
+        }
+        all.clear();
+        idle.clear();
+    }
+    
+    static class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+        
+        Connection connection() {
+            return connection;
+        }
+        
+        /** Returns the cached statement for this SQL, preparing it on first use. */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                statements.put(sql, statement);
+            }
+            statement.clearParameters();
+            return statement;
+        }
+        
+        /** Drops batched rows left behind by a failed transaction. */
+        void clearBatches() throws SQLException {
+            for (PreparedStatement statement : statements.values()) {
+                statement.clearBatch();
+            }
+        }
+        
+        void close() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                }
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package database;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV reader. Fields are separated by commas; a field in double quotes may hold commas,
+ * line breaks and doubled quotes, as in RFC 4180. Only the record being parsed is held in memory.
+ */
+final class CsvReader {
+    private final Reader in;
+    private final char[] buffer = new char[16 * 1024];
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    private int position;
+    private int limit;
+    private int pushedBack = -2;
+    private long line = 1;
+    private long recordLine;
+    
+    CsvReader(Reader in) {
+        this.in = in;
+    }
+    
+    /** Returns the next record's fields, or null at the end of the input. Blank lines are skipped. */
+    String[] next() throws IOException {
+        int c = read();
+        if (line == 1 && c == '\uFEFF') {
+            c = read(); // byte order mark written by spreadsheets
+        }
+        while (c == '\r' || c == '\n') {
+            endOfLine(c);
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c != -1) {
+                    endOfLine(c);
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+    
+    /** Line on which the record last returned by {@link #next} starts. */
+    long getRecordLine() {
+        return recordLine;
+    }
+    
+    // Finishes a line break that started with c, so "\r\n" and a lone "\r" count as one line
+    private void endOfLine(int c) throws IOException {
+        line++;
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') {
+                pushedBack = next;
+            }
+        }
+    }
+    
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        if (position == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+}
\ No newline at end of file
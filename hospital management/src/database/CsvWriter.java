@@ -0,0 +1,46 @@
+package database;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/** Writes CSV records that {@link CsvReader} reads back unchanged; null fields are written empty. */
+final class CsvWriter {
+    private final Writer out;
+    
+    CsvWriter(Writer out) {
+        this.out = out;
+    }
+    
+    void writeRecord(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeField(values[i]);
+        }
+        out.write("\r\n");
+    }
+    
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+    
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package database;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * One day's appointments at a glance, for the dashboard: how many there are in each status, how
+ * many patients had a completed visit, and the consultation fees those visits earned.
+ */
+public final class DailySummary {
+    private final LocalDate date;
+    private final Map<String, Integer> counts;
+    private final int patientsSeen;
+    private final double revenue;
+    
+    DailySummary(LocalDate date, Map<String, Integer> counts, int patientsSeen, double revenue) {
+        this.date = date;
+        this.counts = Collections.unmodifiableMap(counts);
+        this.patientsSeen = patientsSeen;
+        this.revenue = revenue;
+    }
+    
+    public LocalDate getDate() { return date; }
+    
+    /** Appointments in the given status, compared case-insensitively. */
+    public int getCount(String status) {
+        return counts.getOrDefault(AppointmentTotals.normalize(status), 0);
+    }
+    
+    /** Every status that occurs on the day, in upper case, with its count. */
+    public Map<String, Integer> getCounts() { return counts; }
+    
+    public int getScheduled() { return getCount("SCHEDULED"); }
+    
+    public int getCompleted() { return getCount("COMPLETED"); }
+    
+    public int getCancelled() { return getCount("CANCELLED"); }
+    
+    /** Distinct patients with at least one completed appointment on the day. */
+    public int getPatientsSeen() { return patientsSeen; }
+    
+    /** The current consultation fee of each completed appointment's doctor, summed. */
+    public double getRevenue() { return revenue; }
+}
\ No newline at end of file
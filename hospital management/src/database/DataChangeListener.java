@@ -0,0 +1,14 @@
+package database;
+
+import java.util.List;
+
+/**
+ * Receives the records changed by each write to a {@link DatabaseManager}: one event for a single
+ * add, update or delete, one list for a batch. Called on the writing thread once the change is
+ * applied, so implementations must be quick and thread-safe. Writers of the same entity may
+ * deliver their events out of order, so listeners should read the current state of the ids
+ * they are given rather than rely on the event type alone.
+ */
+public interface DataChangeListener {
+    void changed(List<ChangeEvent> events);
+}
\ No newline at end of file
@@ -1,127 +1,1347 @@
 package database;
 
 import models.*;
+import java.io.DataInput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
 
-public class DatabaseManager {
-    private static DatabaseManager instance;
-    private List<Patient> patients;
-    private List<Doctor> doctors;
-    private List<Appointment> appointments;
-    private int nextPatientId = 1;
-    private int nextDoctorId = 1;
-    private int nextAppointmentId = 1;
-    
-    private DatabaseManager() {
-        patients = new ArrayList<>();
-        doctors = new ArrayList<>();
-        appointments = new ArrayList<>();
+/**
+ * In-memory store for patients, doctors and appointments.
+ * Safe for concurrent use: ids are allocated atomically and each entity store
+ * is guarded by its own read/write lock, so readers and writers of one entity
+ * never wait on another. Each store publishes an immutable version of itself as a
+ * write commits: the getAll methods return the current version without copying or
+ * locking, so listing never blocks a writer and a list already handed out never changes.
+ * Lists can also be read a page at a time, in id, name or date order, through the getPage methods.
+ * Appointments are stored column by column and read back as lightweight views, so a long
+ * history costs a few dozen bytes per appointment. With {@link TextStorage#OFF_HEAP} patient
+ * histories and appointment notes are kept off the heap too, and decoded only when read.
+ *
+ * A manager opened with {@link #openDurable} also journals every change to a write-ahead log
+ * and periodically checkpoints the stores to a snapshot; on startup it maps the snapshot,
+ * materializing records only as they are read, and replays the log written after it. The shared instance is durable when the
+ * {@code hms.data.dir} system property names a data directory, and keeps its text off-heap when
+ * {@code hms.text} is {@code OFF_HEAP}.
+ */
+public class DatabaseManager implements HospitalRepository, AutoCloseable {
+    public static final long DEFAULT_CHECKPOINT_EVERY = 100_000;
+    
+    private final IndexedStore<Patient> patients;
+    private final IndexedStore<Doctor> doctors = new IndexedStore<>(Doctor::getDoctorId);
+    private final AppointmentStore appointments;
+    // Each lazy index is built under its own lock, so building one never holds up the first use of another
+    private volatile AppointmentIndex appointmentIndex; // built on first query
+    private final Object appointmentIndexLock = new Object();
+    private volatile PatientSearchIndex patientSearchIndex; // built on first search
+    private final Object searchIndexLock = new Object();
+    private List<Integer> searchIndexBacklog; // patients written while the search index builds; guarded by the patient lock
+    private volatile AvailabilityIndex availabilityIndex; // built on first booking or slot search
+    private final Object availabilityLock = new Object();
+    private volatile OrderIndex patientOrder; // built on first page request
+    private final Object patientOrderLock = new Object();
+    private volatile OrderIndex doctorOrder; // built on first page request
+    private final Object doctorOrderLock = new Object();
+    private volatile AppointmentTotals appointmentTotals; // built on first dashboard query
+    private final Object totalsLock = new Object();
+    private final ReadWriteLock patientLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock doctorLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock appointmentLock = new ReentrantReadWriteLock();
+    private final AtomicInteger nextPatientId = new AtomicInteger(1);
+    private final AtomicInteger nextDoctorId = new AtomicInteger(1);
+    private final AtomicInteger nextAppointmentId = new AtomicInteger(1);
+    private final AtomicLong directoryVersion = new AtomicLong();
+    private volatile List<AppointmentView> appointmentViews;
+    private final AppointmentAnalytics analytics;
+    private final List<DataChangeListener> listeners = new CopyOnWriteArrayList<>();
+    
+    // Durability; all null when the manager is purely in-memory
+    private final Path dataDirectory;
+    private final WriteAheadLog journal;
+    private final ExecutorService checkpointer;
+    private final long checkpointEvery;
+    private final AtomicLong writesSinceCheckpoint = new AtomicLong();
+    private final AtomicBoolean checkpointScheduled = new AtomicBoolean();
+    private final Object checkpointLock = new Object();
+    private boolean closed; // guarded by checkpointLock
+    private long checkpointedSequence = -1; // guarded by checkpointLock
+    
+    private DatabaseManager(TextStorage textStorage) {
+        patients = patientStore(textStorage);
+        appointments = new AppointmentStore(textStorage);
+        analytics = new AppointmentAnalytics(appointments, doctors);
+        dataDirectory = null;
+        journal = null;
+        checkpointer = null;
+        checkpointEvery = 0;
         initializeSampleData();
     }
     
+    private DatabaseManager(Path dataDirectory, FsyncPolicy policy, long checkpointEvery, TextStorage textStorage) throws IOException {
+        patients = patientStore(textStorage);
+        appointments = new AppointmentStore(textStorage);
+        analytics = new AppointmentAnalytics(appointments, doctors);
+        this.dataDirectory = dataDirectory;
+        this.checkpointEvery = checkpointEvery;
+        SnapshotFile snapshot = SnapshotFile.open(dataDirectory);
+        boolean fresh = snapshot == null && !WriteAheadLog.hasSegments(dataDirectory);
+        long sequence = 0;
+        if (snapshot != null) {
+            patients.attach(snapshot.patients);
+            doctors.attach(snapshot.doctors);
+            appointments.attach(snapshot.appointments);
+            nextPatientId.accumulateAndGet(snapshot.nextPatientId, Math::max);
+            nextDoctorId.accumulateAndGet(snapshot.nextDoctorId, Math::max);
+            nextAppointmentId.accumulateAndGet(snapshot.nextAppointmentId, Math::max);
+            sequence = snapshot.lastSequence;
+            checkpointedSequence = sequence;
+        }
+        sequence = WriteAheadLog.replay(dataDirectory, sequence, this::replayRecord);
+        patients.publish();
+        doctors.publish();
+        appointments.publish();
+        journal = new WriteAheadLog(dataDirectory, policy, sequence);
+        checkpointer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hms-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (fresh) {
+            initializeSampleData();
+        }
+    }
+    
+    // Initialization-on-demand holder: lazy and thread-safe without locking
+    private static class Holder {
+        static final DatabaseManager INSTANCE = createShared();
+    }
+    
     public static DatabaseManager getInstance() {
-        if (instance == null) {
-            instance = new DatabaseManager();
+        return Holder.INSTANCE;
+    }
+    
+    /**
+     * Creates a standalone in-memory store seeded with the sample data, independent of the
+     * shared instance; used by tests and benchmarks that need a store of their own.
+     */
+    public static DatabaseManager inMemory() {
+        return inMemory(TextStorage.HEAP);
+    }
+    
+    public static DatabaseManager inMemory(TextStorage textStorage) {
+        return new DatabaseManager(textStorage);
+    }
+    
+    private static DatabaseManager createShared() {
+        TextStorage textStorage = TextStorage.valueOf(System.getProperty("hms.text", TextStorage.HEAP.name()));
+        String directory = System.getProperty("hms.data.dir");
+        if (directory == null) {
+            return new DatabaseManager(textStorage);
+        }
+        FsyncPolicy policy = FsyncPolicy.valueOf(System.getProperty("hms.fsync", FsyncPolicy.INTERVAL.name()));
+        DatabaseManager manager = openDurable(Paths.get(directory), policy, DEFAULT_CHECKPOINT_EVERY, textStorage);
+        Runtime.getRuntime().addShutdownHook(new Thread(manager::close, "hms-shutdown"));
+        return manager;
+    }
+    
+    /**
+     * Opens (or creates) a durable store in the given directory, checkpointing every
+     * {@link #DEFAULT_CHECKPOINT_EVERY} writes. A new directory is seeded with the sample data.
+     */
+    public static DatabaseManager openDurable(Path directory, FsyncPolicy policy) {
+        return openDurable(directory, policy, DEFAULT_CHECKPOINT_EVERY);
+    }
+    
+    public static DatabaseManager openDurable(Path directory, FsyncPolicy policy, long checkpointEvery) {
+        return openDurable(directory, policy, checkpointEvery, TextStorage.HEAP);
+    }
+    
+    public static DatabaseManager openDurable(Path directory, FsyncPolicy policy, long checkpointEvery, TextStorage textStorage) {
+        try {
+            return new DatabaseManager(directory, policy, checkpointEvery, textStorage);
+        } catch (IOException e) {
+            throw new RepositoryException("Could not open data directory " + directory, e);
         }
-        return instance;
+    }
+    
+    // Off-heap histories need a store that keeps patients with a handle in place of the text
+    private static IndexedStore<Patient> patientStore(TextStorage textStorage) {
+        return textStorage == TextStorage.OFF_HEAP ? new PatientStore() : new IndexedStore<>(Patient::getPatientId);
     }
     
     private void initializeSampleData() {
         // Add sample doctors
-        addDoctor(new Doctor(nextDoctorId++, "Dr. John Smith", "Cardiology", "123-456-7890", "john.smith@hospital.com", "Mon-Fri 9AM-5PM", 150.0));
-        addDoctor(new Doctor(nextDoctorId++, "Dr. Sarah Johnson", "Pediatrics", "123-456-7891", "sarah.johnson@hospital.com", "Mon-Sat 8AM-4PM", 120.0));
-        addDoctor(new Doctor(nextDoctorId++, "Dr. Michael Brown", "Orthopedics", "123-456-7892", "michael.brown@hospital.com", "Tue-Sat 10AM-6PM", 180.0));
+        addDoctor(new Doctor(nextDoctorId.getAndIncrement(), "Dr. John Smith", "Cardiology", "123-456-7890", "john.smith@hospital.com", "Mon-Fri 9AM-5PM", 150.0));
+        addDoctor(new Doctor(nextDoctorId.getAndIncrement(), "Dr. Sarah Johnson", "Pediatrics", "123-456-7891", "sarah.johnson@hospital.com", "Mon-Sat 8AM-4PM", 120.0));
+        addDoctor(new Doctor(nextDoctorId.getAndIncrement(), "Dr. Michael Brown", "Orthopedics", "123-456-7892", "michael.brown@hospital.com", "Tue-Sat 10AM-6PM", 180.0));
         
         // Add sample patients
-        addPatient(new Patient(nextPatientId++, "Alice Wilson", 35, "Female", "555-0101", "123 Main St", "No known allergies"));
-        addPatient(new Patient(nextPatientId++, "Bob Davis", 42, "Male", "555-0102", "456 Oak Ave", "Diabetes Type 2"));
+        addPatient(new Patient(nextPatientId.getAndIncrement(), "Alice Wilson", 35, "Female", "555-0101", "123 Main St", "No known allergies"));
+        addPatient(new Patient(nextPatientId.getAndIncrement(), "Bob Davis", 42, "Male", "555-0102", "456 Oak Ave", "Diabetes Type 2"));
     }
     
     // Patient operations
+    @Override
     public void addPatient(Patient patient) {
-        if (patient.getPatientId() == 0) {
-            patient.setPatientId(nextPatientId++);
+        assignId(patient.getPatientId(), nextPatientId, patient::setPatientId);
+        long sequence;
+        boolean created;
+        patientLock.writeLock().lock();
+        try {
+            created = !patients.contains(patient.getPatientId());
+            sequence = logPut(EntityCodec.PATIENT, out -> EntityCodec.writePatient(out, patient));
+            patients.put(patient);
+            patientIndexesChanged(patient);
+            directoryChanged();
+        } finally {
+            patients.publish();
+            patientLock.writeLock().unlock();
         }
-        patients.add(patient);
+        committed(sequence);
+        publish(ChangeEvent.Entity.PATIENT, created ? ChangeEvent.Type.CREATED : ChangeEvent.Type.UPDATED, patient.getPatientId());
     }
     
+    /** Adds the patients under one lock acquisition, waiting on the write-ahead log once for the whole batch. */
+    @Override
+    public void addPatients(List<Patient> added) {
+        for (Patient patient : added) {
+            assignId(patient.getPatientId(), nextPatientId, patient::setPatientId);
+        }
+        long sequence = 0;
+        List<ChangeEvent> events = changeList(added.size());
+        patientLock.writeLock().lock();
+        try {
+            for (Patient patient : added) {
+                recordChange(events, ChangeEvent.Entity.PATIENT, patients.contains(patient.getPatientId()), patient.getPatientId());
+                sequence = logPut(EntityCodec.PATIENT, out -> EntityCodec.writePatient(out, patient));
+                patients.put(patient);
+                patientIndexesChanged(patient);
+            }
+            directoryChanged();
+        } finally {
+            patients.publish();
+            patientLock.writeLock().unlock();
+        }
+        committed(sequence, added.size());
+        publish(events);
+    }
+    
+    @Override
     public List<Patient> getAllPatients() {
-        return new ArrayList<>(patients);
+        return patients.snapshot();
     }
     
+    @Override
     public Patient getPatientById(int id) {
-        return patients.stream().filter(p -> p.getPatientId() == id).findFirst().orElse(null);
+        patientLock.readLock().lock();
+        try {
+            return patients.get(id);
+        } finally {
+            patientLock.readLock().unlock();
+        }
     }
     
-    public void updatePatient(Patient patient) {
-        for (int i = 0; i < patients.size(); i++) {
-            if (patients.get(i).getPatientId() == patient.getPatientId()) {
-                patients.set(i, patient);
-                break;
+    @Override
+    public boolean updatePatient(Patient patient) {
+        long sequence = 0;
+        boolean updated = false;
+        patientLock.writeLock().lock();
+        try {
+            if (patients.contains(patient.getPatientId())) {
+                updated = true;
+                sequence = logPut(EntityCodec.PATIENT, out -> EntityCodec.writePatient(out, patient));
+                patients.replace(patient);
+                patientIndexesChanged(patient);
+                directoryChanged();
             }
+        } finally {
+            patients.publish();
+            patientLock.writeLock().unlock();
         }
+        committed(sequence);
+        if (updated) {
+            publish(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.UPDATED, patient.getPatientId());
+        }
+        return updated;
     }
     
+    @Override
     public void deletePatient(int patientId) {
-        patients.removeIf(p -> p.getPatientId() == patientId);
+        long sequence = 0;
+        boolean deleted = false;
+        patientLock.writeLock().lock();
+        try {
+            if (patients.contains(patientId)) {
+                deleted = true;
+                sequence = logDelete(EntityCodec.PATIENT, patientId);
+                patients.remove(patientId);
+                searchIndexChanged(patientId, null);
+                OrderIndex order = patientOrder;
+                if (order != null) {
+                    order.remove(patientId);
+                }
+                directoryChanged();
+            }
+        } finally {
+            patients.publish();
+            patientLock.writeLock().unlock();
+        }
+        committed(sequence);
+        if (deleted) {
+            publish(ChangeEvent.Entity.PATIENT, ChangeEvent.Type.DELETED, patientId);
+        }
+    }
+    
+    /**
+     * Full-text search over patient name, phone, address and medical history. Every word of the
+     * query must match a word of the patient by prefix, substring or a small typo; returns up to
+     * {@code limit} patients, best matches first.
+     */
+    public List<Patient> searchPatients(String query, int limit) {
+        PatientSearchIndex index = searchIndex();
+        patientLock.readLock().lock();
+        try {
+            int[] ids = index.search(query, limit);
+            List<Patient> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                result.add(patients.get(id));
+            }
+            return result;
+        } finally {
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns one page of patients in id or name order, and how many patients there are in all.
+     * Only the patients on the page are read; see {@link PageRequest} for cursors and offsets.
+     */
+    public Page<Patient> getPatientsPage(PageRequest request) {
+        patientLock.readLock().lock();
+        try {
+            return patientOrder().page(request, patients::get);
+        } finally {
+            patientLock.readLock().unlock();
+        }
     }
     
     // Doctor operations
+    @Override
     public void addDoctor(Doctor doctor) {
-        if (doctor.getDoctorId() == 0) {
-            doctor.setDoctorId(nextDoctorId++);
+        assignId(doctor.getDoctorId(), nextDoctorId, doctor::setDoctorId);
+        long sequence;
+        boolean created;
+        doctorLock.writeLock().lock();
+        try {
+            created = !doctors.contains(doctor.getDoctorId());
+            sequence = logPut(EntityCodec.DOCTOR, out -> EntityCodec.writeDoctor(out, doctor));
+            doctors.put(doctor);
+            doctorIndexChanged(doctor);
+            directoryChanged();
+        } finally {
+            doctors.publish();
+            doctorLock.writeLock().unlock();
+        }
+        committed(sequence);
+        publish(ChangeEvent.Entity.DOCTOR, created ? ChangeEvent.Type.CREATED : ChangeEvent.Type.UPDATED, doctor.getDoctorId());
+    }
+    
+    /** Adds the doctors under one lock acquisition, waiting on the write-ahead log once for the whole batch. */
+    @Override
+    public void addDoctors(List<Doctor> added) {
+        for (Doctor doctor : added) {
+            assignId(doctor.getDoctorId(), nextDoctorId, doctor::setDoctorId);
         }
-        doctors.add(doctor);
+        long sequence = 0;
+        List<ChangeEvent> events = changeList(added.size());
+        doctorLock.writeLock().lock();
+        try {
+            for (Doctor doctor : added) {
+                recordChange(events, ChangeEvent.Entity.DOCTOR, doctors.contains(doctor.getDoctorId()), doctor.getDoctorId());
+                sequence = logPut(EntityCodec.DOCTOR, out -> EntityCodec.writeDoctor(out, doctor));
+                doctors.put(doctor);
+                doctorIndexChanged(doctor);
+            }
+            directoryChanged();
+        } finally {
+            doctors.publish();
+            doctorLock.writeLock().unlock();
+        }
+        committed(sequence, added.size());
+        publish(events);
     }
     
+    @Override
     public List<Doctor> getAllDoctors() {
-        return new ArrayList<>(doctors);
+        return doctors.snapshot();
     }
     
+    @Override
     public Doctor getDoctorById(int id) {
-        return doctors.stream().filter(d -> d.getDoctorId() == id).findFirst().orElse(null);
+        doctorLock.readLock().lock();
+        try {
+            return doctors.get(id);
+        } finally {
+            doctorLock.readLock().unlock();
+        }
     }
     
-    public void updateDoctor(Doctor doctor) {
-        for (int i = 0; i < doctors.size(); i++) {
-            if (doctors.get(i).getDoctorId() == doctor.getDoctorId()) {
-                doctors.set(i, doctor);
-                break;
+    @Override
+    public boolean updateDoctor(Doctor doctor) {
+        long sequence = 0;
+        boolean updated = false;
+        doctorLock.writeLock().lock();
+        try {
+            if (doctors.contains(doctor.getDoctorId())) {
+                updated = true;
+                sequence = logPut(EntityCodec.DOCTOR, out -> EntityCodec.writeDoctor(out, doctor));
+                doctors.replace(doctor);
+                doctorIndexChanged(doctor);
+                directoryChanged();
             }
+        } finally {
+            doctors.publish();
+            doctorLock.writeLock().unlock();
+        }
+        committed(sequence);
+        if (updated) {
+            publish(ChangeEvent.Entity.DOCTOR, ChangeEvent.Type.UPDATED, doctor.getDoctorId());
         }
+        return updated;
     }
     
+    @Override
     public void deleteDoctor(int doctorId) {
-        doctors.removeIf(d -> d.getDoctorId() == doctorId);
+        long sequence = 0;
+        boolean deleted = false;
+        doctorLock.writeLock().lock();
+        try {
+            if (doctors.contains(doctorId)) {
+                deleted = true;
+                sequence = logDelete(EntityCodec.DOCTOR, doctorId);
+                doctors.remove(doctorId);
+                OrderIndex order = doctorOrder;
+                if (order != null) {
+                    order.remove(doctorId);
+                }
+                directoryChanged();
+            }
+        } finally {
+            doctors.publish();
+            doctorLock.writeLock().unlock();
+        }
+        committed(sequence);
+        if (deleted) {
+            publish(ChangeEvent.Entity.DOCTOR, ChangeEvent.Type.DELETED, doctorId);
+        }
+    }
+    
+    /** Returns one page of doctors in id or name order, and how many doctors there are in all. */
+    public Page<Doctor> getDoctorsPage(PageRequest request) {
+        doctorLock.readLock().lock();
+        try {
+            return doctorOrder().page(request, doctors::get);
+        } finally {
+            doctorLock.readLock().unlock();
+        }
     }
     
     // Appointment operations
+    /** Adds the appointment, or throws {@link BookingConflictException} if its doctor is already booked then. */
+    @Override
     public void addAppointment(Appointment appointment) {
-        if (appointment.getAppointmentId() == 0) {
-            appointment.setAppointmentId(nextAppointmentId++);
+        assignId(appointment.getAppointmentId(), nextAppointmentId, appointment::setAppointmentId);
+        long sequence;
+        boolean created;
+        appointmentLock.writeLock().lock();
+        try {
+            availability().checkAvailable(appointment);
+            created = !appointments.contains(appointment.getAppointmentId());
+            sequence = logPut(EntityCodec.APPOINTMENT, out -> EntityCodec.writeAppointment(out, appointment));
+            totalsRemoving(appointment.getAppointmentId());
+            appointments.put(appointment);
+            indexChanged(appointment);
+            appointmentViews = null;
+        } finally {
+            appointments.publish();
+            appointmentLock.writeLock().unlock();
         }
-        appointments.add(appointment);
+        committed(sequence);
+        publish(ChangeEvent.Entity.APPOINTMENT, created ? ChangeEvent.Type.CREATED : ChangeEvent.Type.UPDATED, appointment.getAppointmentId());
     }
     
+    /**
+     * Adds the appointments as one batch under one lock acquisition. If any of them clashes with an
+     * existing booking or with another in the batch, throws {@link BookingConflictException} and adds none.
+     * If writing the journal fails part-way, the appointments before the failing one stay added and
+     * the rest are neither added nor booked.
+     */
+    @Override
+    public void addAppointments(List<Appointment> added) {
+        for (Appointment appointment : added) {
+            assignId(appointment.getAppointmentId(), nextAppointmentId, appointment::setAppointmentId);
+        }
+        long sequence = 0;
+        List<ChangeEvent> events = changeList(added.size());
+        appointmentLock.writeLock().lock();
+        try {
+            // Book the whole batch first, so its members are checked against each other too
+            AvailabilityIndex availability = availability();
+            int booked = 0;
+            try {
+                for (; booked < added.size(); booked++) {
+                    availability.checkAvailable(added.get(booked));
+                    availability.update(added.get(booked));
+                }
+            } finally {
+                if (booked < added.size()) {
+                    unbook(availability, added, 0, booked);
+                }
+            }
+            AppointmentIndex index = appointmentIndex;
+            AppointmentTotals totals = appointmentTotals;
+            int applied = 0;
+            try {
+                for (; applied < added.size(); applied++) {
+                    Appointment appointment = added.get(applied);
+                    boolean stored = appointments.contains(appointment.getAppointmentId());
+                    sequence = logPut(EntityCodec.APPOINTMENT, out -> EntityCodec.writeAppointment(out, appointment));
+                    recordChange(events, ChangeEvent.Entity.APPOINTMENT, stored, appointment.getAppointmentId());
+                    totalsRemoving(appointment.getAppointmentId());
+                    appointments.put(appointment);
+                    if (index != null) {
+                        index.update(appointment);
+                    }
+                    if (totals != null) {
+                        totals.add(appointment);
+                    }
+                }
+            } finally {
+                if (applied < added.size()) {
+                    unbook(availability, added, applied, added.size());
+                }
+                appointmentViews = null;
+            }
+        } finally {
+            appointments.publish();
+            appointmentLock.writeLock().unlock();
+        }
+        committed(sequence, added.size());
+        publish(events);
+    }
+    
+    // Gives the slots of added[from, to) back to the versions stored now, if any
+    private void unbook(AvailabilityIndex availability, List<Appointment> added, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int id = added.get(i).getAppointmentId();
+            availability.remove(id);
+            if (appointments.contains(id)) {
+                availability.add(appointments.get(id));
+            }
+        }
+    }
+    
+    @Override
     public List<Appointment> getAllAppointments() {
-        return new ArrayList<>(appointments);
+        return appointments.snapshot();
     }
     
+    @Override
     public Appointment getAppointmentById(int id) {
-        return appointments.stream().filter(a -> a.getAppointmentId() == id).findFirst().orElse(null);
+        appointmentLock.readLock().lock();
+        try {
+            return appointments.get(id);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
     }
     
-    public void updateAppointment(Appointment appointment) {
-        for (int i = 0; i < appointments.size(); i++) {
-            if (appointments.get(i).getAppointmentId() == appointment.getAppointmentId()) {
-                appointments.set(i, appointment);
-                break;
+    /** Saves the changes, or throws {@link BookingConflictException} if the new time clashes with another booking. */
+    @Override
+    public boolean updateAppointment(Appointment appointment) {
+        long sequence = 0;
+        boolean updated = false;
+        appointmentLock.writeLock().lock();
+        try {
+            if (appointments.contains(appointment.getAppointmentId())) {
+                availability().checkAvailable(appointment);
+                updated = true;
+                sequence = logPut(EntityCodec.APPOINTMENT, out -> EntityCodec.writeAppointment(out, appointment));
+                totalsRemoving(appointment.getAppointmentId());
+                appointments.replace(appointment);
+                indexChanged(appointment);
+                appointmentViews = null;
             }
+        } finally {
+            appointments.publish();
+            appointmentLock.writeLock().unlock();
         }
+        committed(sequence);
+        if (updated) {
+            publish(ChangeEvent.Entity.APPOINTMENT, ChangeEvent.Type.UPDATED, appointment.getAppointmentId());
+        }
+        return updated;
     }
     
+    @Override
     public void deleteAppointment(int appointmentId) {
-        appointments.removeIf(a -> a.getAppointmentId() == appointmentId);
+        long sequence = 0;
+        boolean deleted = false;
+        appointmentLock.writeLock().lock();
+        try {
+            if (appointments.contains(appointmentId)) {
+                deleted = true;
+                sequence = logDelete(EntityCodec.APPOINTMENT, appointmentId);
+                totalsRemoving(appointmentId);
+                appointments.remove(appointmentId);
+                AppointmentIndex index = appointmentIndex;
+                if (index != null) {
+                    index.remove(appointmentId);
+                }
+                AvailabilityIndex availability = availabilityIndex;
+                if (availability != null) {
+                    availability.remove(appointmentId);
+                }
+                appointmentViews = null;
+            }
+        } finally {
+            appointments.publish();
+            appointmentLock.writeLock().unlock();
+        }
+        committed(sequence);
+        if (deleted) {
+            publish(ChangeEvent.Entity.APPOINTMENT, ChangeEvent.Type.DELETED, appointmentId);
+        }
+    }
+    
+    /** Returns the patients with the given ids that exist, in the order given, under a single read lock. */
+    public List<Patient> getPatientsByIds(Collection<Integer> ids) {
+        patientLock.readLock().lock();
+        try {
+            return lookUp(patients, ids);
+        } finally {
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /** Returns the doctors with the given ids that exist, in the order given, under a single read lock. */
+    public List<Doctor> getDoctorsByIds(Collection<Integer> ids) {
+        doctorLock.readLock().lock();
+        try {
+            return lookUp(doctors, ids);
+        } finally {
+            doctorLock.readLock().unlock();
+        }
+    }
+    
+    private static <T> List<T> lookUp(ChunkedStore<T, ?> store, Collection<Integer> ids) {
+        List<T> found = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            T record = store.get(id);
+            if (record != null) {
+                found.add(record);
+            }
+        }
+        return found;
+    }
+    
+    /** Returns which of the given ids name existing patients, under a single read lock; used to check references in bulk. */
+    public Set<Integer> existingPatientIds(Collection<Integer> ids) {
+        patientLock.readLock().lock();
+        try {
+            Set<Integer> existing = new HashSet<>();
+            for (int id : ids) {
+                if (patients.contains(id)) {
+                    existing.add(id);
+                }
+            }
+            return existing;
+        } finally {
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /** Returns which of the given ids name existing doctors, under a single read lock. */
+    public Set<Integer> existingDoctorIds(Collection<Integer> ids) {
+        doctorLock.readLock().lock();
+        try {
+            Set<Integer> existing = new HashSet<>();
+            for (int id : ids) {
+                if (doctors.contains(id)) {
+                    existing.add(id);
+                }
+            }
+            return existing;
+        } finally {
+            doctorLock.readLock().unlock();
+        }
+    }
+    
+    // Appointment queries, served from the secondary indexes in time order.
+    // A null from/to bound leaves that side of the range open.
+    public List<Appointment> getAppointmentsForDoctor(int doctorId) {
+        return getAppointmentsForDoctorBetween(doctorId, null, null);
+    }
+    
+    public List<Appointment> getAppointmentsForDoctorBetween(int doctorId, LocalDateTime from, LocalDateTime to) {
+        appointmentLock.readLock().lock();
+        try {
+            return index().forDoctor(doctorId, from, to);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    public List<Appointment> getAppointmentsForDoctorOn(int doctorId, LocalDate date) {
+        return getAppointmentsForDoctorBetween(doctorId, date.atStartOfDay(), date.atTime(LocalTime.MAX));
+    }
+    
+    public List<Appointment> getAppointmentsForPatient(int patientId) {
+        return getAppointmentsForPatientBetween(patientId, null, null);
+    }
+    
+    public List<Appointment> getAppointmentsForPatientBetween(int patientId, LocalDateTime from, LocalDateTime to) {
+        appointmentLock.readLock().lock();
+        try {
+            return index().forPatient(patientId, from, to);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the patient's visits joined with doctor names, newest first, and the next one at or
+     * after {@code now} that is not cancelled. Read from the patient's own time-ordered index
+     * bucket, so the cost follows the length of this patient's history, not the store's size.
+     */
+    public PatientTimeline getPatientTimeline(int patientId, LocalDateTime now) {
+        patientLock.readLock().lock();
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            AppointmentIndex index = index();
+            List<Appointment> visits = index.forPatientNewestFirst(patientId);
+            List<AppointmentView> joined = new ArrayList<>(visits.size());
+            for (Appointment visit : visits) {
+                joined.add(join(visit));
+            }
+            Appointment next = index.nextForPatient(patientId, now);
+            return new PatientTimeline(patientId, now, joined, next != null ? join(next) : null);
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    public List<Appointment> getAppointmentsBetween(LocalDateTime from, LocalDateTime to) {
+        appointmentLock.readLock().lock();
+        try {
+            return index().between(from, to);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    public List<Appointment> getAppointmentsByStatus(String status) {
+        return getAppointmentsByStatusBetween(status, null, null);
+    }
+    
+    public List<Appointment> getAppointmentsByStatusBetween(String status, LocalDateTime from, LocalDateTime to) {
+        appointmentLock.readLock().lock();
+        try {
+            return index().withStatus(status, from, to);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the next {@code count} open slots at or after {@code from} with doctors of the given
+     * specialization (any specialization when null), earliest first. Slots come from each doctor's
+     * parsed weekly schedule, skipping time already booked.
+     */
+    public List<FreeSlot> findFreeSlots(String specialization, LocalDateTime from, int count) {
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            List<Doctor> candidates = new ArrayList<>();
+            for (Doctor doctor : doctors.snapshot()) {
+                if (specialization == null || specialization.trim().equalsIgnoreCase(
+                        doctor.getSpecialization() != null ? doctor.getSpecialization().trim() : "")) {
+                    candidates.add(doctor);
+                }
+            }
+            return availability().freeSlots(candidates, from, count);
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the day's appointment counts by status, the number of patients seen and the fees earned.
+     * Read from totals that every appointment write adjusts in constant time, so the cost does not
+     * grow with the history; only the first call counts the stored appointments.
+     */
+    public DailySummary getDailySummary(LocalDate date) {
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            return totals().summary(date, doctorId -> {
+                Doctor doctor = doctors.get(doctorId);
+                return doctor != null ? doctor.getConsultationFee() : 0;
+            });
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+        }
+    }
+    
+    /** Counts the day's appointments in the given status, of one doctor or of every doctor when {@code doctorId} is 0. */
+    public int countAppointments(LocalDate date, int doctorId, String status) {
+        appointmentLock.readLock().lock();
+        try {
+            return totals().count(date, doctorId, status);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns revenue, cancellation, no-show and utilization figures per doctor and specialization
+     * for the days from {@code from} to {@code to} inclusive, by day, week or month. Counted in
+     * parallel from the published appointments without locking; a report is reused until
+     * appointments or doctors next change. A range of more than 1000 periods throws
+     * {@link IllegalArgumentException}.
+     */
+    public AnalyticsReport getAnalytics(LocalDate from, LocalDate to, AnalyticsReport.Period period) {
+        return analytics.report(from, to, period);
+    }
+    
+    /**
+     * Returns every appointment joined with its patient and doctor names, in insertion order.
+     * The joined list is cached and rebuilt only after appointments, patients or doctors change.
+     */
+    public List<AppointmentView> getAppointmentViews() {
+        List<AppointmentView> views = appointmentViews;
+        if (views != null) {
+            return views;
+        }
+        // Fixed lock order (patients, doctors, appointments) so concurrent readers never deadlock.
+        // Holding all three read locks means no writer can invalidate while the join is published.
+        patientLock.readLock().lock();
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            views = appointmentViews;
+            if (views == null) {
+                List<Appointment> all = appointments.snapshot();
+                List<AppointmentView> joined = new ArrayList<>(all.size());
+                for (Appointment appointment : all) {
+                    joined.add(join(appointment));
+                }
+                views = Collections.unmodifiableList(joined);
+                appointmentViews = views;
+            }
+            return views;
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the appointments matching the filter joined with patient and doctor names, in time order.
+     * Matches are found through the appointment indexes, so only they are visited and joined; an
+     * unrestricted filter returns the cached full join.
+     */
+    public List<AppointmentView> getAppointmentViews(AppointmentFilter filter) {
+        if (filter.isUnrestricted()) {
+            return getAppointmentViews();
+        }
+        patientLock.readLock().lock();
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            List<Appointment> matches = index().matching(filter);
+            List<AppointmentView> joined = new ArrayList<>(matches.size());
+            for (Appointment appointment : matches) {
+                joined.add(join(appointment));
+            }
+            return Collections.unmodifiableList(joined);
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns one page of the appointments matching the filter, in date or id order, and how many
+     * match in all. Only the appointments on the page are read from the store.
+     */
+    public Page<Appointment> getAppointmentsPage(AppointmentFilter filter, PageRequest request) {
+        appointmentLock.readLock().lock();
+        try {
+            return index().page(filter, request);
+        } finally {
+            appointmentLock.readLock().unlock();
+        }
+    }
+    
+    /** Like {@link #getAppointmentsPage}, with the page's appointments joined with patient and doctor names. */
+    public Page<AppointmentView> getAppointmentViewsPage(AppointmentFilter filter, PageRequest request) {
+        patientLock.readLock().lock();
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            return index().page(filter, request).map(this::join);
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    /** Returns the appointments with the given ids that exist, joined with patient and doctor names, in the order given. */
+    public List<AppointmentView> getAppointmentViewsByIds(Collection<Integer> ids) {
+        patientLock.readLock().lock();
+        doctorLock.readLock().lock();
+        appointmentLock.readLock().lock();
+        try {
+            List<AppointmentView> joined = new ArrayList<>(ids.size());
+            for (int id : ids) {
+                Appointment appointment = appointments.get(id);
+                if (appointment != null) {
+                    joined.add(join(appointment));
+                }
+            }
+            return joined;
+        } finally {
+            appointmentLock.readLock().unlock();
+            doctorLock.readLock().unlock();
+            patientLock.readLock().unlock();
+        }
+    }
+    
+    // Called under the patient and doctor read locks
+    private AppointmentView join(Appointment appointment) {
+        Patient patient = patients.get(appointment.getPatientId());
+        Doctor doctor = doctors.get(appointment.getDoctorId());
+        return new AppointmentView(appointment,
+            patient != null ? patient.getName() : "Unknown",
+            doctor != null ? doctor.getName() : "Unknown");
+    }
+    
+    /**
+     * Registers a listener for every record created, updated or deleted from now on. Events are
+     * delivered on the writing thread after the change is applied and the write-ahead log has
+     * acknowledged it; batch inserts deliver one list per batch.
+     */
+    public void addChangeListener(DataChangeListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeChangeListener(DataChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /** Incremented on every patient or doctor change; lets views skip reloading unchanged pick lists. */
+    public long getDirectoryVersion() {
+        return directoryVersion.get();
+    }
+    
+    /**
+     * Writes a snapshot of all three stores and drops the log segments it covers.
+     * Runs automatically once enough writes have been logged; a no-op for in-memory managers.
+     */
+    public void checkpoint() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (checkpointLock) {
+            if (closed) {
+                return;
+            }
+            long boundary;
+            List<Patient> patientRows;
+            List<Doctor> doctorRows;
+            List<Appointment> appointmentRows;
+            // Holding every read lock keeps writers (and so log appends) out while the log is rolled
+            patientLock.readLock().lock();
+            doctorLock.readLock().lock();
+            appointmentLock.readLock().lock();
+            try {
+                boundary = journal.roll();
+                writesSinceCheckpoint.set(0);
+                if (boundary == checkpointedSequence) {
+                    return; // nothing logged since the last snapshot
+                }
+                patientRows = patients.snapshot();
+                doctorRows = doctors.snapshot();
+                appointmentRows = appointments.snapshot();
+            } catch (IOException e) {
+                throw new RepositoryException("Could not roll the write-ahead log", e);
+            } finally {
+                appointmentLock.readLock().unlock();
+                doctorLock.readLock().unlock();
+                patientLock.readLock().unlock();
+            }
+            // Records are re-applied idempotently on replay, so entities changed after the
+            // boundary may safely appear in either state in the snapshot
+            try {
+                SnapshotFile.write(dataDirectory, boundary, nextPatientId.get(), nextDoctorId.get(), nextAppointmentId.get(),
+                    patientRows, doctorRows, appointmentRows);
+                journal.deleteSegmentsThrough(boundary);
+                checkpointedSequence = boundary;
+            } catch (IOException e) {
+                throw new RepositoryException("Could not write snapshot to " + dataDirectory, e);
+            }
+        }
+    }
+    
+    /** Checkpoints and closes the write-ahead log, so the next start needs no replay. */
+    @Override
+    public void close() {
+        if (journal == null) {
+            return;
+        }
+        checkpointer.shutdown();
+        checkpoint();
+        synchronized (checkpointLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                journal.close();
+            } catch (IOException e) {
+                throw new RepositoryException("Could not close the write-ahead log", e);
+            }
+        }
+    }
+    
+    // Called under the entity's write lock, so the log order matches the order changes are applied
+    private long logPut(byte entity, WriteAheadLog.RecordBody body) {
+        return journal != null ? journal.append(WriteAheadLog.OP_PUT, entity, body) : 0;
+    }
+    
+    private long logDelete(byte entity, int id) {
+        return journal != null ? journal.append(WriteAheadLog.OP_DELETE, entity, out -> out.writeInt(id)) : 0;
+    }
+    
+    // Called after releasing the write lock: waits for the fsync policy, then schedules a checkpoint when due
+    private void committed(long sequence) {
+        committed(sequence, 1);
+    }
+    
+    // Waiting for the last record of a batch covers the ones logged before it
+    private void committed(long sequence, int writes) {
+        if (sequence == 0) {
+            return;
+        }
+        journal.awaitDurable(sequence);
+        if (writesSinceCheckpoint.addAndGet(writes) >= checkpointEvery && checkpointScheduled.compareAndSet(false, true)) {
+            checkpointer.execute(() -> {
+                try {
+                    checkpoint();
+                } catch (RepositoryException e) {
+                    e.printStackTrace();
+                } finally {
+                    checkpointScheduled.set(false);
+                }
+            });
+        }
+    }
+    
+    // Recovery runs before the manager is published, so it needs no locks
+    private void replayRecord(byte op, byte entity, DataInput in) throws IOException {
+        if (op == WriteAheadLog.OP_PUT) {
+            switch (entity) {
+                case EntityCodec.PATIENT: restorePatient(EntityCodec.readPatient(in)); break;
+                case EntityCodec.DOCTOR: restoreDoctor(EntityCodec.readDoctor(in)); break;
+                case EntityCodec.APPOINTMENT: restoreAppointment(EntityCodec.readAppointment(in)); break;
+                default: throw new IOException("Unknown entity type " + entity);
+            }
+            return;
+        }
+        int id = in.readInt();
+        switch (entity) {
+            case EntityCodec.PATIENT: patients.remove(id); break;
+            case EntityCodec.DOCTOR: doctors.remove(id); break;
+            case EntityCodec.APPOINTMENT: appointments.remove(id); break;
+            default: throw new IOException("Unknown entity type " + entity);
+        }
+    }
+    
+    private void restorePatient(Patient patient) {
+        patients.put(patient);
+        nextPatientId.accumulateAndGet(patient.getPatientId() + 1, Math::max);
+    }
+    
+    private void restoreDoctor(Doctor doctor) {
+        doctors.put(doctor);
+        nextDoctorId.accumulateAndGet(doctor.getDoctorId() + 1, Math::max);
+    }
+    
+    private void restoreAppointment(Appointment appointment) {
+        appointments.put(appointment);
+        nextAppointmentId.accumulateAndGet(appointment.getAppointmentId() + 1, Math::max);
+    }
+    
+    // Called under the appointment lock. The index is built from the store on first use rather than at
+    // startup, so opening a large snapshot does not materialize every appointment; readers building it
+    // concurrently are serialized on its lock, and no writer can run while they hold the read lock.
+    private AppointmentIndex index() {
+        AppointmentIndex index = appointmentIndex;
+        if (index == null) {
+            synchronized (appointmentIndexLock) {
+                index = appointmentIndex;
+                if (index == null) {
+                    index = new AppointmentIndex(appointments::get);
+                    for (Appointment appointment : appointments.snapshot()) {
+                        index.add(appointment);
+                    }
+                    appointmentIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+    
+    // Called under the appointment lock; built on first use, like the appointment index
+    private AvailabilityIndex availability() {
+        AvailabilityIndex index = availabilityIndex;
+        if (index == null) {
+            synchronized (availabilityLock) {
+                index = availabilityIndex;
+                if (index == null) {
+                    index = new AvailabilityIndex();
+                    for (Appointment appointment : appointments.snapshot()) {
+                        index.add(appointment);
+                    }
+                    availabilityIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+    
+    // Called under the appointment lock; built on first use, like the appointment index
+    private AppointmentTotals totals() {
+        AppointmentTotals totals = appointmentTotals;
+        if (totals == null) {
+            synchronized (totalsLock) {
+                totals = appointmentTotals;
+                if (totals == null) {
+                    totals = new AppointmentTotals();
+                    for (Appointment appointment : appointments.snapshot()) {
+                        totals.add(appointment);
+                    }
+                    appointmentTotals = totals;
+                }
+            }
+        }
+        return totals;
+    }
+    
+    // Called without the patient lock. Built on first search from the published store, holding no lock
+    // that pages or writers need, since indexing every patient takes seconds on a large register.
+    // Writers note the patients they change meanwhile, and the build replays those under the read
+    // lock, where no writer can run, before publishing the index. Searches arriving during the build
+    // wait for it here.
+    private PatientSearchIndex searchIndex() {
+        PatientSearchIndex index = patientSearchIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (searchIndexLock) {
+            index = patientSearchIndex;
+            if (index != null) {
+                return index;
+            }
+            List<Patient> snapshot;
+            patientLock.readLock().lock();
+            try {
+                searchIndexBacklog = new ArrayList<>();
+                snapshot = patients.snapshot();
+            } finally {
+                patientLock.readLock().unlock();
+            }
+            index = new PatientSearchIndex();
+            for (Patient patient : snapshot) {
+                index.add(patient);
+            }
+            patientLock.readLock().lock();
+            try {
+                for (int patientId : searchIndexBacklog) {
+                    Patient patient = patients.get(patientId);
+                    if (patient != null) {
+                        index.update(patient);
+                    } else {
+                        index.remove(patientId);
+                    }
+                }
+                searchIndexBacklog = null;
+                patientSearchIndex = index;
+            } finally {
+                patientLock.readLock().unlock();
+            }
+            return index;
+        }
+    }
+    
+    // Called under the patient lock; built on first page request, like the appointment index
+    private OrderIndex patientOrder() {
+        OrderIndex index = patientOrder;
+        if (index == null) {
+            synchronized (patientOrderLock) {
+                index = patientOrder;
+                if (index == null) {
+                    index = new OrderIndex();
+                    for (Patient patient : patients.snapshot()) {
+                        index.update(patient.getPatientId(), patient.getName());
+                    }
+                    patientOrder = index;
+                }
+            }
+        }
+        return index;
+    }
+    
+    // Called under the doctor lock
+    private OrderIndex doctorOrder() {
+        OrderIndex index = doctorOrder;
+        if (index == null) {
+            synchronized (doctorOrderLock) {
+                index = doctorOrder;
+                if (index == null) {
+                    index = new OrderIndex();
+                    for (Doctor doctor : doctors.snapshot()) {
+                        index.update(doctor.getDoctorId(), doctor.getName());
+                    }
+                    doctorOrder = index;
+                }
+            }
+        }
+        return index;
+    }
+    
+    // Called under the patient write lock
+    private void patientIndexesChanged(Patient patient) {
+        searchIndexChanged(patient.getPatientId(), patient);
+        OrderIndex order = patientOrder;
+        if (order != null) {
+            order.update(patient.getPatientId(), patient.getName());
+        }
+    }
+    
+    // Called under the patient write lock; patient is null once deleted. While the index builds, the
+    // change is left for the build to replay.
+    private void searchIndexChanged(int patientId, Patient patient) {
+        PatientSearchIndex index = patientSearchIndex;
+        if (index == null) {
+            if (searchIndexBacklog != null) {
+                searchIndexBacklog.add(patientId);
+            }
+        } else if (patient != null) {
+            index.update(patient);
+        } else {
+            index.remove(patientId);
+        }
+    }
+    
+    // Called under the doctor write lock
+    private void doctorIndexChanged(Doctor doctor) {
+        OrderIndex order = doctorOrder;
+        if (order != null) {
+            order.update(doctor.getDoctorId(), doctor.getName());
+        }
+    }
+    
+    // Called under the appointment write lock; an index that has not been built yet will pick the change up from the store
+    private void indexChanged(Appointment appointment) {
+        AppointmentIndex index = appointmentIndex;
+        if (index != null) {
+            index.update(appointment);
+        }
+        AvailabilityIndex availability = availabilityIndex;
+        if (availability != null) {
+            availability.update(appointment);
+        }
+        AppointmentTotals totals = appointmentTotals;
+        if (totals != null) {
+            totals.add(appointment);
+        }
+    }
+    
+    // Called under the appointment write lock before the appointment is replaced or removed: the totals
+    // keep no copy of what they counted, so the stored version is taken out while it can still be read
+    private void totalsRemoving(int appointmentId) {
+        AppointmentTotals totals = appointmentTotals;
+        if (totals != null && appointments.contains(appointmentId)) {
+            totals.remove(appointments.get(appointmentId));
+        }
+    }
+    
+    // Called under a patient or doctor write lock: names shown in the joined views may have changed
+    private void directoryChanged() {
+        directoryVersion.incrementAndGet();
+        appointmentViews = null;
+    }
+    
+    // Events are only collected while someone is listening
+    private List<ChangeEvent> changeList(int size) {
+        return listeners.isEmpty() ? null : new ArrayList<>(size);
+    }
+    
+    private static void recordChange(List<ChangeEvent> events, ChangeEvent.Entity entity, boolean existed, int id) {
+        if (events != null) {
+            events.add(new ChangeEvent(entity, existed ? ChangeEvent.Type.UPDATED : ChangeEvent.Type.CREATED, id));
+        }
+    }
+    
+    private void publish(ChangeEvent.Entity entity, ChangeEvent.Type type, int id) {
+        if (!listeners.isEmpty()) {
+            publish(Collections.singletonList(new ChangeEvent(entity, type, id)));
+        }
+    }
+    
+    // Called after the write lock is released; a failing listener must not fail a write that has already happened
+    private void publish(List<ChangeEvent> events) {
+        if (events == null || events.isEmpty()) {
+            return;
+        }
+        for (DataChangeListener listener : listeners) {
+            try {
+                listener.changed(events);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    // Allocates a fresh id for new records, or moves the counter past an explicitly supplied one
+    private static void assignId(int currentId, AtomicInteger counter, IntConsumer setter) {
+        if (currentId == 0) {
+            setter.accept(counter.getAndIncrement());
+        } else {
+            counter.accumulateAndGet(currentId + 1, Math::max);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,310 @@
+package database;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bounded cache of records by id, evicting by total weight (one per record unless a weigher is
+ * given). Two policies share one layout:
+ *
+ * <ul>
+ *   <li>{@link Policy#SEGMENTED_LRU}: new records enter a probation segment and move to a
+ *       protected segment (80% of the weight) when read again, so one pass over cold records
+ *       only pushes out other records that were read once.</li>
+ *   <li>{@link Policy#W_TINY_LFU}: new records first sit in a small LRU window (1%). A record
+ *       leaving the window replaces the probation segment's oldest record only if it has been
+ *       asked for more often, as counted by a frequency sketch that halves itself as it ages.
+ *       Records read all day keep their places against bursts and scans.</li>
+ * </ul>
+ *
+ * Thread-safe; every operation takes one lock for a few pointer moves. {@link #get(int, IntFunction)}
+ * loads a missing record outside the lock, and a load that overlaps a write of the same key is
+ * returned but not kept, so it never hides the newer value.
+ */
+public final class EntityCache<V> {
+    public enum Policy { SEGMENTED_LRU, W_TINY_LFU }
+    
+    private static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+    private static final int STRIPES = 64; // write stamps, so a load only has to watch writes near its key
+    
+    private static final class Node<V> {
+        final int key;
+        V value;
+        int weight;
+        int queue;
+        Node<V> prev, next;
+        
+        Node(int key) {
+            this.key = key;
+        }
+    }
+    
+    private final Policy policy;
+    private final long maxWeight;
+    private final long windowMax;
+    private final long protectedMax;
+    private final ToIntFunction<V> weigher;
+    private final FrequencySketch sketch;
+    private final Map<Integer, Node<V>> nodes = new HashMap<>();
+    private final Node<V>[] heads; // circular lists per queue, least recent right after the head
+    private final long[] queueWeight = new long[3];
+    private final long[] writeStamps = new long[STRIPES];
+    private long hits, misses, evictions;
+    
+    /** Holds up to {@code maxRecords} records. */
+    public EntityCache(Policy policy, int maxRecords) {
+        this(policy, maxRecords, record -> 1);
+    }
+    
+    /** Holds records up to a total of {@code maxWeight} as the weigher counts them; each must weigh at least 1. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public EntityCache(Policy policy, long maxWeight, ToIntFunction<V> weigher) {
+        if (policy == null || weigher == null) {
+            throw new IllegalArgumentException("policy and weigher must be given");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.policy = policy;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        windowMax = policy == Policy.W_TINY_LFU ? Math.max(1, maxWeight / 100) : 0;
+        protectedMax = (maxWeight - windowMax) * 8 / 10;
+        sketch = policy == Policy.W_TINY_LFU ? new FrequencySketch((int) Math.min(maxWeight, 1 << 18)) : null;
+        heads = new Node[3];
+        for (int queue = 0; queue < 3; queue++) {
+            heads[queue] = new Node<>(0);
+            heads[queue].prev = heads[queue].next = heads[queue];
+        }
+    }
+    
+    public Policy getPolicy() { return policy; }
+    
+    /** The cached record, or null, counting a hit or a miss. */
+    public synchronized V getIfPresent(int key) {
+        if (sketch != null) {
+            sketch.increment(key);
+        }
+        Node<V> node = nodes.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        touch(node);
+        return node.value;
+    }
+    
+    /** The cached record, or the one {@code loader} gives (cached unless null). */
+    public V get(int key, IntFunction<V> loader) {
+        long stamp;
+        synchronized (this) {
+            V cached = getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+            stamp = writeStamps[stripe(key)];
+        }
+        V loaded = loader.apply(key);
+        if (loaded != null) {
+            synchronized (this) {
+                if (writeStamps[stripe(key)] == stamp) {
+                    insert(key, loaded);
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    /** Caches the record as the latest value for the key, e.g. after writing it to the store. */
+    public synchronized void put(int key, V value) {
+        writeStamps[stripe(key)]++;
+        insert(key, value);
+    }
+    
+    public synchronized void invalidate(int key) {
+        writeStamps[stripe(key)]++;
+        Node<V> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+    
+    public synchronized void invalidateAll() {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            writeStamps[stripe]++;
+        }
+        nodes.clear();
+        for (int queue = 0; queue < 3; queue++) {
+            heads[queue].prev = heads[queue].next = heads[queue];
+            queueWeight[queue] = 0;
+        }
+    }
+    
+    public synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, nodes.size(), queueWeight[WINDOW] + queueWeight[PROBATION] + queueWeight[PROTECTED]);
+    }
+    
+    private static int stripe(int key) {
+        return (key * 0x9E3779B9 >>> 16) & (STRIPES - 1);
+    }
+    
+    private void insert(int key, V value) {
+        int weight = weigher.applyAsInt(value);
+        Node<V> node = nodes.get(key);
+        if (weight > maxWeight - windowMax) {
+            if (node != null) {
+                nodes.remove(key);
+                unlink(node);
+            }
+            return; // larger than the main segments could ever hold
+        }
+        if (node != null) {
+            queueWeight[node.queue] += weight - node.weight;
+            node.value = value;
+            node.weight = weight;
+            touch(node);
+            evictOverflow();
+            return;
+        }
+        node = new Node<>(key);
+        node.value = value;
+        node.weight = weight;
+        nodes.put(key, node);
+        if (policy == Policy.W_TINY_LFU) {
+            link(node, WINDOW);
+            while (queueWeight[WINDOW] > windowMax) {
+                admit(heads[WINDOW].next);
+            }
+        } else {
+            link(node, PROBATION);
+        }
+        evictOverflow();
+    }
+    
+    // A read moves the record to the recent end of its queue; a second read promotes it from probation
+    private void touch(Node<V> node) {
+        if (node.queue == PROBATION) {
+            unlink(node);
+            link(node, PROTECTED);
+            while (queueWeight[PROTECTED] > protectedMax && heads[PROTECTED].next != node) {
+                Node<V> demoted = heads[PROTECTED].next;
+                unlink(demoted);
+                link(demoted, PROBATION);
+            }
+        } else {
+            int queue = node.queue;
+            unlink(node);
+            link(node, queue);
+        }
+    }
+    
+    // The window's oldest record either takes room in the main segments or is dropped
+    private void admit(Node<V> candidate) {
+        unlink(candidate);
+        long mainMax = maxWeight - windowMax;
+        while (queueWeight[PROBATION] + queueWeight[PROTECTED] + candidate.weight > mainMax) {
+            Node<V> victim = oldestInMain();
+            if (sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                nodes.remove(candidate.key);
+                evictions++;
+                return;
+            }
+            evict(victim);
+        }
+        link(candidate, PROBATION);
+    }
+    
+    private void evictOverflow() {
+        while (queueWeight[WINDOW] + queueWeight[PROBATION] + queueWeight[PROTECTED] > maxWeight) {
+            Node<V> victim = oldestInMain();
+            evict(victim != null ? victim : heads[WINDOW].next);
+        }
+    }
+    
+    private Node<V> oldestInMain() {
+        if (heads[PROBATION].next != heads[PROBATION]) {
+            return heads[PROBATION].next;
+        }
+        return heads[PROTECTED].next != heads[PROTECTED] ? heads[PROTECTED].next : null;
+    }
+    
+    private void evict(Node<V> node) {
+        nodes.remove(node.key);
+        unlink(node);
+        evictions++;
+    }
+    
+    private void link(Node<V> node, int queue) {
+        Node<V> head = heads[queue];
+        node.queue = queue;
+        node.prev = head.prev;
+        node.next = head;
+        head.prev.next = node;
+        head.prev = node;
+        queueWeight[queue] += node.weight;
+    }
+    
+    private void unlink(Node<V> node) {
+        node.prev.next = node.next;
+        node.next.prev = node.prev;
+        node.prev = node.next = null;
+        queueWeight[node.queue] -= node.weight;
+    }
+    
+    /**
+     * Count-min sketch of how often keys were asked for: four counters per key, each capped at 15,
+     * read as their minimum. Rows are four times as wide as the cache holds records, to keep
+     * collisions rare. Every counter is halved once the sketch has counted ten requests per record
+     * the cache holds, so old popularity fades.
+     */
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x97CB3127, 0x0BA8B3D1, 0x5F3D8A37, 0x2E6C1F49};
+        
+        private final byte[] counters;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+        
+        FrequencySketch(int expectedKeys) {
+            int width = 64;
+            while (width < 4L * expectedKeys) {
+                width <<= 1;
+            }
+            counters = new byte[width * SEEDS.length];
+            mask = width - 1;
+            resetAfter = 10 * Math.max(expectedKeys, 16);
+        }
+        
+        void increment(int key) {
+            for (int row = 0; row < SEEDS.length; row++) {
+                int index = index(key, row);
+                if (counters[index] < 15) {
+                    counters[index]++;
+                }
+            }
+            if (++additions == resetAfter) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+        
+        int frequency(int key) {
+            int frequency = 15;
+            for (int row = 0; row < SEEDS.length; row++) {
+                frequency = Math.min(frequency, counters[index(key, row)]);
+            }
+            return frequency;
+        }
+        
+        private int index(int key, int row) {
+            int h = (key ^ SEEDS[row]) * 0x9E3779B9;
+            h ^= h >>> 16;
+            return row * (mask + 1) + (h & mask);
+        }
+    }
+}
\ No newline at end of file
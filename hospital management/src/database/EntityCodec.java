@@ -0,0 +1,105 @@
+package database;
+
+import models.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary encoding of the entity models, shared by the write-ahead log and snapshots.
+ * Strings are length-prefixed UTF-8 (-1 for null), so long medical histories are not
+ * limited to DataOutput.writeUTF's 64KB.
+ */
+final class EntityCodec {
+    static final byte PATIENT = 1;
+    static final byte DOCTOR = 2;
+    static final byte APPOINTMENT = 3;
+    
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    
+    private EntityCodec() {}
+    
+    static void writePatient(DataOutput out, Patient patient) throws IOException {
+        out.writeInt(patient.getPatientId());
+        writeString(out, patient.getName());
+        out.writeInt(patient.getAge());
+        writeString(out, patient.getGender());
+        writeString(out, patient.getPhone());
+        writeString(out, patient.getAddress());
+        writeString(out, patient.getMedicalHistory());
+    }
+    
+    static Patient readPatient(DataInput in) throws IOException {
+        return new Patient(in.readInt(), readString(in), in.readInt(), readString(in),
+            readString(in), readString(in), readString(in));
+    }
+    
+    static void writeDoctor(DataOutput out, Doctor doctor) throws IOException {
+        out.writeInt(doctor.getDoctorId());
+        writeString(out, doctor.getName());
+        writeString(out, doctor.getSpecialization());
+        writeString(out, doctor.getPhone());
+        writeString(out, doctor.getEmail());
+        writeString(out, doctor.getSchedule());
+        out.writeDouble(doctor.getConsultationFee());
+    }
+    
+    static Doctor readDoctor(DataInput in) throws IOException {
+        return new Doctor(in.readInt(), readString(in), readString(in), readString(in),
+            readString(in), readString(in), in.readDouble());
+    }
+    
+    static void writeAppointment(DataOutput out, Appointment appointment) throws IOException {
+        out.writeInt(appointment.getAppointmentId());
+        out.writeInt(appointment.getPatientId());
+        out.writeInt(appointment.getDoctorId());
+        writeDateTime(out, appointment.getAppointmentDateTime());
+        writeString(out, appointment.getStatus());
+        writeString(out, appointment.getNotes());
+    }
+    
+    static Appointment readAppointment(DataInput in) throws IOException {
+        return new Appointment(in.readInt(), in.readInt(), in.readInt(), readDateTime(in),
+            readString(in), readString(in));
+    }
+    
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            out.writeLong(NULL_TIME);
+            return;
+        }
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+    
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        long seconds = in.readLong();
+        if (seconds == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
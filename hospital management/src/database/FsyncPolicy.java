@@ -0,0 +1,13 @@
+package database;
+
+/**
+ * How hard the write-ahead log pushes records to disk before a write is acknowledged.
+ */
+public enum FsyncPolicy {
+    /** Every write waits until its group commit has been fsynced. Nothing acknowledged is ever lost. */
+    ALWAYS,
+    /** Writes return once buffered; the log is fsynced about once a second. A crash may lose that last second. */
+    INTERVAL,
+    /** The log is written to the OS but never fsynced; durability is left to the operating system. */
+    NEVER
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package database;
+
+import models.*;
+import java.util.List;
+
+/**
+ * CRUD operations for patients, doctors and appointments.
+ * Implemented by the in-memory {@link DatabaseManager} and the SQLite-backed {@link SqliteRepository};
+ * {@link CachingRepository} puts a bounded cache in front of either.
+ * Adding a record whose id is 0 assigns it a new id; adding one whose id is already stored replaces
+ * that record, and a bulk add applies its records in list order. Updating one whose id is not
+ * stored changes nothing and returns false.
+ */
+public interface HospitalRepository {
+    // Patient operations
+    void addPatient(Patient patient);
+    List<Patient> getAllPatients();
+    Patient getPatientById(int id);
+    boolean updatePatient(Patient patient);
+    void deletePatient(int patientId);
+    
+    // Doctor operations
+    void addDoctor(Doctor doctor);
+    List<Doctor> getAllDoctors();
+    Doctor getDoctorById(int id);
+    boolean updateDoctor(Doctor doctor);
+    void deleteDoctor(int doctorId);
+    
+    // Appointment operations
+    void addAppointment(Appointment appointment);
+    List<Appointment> getAllAppointments();
+    Appointment getAppointmentById(int id);
+    boolean updateAppointment(Appointment appointment);
+    void deleteAppointment(int appointmentId);
+    
+    // Bulk inserts; implementations backed by storage should override these to batch
+    default void addPatients(List<Patient> patients) {
+        for (Patient patient : patients) {
+            addPatient(patient);
+        }
+    }
+    
+    default void addDoctors(List<Doctor> doctors) {
+        for (Doctor doctor : doctors) {
+            addDoctor(doctor);
+        }
+    }
+    
+    default void addAppointments(List<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            addAppointment(appointment);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package database;
+
+import java.util.Arrays;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link ChunkedStore} whose chunks hold references to the record objects themselves.
+ *
+ * A store can also be seeded from a {@link RowSource}: only the ids are read up front and
+ * each record is materialized the first time it is read. Loaded records are kept in one table
+ * shared by every version, so a record is loaded once and stays the same object in all of them.
+ */
+class IndexedStore<T> extends ChunkedStore<T, Object[]> {
+    private static final Object UNLOADED = new Object();
+    
+    private final ToIntFunction<T> idFunction;
+    private LazyRows<T> lazy; // stands behind UNLOADED slots until compaction loads them all
+    private RecordReader<T> reader = new RecordReader<>(null);
+    
+    IndexedStore(ToIntFunction<T> idFunction) {
+        this.idFunction = idFunction;
+    }
+    
+    /** Seeds an empty store with the source's rows, which are loaded lazily on first access, and publishes it. */
+    void attach(RowSource<T> rows) {
+        // Until a chunk's records move, the slot at chunk << CHUNK_BITS | offset is the source row of that number
+        seed(rows, (slots, firstRow, length) -> Arrays.fill(slots, 0, length, UNLOADED));
+        lazy = new LazyRows<>(rows);
+        reader = new RecordReader<>(lazy);
+        publish();
+    }
+    
+    @Override
+    protected Object[] newChunk() {
+        return new Object[CHUNK_SIZE];
+    }
+    
+    @Override
+    protected Object[] copyChunk(Object[] chunk) {
+        return chunk.clone();
+    }
+    
+    @Override
+    protected ChunkReader<T, Object[]> reader() {
+        return reader;
+    }
+    
+    @Override
+    protected int idOf(T record) {
+        return idFunction.applyAsInt(record);
+    }
+    
+    @Override
+    protected int idAt(Object[] slots, int offset, int slot) {
+        return idFunction.applyAsInt(resolve(slots[offset], slot, lazy));
+    }
+    
+    @Override
+    protected void store(Object[] slots, int offset, T record) {
+        slots[offset] = record;
+    }
+    
+    @Override
+    protected void removeAt(Object[] slots, int chunk, int offset, int count) {
+        loadChunk(chunk, slots, count); // the records after the gap move, so they can no longer stand for source rows
+        System.arraycopy(slots, offset + 1, slots, offset, count - offset - 1);
+        slots[count - 1] = null;
+    }
+    
+    // Slots move during compaction, so source-backed rows are loaded as they are copied
+    @Override
+    protected void transfer(Object[] from, int fromOffset, int slot, Object[] to, int toOffset) {
+        to[toOffset] = resolve(from[fromOffset], slot, lazy);
+    }
+    
+    @Override
+    protected void afterCompaction() {
+        lazy = null;
+        reader = new RecordReader<>(null);
+    }
+    
+    // Materializes the chunk's unloaded rows in place; the chunk must already be writable
+    private void loadChunk(int chunk, Object[] slots, int count) {
+        if (lazy == null) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            if (slots[i] == UNLOADED) {
+                slots[i] = lazy.get(chunk << CHUNK_BITS | i);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T resolve(Object value, int slot, LazyRows<T> lazy) {
+        return value == UNLOADED ? lazy.get(slot) : (T) value;
+    }
+    
+    private static final class RecordReader<T> implements ChunkReader<T, Object[]> {
+        private final LazyRows<T> lazy;
+        
+        RecordReader(LazyRows<T> lazy) {
+            this.lazy = lazy;
+        }
+        
+        // Records fill a chunk from the front, so its length is the position of its first null
+        @Override
+        public int length(Object[] slots) {
+            int low = 0;
+            int high = slots.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (slots[middle] != null) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        
+        @Override
+        public T read(Object[] slots, int offset, int slot) {
+            return resolve(slots[offset], slot, lazy);
+        }
+    }
+    
+    // Records loaded from a row source, shared by every version that still has unloaded slots
+    private static final class LazyRows<T> {
+        private final RowSource<T> source;
+        private final Object[] loaded;
+        
+        LazyRows(RowSource<T> source) {
+            this.source = source;
+            this.loaded = new Object[source.rowCount()];
+        }
+        
+        // Readers on any thread may race here; a record is published through a final field so none sees it half-built
+        @SuppressWarnings("unchecked")
+        T get(int row) {
+            Object value = loaded[row];
+            if (value == null) {
+                synchronized (this) {
+                    value = loaded[row];
+                    if (value == null) {
+                        value = new Loaded(source.load(row));
+                        loaded[row] = value;
+                    }
+                }
+            }
+            return (T) ((Loaded) value).record;
+        }
+    }
+    
+    private static final class Loaded {
+        final Object record;
+        
+        Loaded(Object record) {
+            this.record = record;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package database;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to int values.
+ * Avoids boxing so id lookups stay cheap on large stores.
+ */
+class IntIntHashMap {
+    private static final int FREE = 0;
+    private static final float LOAD_FACTOR = 0.6f;
+    
+    private int[] keys;
+    private int[] values;
+    private boolean hasFreeKey;
+    private int freeValue;
+    private int size;
+    private int mask;
+    private int threshold;
+    
+    IntIntHashMap() {
+        this(16);
+    }
+    
+    IntIntHashMap(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean containsKey(int key) {
+        if (key == FREE) {
+            return hasFreeKey;
+        }
+        int idx = hash(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) {
+                return true;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+    
+    /** Returns the value for the key, or {@code missing} when it is absent. */
+    public int get(int key, int missing) {
+        if (key == FREE) {
+            return hasFreeKey ? freeValue : missing;
+        }
+        int idx = hash(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) {
+                return values[idx];
+            }
+            idx = (idx + 1) & mask;
+        }
+        return missing;
+    }
+    
+    public void put(int key, int value) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                size++;
+            }
+            hasFreeKey = true;
+            freeValue = value;
+            return;
+        }
+        int idx = hash(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) {
+                values[idx] = value;
+                return;
+            }
+            idx = (idx + 1) & mask;
+        }
+        keys[idx] = key;
+        values[idx] = value;
+        if (++size > threshold) {
+            rehash(keys.length << 1);
+        }
+    }
+    
+    /** Removes the key and returns its value, or {@code missing} when it was absent. */
+    public int remove(int key, int missing) {
+        if (key == FREE) {
+            if (!hasFreeKey) {
+                return missing;
+            }
+            hasFreeKey = false;
+            size--;
+            return freeValue;
+        }
+        int idx = hash(key) & mask;
+        while (keys[idx] != FREE) {
+            if (keys[idx] == key) {
+                int old = values[idx];
+                shiftKeys(idx);
+                size--;
+                return old;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return missing;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        hasFreeKey = false;
+        size = 0;
+    }
+    
+    // Backward-shift deletion keeps probe chains intact without tombstones
+    private void shiftKeys(int pos) {
+        while (true) {
+            int last = pos;
+            pos = (pos + 1) & mask;
+            int key;
+            while (true) {
+                key = keys[pos];
+                if (key == FREE) {
+                    keys[last] = FREE;
+                    return;
+                }
+                int slot = hash(key) & mask;
+                if (last <= pos ? (last >= slot || slot > pos) : (last >= slot && slot > pos)) {
+                    break;
+                }
+                pos = (pos + 1) & mask;
+            }
+            keys[last] = key;
+            values[last] = values[pos];
+        }
+    }
+    
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != FREE) {
+                int idx = hash(key) & mask;
+                while (keys[idx] != FREE) {
+                    idx = (idx + 1) & mask;
+                }
+                keys[idx] = key;
+                values[idx] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package database;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes JSON Lines records: one flat object per line whose values are strings,
+ * numbers, booleans or null. Nested objects and arrays are rejected. The HTTP server uses the
+ * same objects for its request and response bodies.
+ */
+public final class JsonLines {
+    private JsonLines() {}
+    
+    /** Parses one line into a map from key to value text; JSON null becomes a null value. */
+    public static Map<String, String> parse(String line) {
+        Parser parser = new Parser(line);
+        Map<String, String> values = new HashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                values.put(key, parser.value());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.end();
+        return values;
+    }
+    
+    /** Writes one object; values of the numeric columns are written as bare numbers. */
+    public static void write(Writer out, String[] keys, String[] values, boolean[] numeric) throws IOException {
+        out.write('{');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            writeString(out, keys[i]);
+            out.write(':');
+            if (values[i] == null) {
+                out.write("null");
+            } else if (numeric[i]) {
+                out.write(values[i]);
+            } else {
+                writeString(out, values[i]);
+            }
+        }
+        out.write("}\n");
+    }
+    
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+    
+    private static final class Parser {
+        private final String text;
+        private int position;
+        
+        Parser(String text) {
+            this.text = text;
+        }
+        
+        String value() {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return string();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t".indexOf(text.charAt(position)) < 0) {
+                char c = text.charAt(position);
+                if (c == '{' || c == '[') {
+                    throw error("nested objects and arrays are not supported");
+                }
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty()) {
+                throw error("missing value");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+        
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n': value.append('\n'); break;
+                    case 'r': value.append('\r'); break;
+                    case 't': value.append('\t'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("bad \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad \\u escape");
+                        }
+                        position += 4;
+                        break;
+                    default: value.append(escaped); // \" \\ \/
+                }
+            }
+        }
+        
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+        
+        boolean consume(char c) {
+            skipSpaces();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+        
+        void end() {
+            skipSpaces();
+            if (position < text.length()) {
+                throw error("unexpected text after the object");
+            }
+        }
+        
+        private void skipSpaces() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("invalid JSON at column " + (position + 1) + ": " + message);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package database;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.IntFunction;
+
+/**
+ * Patients or doctors in id order and in name order, for paging through them with a
+ * {@link PageRequest}. Names compare case-insensitively, then by case, then by id; accented
+ * letters sort by character code rather than by collation, which keeps each comparison cheap.
+ * The name each record was indexed under is remembered, so a record renamed in place can still
+ * be unindexed correctly. Holds keys only; a page loads its records from the store.
+ */
+class OrderIndex {
+    private final NavigableSet<Integer> byId = new TreeSet<>();
+    private final NavigableSet<NameKey> byName = new TreeSet<>();
+    private final Map<Integer, NameKey> indexedNames = new HashMap<>();
+    
+    /** Indexes the record, or moves it to its new name if it is already indexed. */
+    public void update(int id, String name) {
+        NameKey key = new NameKey(name != null ? name : "", id);
+        NameKey previous = indexedNames.put(id, key);
+        if (previous != null) {
+            byName.remove(previous);
+        }
+        byName.add(key);
+        byId.add(id);
+    }
+    
+    public void remove(int id) {
+        NameKey key = indexedNames.remove(id);
+        if (key != null) {
+            byName.remove(key);
+            byId.remove(id);
+        }
+    }
+    
+    public <T> Page<T> page(PageRequest request, IntFunction<T> store) {
+        String cursor = request.getCursor();
+        switch (request.getSort()) {
+            case ID:
+                return Page.collect(byId, cursor != null ? parseId(cursor) : null, request, byId.size(),
+                    null, store::apply, String::valueOf);
+            case NAME:
+                return Page.collect(byName, cursor != null ? NameKey.parse(cursor) : null, request, byName.size(),
+                    null, key -> store.apply(key.id), NameKey::toCursor);
+            default:
+                throw new IllegalArgumentException("This list can be sorted by id or name, not " + request.getSort());
+        }
+    }
+    
+    static int parseId(String cursor) {
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw Page.badCursor(cursor);
+        }
+    }
+    
+    private static final class NameKey implements Comparable<NameKey> {
+        final String name;
+        final int id;
+        
+        NameKey(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+        
+        // The id goes first, so a colon in the name needs no escaping
+        String toCursor() {
+            return id + ":" + name;
+        }
+        
+        static NameKey parse(String cursor) {
+            int colon = cursor.indexOf(':');
+            if (colon < 0) {
+                throw Page.badCursor(cursor);
+            }
+            return new NameKey(cursor.substring(colon + 1), parseId(cursor.substring(0, colon)));
+        }
+        
+        @Override
+        public int compareTo(NameKey other) {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(name, other.name);
+            if (c == 0) {
+                c = name.compareTo(other.name);
+            }
+            return c != 0 ? c : Integer.compare(id, other.id);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof NameKey && ((NameKey) o).id == id && ((NameKey) o).name.equals(name);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + id;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,85 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * One page of a list requested with a {@link PageRequest}: the records on it, how many records
+ * the whole list holds, and a cursor that resumes right after the last of them.
+ */
+public final class Page<T> {
+    /** The total of a page requested {@link PageRequest#withoutTotal without} one, where counting would cost. */
+    public static final int UNCOUNTED = -1;
+    
+    private final List<T> items;
+    private final int total;
+    private final String nextCursor;
+    
+    Page(List<T> items, int total, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.total = total;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getItems() { return items; }
+    
+    /** The number of records in the whole list, not just on this page, or {@link #UNCOUNTED}. */
+    public int getTotal() { return total; }
+    
+    /** Where the next page starts, or null when this page reaches the end of the list. */
+    public String getNextCursor() { return nextCursor; }
+    
+    public boolean hasMore() { return nextCursor != null; }
+    
+    /** The same page with every record converted; the cursor still refers to the original list. */
+    public <R> Page<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = new ArrayList<>(items.size());
+        for (T item : items) {
+            converted.add(converter.apply(item));
+        }
+        return new Page<>(converted, total, nextCursor);
+    }
+    
+    /**
+     * Walks an index from just after the cursor's key, in the requested direction, and loads the
+     * records of the keys that fall on the page. Keys failing {@code accept} (null accepts all) are
+     * passed over without counting towards the offset.
+     */
+    static <K, T> Page<T> collect(NavigableSet<K> keys, K after, PageRequest request, int total,
+                                  Predicate<K> accept, Function<K, T> load, Function<K, String> cursorOf) {
+        NavigableSet<K> ordered = request.isDescending() ? keys.descendingSet() : keys;
+        Iterator<K> remaining = (after != null ? ordered.tailSet(after, false) : ordered).iterator();
+        List<T> items = new ArrayList<>(Math.min(request.getLimit(), 1024));
+        int skip = request.getOffset();
+        K last = null;
+        while (items.size() < request.getLimit() && remaining.hasNext()) {
+            K key = remaining.next();
+            if (accept != null && !accept.test(key)) {
+                continue;
+            }
+            if (skip > 0) {
+                skip--;
+                continue;
+            }
+            items.add(load.apply(key));
+            last = key;
+        }
+        String nextCursor = null;
+        while (last != null && remaining.hasNext()) {
+            if (accept == null || accept.test(remaining.next())) {
+                nextCursor = cursorOf.apply(last);
+                break;
+            }
+        }
+        return new Page<>(items, total, nextCursor);
+    }
+    
+    static IllegalArgumentException badCursor(String cursor) {
+        return new IllegalArgumentException("Not a cursor for this list: \"" + cursor + "\"");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package database;
+
+/**
+ * Asks for one page of a list in a stable order. A page starts right after the record a cursor
+ * names, or at the start of the list when there is no cursor, then skips {@code offset} records
+ * and returns up to {@code limit}. Every order ends in the record id, so records with equal names
+ * or times keep their places from one page to the next.
+ *
+ * Cursors cost O(log n) to resume from however deep the page is; an offset is walked record by
+ * record (keys only, nothing is loaded), so it suits jumping to a scroll position rather than
+ * stepping through a whole list.
+ *
+ * A page also tells how long the whole list is. Counting a filtered list walks every match, so
+ * a caller that already knows the length, such as one reading on from an earlier page, can ask
+ * {@link #withoutTotal} to skip it.
+ */
+public final class PageRequest {
+    public enum Sort { ID, NAME, DATE }
+    
+    private final Sort sort;
+    private final boolean descending;
+    private final int offset;
+    private final int limit;
+    private final String cursor;
+    private final boolean counted;
+    
+    /** The first {@code limit} records in the given order. */
+    public PageRequest(Sort sort, boolean descending, int limit) {
+        this(sort, descending, 0, limit, null);
+    }
+    
+    public PageRequest(Sort sort, boolean descending, int offset, int limit, String cursor) {
+        this(sort, descending, offset, limit, cursor, true);
+    }
+    
+    private PageRequest(Sort sort, boolean descending, int offset, int limit, String cursor, boolean counted) {
+        if (sort == null) {
+            throw new IllegalArgumentException("sort must be given");
+        }
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must not be negative");
+        }
+        this.sort = sort;
+        this.descending = descending;
+        this.offset = offset;
+        this.limit = limit;
+        this.cursor = cursor;
+        this.counted = counted;
+    }
+    
+    public Sort getSort() { return sort; }
+    
+    public boolean isDescending() { return descending; }
+    
+    public int getOffset() { return offset; }
+    
+    public int getLimit() { return limit; }
+    
+    public String getCursor() { return cursor; }
+    
+    /** Whether the page should tell how long the whole list is. */
+    public boolean isCounted() { return counted; }
+    
+    /** The same request starting {@code offset} records into the list. */
+    public PageRequest atOffset(int offset) {
+        return new PageRequest(sort, descending, offset, limit, null, counted);
+    }
+    
+    /** The page following the one that returned this cursor (see {@link Page#getNextCursor}). */
+    public PageRequest after(String cursor) {
+        return new PageRequest(sort, descending, 0, limit, cursor, counted);
+    }
+    
+    /** The same request without the total; the page's may then be {@link Page#UNCOUNTED}. */
+    public PageRequest withoutTotal() {
+        return new PageRequest(sort, descending, offset, limit, cursor, false);
+    }
+}
\ No newline at end of file
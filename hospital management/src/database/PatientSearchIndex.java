@@ -0,0 +1,393 @@
+package database;
+
+import models.Patient;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index over patient name, phone, address and medical history, kept up to date
+ * one patient at a time.
+ *
+ * Text is split into lower-case alphanumeric terms (phones also get a digits-only term, so
+ * "5550101" finds "555-0101"). A sorted term dictionary answers prefix queries, and a
+ * trigram index over the terms answers substring and fuzzy (edit distance 1, or 2 for
+ * longer words) queries. Every query word must match. The rarest word drives the lookup and
+ * its results come back best match first: exact words, then prefixes, then substrings, and
+ * near misses only when nothing closer exists.
+ */
+class PatientSearchIndex {
+    private static final int ESTIMATE_CAP = 5_000;
+    private static final int MIN_COMPACTION = 1_024;
+    
+    private final NavigableMap<String, Term> terms = new TreeMap<>();
+    private final Map<String, List<Term>> termsByGram = new HashMap<>();
+    private final Map<Integer, String[]> termsByPatient = new HashMap<>();
+    private int deadTerms; // emptied terms still listed under their grams
+    
+    /**
+     * Posting list of one term. Short lists are scanned to remove an id; once a list grows past
+     * {@link #SCANNED} ids it also maps each id to its slot, so removing a patient from a common
+     * term such as a city name stays constant time. A term whose list empties leaves the
+     * dictionary; it is dropped from the gram lists at the next compaction.
+     */
+    private static final class Term {
+        static final int SCANNED = 32;
+        
+        final String text;
+        int[] patientIds = new int[2];
+        int count;
+        IntIntHashMap slots;
+        
+        Term(String text) {
+            this.text = text;
+        }
+        
+        void add(int patientId) {
+            if (count == patientIds.length) {
+                patientIds = Arrays.copyOf(patientIds, count << 1);
+            }
+            if (slots != null) {
+                slots.put(patientId, count);
+            }
+            patientIds[count++] = patientId;
+            if (slots == null && count > SCANNED) {
+                slots = new IntIntHashMap(count << 1);
+                for (int i = 0; i < count; i++) {
+                    slots.put(patientIds[i], i);
+                }
+            }
+        }
+        
+        void remove(int patientId) {
+            int slot = slots != null ? slots.remove(patientId, -1) : indexOf(patientId);
+            if (slot < 0) {
+                return;
+            }
+            int last = patientIds[--count];
+            if (slot != count) {
+                patientIds[slot] = last;
+                if (slots != null) {
+                    slots.put(last, slot);
+                }
+            }
+        }
+        
+        private int indexOf(int patientId) {
+            for (int i = 0; i < count; i++) {
+                if (patientIds[i] == patientId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+    
+    public void add(Patient patient) {
+        String[] patientTerms = termsOf(patient);
+        termsByPatient.put(patient.getPatientId(), patientTerms);
+        for (String text : patientTerms) {
+            Term term = terms.get(text);
+            if (term == null) {
+                term = new Term(text);
+                terms.put(text, term);
+                for (String gram : grams(text)) {
+                    termsByGram.computeIfAbsent(gram, g -> new ArrayList<>(2)).add(term);
+                }
+            }
+            term.add(patient.getPatientId());
+        }
+    }
+    
+    public void remove(int patientId) {
+        String[] patientTerms = termsByPatient.remove(patientId);
+        if (patientTerms == null) {
+            return;
+        }
+        for (String text : patientTerms) {
+            Term term = terms.get(text);
+            term.remove(patientId);
+            if (term.count == 0) {
+                terms.remove(text);
+                deadTerms++;
+            }
+        }
+        if (deadTerms >= Math.max(MIN_COMPACTION, terms.size())) {
+            compactGrams();
+        }
+    }
+    
+    // Drops emptied terms from the gram lists, and grams left with no terms; run once as many terms
+    // have emptied as remain, so each removal pays for its share
+    private void compactGrams() {
+        termsByGram.values().removeIf(list -> {
+            list.removeIf(term -> term.count == 0);
+            return list.isEmpty();
+        });
+        deadTerms = 0;
+    }
+    
+    public void update(Patient patient) {
+        remove(patient.getPatientId());
+        add(patient);
+    }
+    
+    /** Returns the ids of up to {@code limit} patients matching every word of the query, best first. */
+    public int[] search(String query, int limit) {
+        List<String> words = new ArrayList<>(tokenize(query));
+        if (words.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+        String driver = mostSelective(words);
+        if (driver == null) {
+            return new int[0]; // some word matches nobody
+        }
+        List<String> others = new ArrayList<>(words);
+        others.remove(driver);
+        Results results = new Results(limit, others);
+        visitMatches(driver, term -> {
+            results.addAll(term);
+            return !results.isFull();
+        });
+        return results.toArray();
+    }
+    
+    // The word whose matching terms cover the fewest patients drives candidate generation; the others
+    // are checked per candidate. Returns null when a word matches no patient at all.
+    private String mostSelective(List<String> words) {
+        if (words.size() == 1) {
+            return words.get(0);
+        }
+        String best = null;
+        int bestCount = Integer.MAX_VALUE;
+        for (String word : words) {
+            int cap = Math.min(bestCount, ESTIMATE_CAP);
+            int[] count = new int[1];
+            visitMatches(word, term -> (count[0] += term.count) <= cap);
+            if (count[0] == 0) {
+                return null;
+            }
+            if (count[0] < bestCount) {
+                best = word;
+                bestCount = count[0];
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Feeds the terms matching the word to the visitor, best first: the word itself and words it
+     * prefixes, then words containing it, and only if none of those has patients, words within a
+     * small edit distance. Stops as soon as the visitor returns false.
+     */
+    private void visitMatches(String word, Predicate<Term> visitor) {
+        boolean found = false;
+        for (Term term : terms.subMap(word, true, word + Character.MAX_VALUE, false).values()) {
+            found |= term.count > 0;
+            if (!visitor.test(term)) {
+                return;
+            }
+        }
+        if (word.length() >= 3) {
+            for (Term term : rarestGramTerms(word)) {
+                if (term.text.contains(word) && !term.text.startsWith(word)) {
+                    found |= term.count > 0;
+                    if (!visitor.test(term)) {
+                        return;
+                    }
+                }
+            }
+        }
+        if (word.length() >= 4 && !found) {
+            visitFuzzyMatches(word, visitor);
+        }
+    }
+    
+    // Terms holding the word's least common trigram; every term containing the word is among them
+    private List<Term> rarestGramTerms(String word) {
+        List<Term> rarest = Collections.emptyList();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            List<Term> candidates = termsByGram.get(word.substring(i, i + 3));
+            if (candidates == null) {
+                return Collections.emptyList();
+            }
+            if (i == 0 || candidates.size() < rarest.size()) {
+                rarest = candidates;
+            }
+        }
+        return rarest;
+    }
+    
+    // One edit changes at most three padded trigrams, so a term within maxEdits of the word shares at least
+    // grams - 3 * maxEdits of them; by pigeonhole it appears in one of the 3 * maxEdits + 1 rarest gram lists
+    private void visitFuzzyMatches(String word, Predicate<Term> visitor) {
+        int maxEdits = word.length() <= 6 ? 1 : 2;
+        List<List<Term>> lists = new ArrayList<>();
+        for (String gram : grams(word)) {
+            List<Term> candidates = termsByGram.get(gram);
+            lists.add(candidates != null ? candidates : Collections.<Term>emptyList());
+        }
+        Collections.sort(lists, Comparator.comparingInt(List::size));
+        Map<Term, Boolean> checked = new IdentityHashMap<>();
+        for (List<Term> candidates : lists.subList(0, Math.min(lists.size(), 3 * maxEdits + 1))) {
+            for (Term term : candidates) {
+                if (term.count > 0 && checked.put(term, Boolean.TRUE) == null
+                        && withinEdits(word, term.text, maxEdits) && !visitor.test(term)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    // Collects matches in order, skipping duplicates and patients that miss one of the other query words
+    private final class Results {
+        private final int limit;
+        private final List<String> others;
+        private final IntIntHashMap seen = new IntIntHashMap();
+        private int[] ids = new int[16];
+        private int size;
+        
+        Results(int limit, List<String> others) {
+            this.limit = limit;
+            this.others = others;
+        }
+        
+        boolean isFull() {
+            return size >= limit;
+        }
+        
+        void addAll(Term term) {
+            for (int i = 0; i < term.count && size < limit; i++) {
+                int patientId = term.patientIds[i];
+                if (!seen.containsKey(patientId) && matchesOthers(patientId)) {
+                    seen.put(patientId, size);
+                    if (size == ids.length) {
+                        ids = Arrays.copyOf(ids, size << 1);
+                    }
+                    ids[size++] = patientId;
+                }
+            }
+        }
+        
+        private boolean matchesOthers(int patientId) {
+            if (others.isEmpty()) {
+                return true;
+            }
+            String[] patientTerms = termsByPatient.get(patientId);
+            for (String word : others) {
+                if (!anyTermMatches(patientTerms, word)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        int[] toArray() {
+            return Arrays.copyOf(ids, size);
+        }
+    }
+    
+    private static boolean anyTermMatches(String[] patientTerms, String word) {
+        int maxEdits = word.length() < 4 ? 0 : word.length() <= 6 ? 1 : 2;
+        for (String term : patientTerms) {
+            if (term.startsWith(word) || (word.length() >= 3 && term.contains(word))
+                    || (maxEdits > 0 && withinEdits(word, term, maxEdits))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // Optimal string alignment distance (adjacent swaps count as one edit), abandoned once it exceeds maxEdits
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return false;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+    
+    private static String[] termsOf(Patient patient) {
+        Set<String> result = new LinkedHashSet<>();
+        result.addAll(tokenize(patient.getName()));
+        result.addAll(tokenize(patient.getPhone()));
+        result.addAll(tokenize(patient.getAddress()));
+        result.addAll(tokenize(patient.getMedicalHistory()));
+        String phone = patient.getPhone();
+        if (phone != null) {
+            StringBuilder digits = new StringBuilder();
+            for (int i = 0; i < phone.length(); i++) {
+                if (Character.isDigit(phone.charAt(i))) {
+                    digits.append(phone.charAt(i));
+                }
+            }
+            if (digits.length() > 0) {
+                result.add(digits.toString());
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+    
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+    
+    // Trigrams of the term padded with ^ and $, so short terms and word edges get grams too
+    private static String[] grams(String term) {
+        String padded = "^" + term + "$";
+        String[] grams = new String[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = padded.substring(i, i + 3);
+        }
+        return grams;
+    }
+}
\ No newline at end of file
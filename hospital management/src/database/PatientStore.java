@@ -0,0 +1,149 @@
+package database;
+
+import models.Patient;
+
+/**
+ * The patient store used with {@link TextStorage#OFF_HEAP}. Patients are kept as
+ * {@link StoredPatient} objects whose medical history is a handle: into an off-heap
+ * {@link StringPool}, or, for rows attached from a mapped snapshot, to the row in the mapping.
+ * The heap holds only the short fields, and a history is decoded when someone reads it, such as
+ * the patient form showing that one record.
+ *
+ * Pool entries no patient uses any more are reclaimed once they make up half the pool: the live
+ * histories are copied to a new pool and their patients stored again to point at it. Versions
+ * published earlier keep the old pool reachable for as long as anyone reads them.
+ */
+final class PatientStore extends IndexedStore<Patient> {
+    private static final int NULL_HISTORY = -1; // pool handles are non-negative; -2 - row points into the source
+    private static final long RECLAIM_MIN_BYTES = 1 << 20;
+    
+    /** Patient rows whose medical history can be read apart from the rest of the row. */
+    interface HistorySource extends RowSource<Patient> {
+        /** The row without its medical history. */
+        Patient loadWithoutHistory(int row);
+        
+        String medicalHistory(int row);
+    }
+    
+    private Histories histories = new Histories(new StringPool(true), null);
+    private long dropped; // bytes of pool entries replaced or removed since the pool was last rebuilt
+    
+    PatientStore() {
+        super(Patient::getPatientId);
+    }
+    
+    /** Seeds an empty store with the source's rows, leaving attached histories in the source, and publishes it. */
+    @Override
+    void attach(RowSource<Patient> rows) {
+        if (!(rows instanceof HistorySource)) {
+            if (size() != 0) {
+                throw new IllegalStateException("Rows can only be attached to an empty store");
+            }
+            for (int row = 0; row < rows.rowCount(); row++) {
+                put(rows.load(row));
+            }
+            publish();
+            return;
+        }
+        HistorySource source = (HistorySource) rows;
+        Histories attached = new Histories(histories.pool, source);
+        histories = attached;
+        super.attach(new RowSource<Patient>() {
+            @Override
+            public int rowCount() {
+                return source.rowCount();
+            }
+            
+            @Override
+            public int id(int row) {
+                return source.id(row);
+            }
+            
+            @Override
+            public Patient load(int row) {
+                return new StoredPatient(source.loadWithoutHistory(row), -2 - row, attached);
+            }
+        });
+    }
+    
+    @Override
+    protected void store(Object[] slots, int offset, Patient patient) {
+        StoredPatient stored = new StoredPatient(patient, handleFor(patient), histories);
+        Object previous = slots[offset];
+        if (previous instanceof StoredPatient) {
+            release((StoredPatient) previous, stored.history);
+        }
+        super.store(slots, offset, stored);
+    }
+    
+    @Override
+    public boolean remove(int id) {
+        Patient previous = get(id);
+        if (previous instanceof StoredPatient) {
+            release((StoredPatient) previous, NULL_HISTORY);
+        }
+        return super.remove(id);
+    }
+    
+    @Override
+    public void publish() {
+        super.publish();
+        long bytes = histories.pool.bytes();
+        if (bytes >= RECLAIM_MIN_BYTES && dropped * 2 > bytes) {
+            reclaim();
+            super.publish();
+        }
+    }
+    
+    // Saving a stored patient whose history was not set again reuses its entry instead of re-encoding the text
+    private int handleFor(Patient patient) {
+        if (patient instanceof StoredPatient && !((StoredPatient) patient).isDetached()) {
+            StoredPatient stored = (StoredPatient) patient;
+            if (stored.histories == histories || stored.history == NULL_HISTORY
+                    || (stored.history < NULL_HISTORY && stored.histories.source == histories.source)) {
+                return stored.history;
+            }
+            if (stored.history >= 0) {
+                return stored.histories.pool.copyTo(stored.history, histories.pool);
+            }
+        }
+        String history = patient.getMedicalHistory();
+        return history == null ? NULL_HISTORY : histories.pool.add(history);
+    }
+    
+    // Equal histories share an entry, so this may count one twice; that only brings a rebuild forward
+    private void release(StoredPatient previous, int replacement) {
+        if (previous.history >= 0 && previous.history != replacement && previous.histories.pool == histories.pool) {
+            dropped += histories.pool.sizeOf(previous.history);
+        }
+    }
+    
+    // Called from publish, so the published version is the current state and every patient in it can be stored again
+    private void reclaim() {
+        histories = new Histories(histories.pool.emptyCopy(), histories.source);
+        dropped = 0;
+        for (Patient patient : snapshot()) {
+            if (patient instanceof StoredPatient && ((StoredPatient) patient).history >= 0) {
+                replace(patient);
+            }
+        }
+    }
+    
+    /** Where stored patients read their histories from; replaced, never changed, when the pool is rebuilt. */
+    static final class Histories {
+        final StringPool pool;
+        final HistorySource source;
+        
+        Histories(StringPool pool, HistorySource source) {
+            this.pool = pool;
+            this.source = source;
+        }
+        
+        String get(int handle) {
+            if (handle >= 0) {
+                return pool.get(handle);
+            }
+            return handle == NULL_HISTORY ? null : source.medicalHistory(-2 - handle);
+        }
+    }
+}
\ No newline at end of file
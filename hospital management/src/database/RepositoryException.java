@@ -0,0 +1,11 @@
+package database;
+
+/**
+ * Unchecked wrapper for storage failures in a {@link HospitalRepository}.
+ */
+public class RepositoryException extends RuntimeException {
+    
+    public RepositoryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,586 @@
+package database;
+
+import models.*;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Point-in-time image of the three entity stores, paired with the write-ahead log sequence it covers.
+ *
+ * The file is columnar and read through a memory map: a fixed header
+ * [magic][version][lastSequence][next ids x3][section offset, length x3] is followed by one
+ * section per entity. A section is [rowCount] and then its columns; fixed-width columns are
+ * plain arrays and string columns are [heapLength][UTF-8 heap][int starts][int lengths]
+ * (length -1 for null). Opening a snapshot maps the sections and locates the columns, nothing
+ * more; rows are decoded one at a time as the stores ask for them.
+ *
+ * Every checkpoint writes a new generation file and then deletes the older ones, because a file
+ * that is still mapped cannot be replaced on every platform.
+ */
+final class SnapshotFile {
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".hms";
+    private static final String LEGACY_FILE = "hospital.snapshot";
+    private static final int MAGIC = 0x484D5353; // "HMSS"
+    private static final int VERSION = 2;
+    private static final int LEGACY_VERSION = 1;
+    private static final int SECTIONS = 3;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 3 * 4 + SECTIONS * 16;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    
+    final long lastSequence;
+    final int nextPatientId;
+    final int nextDoctorId;
+    final int nextAppointmentId;
+    final ChunkedStore.RowSource<Patient> patients;
+    final ChunkedStore.RowSource<Doctor> doctors;
+    final ChunkedStore.RowSource<Appointment> appointments;
+    
+    private SnapshotFile(long lastSequence, int nextPatientId, int nextDoctorId, int nextAppointmentId,
+                         ChunkedStore.RowSource<Patient> patients, ChunkedStore.RowSource<Doctor> doctors,
+                         ChunkedStore.RowSource<Appointment> appointments) {
+        this.lastSequence = lastSequence;
+        this.nextPatientId = nextPatientId;
+        this.nextDoctorId = nextDoctorId;
+        this.nextAppointmentId = nextAppointmentId;
+        this.patients = patients;
+        this.doctors = doctors;
+        this.appointments = appointments;
+    }
+    
+    /**
+     * Writes a new snapshot generation (to a temporary file, fsynced and atomically renamed),
+     * then removes the generations it supersedes.
+     */
+    static void write(Path directory, long lastSequence, int nextPatientId, int nextDoctorId, int nextAppointmentId,
+                      List<Patient> patients, List<Doctor> doctors, List<Appointment> appointments) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, lastSequence, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ColumnWriter out = new ColumnWriter(channel, HEADER_SIZE);
+            long[] sections = new long[SECTIONS * 2];
+            
+            sections[0] = out.position();
+            out.putInt(patients.size());
+            for (Patient patient : patients) {
+                out.putInt(patient.getPatientId());
+            }
+            for (Patient patient : patients) {
+                out.putInt(patient.getAge());
+            }
+            out.putStrings(patients, Patient::getName);
+            out.putStrings(patients, Patient::getGender);
+            out.putStrings(patients, Patient::getPhone);
+            out.putStrings(patients, Patient::getAddress);
+            out.putStrings(patients, Patient::getMedicalHistory);
+            sections[1] = out.position() - sections[0];
+            
+            sections[2] = out.position();
+            out.putInt(doctors.size());
+            for (Doctor doctor : doctors) {
+                out.putInt(doctor.getDoctorId());
+            }
+            for (Doctor doctor : doctors) {
+                out.putDouble(doctor.getConsultationFee());
+            }
+            out.putStrings(doctors, Doctor::getName);
+            out.putStrings(doctors, Doctor::getSpecialization);
+            out.putStrings(doctors, Doctor::getPhone);
+            out.putStrings(doctors, Doctor::getEmail);
+            out.putStrings(doctors, Doctor::getSchedule);
+            sections[3] = out.position() - sections[2];
+            
+            sections[4] = out.position();
+            out.putInt(appointments.size());
+            for (Appointment appointment : appointments) {
+                out.putInt(appointment.getAppointmentId());
+            }
+            for (Appointment appointment : appointments) {
+                out.putInt(appointment.getPatientId());
+            }
+            for (Appointment appointment : appointments) {
+                out.putInt(appointment.getDoctorId());
+            }
+            for (Appointment appointment : appointments) {
+                LocalDateTime dateTime = appointment.getAppointmentDateTime();
+                out.putLong(dateTime != null ? dateTime.toEpochSecond(ZoneOffset.UTC) : NULL_TIME);
+            }
+            for (Appointment appointment : appointments) {
+                LocalDateTime dateTime = appointment.getAppointmentDateTime();
+                out.putInt(dateTime != null ? dateTime.getNano() : 0);
+            }
+            out.putStrings(appointments, Appointment::getStatus);
+            out.putStrings(appointments, Appointment::getNotes);
+            sections[5] = out.position() - sections[4];
+            out.flush();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(lastSequence)
+                .putInt(nextPatientId).putInt(nextDoctorId).putInt(nextAppointmentId);
+            for (long value : sections) {
+                header.putLong(value);
+            }
+            header.flip();
+            writeFully(channel, header, 0);
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        
+        for (Path older : listGenerations(directory)) {
+            if (!older.equals(target)) {
+                deleteQuietly(older);
+            }
+        }
+        deleteQuietly(directory.resolve(LEGACY_FILE));
+    }
+    
+    /** Opens the newest snapshot in the directory, or returns null when none has been written yet. */
+    static SnapshotFile open(Path directory) throws IOException {
+        List<Path> generations = listGenerations(directory);
+        if (generations.isEmpty()) {
+            Path legacy = directory.resolve(LEGACY_FILE);
+            return Files.exists(legacy) ? readLegacy(legacy) : null;
+        }
+        Path file = generations.get(generations.size() - 1);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException(file + " is truncated");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + " is not a hospital snapshot");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            long lastSequence = header.getLong();
+            int nextPatientId = header.getInt();
+            int nextDoctorId = header.getInt();
+            int nextAppointmentId = header.getInt();
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                long offset = header.getLong();
+                long length = header.getLong();
+                if (length > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot section of " + length + " bytes is too large to map");
+                }
+                // The mapping stays valid after the channel is closed
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            }
+            return new SnapshotFile(lastSequence, nextPatientId, nextDoctorId, nextAppointmentId,
+                new PatientRows(sections[0]), new DoctorRows(sections[1]), new AppointmentRows(sections[2]));
+        }
+    }
+    
+    // Version 1 snapshots were a single row-oriented stream; they are read eagerly and replaced at the next checkpoint
+    private static SnapshotFile readLegacy(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 256 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a hospital snapshot");
+            }
+            int version = in.readInt();
+            if (version != LEGACY_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + " in " + file);
+            }
+            long lastSequence = in.readLong();
+            int nextPatientId = in.readInt();
+            int nextDoctorId = in.readInt();
+            int nextAppointmentId = in.readInt();
+            List<Patient> patients = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                patients.add(EntityCodec.readPatient(in));
+            }
+            List<Doctor> doctors = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                doctors.add(EntityCodec.readDoctor(in));
+            }
+            List<Appointment> appointments = new ArrayList<>();
+            for (int i = in.readInt(); i > 0; i--) {
+                appointments.add(EntityCodec.readAppointment(in));
+            }
+            return new SnapshotFile(lastSequence, nextPatientId, nextDoctorId, nextAppointmentId,
+                new ListRows<>(patients, Patient::getPatientId), new ListRows<>(doctors, Doctor::getDoctorId),
+                new ListRows<>(appointments, Appointment::getAppointmentId));
+        }
+    }
+    
+    private static List<Path> listGenerations(Path directory) throws IOException {
+        List<Path> generations = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return generations;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path generation : stream) {
+                generations.add(generation);
+            }
+        }
+        Collections.sort(generations); // zero-padded names sort by sequence
+        return generations;
+    }
+    
+    // A generation that is still mapped (on Windows) cannot be deleted yet; the next checkpoint retries
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // left for the next checkpoint
+        }
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    /** Streams columns to the channel through one reusable direct buffer, so memory stays bounded. */
+    private static final class ColumnWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        private long flushed;
+        
+        ColumnWriter(FileChannel channel, long start) {
+            this.channel = channel;
+            this.flushed = start;
+        }
+        
+        long position() {
+            return flushed + buffer.position();
+        }
+        
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+        
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+        
+        void putBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, chunk);
+                offset += chunk;
+            }
+        }
+        
+        // Writes the heap first, then the start/length arrays collected along the way, then patches the heap length
+        <T> void putStrings(List<T> rows, Function<T, String> column) throws IOException {
+            int[] starts = new int[rows.size()];
+            int[] lengths = new int[rows.size()];
+            long heapLengthAt = position();
+            putInt(0);
+            long heapLength = 0;
+            for (int i = 0; i < starts.length; i++) {
+                String value = column.apply(rows.get(i));
+                if (value == null) {
+                    lengths[i] = -1;
+                    continue;
+                }
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                if (heapLength + bytes.length > Integer.MAX_VALUE) {
+                    throw new IOException("String column is too large for a snapshot section");
+                }
+                starts[i] = (int) heapLength;
+                lengths[i] = bytes.length;
+                putBytes(bytes);
+                heapLength += bytes.length;
+            }
+            for (int start : starts) {
+                putInt(start);
+            }
+            for (int length : lengths) {
+                putInt(length);
+            }
+            flush();
+            ByteBuffer patch = ByteBuffer.allocate(4).putInt((int) heapLength);
+            patch.flip();
+            writeFully(channel, patch, heapLengthAt);
+        }
+        
+        void flush() throws IOException {
+            buffer.flip();
+            writeFully(channel, buffer, flushed);
+            flushed += buffer.limit();
+            buffer.clear();
+        }
+        
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+    
+    /** Walks a mapped section front to back, handing out the absolute offset of each column. */
+    private static final class Section {
+        final ByteBuffer buffer;
+        final int rows;
+        private int cursor;
+        
+        Section(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.rows = buffer.getInt(0);
+            this.cursor = 4;
+        }
+        
+        int fixed(int width) {
+            int start = cursor;
+            cursor += rows * width;
+            return start;
+        }
+        
+        StringColumn strings() {
+            int heapLength = buffer.getInt(cursor);
+            StringColumn column = new StringColumn(buffer, cursor + 4, cursor + 4 + heapLength, rows);
+            cursor += 4 + heapLength + rows * 8;
+            return column;
+        }
+    }
+    
+    private static final class StringColumn {
+        private final ByteBuffer buffer;
+        private final int heap;
+        private final int starts;
+        private final int lengths;
+        
+        StringColumn(ByteBuffer buffer, int heap, int starts, int rows) {
+            this.buffer = buffer;
+            this.heap = heap;
+            this.starts = starts;
+            this.lengths = starts + rows * 4;
+        }
+        
+        String get(int row) {
+            int length = buffer.getInt(lengths + row * 4);
+            if (length < 0) {
+                return null;
+            }
+            int start = heap + buffer.getInt(starts + row * 4);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static final class PatientRows implements PatientStore.HistorySource {
+        private final ByteBuffer buffer;
+        private final int rows;
+        private final int ids;
+        private final int ages;
+        private final StringColumn names;
+        private final StringColumn genders;
+        private final StringColumn phones;
+        private final StringColumn addresses;
+        private final StringColumn histories;
+        
+        PatientRows(ByteBuffer buffer) {
+            Section section = new Section(buffer);
+            this.buffer = buffer;
+            rows = section.rows;
+            ids = section.fixed(4);
+            ages = section.fixed(4);
+            names = section.strings();
+            genders = section.strings();
+            phones = section.strings();
+            addresses = section.strings();
+            histories = section.strings();
+        }
+        
+        @Override
+        public int rowCount() {
+            return rows;
+        }
+        
+        @Override
+        public int id(int row) {
+            return buffer.getInt(ids + row * 4);
+        }
+        
+        @Override
+        public Patient load(int row) {
+            Patient patient = loadWithoutHistory(row);
+            patient.setMedicalHistory(histories.get(row));
+            return patient;
+        }
+        
+        @Override
+        public Patient loadWithoutHistory(int row) {
+            return new Patient(id(row), names.get(row), buffer.getInt(ages + row * 4), genders.get(row),
+                phones.get(row), addresses.get(row));
+        }
+        
+        @Override
+        public String medicalHistory(int row) {
+            return histories.get(row);
+        }
+    }
+    
+    private static final class DoctorRows implements ChunkedStore.RowSource<Doctor> {
+        private final ByteBuffer buffer;
+        private final int rows;
+        private final int ids;
+        private final int fees;
+        private final StringColumn names;
+        private final StringColumn specializations;
+        private final StringColumn phones;
+        private final StringColumn emails;
+        private final StringColumn schedules;
+        
+        DoctorRows(ByteBuffer buffer) {
+            Section section = new Section(buffer);
+            this.buffer = buffer;
+            rows = section.rows;
+            ids = section.fixed(4);
+            fees = section.fixed(8);
+            names = section.strings();
+            specializations = section.strings();
+            phones = section.strings();
+            emails = section.strings();
+            schedules = section.strings();
+        }
+        
+        @Override
+        public int rowCount() {
+            return rows;
+        }
+        
+        @Override
+        public int id(int row) {
+            return buffer.getInt(ids + row * 4);
+        }
+        
+        @Override
+        public Doctor load(int row) {
+            return new Doctor(id(row), names.get(row), specializations.get(row), phones.get(row),
+                emails.get(row), schedules.get(row), buffer.getDouble(fees + row * 8));
+        }
+    }
+    
+    private static final class AppointmentRows implements AppointmentStore.ColumnSource {
+        private final ByteBuffer buffer;
+        private final int rows;
+        private final int ids;
+        private final int patientIds;
+        private final int doctorIds;
+        private final int seconds;
+        private final int nanos;
+        private final StringColumn statuses;
+        private final StringColumn notes;
+        
+        AppointmentRows(ByteBuffer buffer) {
+            Section section = new Section(buffer);
+            this.buffer = buffer;
+            rows = section.rows;
+            ids = section.fixed(4);
+            patientIds = section.fixed(4);
+            doctorIds = section.fixed(4);
+            seconds = section.fixed(8);
+            nanos = section.fixed(4);
+            statuses = section.strings();
+            notes = section.strings();
+        }
+        
+        @Override
+        public int rowCount() {
+            return rows;
+        }
+        
+        @Override
+        public int id(int row) {
+            return buffer.getInt(ids + row * 4);
+        }
+        
+        @Override
+        public int patientId(int row) {
+            return buffer.getInt(patientIds + row * 4);
+        }
+        
+        @Override
+        public int doctorId(int row) {
+            return buffer.getInt(doctorIds + row * 4);
+        }
+        
+        @Override
+        public long minute(int row) {
+            long epochSecond = buffer.getLong(seconds + row * 8);
+            return epochSecond == NULL_TIME ? AppointmentStore.NULL_MINUTE : Math.floorDiv(epochSecond, 60);
+        }
+        
+        @Override
+        public String status(int row) {
+            return statuses.get(row);
+        }
+        
+        @Override
+        public String notes(int row) {
+            return notes.get(row);
+        }
+        
+        @Override
+        public Appointment load(int row) {
+            long epochSecond = buffer.getLong(seconds + row * 8);
+            LocalDateTime dateTime = epochSecond == NULL_TIME ? null
+                : LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(nanos + row * 4), ZoneOffset.UTC);
+            return new Appointment(id(row), buffer.getInt(patientIds + row * 4), buffer.getInt(doctorIds + row * 4),
+                dateTime, statuses.get(row), notes.get(row));
+        }
+    }
+    
+    private static final class ListRows<T> implements ChunkedStore.RowSource<T> {
+        private final List<T> rows;
+        private final ToIntFunction<T> idFunction;
+        
+        ListRows(List<T> rows, ToIntFunction<T> idFunction) {
+            this.rows = rows;
+            this.idFunction = idFunction;
+        }
+        
+        @Override
+        public int rowCount() {
+            return rows.size();
+        }
+        
+        @Override
+        public int id(int row) {
+            return idFunction.applyAsInt(rows.get(row));
+        }
+        
+        @Override
+        public T load(int row) {
+            return rows.get(row);
+        }
+    }
+}
\ No newline at end of file
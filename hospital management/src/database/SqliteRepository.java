@@ -0,0 +1,424 @@
+package database;
+
+import database.ConnectionPool.PooledConnection;
+import models.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Persistent {@link HospitalRepository} over the SQLite schema shipped in hospital.db.
+ * Uses a small connection pool with per-connection prepared statement caches,
+ * WAL journaling so readers do not block the writer, and single-transaction
+ * batches for bulk inserts. Requires the sqlite-jdbc driver on the classpath.
+ */
+public class SqliteRepository implements HospitalRepository, AutoCloseable {
+    public static final String DEFAULT_URL = "jdbc:sqlite:hospital.db";
+    private static final int DEFAULT_POOL_SIZE = 4;
+    
+    private static final List<String> CONNECTION_SETUP = Arrays.asList(
+        "PRAGMA journal_mode=WAL",
+        "PRAGMA synchronous=NORMAL",
+        "PRAGMA busy_timeout=5000"
+    );
+    
+    private static final String PATIENT_COLUMNS = "patientId, name, age, gender, phone, address, medicalHistory";
+    private static final String INSERT_PATIENT = "INSERT INTO patients (name, age, gender, phone, address, medicalHistory) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_PATIENT_WITH_ID = "INSERT OR REPLACE INTO patients (name, age, gender, phone, address, medicalHistory, patientId) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_PATIENTS = "SELECT " + PATIENT_COLUMNS + " FROM patients ORDER BY patientId";
+    private static final String SELECT_PATIENT = "SELECT " + PATIENT_COLUMNS + " FROM patients WHERE patientId = ?";
+    private static final String UPDATE_PATIENT = "UPDATE patients SET name = ?, age = ?, gender = ?, phone = ?, address = ?, medicalHistory = ? WHERE patientId = ?";
+    private static final String DELETE_PATIENT = "DELETE FROM patients WHERE patientId = ?";
+    
+    // The shipped doctors table keys on "id" rather than "doctorId"
+    private static final String DOCTOR_COLUMNS = "id, name, specialization, phone, email, schedule, consultationFee";
+    private static final String INSERT_DOCTOR = "INSERT INTO doctors (name, specialization, phone, email, schedule, consultationFee) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_DOCTOR_WITH_ID = "INSERT OR REPLACE INTO doctors (name, specialization, phone, email, schedule, consultationFee, id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_DOCTORS = "SELECT " + DOCTOR_COLUMNS + " FROM doctors ORDER BY id";
+    private static final String SELECT_DOCTOR = "SELECT " + DOCTOR_COLUMNS + " FROM doctors WHERE id = ?";
+    private static final String UPDATE_DOCTOR = "UPDATE doctors SET name = ?, specialization = ?, phone = ?, email = ?, schedule = ?, consultationFee = ? WHERE id = ?";
+    private static final String DELETE_DOCTOR = "DELETE FROM doctors WHERE id = ?";
+    
+    private static final String APPOINTMENT_COLUMNS = "appointmentId, patientId, doctorId, appointmentDateTime, status, notes";
+    private static final String INSERT_APPOINTMENT = "INSERT INTO appointments (patientId, doctorId, appointmentDateTime, status, notes) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_APPOINTMENT_WITH_ID = "INSERT OR REPLACE INTO appointments (patientId, doctorId, appointmentDateTime, status, notes, appointmentId) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_APPOINTMENTS = "SELECT " + APPOINTMENT_COLUMNS + " FROM appointments ORDER BY appointmentId";
+    private static final String SELECT_APPOINTMENT = "SELECT " + APPOINTMENT_COLUMNS + " FROM appointments WHERE appointmentId = ?";
+    private static final String UPDATE_APPOINTMENT = "UPDATE appointments SET patientId = ?, doctorId = ?, appointmentDateTime = ?, status = ?, notes = ? WHERE appointmentId = ?";
+    private static final String DELETE_APPOINTMENT = "DELETE FROM appointments WHERE appointmentId = ?";
+    private static final String LAST_INSERT_ID = "SELECT last_insert_rowid()";
+    
+    private final ConnectionPool pool;
+    
+    public SqliteRepository() {
+        this(DEFAULT_URL);
+    }
+    
+    public SqliteRepository(String url) {
+        this(url, DEFAULT_POOL_SIZE);
+    }
+    
+    public SqliteRepository(String url, int poolSize) {
+        try {
+            pool = new ConnectionPool(url, poolSize, CONNECTION_SETUP);
+        } catch (SQLException e) {
+            throw new RepositoryException("Could not open " + url, e);
+        }
+        withConnection("create schema", c -> {
+            createSchema(c.connection());
+            return null;
+        });
+    }
+    
+    private static void createSchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS patients (patientId INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "name TEXT NOT NULL, age INTEGER, gender TEXT, phone TEXT, address TEXT, medicalHistory TEXT)");
+            statement.execute("CREATE TABLE IF NOT EXISTS doctors (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "name TEXT NOT NULL, specialization TEXT NOT NULL, phone TEXT, email TEXT, schedule TEXT, consultationFee REAL)");
+            statement.execute("CREATE TABLE IF NOT EXISTS appointments (appointmentId INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "patientId INTEGER, doctorId INTEGER, appointmentDateTime TEXT, status TEXT, notes TEXT, "
+                + "FOREIGN KEY(patientId) REFERENCES patients(patientId), FOREIGN KEY(doctorId) REFERENCES doctors(doctorId))");
+            
+            // Older copies of hospital.db predate the doctor contact and fee columns
+            Set<String> doctorColumns = new HashSet<>();
+            try (ResultSet rs = statement.executeQuery("PRAGMA table_info(doctors)")) {
+                while (rs.next()) {
+                    doctorColumns.add(rs.getString("name"));
+                }
+            }
+            if (!doctorColumns.contains("email")) {
+                statement.execute("ALTER TABLE doctors ADD COLUMN email TEXT");
+            }
+            if (!doctorColumns.contains("schedule")) {
+                statement.execute("ALTER TABLE doctors ADD COLUMN schedule TEXT");
+            }
+            if (!doctorColumns.contains("consultationFee")) {
+                statement.execute("ALTER TABLE doctors ADD COLUMN consultationFee REAL");
+            }
+            
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_appointments_doctor ON appointments(doctorId, appointmentDateTime)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_appointments_patient ON appointments(patientId, appointmentDateTime)");
+        }
+    }
+    
+    // Patient operations
+    @Override
+    public void addPatient(Patient patient) {
+        addPatients(Collections.singletonList(patient));
+    }
+    
+    @Override
+    public void addPatients(List<Patient> patients) {
+        addInOrder("add patients", patients, INSERT_PATIENT, INSERT_PATIENT_WITH_ID,
+            SqliteRepository::bindPatient, Patient::getPatientId, Patient::setPatientId);
+    }
+    
+    @Override
+    public List<Patient> getAllPatients() {
+        return withConnection("load patients", c -> {
+            List<Patient> result = new ArrayList<>();
+            try (ResultSet rs = c.prepare(SELECT_PATIENTS).executeQuery()) {
+                while (rs.next()) {
+                    result.add(readPatient(rs));
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public Patient getPatientById(int id) {
+        return withConnection("load patient " + id, c -> {
+            PreparedStatement ps = c.prepare(SELECT_PATIENT);
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? readPatient(rs) : null;
+            }
+        });
+    }
+    
+    @Override
+    public boolean updatePatient(Patient patient) {
+        return withConnection("update patient " + patient.getPatientId(), c -> {
+            PreparedStatement ps = c.prepare(UPDATE_PATIENT);
+            bindPatient(ps, patient);
+            ps.setInt(7, patient.getPatientId());
+            return ps.executeUpdate() > 0;
+        });
+    }
+    
+    @Override
+    public void deletePatient(int patientId) {
+        deleteById("delete patient " + patientId, DELETE_PATIENT, patientId);
+    }
+    
+    // Doctor operations
+    @Override
+    public void addDoctor(Doctor doctor) {
+        addDoctors(Collections.singletonList(doctor));
+    }
+    
+    @Override
+    public void addDoctors(List<Doctor> doctors) {
+        addInOrder("add doctors", doctors, INSERT_DOCTOR, INSERT_DOCTOR_WITH_ID,
+            SqliteRepository::bindDoctor, Doctor::getDoctorId, Doctor::setDoctorId);
+    }
+    
+    @Override
+    public List<Doctor> getAllDoctors() {
+        return withConnection("load doctors", c -> {
+            List<Doctor> result = new ArrayList<>();
+            try (ResultSet rs = c.prepare(SELECT_DOCTORS).executeQuery()) {
+                while (rs.next()) {
+                    result.add(readDoctor(rs));
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public Doctor getDoctorById(int id) {
+        return withConnection("load doctor " + id, c -> {
+            PreparedStatement ps = c.prepare(SELECT_DOCTOR);
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? readDoctor(rs) : null;
+            }
+        });
+    }
+    
+    @Override
+    public boolean updateDoctor(Doctor doctor) {
+        return withConnection("update doctor " + doctor.getDoctorId(), c -> {
+            PreparedStatement ps = c.prepare(UPDATE_DOCTOR);
+            bindDoctor(ps, doctor);
+            ps.setInt(7, doctor.getDoctorId());
+            return ps.executeUpdate() > 0;
+        });
+    }
+    
+    @Override
+    public void deleteDoctor(int doctorId) {
+        deleteById("delete doctor " + doctorId, DELETE_DOCTOR, doctorId);
+    }
+    
+    // Appointment operations
+    @Override
+    public void addAppointment(Appointment appointment) {
+        addAppointments(Collections.singletonList(appointment));
+    }
+    
+    @Override
+    public void addAppointments(List<Appointment> appointments) {
+        addInOrder("add appointments", appointments, INSERT_APPOINTMENT, INSERT_APPOINTMENT_WITH_ID,
+            SqliteRepository::bindAppointment, Appointment::getAppointmentId, Appointment::setAppointmentId);
+    }
+    
+    @Override
+    public List<Appointment> getAllAppointments() {
+        return withConnection("load appointments", c -> {
+            List<Appointment> result = new ArrayList<>();
+            try (ResultSet rs = c.prepare(SELECT_APPOINTMENTS).executeQuery()) {
+                while (rs.next()) {
+                    result.add(readAppointment(rs));
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public Appointment getAppointmentById(int id) {
+        return withConnection("load appointment " + id, c -> {
+            PreparedStatement ps = c.prepare(SELECT_APPOINTMENT);
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? readAppointment(rs) : null;
+            }
+        });
+    }
+    
+    @Override
+    public boolean updateAppointment(Appointment appointment) {
+        return withConnection("update appointment " + appointment.getAppointmentId(), c -> {
+            PreparedStatement ps = c.prepare(UPDATE_APPOINTMENT);
+            bindAppointment(ps, appointment);
+            ps.setInt(6, appointment.getAppointmentId());
+            return ps.executeUpdate() > 0;
+        });
+    }
+    
+    @Override
+    public void deleteAppointment(int appointmentId) {
+        deleteById("delete appointment " + appointmentId, DELETE_APPOINTMENT, appointmentId);
+    }
+    
+    @Override
+    public void close() {
+        pool.close();
+    }
+    
+    // Row mapping
+    private static void bindPatient(PreparedStatement ps, Patient patient) throws SQLException {
+        ps.setString(1, patient.getName());
+        ps.setInt(2, patient.getAge());
+        ps.setString(3, patient.getGender());
+        ps.setString(4, patient.getPhone());
+        ps.setString(5, patient.getAddress());
+        ps.setString(6, patient.getMedicalHistory());
+    }
+    
+    private static Patient readPatient(ResultSet rs) throws SQLException {
+        return new Patient(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getString(4),
+            rs.getString(5), rs.getString(6), rs.getString(7));
+    }
+    
+    private static void bindDoctor(PreparedStatement ps, Doctor doctor) throws SQLException {
+        ps.setString(1, doctor.getName());
+        ps.setString(2, doctor.getSpecialization());
+        ps.setString(3, doctor.getPhone());
+        ps.setString(4, doctor.getEmail());
+        ps.setString(5, doctor.getSchedule());
+        ps.setDouble(6, doctor.getConsultationFee());
+    }
+    
+    private static Doctor readDoctor(ResultSet rs) throws SQLException {
+        return new Doctor(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+            rs.getString(5), rs.getString(6), rs.getDouble(7));
+    }
+    
+    private static void bindAppointment(PreparedStatement ps, Appointment appointment) throws SQLException {
+        ps.setInt(1, appointment.getPatientId());
+        ps.setInt(2, appointment.getDoctorId());
+        if (appointment.getAppointmentDateTime() != null) {
+            ps.setString(3, appointment.getAppointmentDateTime().toString());
+        } else {
+            ps.setNull(3, Types.VARCHAR);
+        }
+        ps.setString(4, appointment.getStatus());
+        ps.setString(5, appointment.getNotes());
+    }
+    
+    private static Appointment readAppointment(ResultSet rs) throws SQLException {
+        String dateTime = rs.getString(4);
+        return new Appointment(rs.getInt(1), rs.getInt(2), rs.getInt(3),
+            dateTime != null ? LocalDateTime.parse(dateTime) : null, rs.getString(5), rs.getString(6));
+    }
+    
+    // Connection handling
+    private interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+    
+    private interface SqlAction {
+        void run(PooledConnection connection) throws SQLException;
+    }
+    
+    private interface Binder<T> {
+        void bind(PreparedStatement ps, T record) throws SQLException;
+    }
+    
+    private <T> T withConnection(String action, SqlWork<T> work) {
+        PooledConnection connection = pool.borrow();
+        try {
+            return work.run(connection);
+        } catch (SQLException e) {
+            throw new RepositoryException("Failed to " + action, e);
+        } finally {
+            pool.release(connection);
+        }
+    }
+    
+    private void inTransaction(String action, SqlAction work) {
+        withConnection(action, c -> {
+            Connection connection = c.connection();
+            connection.setAutoCommit(false);
+            try {
+                work.run(c);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                c.clearBatches();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            return null;
+        });
+    }
+    
+    private void deleteById(String action, String sql, int id) {
+        withConnection(action, c -> {
+            PreparedStatement ps = c.prepare(sql);
+            ps.setInt(1, id);
+            return ps.executeUpdate();
+        });
+    }
+    
+    /**
+     * Inserts the records in one transaction and gives those without an id their new ids once it
+     * has committed, so a batch that fails leaves every record as it was.
+     */
+    private <T> void addInOrder(String action, List<T> records, String insert, String insertWithId,
+                                Binder<T> binder, ToIntFunction<T> id, ObjIntConsumer<T> setId) {
+        int[] newIds = new int[records.size()];
+        inTransaction(action, c -> insertInOrder(c, records, insert, insertWithId, binder, id, newIds));
+        for (int i = 0; i < newIds.length; i++) {
+            if (newIds[i] != 0) {
+                setId.accept(records.get(i), newIds[i]);
+            }
+        }
+    }
+    
+    /**
+     * Inserts the records in list order, one batch per run of records with or without ids. Records
+     * with an id are inserted under it, replacing the row already stored there. A run without ids
+     * takes consecutive new ids, since the transaction holds the write lock: the last one is read
+     * back and the rest counted down from it into newIds. The id is the last parameter of the
+     * with-id statement.
+     */
+    private static <T> void insertInOrder(PooledConnection c, List<T> records, String insert, String insertWithId,
+                                          Binder<T> binder, ToIntFunction<T> id, int[] newIds) throws SQLException {
+        int start = 0;
+        while (start < records.size()) {
+            boolean hasId = id.applyAsInt(records.get(start)) != 0;
+            PreparedStatement ps = c.prepare(hasId ? insertWithId : insert);
+            int idParameter = ps.getParameterMetaData().getParameterCount();
+            int end = start;
+            for (; end < records.size() && (id.applyAsInt(records.get(end)) != 0) == hasId; end++) {
+                T record = records.get(end);
+                binder.bind(ps, record);
+                if (hasId) {
+                    ps.setInt(idParameter, id.applyAsInt(record));
+                }
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            if (!hasId) {
+                int next;
+                try (ResultSet rs = c.prepare(LAST_INSERT_ID).executeQuery()) {
+                    rs.next();
+                    next = rs.getInt(1) - (end - start) + 1;
+                }
+                for (int i = start; i < end; i++) {
+                    newIds[i] = next++;
+                }
+            }
+            start = end;
+        }
+    }
+}
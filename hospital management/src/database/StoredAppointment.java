@@ -0,0 +1,102 @@
+package database;
+
+import models.Appointment;
+import java.time.LocalDateTime;
+
+/**
+ * An appointment read from the {@link AppointmentStore}: a view of one row of a published chunk
+ * rather than a copy of it. Published chunks never change, so a view keeps showing the version it
+ * was read from. The first setter call copies the row into the object, which from then on is a
+ * plain {@link Appointment} that can be edited and saved with updateAppointment.
+ */
+final class StoredAppointment extends Appointment {
+    private final AppointmentStore.Columns chunk;
+    private final int offset;
+    private final AppointmentStore.Reader reader;
+    private boolean detached;
+    
+    StoredAppointment(AppointmentStore.Columns chunk, int offset, AppointmentStore.Reader reader) {
+        this.chunk = chunk;
+        this.offset = offset;
+        this.reader = reader;
+    }
+    
+    @Override
+    public int getAppointmentId() {
+        return detached ? super.getAppointmentId() : chunk.ids[offset];
+    }
+    
+    @Override
+    public void setAppointmentId(int appointmentId) {
+        detach();
+        super.setAppointmentId(appointmentId);
+    }
+    
+    @Override
+    public int getPatientId() {
+        return detached ? super.getPatientId() : chunk.patientIds[offset];
+    }
+    
+    @Override
+    public void setPatientId(int patientId) {
+        detach();
+        super.setPatientId(patientId);
+    }
+    
+    @Override
+    public int getDoctorId() {
+        return detached ? super.getDoctorId() : chunk.doctorIds[offset];
+    }
+    
+    @Override
+    public void setDoctorId(int doctorId) {
+        detach();
+        super.setDoctorId(doctorId);
+    }
+    
+    @Override
+    public LocalDateTime getAppointmentDateTime() {
+        return detached ? super.getAppointmentDateTime() : AppointmentStore.timeOf(chunk.minutes[offset]);
+    }
+    
+    @Override
+    public void setAppointmentDateTime(LocalDateTime appointmentDateTime) {
+        detach();
+        super.setAppointmentDateTime(appointmentDateTime);
+    }
+    
+    @Override
+    public String getStatus() {
+        return detached ? super.getStatus() : reader.status(chunk.statuses[offset]);
+    }
+    
+    @Override
+    public void setStatus(String status) {
+        detach();
+        super.setStatus(status);
+    }
+    
+    @Override
+    public String getNotes() {
+        return detached ? super.getNotes() : reader.notes(chunk.notes[offset]);
+    }
+    
+    @Override
+    public void setNotes(String notes) {
+        detach();
+        super.setNotes(notes);
+    }
+    
+    private void detach() {
+        if (detached) {
+            return;
+        }
+        super.setAppointmentId(chunk.ids[offset]);
+        super.setPatientId(chunk.patientIds[offset]);
+        super.setDoctorId(chunk.doctorIds[offset]);
+        super.setAppointmentDateTime(AppointmentStore.timeOf(chunk.minutes[offset]));
+        super.setStatus(reader.status(chunk.statuses[offset]));
+        super.setNotes(reader.notes(chunk.notes[offset]));
+        detached = true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package database;
+
+import models.Patient;
+
+/**
+ * A patient kept by the {@link PatientStore}. The short fields are held as usual; the medical
+ * history only as a handle, decoded each time it is read, so listing patients never touches it.
+ * Setting the history keeps the new text in the object itself, and the store pools it again when
+ * the patient is saved.
+ */
+final class StoredPatient extends Patient {
+    final int history;
+    final PatientStore.Histories histories;
+    private boolean detached;
+    
+    StoredPatient(Patient patient, int history, PatientStore.Histories histories) {
+        super(patient.getPatientId(), patient.getName(), patient.getAge(), patient.getGender(),
+            patient.getPhone(), patient.getAddress(), null);
+        this.history = history;
+        this.histories = histories;
+    }
+    
+    /** True once the history has been set, so it no longer comes from the handle. */
+    boolean isDetached() {
+        return detached;
+    }
+    
+    @Override
+    public String getMedicalHistory() {
+        return detached ? super.getMedicalHistory() : histories.get(history);
+    }
+    
+    @Override
+    public void setMedicalHistory(String medicalHistory) {
+        detached = true;
+        super.setMedicalHistory(medicalHistory);
+    }
+}
\ No newline at end of file
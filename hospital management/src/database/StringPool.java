@@ -0,0 +1,211 @@
+package database;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only pool of strings kept as UTF-8 bytes in large pages and referred to by int handles.
+ * Equal strings share one entry, so a note repeated across many rows is stored once and each row
+ * pays only for its handle, instead of an object header, a length and a backing array per String.
+ *
+ * Entries never change once added, so a handle stays readable for as long as the pool is: readers
+ * of published store versions need no lock, because the handle reached them through the store's
+ * publication, after its bytes were written. Adding is for the single writer that owns the pool.
+ * Space taken by strings no row refers to any more is reclaimed by copying the live ones into a
+ * new pool.
+ *
+ * An off-heap pool keeps its pages in direct buffers, so however much text it holds, the heap
+ * only carries the page objects and the dedup table and the collector never scans or copies
+ * the bytes.
+ */
+final class StringPool {
+    private static final int PAGE_BITS = 16;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int MAX_PAGES = 1 << (31 - PAGE_BITS); // keeps handles non-negative
+    
+    // A handle is page << PAGE_BITS | offset; an entry is its byte length as a varint, then the bytes
+    private final boolean offHeap;
+    private ByteBuffer[] pages = new ByteBuffer[8];
+    private int pageCount;
+    private int used = PAGE_SIZE; // bytes used in the last page
+    private long bytes; // bytes taken by all entries
+    private int[] table = new int[64]; // open addressing over handle + 1; 0 marks a free bucket
+    private int entries;
+    
+    StringPool(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+    
+    /** Returns an empty pool of the same kind, to copy the live entries into. */
+    StringPool emptyCopy() {
+        return new StringPool(offHeap);
+    }
+    
+    /** Bytes taken by the entries added so far, live or not. */
+    long bytes() {
+        return bytes;
+    }
+    
+    /** Bytes taken by the entry behind the handle. */
+    int sizeOf(int handle) {
+        int length = lengthAt(pages[handle >>> PAGE_BITS], handle & (PAGE_SIZE - 1));
+        return varintSize(length) + length;
+    }
+    
+    /** Returns the handle of an entry equal to the value, adding one if there is none. */
+    int add(String value) {
+        byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+        return add(encoded, 0, encoded.length);
+    }
+    
+    String get(int handle) {
+        ByteBuffer page = pages[handle >>> PAGE_BITS];
+        int position = handle & (PAGE_SIZE - 1);
+        int length = lengthAt(page, position);
+        position += varintSize(length);
+        if (page.hasArray()) {
+            return new String(page.array(), position, length, StandardCharsets.UTF_8);
+        }
+        byte[] encoded = new byte[length];
+        ByteBuffer entry = page.duplicate(); // positioned reads on a private view keep concurrent readers apart
+        entry.position(position);
+        entry.get(encoded);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+    
+    /** Adds the entry behind one of this pool's handles to another pool and returns its handle there. */
+    int copyTo(int handle, StringPool target) {
+        ByteBuffer page = pages[handle >>> PAGE_BITS];
+        int position = handle & (PAGE_SIZE - 1);
+        int length = lengthAt(page, position);
+        position += varintSize(length);
+        if (page.hasArray()) {
+            return target.add(page.array(), position, length);
+        }
+        byte[] encoded = new byte[length];
+        ByteBuffer entry = page.duplicate();
+        entry.position(position);
+        entry.get(encoded);
+        return target.add(encoded, 0, length);
+    }
+    
+    private int add(byte[] value, int from, int length) {
+        int hash = hash(value, from, length);
+        int mask = table.length - 1;
+        for (int bucket = hash & mask; ; bucket = (bucket + 1) & mask) {
+            int entry = table[bucket];
+            if (entry == 0) {
+                int handle = append(value, from, length);
+                table[bucket] = handle + 1;
+                if (++entries * 2 > table.length) {
+                    rehash();
+                }
+                return handle;
+            }
+            if (equalsAt(entry - 1, value, from, length)) {
+                return entry - 1;
+            }
+        }
+    }
+    
+    private int append(byte[] value, int from, int length) {
+        int needed = varintSize(length) + length;
+        if (used + needed > PAGE_SIZE) {
+            if (pageCount == MAX_PAGES) {
+                throw new IllegalStateException("String pool is full");
+            }
+            if (pageCount == pages.length) {
+                pages = Arrays.copyOf(pages, pageCount * 2);
+            }
+            // An entry never spans pages; one longer than a page gets a page of its own
+            int capacity = Math.max(PAGE_SIZE, needed);
+            pages[pageCount++] = offHeap ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+            used = 0;
+        }
+        // Only the writer moves the page's position; readers use absolute gets or their own duplicates
+        ByteBuffer page = pages[pageCount - 1];
+        int handle = (pageCount - 1) << PAGE_BITS | used;
+        page.position(used);
+        for (int rest = length; ; rest >>>= 7) {
+            if (rest < 0x80) {
+                page.put((byte) rest);
+                break;
+            }
+            page.put((byte) (rest & 0x7F | 0x80));
+        }
+        page.put(value, from, length);
+        used += needed;
+        bytes += needed;
+        return handle;
+    }
+    
+    private boolean equalsAt(int handle, byte[] value, int from, int length) {
+        ByteBuffer page = pages[handle >>> PAGE_BITS];
+        int position = handle & (PAGE_SIZE - 1);
+        if (lengthAt(page, position) != length) {
+            return false;
+        }
+        position += varintSize(length);
+        for (int i = 0; i < length; i++) {
+            if (page.get(position + i) != value[from + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void rehash() {
+        int[] old = table;
+        table = new int[old.length * 2];
+        int mask = table.length - 1;
+        for (int entry : old) {
+            if (entry != 0) {
+                ByteBuffer page = pages[(entry - 1) >>> PAGE_BITS];
+                int position = (entry - 1) & (PAGE_SIZE - 1);
+                int length = lengthAt(page, position);
+                int bucket = hash(page, position + varintSize(length), length) & mask;
+                while (table[bucket] != 0) {
+                    bucket = (bucket + 1) & mask;
+                }
+                table[bucket] = entry;
+            }
+        }
+    }
+    
+    private static int lengthAt(ByteBuffer page, int position) {
+        int length = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = page.get(position++);
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return length;
+            }
+        }
+    }
+    
+    private static int varintSize(int length) {
+        int size = 1;
+        while (length >= 0x80) {
+            length >>>= 7;
+            size++;
+        }
+        return size;
+    }
+    
+    private static int hash(byte[] value, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + value[i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+    
+    private static int hash(ByteBuffer page, int from, int length) {
+        int hash = 0;
+        for (int i = from; i < from + length; i++) {
+            hash = 31 * hash + page.get(i);
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
\ No newline at end of file
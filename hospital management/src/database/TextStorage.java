@@ -0,0 +1,15 @@
+package database;
+
+/**
+ * Where the stores keep long free text: patient medical histories and appointment notes.
+ */
+public enum TextStorage {
+    /** Histories are Strings held by each patient; notes are pooled in byte pages on the heap. */
+    HEAP,
+    /**
+     * Both live in off-heap pages, or stay in the mapped snapshot, and records refer to them by
+     * handle; a text is decoded only when it is read, e.g. when a form shows the record. Keeps the
+     * old generation small, and full collections short, when histories are long.
+     */
+    OFF_HEAP
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package database;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/** File formats understood by {@link BulkTransfer}. */
+public enum TransferFormat {
+    /** Comma-separated values with a header row naming the columns; fields may be quoted as in RFC 4180. */
+    CSV,
+    /** One flat JSON object per line, keyed by column name. */
+    JSONL;
+    
+    /** Picks the format from the file extension: .jsonl, .ndjson and .json are JSON Lines, anything else CSV. */
+    public static TransferFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json") ? JSONL : CSV;
+    }
+}
\ No newline at end of file
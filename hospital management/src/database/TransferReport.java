@@ -0,0 +1,47 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Outcome of a bulk import or export: how many records went through, which were rejected and how fast. */
+public final class TransferReport {
+    static final int MAX_ERRORS = 100;
+    
+    private final String operation;
+    private final String entity;
+    private final long recordsRead;
+    private final long transferred;
+    private final List<String> errors;
+    private final long elapsedNanos;
+    
+    TransferReport(String operation, String entity, long recordsRead, long transferred, List<String> errors, long elapsedNanos) {
+        this.operation = operation;
+        this.entity = entity;
+        this.recordsRead = recordsRead;
+        this.transferred = transferred;
+        this.errors = Collections.unmodifiableList(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public long getRecordsRead() { return recordsRead; }
+    
+    public long getTransferred() { return transferred; }
+    
+    public long getRejected() { return recordsRead - transferred; }
+    
+    /** The first {@value #MAX_ERRORS} rejections, as "line N: reason". */
+    public List<String> getErrors() { return errors; }
+    
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    public double getRecordsPerSecond() {
+        return elapsedNanos > 0 ? recordsRead * 1e9 / elapsedNanos : 0;
+    }
+    
+    @Override
+    public String toString() {
+        String summary = String.format("%s %,d of %,d %s in %.2f s (%,.0f records/sec)",
+            operation, transferred, recordsRead, entity, elapsedNanos / 1e9, getRecordsPerSecond());
+        return getRejected() > 0 ? summary + String.format("; %,d rejected", getRejected()) : summary;
+    }
+}
\ No newline at end of file
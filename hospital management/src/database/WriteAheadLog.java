@@ -0,0 +1,314 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary log of store mutations, split into segment files named by their first sequence number.
+ *
+ * Each record is framed as [length][crc32][sequence][op][entity][body]. Appends only copy the
+ * record into an in-memory buffer; a single flusher thread writes whatever has accumulated
+ * in one go (group commit) and fsyncs according to the {@link FsyncPolicy}. Replay stops at the
+ * first torn or corrupt record of a segment, which is what a crash mid-write leaves behind.
+ */
+class WriteAheadLog implements AutoCloseable {
+    static final byte OP_PUT = 1;
+    static final byte OP_DELETE = 2;
+    
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final long FSYNC_INTERVAL_MILLIS = 1000;
+    private static final int MAX_RECORD_LENGTH = 64 * 1024 * 1024;
+    
+    interface RecordBody {
+        void write(DataOutput out) throws IOException;
+    }
+    
+    interface RecordHandler {
+        void apply(byte op, byte entity, DataInput in) throws IOException;
+    }
+    
+    private final Path directory;
+    private final FsyncPolicy policy;
+    private final Object channelLock = new Object();
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+    private final CRC32 crc = new CRC32();
+    private final Thread flusher;
+    
+    // Guarded by this
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream(64 * 1024);
+    private long lastSequence;
+    private long acknowledgedSequence;
+    private boolean closed;
+    private IOException failure;
+    
+    // Guarded by channelLock; the flags are volatile so the flusher can poll them while waiting
+    private FileChannel channel;
+    private volatile boolean unsynced;
+    private volatile long lastFsync = System.currentTimeMillis();
+    
+    /** Opens a fresh segment; sequence numbers continue after {@code lastSequence}. */
+    WriteAheadLog(Path directory, FsyncPolicy policy, long lastSequence) throws IOException {
+        this.directory = directory;
+        this.policy = policy;
+        this.lastSequence = lastSequence;
+        this.acknowledgedSequence = lastSequence;
+        Files.createDirectories(directory);
+        channel = openSegment(lastSequence + 1);
+        flusher = new Thread(this::flushLoop, "hms-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    /** Buffers a record and returns its sequence number. */
+    synchronized long append(byte op, byte entity, RecordBody body) {
+        if (failure != null) {
+            throw new RepositoryException("Write-ahead log is unavailable", failure);
+        }
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed");
+        }
+        long sequence = lastSequence + 1; // taken only once the record is encoded, so a failed body leaves no gap
+        try {
+            scratch.reset();
+            scratchOut.writeLong(sequence);
+            scratchOut.writeByte(op);
+            scratchOut.writeByte(entity);
+            body.write(scratchOut);
+            scratchOut.flush();
+            
+            byte[] record = scratch.toByteArray();
+            crc.reset();
+            crc.update(record, 0, record.length);
+            DataOutputStream out = new DataOutputStream(pending);
+            out.writeInt(record.length);
+            out.writeInt((int) crc.getValue());
+            out.write(record);
+        } catch (IOException e) {
+            throw new RepositoryException("Could not encode log record", e); // in-memory streams do not fail
+        }
+        lastSequence = sequence;
+        notifyAll();
+        return sequence;
+    }
+    
+    /** Blocks until the record is durable as the policy defines it; only ALWAYS actually waits. */
+    synchronized void awaitDurable(long sequence) {
+        if (policy != FsyncPolicy.ALWAYS) {
+            return;
+        }
+        while (acknowledgedSequence < sequence && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RepositoryException("Interrupted while waiting for the log", e);
+            }
+        }
+        if (acknowledgedSequence < sequence) {
+            throw new RepositoryException("Write-ahead log is unavailable", failure);
+        }
+    }
+    
+    /**
+     * Flushes and closes the current segment and starts a new one.
+     * The caller must ensure no appends run concurrently; returns the last sequence in the closed segment.
+     */
+    long roll() throws IOException {
+        synchronized (channelLock) {
+            flushOnce(true);
+            long boundary;
+            synchronized (this) {
+                boundary = lastSequence;
+            }
+            channel.close();
+            channel = openSegment(boundary + 1);
+            return boundary;
+        }
+    }
+    
+    /** Deletes segments whose records all have sequence numbers up to and including {@code boundary}. */
+    void deleteSegmentsThrough(long boundary) throws IOException {
+        for (Path segment : listSegments(directory)) {
+            if (firstSequence(segment) <= boundary) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            flushOnce(true);
+            channel.close();
+        }
+    }
+    
+    private void flushLoop() {
+        while (true) {
+            synchronized (this) {
+                while (pending.size() == 0 && !closed && !intervalSyncDue()) {
+                    try {
+                        wait(FSYNC_INTERVAL_MILLIS);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed) {
+                    return; // close() performs the final flush
+                }
+            }
+            synchronized (channelLock) {
+                try {
+                    flushOnce(false);
+                } catch (IOException e) {
+                    synchronized (this) {
+                        failure = e;
+                        notifyAll();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+    
+    // Must hold channelLock. Writes everything buffered so far, then fsyncs if the policy (or force) asks for it.
+    private void flushOnce(boolean force) throws IOException {
+        byte[] batch;
+        long upTo;
+        synchronized (this) {
+            batch = pending.toByteArray();
+            pending = new ByteArrayOutputStream(Math.max(64 * 1024, batch.length));
+            upTo = lastSequence;
+        }
+        if (batch.length > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            unsynced = true;
+        }
+        long now = System.currentTimeMillis();
+        boolean sync = force
+            || policy == FsyncPolicy.ALWAYS
+            || (policy == FsyncPolicy.INTERVAL && now - lastFsync >= FSYNC_INTERVAL_MILLIS);
+        if (sync && unsynced && (force || policy != FsyncPolicy.NEVER)) {
+            channel.force(false);
+            unsynced = false;
+            lastFsync = now;
+        }
+        synchronized (this) {
+            acknowledgedSequence = Math.max(acknowledgedSequence, upTo);
+            notifyAll();
+        }
+    }
+    
+    // Called holding this; lets the flusher wake for a pending INTERVAL fsync even when no new writes arrive
+    private boolean intervalSyncDue() {
+        return policy == FsyncPolicy.INTERVAL && unsynced
+            && System.currentTimeMillis() - lastFsync >= FSYNC_INTERVAL_MILLIS;
+    }
+    
+    // A segment that already carries this name can only hold a torn record (anything valid would have
+    // advanced lastSequence past its first sequence), so it is safe to truncate
+    private FileChannel openSegment(long firstSequence) throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        return FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    static boolean hasSegments(Path directory) throws IOException {
+        return !listSegments(directory).isEmpty();
+    }
+    
+    /**
+     * Replays every record with a sequence number above {@code afterSequence}, oldest first.
+     * Returns the highest sequence number found in the log (or {@code afterSequence} if none is higher).
+     */
+    static long replay(Path directory, long afterSequence, RecordHandler handler) throws IOException {
+        long highest = afterSequence;
+        for (Path segment : listSegments(directory)) {
+            try (InputStream raw = new BufferedInputStream(Files.newInputStream(segment), 64 * 1024)) {
+                DataInputStream in = new DataInputStream(raw);
+                CRC32 checksum = new CRC32();
+                while (true) {
+                    byte[] record;
+                    try {
+                        int length = in.readInt();
+                        int expectedCrc = in.readInt();
+                        if (length < 10 || length > MAX_RECORD_LENGTH) {
+                            break; // garbage where a frame header should be
+                        }
+                        record = new byte[length];
+                        in.readFully(record);
+                        checksum.reset();
+                        checksum.update(record, 0, length);
+                        if ((int) checksum.getValue() != expectedCrc) {
+                            break; // torn write
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    DataInputStream body = new DataInputStream(new ByteArrayInputStream(record));
+                    long sequence = body.readLong();
+                    byte op = body.readByte();
+                    byte entity = body.readByte();
+                    if (sequence > afterSequence) {
+                        handler.apply(op, entity, body);
+                    }
+                    highest = Math.max(highest, sequence);
+                }
+            }
+        }
+        return highest;
+    }
+    
+    private static List<Path> listSegments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return segments;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : stream) {
+                segments.add(segment);
+            }
+        }
+        Collections.sort(segments); // zero-padded names sort by first sequence
+        return segments;
+    }
+    
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
\ No newline at end of file
@@ -1,30 +1,58 @@
 package gui;
 
+import database.AppointmentFilter;
+import database.ChangeEvent;
+import database.ChangeSet;
 import database.DatabaseManager;
+import database.PageRequest;
 import models.*;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public class AppointmentPanel extends JPanel {
+    private static final int FREE_SLOT_COUNT = 10;
+    
     private JTable appointmentTable;
-    private DefaultTableModel tableModel;
+    private AppointmentTableModel tableModel;
+    private SnapshotRowSorter<AppointmentTableModel> sorter;
     private JComboBox<Patient> patientCombo;
     private JComboBox<Doctor> doctorCombo;
+    private RecordComboModel<Patient> patientModel, patientFilterModel;
+    private RecordComboModel<Doctor> doctorModel, doctorFilterModel;
     private JTextField dateField, timeField;
     private JComboBox<String> statusCombo;
+    private JComboBox<String> filterCombo;
+    private JComboBox<Patient> patientFilter;
+    private JComboBox<Doctor> doctorFilter;
+    private JTextField fromField, toField;
     private JTextArea notesArea;
-    private JButton addButton, updateButton, deleteButton, clearButton;
+    private JButton addButton, updateButton, deleteButton, clearButton, freeSlotButton;
     private DatabaseManager dbManager;
+    private JProgressBar progressBar;
+    private BackgroundLoader<List<AppointmentView>> tableLoader;
+    private BackgroundLoader<ComboData> comboLoader;
+    private BackgroundLoader<List<FreeSlot>> freeSlotLoader;
+    private volatile String freeSlotSpecialization;
     private int selectedAppointmentId = -1;
+    private volatile long loadedDirectoryVersion = -1;
+    private volatile AppointmentFilter appointmentFilter = AppointmentFilter.ALL;
+    private volatile int firstVisibleRow;
+    private boolean updatingFilters;
+    private ChangeSet changesDuringLoad = new ChangeSet();
     
     public AppointmentPanel() {
         dbManager = DatabaseManager.getInstance();
@@ -32,20 +60,21 @@ public class AppointmentPanel extends JPanel {
         setupLayout();
         setupEventListeners();
         refreshTable();
-        loadComboBoxes();
     }
     
     private void initializeComponents() {
         // Enhanced table setup
-        String[] columnNames = {"ID", "Patient", "Doctor", "Date & Time", "Status"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new AppointmentTableModel();
+        progressBar = BackgroundLoader.createProgressBar();
+        tableLoader = new BackgroundLoader<>(this::loadAppointments, this::showAppointments, progressBar);
+        dbManager.addChangeListener(new CoalescingListener(this::applyChanges));
+        comboLoader = new BackgroundLoader<>(this::loadComboData, this::loadComboBoxes, null);
+        freeSlotLoader = new BackgroundLoader<>(
+            () -> dbManager.findFreeSlots(freeSlotSpecialization, LocalDateTime.now(), FREE_SLOT_COUNT), this::chooseFreeSlot, progressBar);
         
         appointmentTable = new JTable(tableModel);
+        sorter = new SnapshotRowSorter<>(tableModel);
+        appointmentTable.setRowSorter(sorter);
         appointmentTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         appointmentTable.setRowHeight(30);
         appointmentTable.setFont(new Font("Segoe UI", Font.PLAIN, 13));
@@ -67,7 +96,7 @@ public class AppointmentPanel extends JPanel {
                 Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
                 if (!isSelected) {
                     if (column == 4) { // Status column
-                        String status = (String) value;
+                        String status = value != null ? (String) value : "";
                         switch (status) {
                             case "SCHEDULED":
                                 c.setBackground(new Color(217, 237, 247));
@@ -78,6 +107,9 @@ public class AppointmentPanel extends JPanel {
                             case "CANCELLED":
                                 c.setBackground(new Color(248, 215, 218));
                                 break;
+                            case "NO_SHOW":
+                                c.setBackground(new Color(252, 243, 207));
+                                break;
                             default:
                                 c.setBackground(row % 2 == 0 ? Color.WHITE : new Color(248, 249, 250));
                         }
@@ -90,17 +122,36 @@ public class AppointmentPanel extends JPanel {
         });
         
         // Enhanced form fields
-        patientCombo = new JComboBox<>();
-        doctorCombo = new JComboBox<>();
+        // The pick lists are updated in place as patients and doctors change
+        patientModel = new RecordComboModel<>(Patient::getPatientId, false);
+        doctorModel = new RecordComboModel<>(Doctor::getDoctorId, false);
+        patientCombo = new JComboBox<>(patientModel);
+        doctorCombo = new JComboBox<>(doctorModel);
         styleComboBox(patientCombo);
         styleComboBox(doctorCombo);
         
         dateField = createStyledTextField("2024-12-25", 20);
         timeField = createStyledTextField("10:00", 20);
         
-        statusCombo = new JComboBox<>(new String[]{"SCHEDULED", "COMPLETED", "CANCELLED"});
+        statusCombo = new JComboBox<>(new String[]{"SCHEDULED", "COMPLETED", "CANCELLED", "NO_SHOW"});
         styleComboBox(statusCombo);
         
+        // Table filters; the empty entry at the top of the pick lists means "any"
+        filterCombo = new JComboBox<>(new String[]{"All", "SCHEDULED", "COMPLETED", "CANCELLED", "NO_SHOW"});
+        styleComboBox(filterCombo);
+        patientFilterModel = new RecordComboModel<>(Patient::getPatientId, true);
+        doctorFilterModel = new RecordComboModel<>(Doctor::getDoctorId, true);
+        patientFilter = new JComboBox<>(patientFilterModel);
+        doctorFilter = new JComboBox<>(doctorFilterModel);
+        styleComboBox(patientFilter);
+        styleComboBox(doctorFilter);
+        patientFilter.setRenderer(new NameRenderer("All patients"));
+        doctorFilter.setRenderer(new NameRenderer("All doctors"));
+        fromField = createStyledTextField("", 8);
+        toField = createStyledTextField("", 8);
+        fromField.setToolTipText("From date (YYYY-MM-DD), blank for no limit; press Enter to apply");
+        toField.setToolTipText("To date (YYYY-MM-DD), blank for no limit; press Enter to apply");
+        
         notesArea = new JTextArea(4, 20);
         notesArea.setLineWrap(true);
         notesArea.setWrapStyleWord(true);
@@ -115,6 +166,7 @@ public class AppointmentPanel extends JPanel {
         updateButton = createStyledButton("✏️ Update Appointment", new Color(255, 193, 7));
         deleteButton = createStyledButton("🗑️ Cancel Appointment", new Color(220, 53, 69));
         clearButton = createStyledButton("🔄 Clear Form", new Color(108, 117, 125));
+        freeSlotButton = createStyledButton("🕒 Find Free Slot", new Color(23, 162, 184));
         
         updateButton.setEnabled(false);
         deleteButton.setEnabled(false);
@@ -191,21 +243,24 @@ public class AppointmentPanel extends JPanel {
         titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 18));
         titleLabel.setForeground(new Color(52, 58, 64));
         
-        // Status filter panel
+        // Filter panel
         JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         filterPanel.setBackground(new Color(248, 249, 250));
         
-        JLabel filterLabel = new JLabel("Filter by Status:");
-        filterLabel.setFont(new Font("Segoe UI", Font.PLAIN, 13));
-        
-        JComboBox<String> filterCombo = new JComboBox<>(new String[]{"All", "SCHEDULED", "COMPLETED", "CANCELLED"});
-        styleComboBox(filterCombo);
-        
-        filterPanel.add(filterLabel);
+        filterPanel.add(createFilterLabel("Filter by Status:"));
         filterPanel.add(filterCombo);
+        filterPanel.add(createFilterLabel("Doctor:"));
+        filterPanel.add(doctorFilter);
+        filterPanel.add(createFilterLabel("Patient:"));
+        filterPanel.add(patientFilter);
+        filterPanel.add(createFilterLabel("From:"));
+        filterPanel.add(fromField);
+        filterPanel.add(createFilterLabel("To:"));
+        filterPanel.add(toField);
         
         headerPanel.add(titleLabel, BorderLayout.WEST);
-        headerPanel.add(filterPanel, BorderLayout.EAST);
+        headerPanel.add(createProgressPanel(), BorderLayout.CENTER);
+        headerPanel.add(filterPanel, BorderLayout.SOUTH);
         
         // Table with enhanced styling
         JScrollPane tableScrollPane = new JScrollPane(appointmentTable);
@@ -218,6 +273,19 @@ public class AppointmentPanel extends JPanel {
         return panel;
     }
     
+    private JLabel createFilterLabel(String text) {
+        JLabel label = new JLabel(text);
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 13));
+        return label;
+    }
+    
+    private JPanel createProgressPanel() {
+        JPanel progressPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5));
+        progressPanel.setBackground(new Color(248, 249, 250));
+        progressPanel.add(progressBar);
+        return progressPanel;
+    }
+    
     private JPanel createFormPanel() {
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(new Color(248, 249, 250));
@@ -288,6 +356,7 @@ public class AppointmentPanel extends JPanel {
         buttonPanel.add(updateButton);
         buttonPanel.add(deleteButton);
         buttonPanel.add(clearButton);
+        buttonPanel.add(freeSlotButton);
         
         gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 4; gbc.fill = GridBagConstraints.HORIZONTAL; gbc.weighty = 0;
         formPanel.add(buttonPanel, gbc);
@@ -309,7 +378,11 @@ public class AppointmentPanel extends JPanel {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = appointmentTable.getSelectedRow();
                 if (selectedRow >= 0) {
-                    selectedAppointmentId = (Integer) tableModel.getValueAt(selectedRow, 0);
+                    AppointmentView view = tableModel.getRow(appointmentTable.convertRowIndexToModel(selectedRow));
+                    if (view == null) {
+                        return; // a paged row still loading
+                    }
+                    selectedAppointmentId = view.getAppointmentId();
                     loadAppointmentData(selectedAppointmentId);
                     updateButton.setEnabled(true);
                     deleteButton.setEnabled(true);
@@ -326,15 +399,54 @@ public class AppointmentPanel extends JPanel {
         updateButton.addActionListener(e -> updateAppointment());
         deleteButton.addActionListener(e -> deleteAppointment());
         clearButton.addActionListener(e -> clearForm());
+        freeSlotButton.addActionListener(e -> findFreeSlot());
+        
+        // Filter listeners; each change reloads only the matching rows
+        filterCombo.addActionListener(e -> applyFilters());
+        patientFilter.addActionListener(e -> applyFilters());
+        doctorFilter.addActionListener(e -> applyFilters());
+        fromField.addActionListener(e -> applyFilters());
+        toField.addActionListener(e -> applyFilters());
+    }
+    
+    private void applyFilters() {
+        if (updatingFilters) {
+            return;
+        }
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = parseFilterDate(fromField);
+            to = parseFilterDate(toField);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, "Please enter filter dates as YYYY-MM-DD, or leave them blank.");
+            return;
+        }
+        String status = (String) filterCombo.getSelectedItem();
+        Patient patient = (Patient) patientFilter.getSelectedItem();
+        Doctor doctor = (Doctor) doctorFilter.getSelectedItem();
+        appointmentFilter = new AppointmentFilter(
+            "All".equals(status) ? null : status,
+            doctor != null ? doctor.getDoctorId() : 0,
+            patient != null ? patient.getPatientId() : 0,
+            from != null ? from.atStartOfDay() : null,
+            to != null ? to.atTime(LocalTime.MAX) : null);
+        firstVisibleRow = 0;
+        tableLoader.refresh();
+    }
+    
+    private static LocalDate parseFilterDate(JTextField field) {
+        String text = field.getText().trim();
+        return text.isEmpty() ? null : LocalDate.parse(text);
     }
     
     private void addAppointment() {
         if (validateForm()) {
             Appointment appointment = createAppointmentFromForm();
-            dbManager.addAppointment(appointment);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Appointment added successfully!");
+            BackgroundLoader.runInBackground(this, () -> dbManager.addAppointment(appointment), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Appointment added successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -342,10 +454,11 @@ public class AppointmentPanel extends JPanel {
         if (selectedAppointmentId != -1 && validateForm()) {
             Appointment appointment = createAppointmentFromForm();
             appointment.setAppointmentId(selectedAppointmentId);
-            dbManager.updateAppointment(appointment);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Appointment updated successfully!");
+            BackgroundLoader.runInBackground(this, BackgroundLoader.updating(() -> dbManager.updateAppointment(appointment),
+                    "This appointment no longer exists."), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Appointment updated successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -356,12 +469,60 @@ public class AppointmentPanel extends JPanel {
                 "Confirm Delete", 
                 JOptionPane.YES_NO_OPTION);
             if (result == JOptionPane.YES_OPTION) {
-                dbManager.deleteAppointment(selectedAppointmentId);
-                refreshTable();
-                clearForm();
-                JOptionPane.showMessageDialog(this, "Appointment deleted successfully!");
+                int appointmentId = selectedAppointmentId;
+                BackgroundLoader.runInBackground(this, () -> dbManager.deleteAppointment(appointmentId), () -> {
+                    clearForm();
+                    JOptionPane.showMessageDialog(this, "Appointment deleted successfully!");
+                }, addButton, updateButton, deleteButton, clearButton);
+            }
+        }
+    }
+    
+    // Asks for a specialization (defaulting to the selected doctor's), then offers the earliest open slots
+    private void findFreeSlot() {
+        Set<String> specializations = new LinkedHashSet<>();
+        for (int i = 0; i < doctorCombo.getItemCount(); i++) {
+            specializations.add(doctorCombo.getItemAt(i).getSpecialization());
+        }
+        if (specializations.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No doctors available.");
+            return;
+        }
+        Doctor selectedDoctor = (Doctor) doctorCombo.getSelectedItem();
+        Object specialization = JOptionPane.showInputDialog(this, "Specialization:", "Find Free Slot",
+            JOptionPane.QUESTION_MESSAGE, null, specializations.toArray(),
+            selectedDoctor != null ? selectedDoctor.getSpecialization() : specializations.iterator().next());
+        if (specialization != null) {
+            freeSlotSpecialization = (String) specialization;
+            freeSlotLoader.refresh();
+        }
+    }
+    
+    private void chooseFreeSlot(List<FreeSlot> slots) {
+        if (slots.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No free slots in the next year for " + freeSlotSpecialization + ".");
+            return;
+        }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("EEE yyyy-MM-dd HH:mm");
+        List<String> labels = new ArrayList<>(slots.size());
+        for (FreeSlot slot : slots) {
+            labels.add(slot.getStart().format(formatter) + "  " + slot.getDoctor().getName());
+        }
+        Object choice = JOptionPane.showInputDialog(this, "Earliest free slots:", "Find Free Slot",
+            JOptionPane.QUESTION_MESSAGE, null, labels.toArray(), labels.get(0));
+        if (choice == null) {
+            return;
+        }
+        FreeSlot slot = slots.get(labels.indexOf(choice));
+        for (int i = 0; i < doctorCombo.getItemCount(); i++) {
+            if (doctorCombo.getItemAt(i).getDoctorId() == slot.getDoctor().getDoctorId()) {
+                doctorCombo.setSelectedIndex(i);
+                break;
             }
         }
+        dateField.setText(slot.getStart().toLocalDate().toString());
+        timeField.setText(slot.getStart().toLocalTime().format(DateTimeFormatter.ofPattern("HH:mm")));
+        statusCombo.setSelectedItem("SCHEDULED");
     }
     
     private Appointment createAppointmentFromForm() {
@@ -411,6 +572,7 @@ public class AppointmentPanel extends JPanel {
             timeField.setText(dateTime.toLocalTime().format(DateTimeFormatter.ofPattern("HH:mm")));
             
             statusCombo.setSelectedItem(appointment.getStatus());
+            // Notes are decoded from the store only here, for the one record shown
             notesArea.setText(appointment.getNotes());
         }
     }
@@ -447,42 +609,159 @@ public class AppointmentPanel extends JPanel {
         deleteButton.setEnabled(false);
     }
     
-    private void loadComboBoxes() {
-        // Load patients
-        patientCombo.removeAllItems();
-        List<Patient> patients = dbManager.getAllPatients();
-        for (Patient patient : patients) {
-            patientCombo.addItem(patient);
+    // Runs on a background thread; returns null when the pick lists are already current
+    private ComboData loadComboData() {
+        long version = dbManager.getDirectoryVersion();
+        if (version == loadedDirectoryVersion) {
+            return null;
+        }
+        return new ComboData(version, dbManager.getAllPatients(), dbManager.getAllDoctors());
+    }
+    
+    private void loadComboBoxes(ComboData data) {
+        if (data != null) {
+            loadedDirectoryVersion = data.version;
+            patientModel.setAll(data.patients);
+            doctorModel.setAll(data.doctors);
+            
+            // The filter lists keep their selection by id; a filtered-on record that was deleted falls back to "any"
+            updatingFilters = true;
+            try {
+                patientFilterModel.setAll(data.patients);
+                doctorFilterModel.setAll(data.doctors);
+            } finally {
+                updatingFilters = false;
+            }
+        }
+        applyChangesDuringLoad();
+    }
+    
+    // Runs off the EDT. The first page tells how many appointments match; a long list is then
+    // shown a page at a time in date order instead of joining every match up front.
+    private List<AppointmentView> loadAppointments() {
+        AppointmentFilter filter = appointmentFilter;
+        PagedRows<AppointmentView> paged = new PagedRows<>(request -> dbManager.getAppointmentViewsPage(filter, request),
+            PageRequest.Sort.DATE, false, firstVisibleRow);
+        return paged.size() <= PagedRows.THRESHOLD ? dbManager.getAppointmentViews(filter) : paged;
+    }
+    
+    private void showAppointments(List<AppointmentView> views) {
+        // Sorting a paged list would read every page, so its columns keep the date order
+        boolean paged = views instanceof PagedRows;
+        if (paged) {
+            sorter.setSortKeys(null);
+        }
+        for (int column = 0; column < tableModel.getColumnCount(); column++) {
+            sorter.setSortable(column, !paged);
+        }
+        tableModel.setRows(views);
+        applyChangesDuringLoad();
+    }
+    
+    // Changes that arrived while a load was running may be newer than what it read
+    private void applyChangesDuringLoad() {
+        if (!changesDuringLoad.isEmpty() && !tableLoader.isLoading() && !comboLoader.isLoading()) {
+            ChangeSet changes = changesDuringLoad;
+            changesDuringLoad = new ChangeSet();
+            applyChanges(changes);
+        }
+    }
+    
+    // Runs on the EDT with the changes made since the last call, whichever panel or import made them
+    private void applyChanges(ChangeSet changes) {
+        if (tableLoader.isLoading() || comboLoader.isLoading()) {
+            changesDuringLoad.addAll(changes);
+            return;
+        }
+        Collection<Integer> changedPatients = changes.getChanged(ChangeEvent.Entity.PATIENT);
+        Collection<Integer> changedDoctors = changes.getChanged(ChangeEvent.Entity.DOCTOR);
+        if (changes.touches(ChangeEvent.Entity.PATIENT)) {
+            List<Patient> patients = dbManager.getPatientsByIds(changedPatients);
+            patientModel.applyChanges(changedPatients, patients, changes.getDeleted(ChangeEvent.Entity.PATIENT));
+            updatingFilters = true;
+            try {
+                patientFilterModel.applyChanges(changedPatients, patients, changes.getDeleted(ChangeEvent.Entity.PATIENT));
+            } finally {
+                updatingFilters = false;
+            }
+        }
+        if (changes.touches(ChangeEvent.Entity.DOCTOR)) {
+            List<Doctor> doctors = dbManager.getDoctorsByIds(changedDoctors);
+            doctorModel.applyChanges(changedDoctors, doctors, changes.getDeleted(ChangeEvent.Entity.DOCTOR));
+            updatingFilters = true;
+            try {
+                doctorFilterModel.applyChanges(changedDoctors, doctors, changes.getDeleted(ChangeEvent.Entity.DOCTOR));
+            } finally {
+                updatingFilters = false;
+            }
+        }
+        loadedDirectoryVersion = dbManager.getDirectoryVersion();
+        if (tableModel.isPaged()) {
+            firstVisibleRow = PagedRows.firstVisibleRow(appointmentTable);
+            tableLoader.refresh(); // pages are read again rather than patched
+            return;
         }
         
-        // Load doctors
-        doctorCombo.removeAllItems();
-        List<Doctor> doctors = dbManager.getAllDoctors();
-        for (Doctor doctor : doctors) {
-            doctorCombo.addItem(doctor);
+        // A renamed or removed patient or doctor changes the names shown on their appointments
+        Set<Integer> appointmentIds = new LinkedHashSet<>(changes.getAll(ChangeEvent.Entity.APPOINTMENT));
+        for (int patientId : changes.getAll(ChangeEvent.Entity.PATIENT)) {
+            for (Appointment appointment : dbManager.getAppointmentsForPatient(patientId)) {
+                appointmentIds.add(appointment.getAppointmentId());
+            }
+        }
+        for (int doctorId : changes.getAll(ChangeEvent.Entity.DOCTOR)) {
+            for (Appointment appointment : dbManager.getAppointmentsForDoctor(doctorId)) {
+                appointmentIds.add(appointment.getAppointmentId());
+            }
         }
+        if (appointmentIds.isEmpty()) {
+            return;
+        }
+        AppointmentFilter filter = appointmentFilter;
+        List<AppointmentView> matching = new ArrayList<>();
+        for (AppointmentView view : dbManager.getAppointmentViewsByIds(appointmentIds)) {
+            if (filter.matches(view.getAppointment())) {
+                matching.add(view);
+            }
+        }
+        tableModel.applyChanges(appointmentIds, matching, changes.getDeleted(ChangeEvent.Entity.APPOINTMENT));
     }
     
     public void refreshTable() {
-        tableModel.setRowCount(0);
-        List<Appointment> appointments = dbManager.getAllAppointments();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        firstVisibleRow = PagedRows.firstVisibleRow(appointmentTable);
+        // Names come pre-joined from the cached view; cells are formatted only when rendered
+        tableLoader.refresh();
         
-        for (Appointment appointment : appointments) {
-            Patient patient = dbManager.getPatientById(appointment.getPatientId());
-            Doctor doctor = dbManager.getDoctorById(appointment.getDoctorId());
-            
-            Object[] row = {
-                appointment.getAppointmentId(),
-                patient != null ? patient.getName() : "Unknown",
-                doctor != null ? doctor.getName() : "Unknown",
-                appointment.getAppointmentDateTime().format(formatter),
-                appointment.getStatus()
-            };
-            tableModel.addRow(row);
+        // Refresh combo boxes as well
+        comboLoader.refresh();
+    }
+    
+    // Shows patients and doctors by name in the filter lists, and the "any" entry as a label
+    private static class NameRenderer extends DefaultListCellRenderer {
+        private final String anyLabel;
+        
+        NameRenderer(String anyLabel) {
+            this.anyLabel = anyLabel;
         }
         
-        // Refresh combo boxes as well
-        loadComboBoxes();
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            String text = value instanceof Patient ? ((Patient) value).getName()
+                : value instanceof Doctor ? ((Doctor) value).getName()
+                : anyLabel;
+            return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+        }
+    }
+    
+    private static class ComboData {
+        final long version;
+        final List<Patient> patients;
+        final List<Doctor> doctors;
+        
+        ComboData(long version, List<Patient> patients, List<Doctor> doctors) {
+            this.version = version;
+            this.patients = patients;
+            this.doctors = doctors;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package gui;
+
+import models.AppointmentView;
+import java.time.format.DateTimeFormatter;
+
+public class AppointmentTableModel extends SnapshotTableModel<AppointmentView> {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    public AppointmentTableModel() {
+        super("ID", "Patient", "Doctor", "Date & Time", "Status");
+    }
+    
+    @Override
+    protected Object getColumnValue(AppointmentView appointment, int column) {
+        switch (column) {
+            case 0: return appointment.getAppointmentId();
+            case 1: return appointment.getPatientName();
+            case 2: return appointment.getDoctorName();
+            case 3: return appointment.getAppointmentDateTime().format(FORMATTER);
+            case 4: return appointment.getStatus();
+            default: return null;
+        }
+    }
+    
+    @Override
+    protected Object getSortKey(AppointmentView appointment, int column) {
+        return column == 3 ? appointment.getAppointmentDateTime() : getColumnValue(appointment, column);
+    }
+    
+    @Override
+    protected int getRecordId(AppointmentView appointment) {
+        return appointment.getAppointmentId();
+    }
+}
\ No newline at end of file
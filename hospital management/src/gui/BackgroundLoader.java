@@ -0,0 +1,178 @@
+package gui;
+
+import javax.swing.*;
+import java.awt.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs a data query off the Event Dispatch Thread and hands the result to the UI.
+ * Only the latest request wins: starting a refresh cancels the one still in flight,
+ * so a slow stale result can never overwrite a newer one. While a query runs the
+ * optional progress bar is shown.
+ */
+public class BackgroundLoader<T> {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    static final ExecutorService EXECUTOR = Executors.newFixedThreadPool( // also fetches PagedRows pages
+        Math.max(2, Runtime.getRuntime().availableProcessors() / 2), runnable -> {
+            Thread thread = new Thread(runnable, "hms-data-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    private static final ExecutorService WRITES = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hms-write"); // one at a time, in the order they were made
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static int inFlight; // loads started by refresh and not yet delivered; EDT only
+    private static final List<Runnable> idleTasks = new ArrayList<>(); // EDT only
+    
+    private final Supplier<T> query;
+    private final Consumer<T> onLoaded;
+    private final JProgressBar progressBar;
+    private SwingWorker<T, Void> current;
+    
+    public BackgroundLoader(Supplier<T> query, Consumer<T> onLoaded, JProgressBar progressBar) {
+        this.query = query;
+        this.onLoaded = onLoaded;
+        this.progressBar = progressBar;
+    }
+    
+    /** Starts a new load, cancelling any earlier one. Must be called on the EDT. */
+    public void refresh() {
+        if (current != null) {
+            current.cancel(true);
+        } else {
+            inFlight++;
+        }
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return query.get();
+            }
+            
+            @Override
+            protected void done() {
+                if (current != this) {
+                    return; // superseded by a newer refresh
+                }
+                current = null;
+                setBusy(false);
+                try {
+                    onLoaded.accept(get());
+                } catch (CancellationException e) {
+                    // Cancelled without a replacement; keep the rows already shown
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                } finally {
+                    if (--inFlight == 0) {
+                        runIdleTasks();
+                    }
+                }
+            }
+        };
+        current = worker;
+        setBusy(true);
+        EXECUTOR.execute(worker);
+    }
+    
+    /** Whether a load started by {@link #refresh} has yet to deliver its result. Must be called on the EDT. */
+    public boolean isLoading() {
+        return current != null;
+    }
+    
+    /**
+     * Runs the task on the EDT once every load started by a {@link #refresh} has delivered its
+     * rows, or at once if none is running, e.g. to warm caches only after the visible table has
+     * loaded. Must be called on the EDT.
+     */
+    public static void whenIdle(Runnable task) {
+        idleTasks.add(task);
+        if (inFlight == 0) {
+            runIdleTasks();
+        }
+    }
+    
+    private static void runIdleTasks() {
+        List<Runnable> tasks = new ArrayList<>(idleTasks);
+        idleTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+    
+    private void setBusy(boolean busy) {
+        if (progressBar != null) {
+            progressBar.setVisible(busy);
+        }
+    }
+    
+    /** Creates the small indeterminate bar the panels show next to their titles while loading. */
+    public static JProgressBar createProgressBar() {
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setString("Loading...");
+        bar.setStringPainted(true);
+        bar.setVisible(false);
+        return bar;
+    }
+    
+    /**
+     * Runs a database write in the background, then calls onSuccess on the EDT.
+     * Writes run one at a time in the order they were started, and the given action
+     * buttons stay disabled until this one is done, so a double click cannot repeat it.
+     * Failures are reported to the user with an error dialog.
+     */
+    public static void runInBackground(Component parent, Runnable work, Runnable onSuccess, AbstractButton... actions) {
+        boolean[] wasEnabled = new boolean[actions.length];
+        for (int i = 0; i < actions.length; i++) {
+            wasEnabled[i] = actions[i].isEnabled();
+            actions[i].setEnabled(false);
+        }
+        SwingWorker<Void, Void> worker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                work.run();
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                for (int i = 0; i < actions.length; i++) {
+                    actions[i].setEnabled(wasEnabled[i]);
+                }
+                try {
+                    get();
+                    onSuccess.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(parent,
+                        "Operation failed: " + e.getCause().getMessage(),
+                        "Error",
+                        JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        WRITES.execute(worker);
+    }
+    
+    /** An update write that fails with the given message when its record is no longer stored. */
+    static Runnable updating(BooleanSupplier update, String missing) {
+        return () -> {
+            if (!update.getAsBoolean()) {
+                throw new IllegalStateException(missing);
+            }
+        };
+    }
+}
\ No newline at end of file
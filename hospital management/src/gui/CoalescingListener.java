@@ -0,0 +1,62 @@
+package gui;
+
+import database.ChangeEvent;
+import database.ChangeSet;
+import database.DataChangeListener;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects store change events from any thread and hands them to the UI as one {@link ChangeSet}
+ * on the Event Dispatch Thread. The first event of a burst schedules a delivery a short delay
+ * later and every event until then is folded into it, so a 10,000-row import shows up as a few
+ * table updates rather than 10,000.
+ */
+public class CoalescingListener implements DataChangeListener {
+    public static final int DEFAULT_DELAY_MILLIS = 100;
+    
+    private final Consumer<ChangeSet> onChanges;
+    private final int delayMillis;
+    private ChangeSet pending; // guarded by this; non-null while a delivery is scheduled
+    
+    public CoalescingListener(Consumer<ChangeSet> onChanges) {
+        this(onChanges, DEFAULT_DELAY_MILLIS);
+    }
+    
+    public CoalescingListener(Consumer<ChangeSet> onChanges, int delayMillis) {
+        this.onChanges = onChanges;
+        this.delayMillis = delayMillis;
+    }
+    
+    @Override
+    public void changed(List<ChangeEvent> events) {
+        boolean schedule;
+        synchronized (this) {
+            schedule = pending == null;
+            if (schedule) {
+                pending = new ChangeSet();
+            }
+            pending.addAll(events);
+        }
+        if (schedule) {
+            SwingUtilities.invokeLater(() -> {
+                Timer timer = new Timer(delayMillis, e -> deliver());
+                timer.setRepeats(false);
+                timer.start();
+            });
+        }
+    }
+    
+    private void deliver() {
+        ChangeSet changes;
+        synchronized (this) {
+            changes = pending;
+            pending = null;
+        }
+        if (changes != null && !changes.isEmpty()) {
+            onChanges.accept(changes);
+        }
+    }
+}
\ No newline at end of file
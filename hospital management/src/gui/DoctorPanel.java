@@ -1,24 +1,31 @@
 package gui;
 
+import database.ChangeEvent;
+import database.ChangeSet;
 import database.DatabaseManager;
+import database.PageRequest;
 import models.Doctor;
+import models.WeeklySchedule;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.util.List;
 
 public class DoctorPanel extends JPanel {
     private JTable doctorTable;
-    private DefaultTableModel tableModel;
+    private DoctorTableModel tableModel;
     private JTextField nameField, specializationField, phoneField, emailField, scheduleField, feeField;
     private JButton addButton, updateButton, deleteButton, clearButton;
     private DatabaseManager dbManager;
+    private JProgressBar progressBar;
+    private BackgroundLoader<List<Doctor>> tableLoader;
     private int selectedDoctorId = -1;
+    private volatile int firstVisibleRow;
+    private ChangeSet changesDuringLoad = new ChangeSet();
     
     public DoctorPanel() {
         dbManager = DatabaseManager.getInstance();
@@ -30,13 +37,10 @@ public class DoctorPanel extends JPanel {
     
     private void initializeComponents() {
         // Enhanced table setup
-        String[] columnNames = {"ID", "Name", "Specialization", "Phone", "Email", "Fee"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new DoctorTableModel();
+        progressBar = BackgroundLoader.createProgressBar();
+        tableLoader = new BackgroundLoader<>(this::loadDoctors, this::showDoctors, progressBar);
+        dbManager.addChangeListener(new CoalescingListener(this::applyChanges));
         
         doctorTable = new JTable(tableModel);
         doctorTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -149,6 +153,7 @@ public class DoctorPanel extends JPanel {
         titleLabel.setForeground(new Color(52, 58, 64));
         
         headerPanel.add(titleLabel, BorderLayout.WEST);
+        headerPanel.add(createProgressPanel(), BorderLayout.CENTER);
         
         // Table with enhanced styling
         JScrollPane tableScrollPane = new JScrollPane(doctorTable);
@@ -161,6 +166,13 @@ public class DoctorPanel extends JPanel {
         return panel;
     }
     
+    private JPanel createProgressPanel() {
+        JPanel progressPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5));
+        progressPanel.setBackground(new Color(248, 249, 250));
+        progressPanel.add(progressBar);
+        return progressPanel;
+    }
+    
     private JPanel createFormPanel() {
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(new Color(248, 249, 250));
@@ -250,7 +262,7 @@ public class DoctorPanel extends JPanel {
         doctorTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = doctorTable.getSelectedRow();
-                if (selectedRow >= 0) {
+                if (selectedRow >= 0 && tableModel.getRow(selectedRow) != null) {
                     selectedDoctorId = (Integer) tableModel.getValueAt(selectedRow, 0);
                     loadDoctorData(selectedDoctorId);
                     updateButton.setEnabled(true);
@@ -270,13 +282,46 @@ public class DoctorPanel extends JPanel {
         clearButton.addActionListener(e -> clearForm());
     }
     
+    // Runs off the EDT; a long list is read a page at a time as it scrolls into view
+    private List<Doctor> loadDoctors() {
+        List<Doctor> all = dbManager.getAllDoctors();
+        return all.size() <= PagedRows.THRESHOLD ? all
+            : new PagedRows<>(dbManager::getDoctorsPage, PageRequest.Sort.ID, false, firstVisibleRow);
+    }
+    
+    private void showDoctors(List<Doctor> doctors) {
+        tableModel.setRows(doctors);
+        if (!changesDuringLoad.isEmpty()) {
+            // They may be newer than the rows just loaded
+            ChangeSet changes = changesDuringLoad;
+            changesDuringLoad = new ChangeSet();
+            applyChanges(changes);
+        }
+    }
+    
+    // Runs on the EDT with the changes made since the last call
+    private void applyChanges(ChangeSet changes) {
+        if (!changes.touches(ChangeEvent.Entity.DOCTOR)) {
+            return;
+        }
+        if (tableLoader.isLoading()) {
+            changesDuringLoad.addAll(changes);
+        } else if (tableModel.isPaged()) {
+            refreshTable(); // pages are read again rather than patched
+        } else {
+            tableModel.applyChanges(changes.getChanged(ChangeEvent.Entity.DOCTOR),
+                dbManager.getDoctorsByIds(changes.getChanged(ChangeEvent.Entity.DOCTOR)),
+                changes.getDeleted(ChangeEvent.Entity.DOCTOR));
+        }
+    }
+    
     private void addDoctor() {
         if (validateForm()) {
             Doctor doctor = createDoctorFromForm();
-            dbManager.addDoctor(doctor);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Doctor added successfully!");
+            BackgroundLoader.runInBackground(this, () -> dbManager.addDoctor(doctor), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Doctor added successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -284,10 +329,11 @@ public class DoctorPanel extends JPanel {
         if (selectedDoctorId != -1 && validateForm()) {
             Doctor doctor = createDoctorFromForm();
             doctor.setDoctorId(selectedDoctorId);
-            dbManager.updateDoctor(doctor);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Doctor updated successfully!");
+            BackgroundLoader.runInBackground(this, BackgroundLoader.updating(() -> dbManager.updateDoctor(doctor),
+                    "This doctor no longer exists."), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Doctor updated successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -298,10 +344,11 @@ public class DoctorPanel extends JPanel {
                 "Confirm Delete", 
                 JOptionPane.YES_NO_OPTION);
             if (result == JOptionPane.YES_OPTION) {
-                dbManager.deleteDoctor(selectedDoctorId);
-                refreshTable();
-                clearForm();
-                JOptionPane.showMessageDialog(this, "Doctor deleted successfully!");
+                int doctorId = selectedDoctorId;
+                BackgroundLoader.runInBackground(this, () -> dbManager.deleteDoctor(doctorId), () -> {
+                    clearForm();
+                    JOptionPane.showMessageDialog(this, "Doctor deleted successfully!");
+                }, addButton, updateButton, deleteButton, clearButton);
             }
         }
     }
@@ -342,6 +389,12 @@ public class DoctorPanel extends JPanel {
             JOptionPane.showMessageDialog(this, "Please enter phone number.");
             return false;
         }
+        try {
+            WeeklySchedule.parse(scheduleField.getText());
+        } catch (IllegalArgumentException e) {
+            JOptionPane.showMessageDialog(this, "Please enter the schedule as days and hours, e.g. \"Mon-Fri 9AM-5PM\" or \"Mon, Wed 8:30AM-12PM; Sat 10AM-2PM\".");
+            return false;
+        }
         try {
             double fee = Double.parseDouble(feeField.getText().trim());
             if (fee < 0) {
@@ -369,18 +422,7 @@ public class DoctorPanel extends JPanel {
     }
     
     public void refreshTable() {
-        tableModel.setRowCount(0);
-        List<Doctor> doctors = dbManager.getAllDoctors();
-        for (Doctor doctor : doctors) {
-            Object[] row = {
-                doctor.getDoctorId(),
-                doctor.getName(),
-                doctor.getSpecialization(),
-                doctor.getPhone(),
-                doctor.getEmail(),
-                "$" + doctor.getConsultationFee()
-            };
-            tableModel.addRow(row);
-        }
+        firstVisibleRow = PagedRows.firstVisibleRow(doctorTable);
+        tableLoader.refresh();
     }
 }
\ No newline at end of file
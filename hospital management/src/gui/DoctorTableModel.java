@@ -0,0 +1,28 @@
+package gui;
+
+import models.Doctor;
+
+public class DoctorTableModel extends SnapshotTableModel<Doctor> {
+    
+    public DoctorTableModel() {
+        super("ID", "Name", "Specialization", "Phone", "Email", "Fee");
+    }
+    
+    @Override
+    protected Object getColumnValue(Doctor doctor, int column) {
+        switch (column) {
+            case 0: return doctor.getDoctorId();
+            case 1: return doctor.getName();
+            case 2: return doctor.getSpecialization();
+            case 3: return doctor.getPhone();
+            case 4: return doctor.getEmail();
+            case 5: return "$" + doctor.getConsultationFee();
+            default: return null;
+        }
+    }
+    
+    @Override
+    protected int getRecordId(Doctor doctor) {
+        return doctor.getDoctorId();
+    }
+}
\ No newline at end of file
@@ -1,22 +1,56 @@
 package gui;
 
+import database.BulkTransfer;
+import database.ChangeEvent;
+import database.DailySummary;
+import database.AppointmentFilter;
+import database.DatabaseManager;
+import database.PageRequest;
+import database.TransferReport;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class MainFrame extends JFrame {
+    private static final int DASHBOARD_TICK_MILLIS = 60_000; // also rolls the header over to the new day
+    private static final int PATIENTS_TAB = 0, DOCTORS_TAB = 1, APPOINTMENTS_TAB = 2;
+    private static final String[] TAB_CONTENTS = {"patients", "doctors", "appointments"};
+    
+    private final StartupTimer startup = new StartupTimer();
     private JTabbedPane tabbedPane;
+    private final JComponent[] placeholders = new JComponent[3]; // shown until a tab is first selected and the store is open
     private PatientPanel patientPanel;
     private DoctorPanel doctorPanel;
     private AppointmentPanel appointmentPanel;
+    private DatabaseManager dbManager; // null until opened off the EDT
+    // One instance for the session, so appointment files can refer to patients and doctors imported before them
+    private BulkTransfer bulkTransfer;
+    private JMenu fileMenu;
+    private JLabel dashboardLabel;
+    private int dashboardRequests; // EDT only; a reply older than the latest request is dropped
     
+    /**
+     * Shows the frame with placeholder tabs straight away. The store is opened on a background
+     * thread meanwhile, and each tab's panel is built the first time the tab is selected once the
+     * store is open. The indexes other screens need are warmed after the first table has loaded.
+     */
     public MainFrame() {
+        openStore();
+        setupLookAndFeel();
         initializeComponents();
         setupLayout();
         setupFrame();
+        startup.mark("frame built");
     }
     
     private void initializeComponents() {
@@ -26,9 +60,12 @@ public class MainFrame extends JFrame {
         tabbedPane.setBackground(new Color(248, 249, 250));
         tabbedPane.setForeground(new Color(52, 58, 64));
         
-        patientPanel = new PatientPanel();
-        doctorPanel = new DoctorPanel();
-        appointmentPanel = new AppointmentPanel();
+        for (int tab = 0; tab < placeholders.length; tab++) {
+            JLabel placeholder = new JLabel("Loading " + TAB_CONTENTS[tab] + "...", SwingConstants.CENTER);
+            placeholder.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+            placeholder.setForeground(new Color(108, 117, 125));
+            placeholders[tab] = placeholder;
+        }
     }
     
     private void setupLayout() {
@@ -36,9 +73,10 @@ public class MainFrame extends JFrame {
         JPanel headerPanel = createHeaderPanel();
         
         // Style the tabbed pane with custom colors
-        tabbedPane.addTab("👥 Patients", patientPanel);
-        tabbedPane.addTab("👨‍⚕️ Doctors", doctorPanel);
-        tabbedPane.addTab("📅 Appointments", appointmentPanel);
+        tabbedPane.addTab("👥 Patients", placeholders[PATIENTS_TAB]);
+        tabbedPane.addTab("👨‍⚕️ Doctors", placeholders[DOCTORS_TAB]);
+        tabbedPane.addTab("📅 Appointments", placeholders[APPOINTMENTS_TAB]);
+        tabbedPane.addChangeListener(e -> buildTab(tabbedPane.getSelectedIndex()));
         
         tabbedPane.setTabPlacement(JTabbedPane.TOP);
         tabbedPane.setBorder(new EmptyBorder(10, 10, 10, 10));
@@ -49,6 +87,7 @@ public class MainFrame extends JFrame {
         contentPanel.add(tabbedPane, BorderLayout.CENTER);
         
         // Add components to frame
+        setJMenuBar(createMenuBar());
         add(headerPanel, BorderLayout.NORTH);
         add(contentPanel, BorderLayout.CENTER);
         add(createFooterPanel(), BorderLayout.SOUTH);
@@ -69,6 +108,10 @@ public class MainFrame extends JFrame {
                 );
                 g2d.setPaint(gradient);
                 g2d.fillRect(0, 0, getWidth(), getHeight());
+                if (startup.firstPaint()) {
+                    // Not needed to draw the window, so left until it is on screen
+                    SwingUtilities.invokeLater(() -> setIconImage(createAppIcon()));
+                }
             }
         };
         
@@ -93,12 +136,12 @@ public class MainFrame extends JFrame {
         JPanel infoPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         infoPanel.setOpaque(false);
         
-        JLabel dateLabel = new JLabel("Welcome to HMS");
-        dateLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-        dateLabel.setForeground(new Color(236, 240, 241));
-        dateLabel.setBorder(new EmptyBorder(0, 0, 0, 20));
+        dashboardLabel = new JLabel("Welcome to HMS");
+        dashboardLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+        dashboardLabel.setForeground(new Color(236, 240, 241));
+        dashboardLabel.setBorder(new EmptyBorder(0, 0, 0, 20));
         
-        infoPanel.add(dateLabel);
+        infoPanel.add(dashboardLabel);
         
         headerPanel.add(titlePanel, BorderLayout.CENTER);
         headerPanel.add(infoPanel, BorderLayout.EAST);
@@ -106,6 +149,175 @@ public class MainFrame extends JFrame {
         return headerPanel;
     }
     
+    // Opening a durable store replays its journal, so it happens off the EDT while the frame is shown
+    private void openStore() {
+        BackgroundLoader.EXECUTOR.execute(() -> {
+            try {
+                DatabaseManager opened = DatabaseManager.getInstance();
+                SwingUtilities.invokeLater(() -> storeOpened(opened));
+            } catch (RuntimeException | ExceptionInInitializerError e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Could not open the database: " + (e.getCause() != null ? e.getCause() : e).getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE));
+            }
+        });
+    }
+    
+    private void storeOpened(DatabaseManager opened) {
+        startup.mark("store open");
+        dbManager = opened;
+        bulkTransfer = new BulkTransfer(opened);
+        fileMenu.setEnabled(true);
+        buildTab(tabbedPane.getSelectedIndex());
+        startDashboard();
+        BackgroundLoader.whenIdle(this::preload);
+    }
+    
+    // Builds the lazy indexes the other screens read, in parallel, so the next tab or the first search finds them
+    // ready. Run once the visible table has loaded, so the builds do not hold up its first page.
+    private void preload() {
+        Runnable[] tasks = {
+            () -> dbManager.getAppointmentViewsPage(AppointmentFilter.ALL, new PageRequest(PageRequest.Sort.DATE, false, 1)),
+            () -> dbManager.searchPatients("", 1)
+        };
+        AtomicInteger remaining = new AtomicInteger(tasks.length);
+        for (Runnable task : tasks) {
+            BackgroundLoader.EXECUTOR.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        SwingUtilities.invokeLater(() -> startup.mark("data preloaded"));
+                    }
+                }
+            });
+        }
+    }
+    
+    // Replaces a tab's placeholder with its panel, whose table then loads in the background
+    private void buildTab(int tab) {
+        if (dbManager == null || tab < 0 || tabbedPane.getComponentAt(tab) != placeholders[tab]) {
+            return;
+        }
+        JComponent panel;
+        if (tab == PATIENTS_TAB) {
+            panel = patientPanel = new PatientPanel();
+        } else if (tab == DOCTORS_TAB) {
+            panel = doctorPanel = new DoctorPanel();
+        } else {
+            panel = appointmentPanel = new AppointmentPanel();
+        }
+        tabbedPane.setComponentAt(tab, panel);
+        startup.mark(TAB_CONTENTS[tab] + " tab built");
+    }
+    
+    // Today's figures come from totals the store keeps current on every write, so refreshing after each change is cheap
+    private void startDashboard() {
+        dbManager.addChangeListener(new CoalescingListener(changes -> {
+            if (changes.touches(ChangeEvent.Entity.APPOINTMENT) || changes.touches(ChangeEvent.Entity.DOCTOR)) {
+                refreshDashboard();
+            }
+        }));
+        new Timer(DASHBOARD_TICK_MILLIS, e -> refreshDashboard()).start();
+        refreshDashboard();
+    }
+    
+    // The first summary counts the whole history, so it is read off the EDT
+    private void refreshDashboard() {
+        int request = ++dashboardRequests;
+        LocalDate today = LocalDate.now();
+        BackgroundLoader.EXECUTOR.execute(() -> {
+            DailySummary summary = dbManager.getDailySummary(today);
+            SwingUtilities.invokeLater(() -> {
+                if (request == dashboardRequests) {
+                    dashboardLabel.setText(String.format("Today: %d scheduled · %d completed · %d cancelled · %d patients seen · $%,.2f",
+                        summary.getScheduled(), summary.getCompleted(), summary.getCancelled(),
+                        summary.getPatientsSeen(), summary.getRevenue()));
+                }
+            });
+        });
+    }
+    
+    private JMenuBar createMenuBar() {
+        JMenu importMenu = new JMenu("📥 Import");
+        JMenu exportMenu = new JMenu("📤 Export");
+        for (BulkTransfer.Entity entity : BulkTransfer.Entity.values()) {
+            String label = entity.toString().substring(0, 1).toUpperCase() + entity.toString().substring(1) + "...";
+            JMenuItem importItem = new JMenuItem(label);
+            importItem.addActionListener(e -> importRecords(entity));
+            importMenu.add(importItem);
+            JMenuItem exportItem = new JMenuItem(label);
+            exportItem.addActionListener(e -> exportRecords(entity));
+            exportMenu.add(exportItem);
+        }
+        fileMenu = new JMenu("File");
+        fileMenu.setEnabled(false); // until the store is open
+        fileMenu.add(importMenu);
+        fileMenu.add(exportMenu);
+        JMenuBar menuBar = new JMenuBar();
+        menuBar.add(fileMenu);
+        return menuBar;
+    }
+    
+    private JFileChooser createFileChooser(BulkTransfer.Entity entity) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV or JSON Lines (*.csv, *.jsonl)", "csv", "jsonl", "ndjson"));
+        chooser.setSelectedFile(new File(entity + ".csv"));
+        return chooser;
+    }
+    
+    // The store is filled in batches off the EDT; the tables refresh once when the whole file is in
+    private void importRecords(BulkTransfer.Entity entity) {
+        JFileChooser chooser = createFileChooser(entity);
+        chooser.setDialogTitle("Import " + entity);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        AtomicReference<TransferReport> report = new AtomicReference<>();
+        BackgroundLoader.runInBackground(this, () -> {
+            try {
+                report.set(bulkTransfer.importFile(entity, file.toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }, () -> {
+            // The panels pick up the imported rows from the store's change events
+            StringBuilder message = new StringBuilder(report.get().toString());
+            int shown = Math.min(10, report.get().getErrors().size());
+            for (int i = 0; i < shown; i++) {
+                message.append(i == 0 ? "\n\n" : "\n").append(report.get().getErrors().get(i));
+            }
+            if (report.get().getRejected() > shown) {
+                message.append("\n...");
+            }
+            JOptionPane.showMessageDialog(this, message.toString(), "Import " + entity,
+                report.get().getRejected() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+    
+    private void exportRecords(BulkTransfer.Entity entity) {
+        JFileChooser chooser = createFileChooser(entity);
+        chooser.setDialogTitle("Export " + entity);
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+        if (file.exists() && JOptionPane.showConfirmDialog(this, file.getName() + " already exists. Replace it?",
+                "Confirm Export", JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+            return;
+        }
+        AtomicReference<TransferReport> report = new AtomicReference<>();
+        BackgroundLoader.runInBackground(this, () -> {
+            try {
+                report.set(bulkTransfer.exportFile(entity, file.toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write " + file.getName() + ": " + e.getMessage(), e);
+            }
+        }, () -> JOptionPane.showMessageDialog(this, report.get().toString(), "Export " + entity, JOptionPane.INFORMATION_MESSAGE));
+    }
+    
     private JPanel createFooterPanel() {
         JPanel footerPanel = new JPanel(new BorderLayout());
         footerPanel.setBackground(new Color(52, 58, 64));
@@ -127,7 +339,11 @@ public class MainFrame extends JFrame {
         setSize(1200, 800);
         setLocationRelativeTo(null);
         setMinimumSize(new Dimension(1000, 700));
-        
+        getContentPane().setBackground(new Color(248, 249, 250));
+    }
+    
+    // Before any component is made, so they all take its UI delegates
+    private void setupLookAndFeel() {
         // Set modern look and feel
         try {
             // Use system look and feel
@@ -141,16 +357,11 @@ public class MainFrame extends JFrame {
             // Customize UI colors
             UIManager.put("TabbedPane.selected", new Color(52, 152, 219));
             UIManager.put("TabbedPane.contentAreaColor", new Color(248, 249, 250));
-            
+        
         } catch (Exception e) {
             // Fall back to default look and feel
             e.printStackTrace();
         }
-        
-        // Set application icon
-        setIconImage(createAppIcon());
-        
-        getContentPane().setBackground(new Color(248, 249, 250));
     }
     
     private Image createAppIcon() {
@@ -171,9 +382,16 @@ public class MainFrame extends JFrame {
         return icon;
     }
     
+    /** Reloads the tables of the tabs built so far; the others load fresh when first opened. */
     public void refreshAllPanels() {
-        patientPanel.refreshTable();
-        doctorPanel.refreshTable();
-        appointmentPanel.refreshTable();
+        if (patientPanel != null) {
+            patientPanel.refreshTable();
+        }
+        if (doctorPanel != null) {
+            doctorPanel.refreshTable();
+        }
+        if (appointmentPanel != null) {
+            appointmentPanel.refreshTable();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,129 @@
+package gui;
+
+import database.Page;
+import database.PageRequest;
+
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import java.awt.Rectangle;
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Rows of a list too long to load whole, read from the database a page at a time as the table
+ * asks for them. A row that has not arrived yet reads as null while its page is fetched in the
+ * background; once it arrives the table repaints those rows. A page next to one already loaded
+ * is fetched with that page's cursor, any other by offset. Only the pages read most recently are
+ * kept, and pages scrolled past before their turn came are not fetched at all.
+ *
+ * Each page is read at the version current when it is fetched, so panels replace the whole list
+ * when the data changes rather than patching it.
+ */
+public class PagedRows<T> extends AbstractList<T> {
+    /** Lists up to this long are loaded whole, which keeps column sorting and in-place updates. */
+    public static final int THRESHOLD = 20_000;
+    static final int PAGE_SIZE = 200;
+    private static final int CACHED_PAGES = 64;
+    private static final int FETCH_DISTANCE = 8; // pages further than this from the last one asked for are skipped
+    
+    private final Function<PageRequest, Page<T>> source;
+    private final PageRequest request;
+    private final int size;
+    private final Map<Integer, Page<T>> pages = new LinkedHashMap<Integer, Page<T>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+            return size() > CACHED_PAGES;
+        }
+    };
+    private final Set<Integer> fetching = new HashSet<>();
+    private volatile int wanted;
+    private BiConsumer<Integer, Integer> onRowsLoaded;
+    
+    /**
+     * Reads the page holding row {@code around}, which also tells how long the list is.
+     * Runs on a background thread; the rows are then read on the EDT only.
+     */
+    public PagedRows(Function<PageRequest, Page<T>> source, PageRequest.Sort sort, boolean descending, int around) {
+        this.source = source;
+        PageRequest first = new PageRequest(sort, descending, PAGE_SIZE);
+        this.request = first.withoutTotal(); // the length is taken once, from the first page
+        int number = Math.max(around, 0) / PAGE_SIZE;
+        Page<T> page = source.apply(first.atOffset(number * PAGE_SIZE));
+        size = page.getTotal();
+        pages.put(number, page);
+        wanted = number;
+    }
+    
+    /** The row at the given index, or null if its page is still being fetched. */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        int number = index / PAGE_SIZE;
+        Page<T> page = pages.get(number);
+        if (page == null) {
+            fetch(number);
+            return null;
+        }
+        // The list may have shrunk since its length was taken
+        int offset = index % PAGE_SIZE;
+        return offset < page.getItems().size() ? page.getItems().get(offset) : null;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    /** Called with the first and last row of every page that arrives. */
+    void setOnRowsLoaded(BiConsumer<Integer, Integer> onRowsLoaded) {
+        this.onRowsLoaded = onRowsLoaded;
+    }
+    
+    private void fetch(int number) {
+        wanted = number;
+        if (!fetching.add(number)) {
+            return;
+        }
+        Page<T> previous = pages.get(number - 1);
+        PageRequest pageRequest = previous != null && previous.hasMore()
+            ? request.after(previous.getNextCursor()) : request.atOffset(number * PAGE_SIZE);
+        BackgroundLoader.EXECUTOR.execute(() -> {
+            Page<T> page = null;
+            if (Math.abs(number - wanted) <= FETCH_DISTANCE) {
+                try {
+                    page = source.apply(pageRequest);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+            Page<T> fetched = page;
+            SwingUtilities.invokeLater(() -> loaded(number, fetched));
+        });
+    }
+    
+    // On the EDT; a skipped page is fetched again if it comes back into view
+    private void loaded(int number, Page<T> page) {
+        fetching.remove(number);
+        if (page == null) {
+            return;
+        }
+        pages.put(number, page);
+        if (onRowsLoaded != null) {
+            onRowsLoaded.accept(number * PAGE_SIZE, Math.min(size, (number + 1) * PAGE_SIZE) - 1);
+        }
+    }
+    
+    /** The first row in view, so a reloaded list can start with the page already on screen. Must be called on the EDT. */
+    static int firstVisibleRow(JTable table) {
+        Rectangle visible = table.getVisibleRect();
+        int row = table.rowAtPoint(visible.getLocation());
+        return row >= 0 ? table.convertRowIndexToModel(row) : 0;
+    }
+}
\ No newline at end of file
@@ -1,28 +1,49 @@
 package gui;
 
+import database.ChangeEvent;
+import database.ChangeSet;
 import database.DatabaseManager;
+import database.PageRequest;
+import models.Appointment;
 import models.Patient;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.TitledBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class PatientPanel extends JPanel {
+    private static final int SEARCH_LIMIT = 500;
+    private static final int SEARCH_DELAY_MILLIS = 200;
+    
     private JTable patientTable;
-    private DefaultTableModel tableModel;
+    private PatientTableModel tableModel;
     private JTextField nameField, ageField, phoneField, addressField;
     private JComboBox<String> genderCombo;
     private JTextArea medicalHistoryArea;
     private JButton addButton, updateButton, deleteButton, clearButton;
     private DatabaseManager dbManager;
+    private JProgressBar progressBar;
+    private BackgroundLoader<List<Patient>> tableLoader;
+    private JTextField searchField;
+    private JButton searchButton;
+    private Timer searchTimer;
+    private volatile String searchQuery = "";
+    private volatile int firstVisibleRow;
     private int selectedPatientId = -1;
+    private ChangeSet changesDuringLoad = new ChangeSet();
+    private JLabel nextVisitLabel;
+    private JList<String> timelineList;
+    private final TimelineCache timelines = new TimelineCache();
+    private int timelineRequest;
     
     public PatientPanel() {
         dbManager = DatabaseManager.getInstance();
@@ -34,13 +55,10 @@ public class PatientPanel extends JPanel {
     
     private void initializeComponents() {
         // Enhanced table setup
-        String[] columnNames = {"ID", "Name", "Age", "Gender", "Phone", "Address"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new PatientTableModel();
+        progressBar = BackgroundLoader.createProgressBar();
+        tableLoader = new BackgroundLoader<>(this::loadPatients, this::showPatients, progressBar);
+        dbManager.addChangeListener(new CoalescingListener(this::applyChanges));
         
         patientTable = new JTable(tableModel);
         patientTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -171,15 +189,16 @@ public class PatientPanel extends JPanel {
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         searchPanel.setBackground(new Color(248, 249, 250));
         
-        JTextField searchField = createStyledTextField(15);
-        searchField.setToolTipText("Search patients...");
-        JButton searchButton = createStyledButton("🔍 Search", new Color(52, 152, 219));
+        searchField = createStyledTextField(15);
+        searchField.setToolTipText("Search patients by name, phone, address or medical history...");
+        searchButton = createStyledButton("🔍 Search", new Color(52, 152, 219));
         
         searchPanel.add(new JLabel("Search:"));
         searchPanel.add(searchField);
         searchPanel.add(searchButton);
         
         headerPanel.add(titleLabel, BorderLayout.WEST);
+        headerPanel.add(createProgressPanel(), BorderLayout.CENTER);
         headerPanel.add(searchPanel, BorderLayout.EAST);
         
         // Table with enhanced styling
@@ -193,6 +212,13 @@ public class PatientPanel extends JPanel {
         return panel;
     }
     
+    private JPanel createProgressPanel() {
+        JPanel progressPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 15, 5));
+        progressPanel.setBackground(new Color(248, 249, 250));
+        progressPanel.add(progressBar);
+        return progressPanel;
+    }
+    
     private JPanel createFormPanel() {
         JPanel mainPanel = new JPanel(new BorderLayout());
         mainPanel.setBackground(new Color(248, 249, 250));
@@ -266,9 +292,38 @@ public class PatientPanel extends JPanel {
         formPanel.add(buttonPanel, gbc);
         
         mainPanel.add(formPanel, BorderLayout.CENTER);
+        mainPanel.add(createTimelinePanel(), BorderLayout.EAST);
         return mainPanel;
     }
     
+    private JPanel createTimelinePanel() {
+        JPanel panel = new JPanel(new BorderLayout(5, 5));
+        panel.setBackground(Color.WHITE);
+        panel.setPreferredSize(new Dimension(380, 0));
+        TitledBorder titledBorder = BorderFactory.createTitledBorder(
+            BorderFactory.createEmptyBorder(),
+            "🗓 Visit Timeline",
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Segoe UI", Font.BOLD, 16),
+            new Color(52, 58, 64)
+        );
+        panel.setBorder(BorderFactory.createCompoundBorder(titledBorder, new EmptyBorder(10, 10, 10, 10)));
+        
+        nextVisitLabel = new JLabel(" ");
+        nextVisitLabel.setFont(new Font("Segoe UI", Font.BOLD, 13));
+        nextVisitLabel.setForeground(new Color(0, 123, 255));
+        
+        timelineList = new JList<>();
+        timelineList.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        // A fixed cell size spares the list from measuring every line of a long history
+        timelineList.setPrototypeCellValue("2025-01-01 09:00   SCHEDULED   Dr. Prototype Name");
+        
+        panel.add(nextVisitLabel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(timelineList), BorderLayout.CENTER);
+        return panel;
+    }
+    
     private JLabel createLabel(String text) {
         JLabel label = new JLabel(text);
         label.setFont(new Font("Segoe UI", Font.BOLD, 13));
@@ -281,13 +336,15 @@ public class PatientPanel extends JPanel {
         patientTable.getSelectionModel().addListSelectionListener(e -> {
             if (!e.getValueIsAdjusting()) {
                 int selectedRow = patientTable.getSelectedRow();
-                if (selectedRow >= 0) {
+                if (selectedRow >= 0 && tableModel.getRow(selectedRow) != null) {
                     selectedPatientId = (Integer) tableModel.getValueAt(selectedRow, 0);
                     loadPatientData(selectedPatientId);
+                    showTimeline(selectedPatientId);
                     updateButton.setEnabled(true);
                     deleteButton.setEnabled(true);
                 } else {
                     selectedPatientId = -1;
+                    showTimeline(-1);
                     updateButton.setEnabled(false);
                     deleteButton.setEnabled(false);
                 }
@@ -299,15 +356,128 @@ public class PatientPanel extends JPanel {
         updateButton.addActionListener(e -> updatePatient());
         deleteButton.addActionListener(e -> deletePatient());
         clearButton.addActionListener(e -> clearForm());
+        
+        // Search as you type: wait for a pause in typing, then query off the EDT
+        searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> runSearch());
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+        });
+        searchField.addActionListener(e -> runSearch());
+        searchButton.addActionListener(e -> runSearch());
+    }
+    
+    private void runSearch() {
+        searchTimer.stop();
+        searchQuery = searchField.getText().trim();
+        refreshTable();
+    }
+    
+    // Runs off the EDT, so it reads the query captured by runSearch rather than the text field
+    private List<Patient> loadPatients() {
+        String query = searchQuery;
+        if (!query.isEmpty()) {
+            return dbManager.searchPatients(query, SEARCH_LIMIT);
+        }
+        // A long list is read a page at a time as it scrolls into view
+        List<Patient> all = dbManager.getAllPatients();
+        return all.size() <= PagedRows.THRESHOLD ? all
+            : new PagedRows<>(dbManager::getPatientsPage, PageRequest.Sort.ID, false, firstVisibleRow);
+    }
+    
+    private void showPatients(List<Patient> patients) {
+        tableModel.setRows(patients);
+        if (!changesDuringLoad.isEmpty()) {
+            // They may be newer than the rows just loaded
+            ChangeSet changes = changesDuringLoad;
+            changesDuringLoad = new ChangeSet();
+            applyChanges(changes);
+        }
+    }
+    
+    // Runs on the EDT with the changes made since the last call, whichever panel or import made them
+    private void applyChanges(ChangeSet changes) {
+        refreshTimeline(changes);
+        if (!changes.touches(ChangeEvent.Entity.PATIENT)) {
+            return;
+        }
+        if (tableLoader.isLoading()) {
+            changesDuringLoad.addAll(changes);
+        } else if (!searchQuery.isEmpty() || tableModel.isPaged()) {
+            refreshTable(); // which patients match depends on the search ranking, and pages are simply read again
+        } else {
+            tableModel.applyChanges(changes.getChanged(ChangeEvent.Entity.PATIENT),
+                dbManager.getPatientsByIds(changes.getChanged(ChangeEvent.Entity.PATIENT)),
+                changes.getDeleted(ChangeEvent.Entity.PATIENT));
+        }
+    }
+    
+    // Drops the cached timelines the changes touch, and reads the one on screen again if it was one of them
+    private void refreshTimeline(ChangeSet changes) {
+        int generation = timelines.generation();
+        timelines.invalidate(changes, appointmentId -> {
+            Appointment appointment = dbManager.getAppointmentById(appointmentId);
+            return appointment != null ? appointment.getPatientId() : 0;
+        });
+        if (selectedPatientId != -1 && timelines.generation() != generation
+                && timelines.get(selectedPatientId, LocalDateTime.now()) == null) {
+            showTimeline(selectedPatientId);
+        }
+    }
+    
+    // From the cache when the patient was shown recently, otherwise read and rendered off the EDT
+    private void showTimeline(int patientId) {
+        int request = ++timelineRequest;
+        if (patientId == -1) {
+            nextVisitLabel.setText(" ");
+            timelineList.setListData(new String[0]);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        TimelineCache.Rendered cached = timelines.get(patientId, now);
+        if (cached != null) {
+            displayTimeline(cached);
+            return;
+        }
+        nextVisitLabel.setText("Loading visits...");
+        timelineList.setListData(new String[0]);
+        int readAt = timelines.generation();
+        BackgroundLoader.EXECUTOR.execute(() -> {
+            TimelineCache.Rendered rendered = new TimelineCache.Rendered(dbManager.getPatientTimeline(patientId, now));
+            SwingUtilities.invokeLater(() -> {
+                timelines.put(rendered, readAt);
+                if (request == timelineRequest) {
+                    displayTimeline(rendered);
+                }
+            });
+        });
+    }
+    
+    private void displayTimeline(TimelineCache.Rendered rendered) {
+        nextVisitLabel.setText(rendered.nextVisit);
+        timelineList.setListData(rendered.lines.toArray(new String[0]));
     }
     
     private void addPatient() {
         if (validateForm()) {
             Patient patient = createPatientFromForm();
-            dbManager.addPatient(patient);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Patient added successfully!");
+            BackgroundLoader.runInBackground(this, () -> dbManager.addPatient(patient), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Patient added successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -315,10 +485,11 @@ public class PatientPanel extends JPanel {
         if (selectedPatientId != -1 && validateForm()) {
             Patient patient = createPatientFromForm();
             patient.setPatientId(selectedPatientId);
-            dbManager.updatePatient(patient);
-            refreshTable();
-            clearForm();
-            JOptionPane.showMessageDialog(this, "Patient updated successfully!");
+            BackgroundLoader.runInBackground(this, BackgroundLoader.updating(() -> dbManager.updatePatient(patient),
+                    "This patient no longer exists."), () -> {
+                clearForm();
+                JOptionPane.showMessageDialog(this, "Patient updated successfully!");
+            }, addButton, updateButton, deleteButton, clearButton);
         }
     }
     
@@ -329,10 +500,11 @@ public class PatientPanel extends JPanel {
                 "Confirm Delete", 
                 JOptionPane.YES_NO_OPTION);
             if (result == JOptionPane.YES_OPTION) {
-                dbManager.deletePatient(selectedPatientId);
-                refreshTable();
-                clearForm();
-                JOptionPane.showMessageDialog(this, "Patient deleted successfully!");
+                int patientId = selectedPatientId;
+                BackgroundLoader.runInBackground(this, () -> dbManager.deletePatient(patientId), () -> {
+                    clearForm();
+                    JOptionPane.showMessageDialog(this, "Patient deleted successfully!");
+                }, addButton, updateButton, deleteButton, clearButton);
             }
         }
     }
@@ -356,6 +528,7 @@ public class PatientPanel extends JPanel {
             genderCombo.setSelectedItem(patient.getGender());
             phoneField.setText(patient.getPhone());
             addressField.setText(patient.getAddress());
+            // With off-heap text this is where the history is decoded, for the one record shown
             medicalHistoryArea.setText(patient.getMedicalHistory());
         }
     }
@@ -390,24 +563,14 @@ public class PatientPanel extends JPanel {
         addressField.setText("");
         medicalHistoryArea.setText("");
         selectedPatientId = -1;
+        showTimeline(-1);
         patientTable.clearSelection();
         updateButton.setEnabled(false);
         deleteButton.setEnabled(false);
     }
     
     public void refreshTable() {
-        tableModel.setRowCount(0);
-        List<Patient> patients = dbManager.getAllPatients();
-        for (Patient patient : patients) {
-            Object[] row = {
-                patient.getPatientId(),
-                patient.getName(),
-                patient.getAge(),
-                patient.getGender(),
-                patient.getPhone(),
-                patient.getAddress()
-            };
-            tableModel.addRow(row);
-        }
+        firstVisibleRow = PagedRows.firstVisibleRow(patientTable);
+        tableLoader.refresh();
     }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package gui;
+
+import models.Patient;
+
+public class PatientTableModel extends SnapshotTableModel<Patient> {
+    
+    public PatientTableModel() {
+        super("ID", "Name", "Age", "Gender", "Phone", "Address");
+    }
+    
+    @Override
+    protected Object getColumnValue(Patient patient, int column) {
+        switch (column) {
+            case 0: return patient.getPatientId();
+            case 1: return patient.getName();
+            case 2: return patient.getAge();
+            case 3: return patient.getGender();
+            case 4: return patient.getPhone();
+            case 5: return patient.getAddress();
+            default: return null;
+        }
+    }
+    
+    @Override
+    protected int getRecordId(Patient patient) {
+        return patient.getPatientId();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package gui;
+
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/**
+ * Combo box model over records with ids, updated in place from change sets so an edit does not
+ * rebuild the whole list. The selection follows its record by id. A model with an "any" entry
+ * starts with null, which the renderer shows as e.g. "All patients".
+ */
+public class RecordComboModel<T> extends AbstractListModel<T> implements ComboBoxModel<T> {
+    private final ToIntFunction<T> idOf;
+    private final boolean anyEntry;
+    private final List<T> items = new ArrayList<>();
+    private final Map<Integer, Integer> indexById = new HashMap<>();
+    private Object selected;
+    
+    public RecordComboModel(ToIntFunction<T> idOf, boolean anyEntry) {
+        this.idOf = idOf;
+        this.anyEntry = anyEntry;
+        if (anyEntry) {
+            items.add(null);
+        }
+    }
+    
+    /** Replaces every entry; the selected record stays selected if it is still present. */
+    public void setAll(List<T> records) {
+        int oldSize = items.size();
+        items.clear();
+        indexById.clear();
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (anyEntry) {
+            items.add(null);
+        }
+        for (T record : records) {
+            indexById.put(idOf.applyAsInt(record), items.size());
+            items.add(record);
+        }
+        if (!items.isEmpty()) {
+            fireIntervalAdded(this, 0, items.size() - 1);
+        }
+        reselect();
+    }
+    
+    /**
+     * Applies a delta: {@code current} holds the present state of the records whose ids are in
+     * {@code changedIds}, each replacing the entry with its id or appended; entries for ids that
+     * were deleted or no longer resolve are removed.
+     */
+    public void applyChanges(Collection<Integer> changedIds, List<T> current, Collection<Integer> deletedIds) {
+        Set<Integer> removed = new HashSet<>(deletedIds);
+        removed.addAll(changedIds);
+        int firstAppended = items.size();
+        for (T record : current) {
+            int id = idOf.applyAsInt(record);
+            removed.remove(id);
+            Integer index = indexById.get(id);
+            if (index != null) {
+                items.set(index, record);
+                fireContentsChanged(this, index, index);
+            } else {
+                indexById.put(id, items.size());
+                items.add(record);
+            }
+        }
+        if (items.size() > firstAppended) {
+            fireIntervalAdded(this, firstAppended, items.size() - 1);
+        }
+        removed.retainAll(indexById.keySet());
+        if (!removed.isEmpty()) {
+            int oldSize = items.size();
+            items.removeIf(item -> item != null && removed.contains(idOf.applyAsInt(item)));
+            indexById.clear();
+            for (int i = 0; i < items.size(); i++) {
+                if (items.get(i) != null) {
+                    indexById.put(idOf.applyAsInt(items.get(i)), i);
+                }
+            }
+            fireIntervalRemoved(this, items.size(), oldSize - 1);
+            if (!items.isEmpty()) {
+                fireContentsChanged(this, 0, items.size() - 1);
+            }
+        }
+        reselect();
+    }
+    
+    // Points the selection at the current object for its id, or clears it if the record is gone
+    @SuppressWarnings("unchecked")
+    private void reselect() {
+        if (selected == null) {
+            return;
+        }
+        Integer index = indexById.get(idOf.applyAsInt((T) selected));
+        Object current = index != null ? items.get(index) : null;
+        if (current != selected) {
+            selected = current;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+    
+    @Override
+    public int getSize() {
+        return items.size();
+    }
+    
+    @Override
+    public T getElementAt(int index) {
+        return items.get(index);
+    }
+    
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+    
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item != selected) {
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+}
\ No newline at end of file
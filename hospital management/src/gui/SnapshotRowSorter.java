@@ -0,0 +1,230 @@
+package gui;
+
+import javax.swing.table.TableRowSorter;
+import java.text.Collator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Row sorter for snapshot tables that compares precomputed keys instead of cell values.
+ * TableRowSorter reads both cells again on every comparison, which for 500k rows means
+ * millions of formatted dates and collator calls per click. Here a column's keys are built
+ * once, the first time it is sorted after the rows change: raw values from the model's
+ * getSortKey, with text compared case-insensitively. Building a collation key costs a few
+ * microseconds per string, so collation keys are only used for columns holding non-ASCII
+ * text, where plain character order would misplace accented letters. Rows updated or appended
+ * in place get their keys patched, so applying a small delta does not rebuild whole columns.
+ */
+public class SnapshotRowSorter<M extends SnapshotTableModel<?>> extends TableRowSorter<M> {
+    private static final Comparator<Object> KEY_ORDER = new Comparator<Object>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        public int compare(Object a, Object b) {
+            return ((Comparable) a).compareTo(b);
+        }
+    };
+    
+    private final Collator collator = Collator.getInstance();
+    private Object[][] keys;
+    private boolean[] collated; // columns whose text keys are collation keys
+    
+    public SnapshotRowSorter(M model) {
+        super(model);
+        setModelWrapper(new KeyWrapper(model));
+        for (int column = 0; column < model.getColumnCount(); column++) {
+            // An explicit comparator also stops TableRowSorter from comparing toString() values
+            setComparator(column, Comparator.nullsFirst(KEY_ORDER));
+        }
+    }
+    
+    @Override
+    public void modelStructureChanged() {
+        keys = null;
+        super.modelStructureChanged();
+    }
+    
+    @Override
+    public void allRowsChanged() {
+        keys = null;
+        super.allRowsChanged();
+    }
+    
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        if (!appended(firstRow)) {
+            keys = null;
+        }
+        patchKeys(firstRow, endRow);
+        super.rowsInserted(firstRow, endRow);
+    }
+    
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        keys = null;
+        super.rowsDeleted(firstRow, endRow);
+    }
+    
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        patchKeys(firstRow, endRow);
+        super.rowsUpdated(firstRow, endRow);
+    }
+    
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        patchKeys(firstRow, endRow);
+        super.rowsUpdated(firstRow, endRow, column);
+    }
+    
+    // Whether rows inserted at firstRow went after every row the cached keys cover
+    private boolean appended(int firstRow) {
+        if (keys != null) {
+            for (Object[] columnKeys : keys) {
+                if (columnKeys != null && columnKeys.length != firstRow) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    // Recomputes the cached keys of the given rows, growing the columns for appended rows
+    private void patchKeys(int firstRow, int endRow) {
+        if (keys == null) {
+            return;
+        }
+        M model = getModel();
+        for (int column = 0; column < keys.length; column++) {
+            Object[] columnKeys = keys[column];
+            if (columnKeys == null) {
+                continue;
+            }
+            if (columnKeys.length < model.getRowCount()) {
+                columnKeys = Arrays.copyOf(columnKeys, model.getRowCount());
+                keys[column] = columnKeys;
+            }
+            for (int row = firstRow; row <= endRow; row++) {
+                Object key = model.getSortKey(row, column);
+                if (key instanceof String) {
+                    String text = (String) key;
+                    if (collated[column]) {
+                        key = collator.getCollationKey(text);
+                    } else if (isAscii(text)) {
+                        key = new TextKey(text);
+                    } else {
+                        keys[column] = null; // the column now needs collation keys throughout
+                        break;
+                    }
+                }
+                columnKeys[row] = key;
+            }
+        }
+    }
+    
+    private Object key(int row, int column) {
+        if (keys == null) {
+            keys = new Object[getModel().getColumnCount()][];
+            collated = new boolean[keys.length];
+        }
+        Object[] columnKeys = keys[column];
+        if (columnKeys == null) {
+            columnKeys = buildKeys(column);
+            keys[column] = columnKeys;
+        }
+        return columnKeys[row];
+    }
+    
+    private Object[] buildKeys(int column) {
+        M model = getModel();
+        Object[] columnKeys = new Object[model.getRowCount()];
+        boolean ascii = true;
+        for (int row = 0; row < columnKeys.length; row++) {
+            Object key = model.getSortKey(row, column);
+            if (key instanceof String) {
+                ascii &= isAscii((String) key);
+            }
+            columnKeys[row] = key;
+        }
+        collated[column] = !ascii;
+        // Repeated text (names, statuses) shares one key
+        Map<String, Object> textKeys = new HashMap<>();
+        for (int row = 0; row < columnKeys.length; row++) {
+            if (columnKeys[row] instanceof String) {
+                String text = (String) columnKeys[row];
+                Object key = textKeys.get(text);
+                if (key == null) {
+                    key = ascii ? new TextKey(text) : collator.getCollationKey(text);
+                    textKeys.put(text, key);
+                }
+                columnKeys[row] = key;
+            }
+        }
+        return columnKeys;
+    }
+    
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Case-insensitive order, with case deciding only between otherwise equal strings
+    private static final class TextKey implements Comparable<TextKey> {
+        final String text;
+        
+        TextKey(String text) {
+            this.text = text;
+        }
+        
+        @Override
+        public int compareTo(TextKey other) {
+            int c = String.CASE_INSENSITIVE_ORDER.compare(text, other.text);
+            return c != 0 ? c : text.compareTo(other.text);
+        }
+    }
+    
+    private final class KeyWrapper extends ModelWrapper<M, Integer> {
+        private final M model;
+        
+        KeyWrapper(M model) {
+            this.model = model;
+        }
+        
+        @Override
+        public M getModel() {
+            return model;
+        }
+        
+        @Override
+        public int getColumnCount() {
+            return model.getColumnCount();
+        }
+        
+        @Override
+        public int getRowCount() {
+            return model.getRowCount();
+        }
+        
+        @Override
+        public Object getValueAt(int row, int column) {
+            return key(row, column);
+        }
+        
+        // Row filters match on what the user sees, not on the sort key
+        @Override
+        public String getStringValueAt(int row, int column) {
+            Object value = model.getValueAt(row, column);
+            return value != null ? value.toString() : "";
+        }
+        
+        @Override
+        public Integer getIdentifier(int row) {
+            return row;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package gui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only table model that renders straight from a list of records.
+ * Cells are computed on demand in getValueAt, so only the visible rows are ever
+ * formatted, and replacing the list fires a single table-changed event. Changes to a few
+ * records can instead be applied in place with {@link #applyChanges}. The list may also be
+ * {@link PagedRows}, which reads only the rows shown; their cells are empty until they arrive.
+ */
+public abstract class SnapshotTableModel<T> extends AbstractTableModel {
+    // Deltas up to this size fire one event per row; larger ones a single table change
+    private static final int ROW_EVENT_LIMIT = 100;
+    
+    private final String[] columnNames;
+    private List<T> rows = Collections.emptyList();
+    private boolean ownsRows; // rows is a private copy that applyChanges may modify
+    
+    protected SnapshotTableModel(String... columnNames) {
+        this.columnNames = columnNames;
+    }
+    
+    /** Swaps in a new snapshot; the list must not be modified afterwards. */
+    public void setRows(List<T> rows) {
+        this.rows = rows;
+        ownsRows = false;
+        if (rows instanceof PagedRows) {
+            PagedRows<T> paged = (PagedRows<T>) rows;
+            paged.setOnRowsLoaded((first, last) -> {
+                if (this.rows == paged) {
+                    fireTableRowsUpdated(first, last);
+                }
+            });
+        }
+        fireTableDataChanged();
+    }
+    
+    /** Whether the rows are read a page at a time; such rows are reloaded on change, not patched with {@link #applyChanges}. */
+    public boolean isPaged() {
+        return rows instanceof PagedRows;
+    }
+    
+    /**
+     * Brings the rows up to date without reloading them. {@code current} holds the present state of
+     * the records whose ids are in {@code changedIds}: each replaces the row with its id, or is
+     * appended. Rows whose ids were deleted, or are in {@code changedIds} but missing from
+     * {@code current} (deleted since, or no longer shown), are dropped. Small deltas fire row
+     * events, which keep the selection and let the sorter place just those rows.
+     */
+    public void applyChanges(Collection<Integer> changedIds, List<T> current, Collection<Integer> deletedIds) {
+        Set<Integer> removed = new HashSet<>(deletedIds);
+        removed.addAll(changedIds);
+        for (T record : current) {
+            removed.remove(getRecordId(record));
+        }
+        if (current.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        if (!ownsRows) {
+            rows = new ArrayList<>(rows);
+            ownsRows = true;
+        }
+        // One pass finds the rows involved, so no id index has to be kept for every row
+        Set<Integer> involved = new HashSet<>(changedIds);
+        involved.addAll(removed);
+        Map<Integer, Integer> rowById = new HashMap<>();
+        for (int row = 0; row < rows.size(); row++) {
+            int id = getRecordId(rows.get(row));
+            if (involved.contains(id)) {
+                rowById.put(id, row);
+            }
+        }
+        boolean rowEvents = current.size() + removed.size() <= ROW_EVENT_LIMIT;
+        List<T> appended = new ArrayList<>();
+        for (T record : current) {
+            Integer row = rowById.get(getRecordId(record));
+            if (row == null) {
+                appended.add(record);
+            } else {
+                rows.set(row, record);
+                if (rowEvents) {
+                    fireTableRowsUpdated(row, row);
+                }
+            }
+        }
+        List<Integer> removedRows = new ArrayList<>();
+        for (int id : removed) {
+            Integer row = rowById.get(id);
+            if (row != null) {
+                removedRows.add(row);
+            }
+        }
+        if (rowEvents) {
+            removedRows.sort(Collections.reverseOrder()); // last first, so earlier positions stay valid
+            for (int row : removedRows) {
+                rows.remove(row);
+                fireTableRowsDeleted(row, row);
+            }
+        } else if (!removedRows.isEmpty()) {
+            rows.removeIf(record -> removed.contains(getRecordId(record)));
+        }
+        int firstAppended = rows.size();
+        rows.addAll(appended);
+        if (!rowEvents) {
+            fireTableDataChanged();
+        } else if (!appended.isEmpty()) {
+            fireTableRowsInserted(firstAppended, rows.size() - 1);
+        }
+    }
+    
+    /** The record shown in the row, or null for a paged row still loading. */
+    public T getRow(int row) {
+        return rows.get(row);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        T record = rows.get(row);
+        return record != null ? getColumnValue(record, column) : null;
+    }
+    
+    /** The value rows are ordered by in the given column; see {@link SnapshotRowSorter}. */
+    public Object getSortKey(int row, int column) {
+        T record = rows.get(row);
+        return record != null ? getSortKey(record, column) : null;
+    }
+    
+    protected abstract Object getColumnValue(T record, int column);
+    
+    protected abstract int getRecordId(T record);
+    
+    // Columns whose display value is costly to build or compares badly (formatted dates) return the raw value here
+    protected Object getSortKey(T record, int column) {
+        return getColumnValue(record, column);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package gui;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Times the milestones of opening the main window from the moment the JVM started, so class
+ * loading and toolkit setup count too. With {@code -Dhms.startup.log=true} it prints each one as
+ * it is reached: {@code Startup: first paint at 412 ms}.
+ */
+final class StartupTimer {
+    private static final boolean LOG = Boolean.parseBoolean(System.getProperty("hms.startup.log", "false"));
+    
+    private final long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private boolean painted;
+    
+    /** Milliseconds since the JVM started. */
+    long elapsed() {
+        return System.currentTimeMillis() - jvmStart;
+    }
+    
+    void mark(String milestone) {
+        if (LOG) {
+            System.out.println("Startup: " + milestone + " at " + elapsed() + " ms");
+        }
+    }
+    
+    /** Marks the first paint, and returns whether this call was it. EDT only. */
+    boolean firstPaint() {
+        if (painted) {
+            return false;
+        }
+        painted = true;
+        mark("first paint");
+        return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,124 @@
+package gui;
+
+import database.ChangeEvent;
+import database.ChangeSet;
+import models.AppointmentView;
+import models.PatientTimeline;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Patient timelines already turned into display lines, so going back to a patient at the front
+ * desk shows their history at once. Keeps the timelines shown most recently, and drops one when an
+ * appointment on it changes, when a new or moved appointment names its patient, or once its next
+ * visit has started. Used on the EDT only.
+ */
+class TimelineCache {
+    static final int CAPACITY = 128;
+    private static final int CLEAR_ABOVE = 1_000; // a batch this large is cheaper to drop everything for than to look up
+    private static final DateTimeFormatter LINE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter NEXT_TIME = DateTimeFormatter.ofPattern("EEE yyyy-MM-dd HH:mm");
+    
+    /** A timeline as the panel shows it. */
+    static final class Rendered {
+        final int patientId;
+        final String nextVisit;
+        final List<String> lines;
+        private final Set<Integer> appointmentIds;
+        private final LocalDateTime validUntil; // null while nothing is booked ahead
+        
+        // Built off the EDT, where the timeline was read
+        Rendered(PatientTimeline timeline) {
+            patientId = timeline.getPatientId();
+            AppointmentView next = timeline.getNextVisit();
+            nextVisit = next != null
+                ? "Next visit: " + next.getAppointmentDateTime().format(NEXT_TIME) + " with " + next.getDoctorName()
+                : "No upcoming visit";
+            validUntil = next != null ? next.getAppointmentDateTime() : null;
+            List<String> rendered = new ArrayList<>(timeline.getVisits().size());
+            appointmentIds = new HashSet<>(timeline.getVisits().size() * 2);
+            for (AppointmentView visit : timeline.getVisits()) {
+                rendered.add((visit.getAppointmentDateTime() != null ? visit.getAppointmentDateTime().format(LINE_TIME) : "(no date)       ")
+                    + "   " + visit.getStatus() + "   " + visit.getDoctorName());
+                appointmentIds.add(visit.getAppointmentId());
+            }
+            lines = Collections.unmodifiableList(rendered);
+        }
+    }
+    
+    private final Map<Integer, Rendered> entries = new LinkedHashMap<Integer, Rendered>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Rendered> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private int generation; // counts invalidations, so a timeline read before one is not cached after it
+    
+    /** The patient's timeline, or null if it is not cached or its next visit has started. */
+    Rendered get(int patientId, LocalDateTime now) {
+        Rendered rendered = entries.get(patientId);
+        if (rendered != null && rendered.validUntil != null && !now.isBefore(rendered.validUntil)) {
+            entries.remove(patientId);
+            return null;
+        }
+        return rendered;
+    }
+    
+    /** Taken before reading a timeline and handed back to {@link #put}. */
+    int generation() {
+        return generation;
+    }
+    
+    /** Caches the timeline unless something was invalidated since it was read. */
+    void put(Rendered rendered, int readAt) {
+        if (readAt == generation) {
+            entries.put(rendered.patientId, rendered);
+        }
+    }
+    
+    /**
+     * Drops the timelines the changes may have altered. {@code patientOf} gives the patient an
+     * appointment belongs to now, or 0 if it is gone.
+     */
+    void invalidate(ChangeSet changes, IntUnaryOperator patientOf) {
+        if (!changes.touches(ChangeEvent.Entity.APPOINTMENT) && !changes.touches(ChangeEvent.Entity.DOCTOR)
+                && changes.getDeleted(ChangeEvent.Entity.PATIENT).isEmpty()) {
+            return;
+        }
+        generation++;
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (changes.touches(ChangeEvent.Entity.DOCTOR)) {
+            entries.clear(); // doctor names are on every line
+            return;
+        }
+        for (int patientId : changes.getDeleted(ChangeEvent.Entity.PATIENT)) {
+            entries.remove(patientId);
+        }
+        Set<Integer> touched = changes.getAll(ChangeEvent.Entity.APPOINTMENT);
+        if (touched.size() > CLEAR_ABOVE) {
+            entries.clear();
+            return;
+        }
+        if (!touched.isEmpty()) {
+            entries.values().removeIf(rendered -> !Collections.disjoint(rendered.appointmentIds, touched));
+            for (int appointmentId : changes.getChanged(ChangeEvent.Entity.APPOINTMENT)) {
+                entries.remove(patientOf.applyAsInt(appointmentId));
+            }
+        }
+    }
+    
+    void clear() {
+        entries.clear();
+    }
+}
\ No newline at end of file
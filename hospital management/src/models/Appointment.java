@@ -7,7 +7,7 @@ public class Appointment {
     private int patientId;
     private int doctorId;
     private LocalDateTime appointmentDateTime;
-    private String status; // SCHEDULED, COMPLETED, CANCELLED
+    private String status; // SCHEDULED, COMPLETED, CANCELLED, NO_SHOW
     private String notes;
     
     public Appointment() {}
@@ -43,11 +43,11 @@ public class Appointment {
     @Override
     public String toString() {
         return "Appointment{" +
-                "appointmentId=" + appointmentId +
-                ", patientId=" + patientId +
-                ", doctorId=" + doctorId +
-                ", appointmentDateTime=" + appointmentDateTime +
-                ", status='" + status + '\'' +
+                "appointmentId=" + getAppointmentId() +
+                ", patientId=" + getPatientId() +
+                ", doctorId=" + getDoctorId() +
+                ", appointmentDateTime=" + getAppointmentDateTime() +
+                ", status='" + getStatus() + '\'' +
                 '}';
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only appointment row with the patient and doctor names already resolved.
+ */
+public class AppointmentView {
+    private final Appointment appointment;
+    private final String patientName;
+    private final String doctorName;
+    
+    public AppointmentView(Appointment appointment, String patientName, String doctorName) {
+        this.appointment = appointment;
+        this.patientName = patientName;
+        this.doctorName = doctorName;
+    }
+    
+    public Appointment getAppointment() { return appointment; }
+    
+    public int getAppointmentId() { return appointment.getAppointmentId(); }
+    
+    public String getPatientName() { return patientName; }
+    
+    public String getDoctorName() { return doctorName; }
+    
+    public LocalDateTime getAppointmentDateTime() { return appointment.getAppointmentDateTime(); }
+    
+    public String getStatus() { return appointment.getStatus(); }
+    
+    @Override
+    public String toString() {
+        return "AppointmentView{" +
+                "appointmentId=" + appointment.getAppointmentId() +
+                ", patientName='" + patientName + '\'' +
+                ", doctorName='" + doctorName + '\'' +
+                ", appointmentDateTime=" + appointment.getAppointmentDateTime() +
+                ", status='" + appointment.getStatus() + '\'' +
+                '}';
+    }
+}
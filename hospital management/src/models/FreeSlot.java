@@ -0,0 +1,33 @@
+package models;
+
+import java.time.LocalDateTime;
+
+/**
+ * An open appointment slot in a doctor's working hours.
+ */
+public class FreeSlot {
+    private final Doctor doctor;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    
+    public FreeSlot(Doctor doctor, LocalDateTime start, LocalDateTime end) {
+        this.doctor = doctor;
+        this.start = start;
+        this.end = end;
+    }
+    
+    public Doctor getDoctor() { return doctor; }
+    
+    public LocalDateTime getStart() { return start; }
+    
+    public LocalDateTime getEnd() { return end; }
+    
+    @Override
+    public String toString() {
+        return "FreeSlot{" +
+                "doctor='" + doctor.getName() + '\'' +
+                ", start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
\ No newline at end of file
@@ -99,6 +99,6 @@ public class Patient {
                ", gender=" + gender +
                ", phone=" + phone +
                ", address=" + address +
-               ", medicalHistory=" + medicalHistory + "]";
+               ", medicalHistory=" + getMedicalHistory() + "]";
     }
 }
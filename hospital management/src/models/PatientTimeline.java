@@ -0,0 +1,41 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A patient's appointments as of a moment: every visit, newest first and undated ones last, and
+ * the next visit from that moment on that has not been cancelled.
+ */
+public class PatientTimeline {
+    private final int patientId;
+    private final LocalDateTime asOf;
+    private final List<AppointmentView> visits;
+    private final AppointmentView nextVisit;
+    
+    public PatientTimeline(int patientId, LocalDateTime asOf, List<AppointmentView> visits, AppointmentView nextVisit) {
+        this.patientId = patientId;
+        this.asOf = asOf;
+        this.visits = Collections.unmodifiableList(visits);
+        this.nextVisit = nextVisit;
+    }
+    
+    public int getPatientId() { return patientId; }
+    
+    public LocalDateTime getAsOf() { return asOf; }
+    
+    public List<AppointmentView> getVisits() { return visits; }
+    
+    /** The next visit at or after {@link #getAsOf}, or null if none is booked. */
+    public AppointmentView getNextVisit() { return nextVisit; }
+    
+    @Override
+    public String toString() {
+        return "PatientTimeline{" +
+                "patientId=" + patientId +
+                ", visits=" + visits.size() +
+                ", nextVisit=" + (nextVisit != null ? nextVisit.getAppointmentDateTime() : null) +
+                '}';
+    }
+}
\ No newline at end of file
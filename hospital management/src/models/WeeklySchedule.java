@@ -0,0 +1,258 @@
+package models;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A doctor's working hours, parsed from the free-text schedule field.
+ *
+ * Understands day ranges and lists followed by a time range, with several parts separated
+ * by ';' or ',': "Mon-Fri 9AM-5PM", "Mon, Wed, Fri 8:30AM-12:30PM; Sat 10AM-2PM",
+ * "Weekdays 09:00-17:00", "Sun 10PM-6AM" (past midnight). Hours are kept as sorted,
+ * non-overlapping intervals of minutes since Monday 00:00; a Sunday night shift runs past
+ * the end of the week and is matched against the following Monday morning.
+ */
+public final class WeeklySchedule {
+    public static final WeeklySchedule NONE = new WeeklySchedule(new int[0], new int[0]);
+    
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final String DAY = "(?:mon(?:day)?|tue(?:sday|s)?|wed(?:nesday)?|thu(?:rsday|rs|r)?|fri(?:day)?|sat(?:urday)?|sun(?:day)?)";
+    private static final String DAY_RANGE = DAY + "(?:\\s*(?:-|–|to)\\s*" + DAY + ")?";
+    private static final String DAYS = "(?:daily|everyday|weekdays|weekends|" + DAY_RANGE + "(?:\\s*(?:,|/|&|and)\\s*" + DAY_RANGE + ")*)";
+    private static final String TIME = "(?:noon|midnight|\\d{1,2}(?::\\d{2})?\\s*(?:am|pm)?)";
+    private static final Pattern PART = Pattern.compile("(" + DAYS + ")\\s*:?\\s+(" + TIME + ")\\s*(?:-|–|to)\\s*(" + TIME + ")");
+    private static final Pattern SEPARATOR = Pattern.compile("[\\s;,]*");
+    private static final Pattern DAY_TOKEN = Pattern.compile(DAY);
+    private static final Pattern CLOCK = Pattern.compile("(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)?");
+    
+    private final int[] starts;
+    private final int[] ends;
+    
+    private WeeklySchedule(int[] starts, int[] ends) {
+        this.starts = starts;
+        this.ends = ends;
+    }
+    
+    /** Parses a schedule such as "Mon-Fri 9AM-5PM"; a blank schedule has no working hours. */
+    public static WeeklySchedule parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return NONE;
+        }
+        String lower = text.toLowerCase(Locale.ROOT).trim();
+        List<int[]> intervals = new ArrayList<>();
+        Matcher separator = SEPARATOR.matcher(lower);
+        Matcher part = PART.matcher(lower);
+        int position = 0;
+        while (position < lower.length()) {
+            if (!part.region(position, lower.length()).lookingAt()) {
+                throw new IllegalArgumentException("Unrecognized schedule \"" + text + "\"; expected e.g. \"Mon-Fri 9AM-5PM\"");
+            }
+            int open = parseTime(part.group(2), text);
+            int close = parseTime(part.group(3), text);
+            if (close == 0) {
+                close = MINUTES_PER_DAY; // "until midnight"
+            }
+            if (close <= open) {
+                close += MINUTES_PER_DAY; // overnight shift
+            }
+            for (int day : parseDays(part.group(1))) {
+                intervals.add(new int[] {day * MINUTES_PER_DAY + open, day * MINUTES_PER_DAY + close});
+            }
+            position = part.end();
+            separator.region(position, lower.length()).lookingAt();
+            position = separator.end();
+        }
+        return fromIntervals(intervals);
+    }
+    
+    public boolean isEmpty() {
+        return starts.length == 0;
+    }
+    
+    /** Returns whether a visit of the given length starting at {@code start} lies within working hours. */
+    public boolean covers(LocalDateTime start, int minutes) {
+        int minute = minuteOfWeek(start);
+        for (int i = 0; i < starts.length; i++) {
+            for (int offset = -MINUTES_PER_WEEK; offset <= 0; offset += MINUTES_PER_WEEK) {
+                if (starts[i] + offset <= minute && minute + minutes <= ends[i] + offset) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the earliest slot start at or after {@code from} for a visit of {@code slotMinutes}.
+     * Slots are laid out back to back from the start of each working interval and must end
+     * within it. Returns null when the schedule has no interval long enough.
+     */
+    public LocalDateTime nextSlot(LocalDateTime from, int slotMinutes) {
+        LocalDateTime minuteFrom = from.truncatedTo(ChronoUnit.MINUTES);
+        if (minuteFrom.isBefore(from)) {
+            minuteFrom = minuteFrom.plusMinutes(1);
+        }
+        int minute = minuteOfWeek(minuteFrom);
+        LocalDateTime weekStart = minuteFrom.minusMinutes(minute);
+        // The pattern repeats weekly: last week's overnight shift, then this week's and next week's intervals
+        for (int week = -1; week <= 1; week++) {
+            int offset = week * MINUTES_PER_WEEK;
+            for (int i = 0; i < starts.length; i++) {
+                int start = starts[i] + offset;
+                int end = ends[i] + offset;
+                if (end - slotMinutes < minute) {
+                    continue;
+                }
+                int candidate = start;
+                if (candidate < minute) {
+                    candidate += (minute - start + slotMinutes - 1) / slotMinutes * slotMinutes;
+                }
+                if (candidate + slotMinutes <= end) {
+                    return weekStart.plusMinutes(candidate);
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns how many slots of {@code slotMinutes} the schedule offers on each day of the week,
+     * Monday first, laid out as in {@link #nextSlot}. A shift past midnight counts on the day it starts.
+     */
+    public int[] slotsPerDay(int slotMinutes) {
+        int[] slots = new int[7];
+        for (int i = 0; i < starts.length; i++) {
+            slots[starts[i] / MINUTES_PER_DAY % 7] += (ends[i] - starts[i]) / slotMinutes;
+        }
+        return slots;
+    }
+    
+    private static int minuteOfWeek(LocalDateTime dateTime) {
+        return (dateTime.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + dateTime.getHour() * 60 + dateTime.getMinute();
+    }
+    
+    private static int parseTime(String time, String text) {
+        if (time.equals("noon")) {
+            return 12 * 60;
+        }
+        if (time.equals("midnight")) {
+            return 0;
+        }
+        Matcher clock = CLOCK.matcher(time);
+        if (!clock.matches()) {
+            throw new IllegalArgumentException("Unrecognized time \"" + time + "\" in schedule \"" + text + "\"");
+        }
+        int hour = Integer.parseInt(clock.group(1));
+        int minute = clock.group(2) != null ? Integer.parseInt(clock.group(2)) : 0;
+        String suffix = clock.group(3);
+        if (suffix != null) {
+            if (hour < 1 || hour > 12) {
+                throw new IllegalArgumentException("Invalid hour \"" + time + "\" in schedule \"" + text + "\"");
+            }
+            hour = hour % 12 + (suffix.equals("pm") ? 12 : 0);
+        }
+        if (hour > 23 || minute > 59) {
+            throw new IllegalArgumentException("Invalid time \"" + time + "\" in schedule \"" + text + "\"");
+        }
+        return hour * 60 + minute;
+    }
+    
+    // Day indexes from 0 (Monday); ranges such as "Fri-Mon" wrap around the weekend
+    private static boolean[] dayFlags(String days) {
+        boolean[] flags = new boolean[7];
+        switch (days) {
+            case "daily":
+            case "everyday":
+                Arrays.fill(flags, true);
+                return flags;
+            case "weekdays":
+                Arrays.fill(flags, 0, 5, true);
+                return flags;
+            case "weekends":
+                flags[5] = flags[6] = true;
+                return flags;
+            default:
+                break;
+        }
+        for (String range : days.split("\\s*(?:,|/|&|\\band\\b)\\s*")) {
+            Matcher token = DAY_TOKEN.matcher(range);
+            token.find();
+            int first = dayIndex(token.group());
+            int last = token.find() ? dayIndex(token.group()) : first;
+            for (int day = first; ; day = (day + 1) % 7) {
+                flags[day] = true;
+                if (day == last) {
+                    break;
+                }
+            }
+        }
+        return flags;
+    }
+    
+    private static int[] parseDays(String days) {
+        boolean[] flags = dayFlags(days);
+        int count = 0;
+        int[] result = new int[7];
+        for (int day = 0; day < 7; day++) {
+            if (flags[day]) {
+                result[count++] = day;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+    
+    private static int dayIndex(String day) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().toLowerCase(Locale.ROOT).startsWith(day.substring(0, 3))) {
+                return dayOfWeek.getValue() - 1;
+            }
+        }
+        throw new IllegalArgumentException("Unrecognized day \"" + day + "\"");
+    }
+    
+    // Sorts and merges overlapping intervals; touching ones stay apart so each keeps its own slot grid
+    private static WeeklySchedule fromIntervals(List<int[]> intervals) {
+        intervals.sort(Comparator.comparingInt((int[] interval) -> interval[0]));
+        List<int[]> merged = new ArrayList<>();
+        for (int[] interval : intervals) {
+            int[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && interval[0] < last[1]) {
+                last[1] = Math.max(last[1], interval[1]);
+            } else {
+                merged.add(interval.clone());
+            }
+        }
+        int[] starts = new int[merged.size()];
+        int[] ends = new int[merged.size()];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = merged.get(i)[0];
+            ends[i] = merged.get(i)[1];
+        }
+        return new WeeklySchedule(starts, ends);
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("WeeklySchedule{");
+        for (int i = 0; i < starts.length; i++) {
+            text.append(i > 0 ? ", " : "")
+                .append(DayOfWeek.of(starts[i] / MINUTES_PER_DAY + 1)).append(' ')
+                .append(clock(starts[i] % MINUTES_PER_DAY)).append('-')
+                .append(clock(ends[i] % MINUTES_PER_DAY));
+        }
+        return text.append('}').toString();
+    }
+    
+    private static String clock(int minutes) {
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,587 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import database.AnalyticsReport;
+import database.AppointmentFilter;
+import database.BookingConflictException;
+import database.BulkTransfer;
+import database.DatabaseManager;
+import database.JsonLines;
+import database.Page;
+import database.PageRequest;
+import models.Appointment;
+import models.AppointmentView;
+import models.Doctor;
+import models.FreeSlot;
+import models.Patient;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Headless HTTP front end over a {@link DatabaseManager}, for reception kiosks and other systems
+ * that share the data with the desktop application. Built on the JDK's HttpServer; every request
+ * runs on a thread of its own, a virtual thread where the runtime has them (Java 21 and later)
+ * and a pooled platform thread otherwise.
+ *
+ * Records are JSON objects in the columns of the JSON Lines export, validated as an import
+ * validates them:
+ * <pre>
+ *   GET /patients[?q=text&amp;limit=n]       every patient, or a full-text search
+ *   GET /appointments[?patientId=&amp;doctorId=&amp;status=&amp;from=&amp;to=]  matching appointments in time order
+ *   GET /slots?[specialization=&amp;from=&amp;count=]  the next free slots
+ *   GET /analytics?[from=&amp;to=&amp;period=day|week|month&amp;by=doctor|specialization]  revenue and utilization per period
+ *   GET, PUT, DELETE /{patients|doctors|appointments}/{id};  POST /{patients|doctors|appointments}
+ * </pre>
+ * Lists are streamed as a JSON array with one element per line, so a large list is written as it
+ * is read rather than built in memory first. Patient, doctor and appointment lists are returned a
+ * page at a time when any of {@code sort} (id, name or date), {@code order} (asc or desc),
+ * {@code limit}, {@code offset} or {@code cursor} is given; the response then carries the number of
+ * records in the whole list in {@code X-Total-Count} and, unless it is the last page, the cursor of
+ * the next one, ready to paste into the query string, in {@code X-Next-Cursor}. Failures come back as {"error": "..."}: 400 for
+ * invalid input, 404 for an unknown id or path, 409 for a double booking and 422 for an
+ * appointment naming an unknown patient or doctor.
+ */
+public class HospitalServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 8080;
+    
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int STREAM_BUFFER = 64 * 1024;
+    private static final int MAX_BODY = 16 << 20;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+    private static final int DEFAULT_PAGE_LIMIT = 100;
+    private static final int MAX_PAGE_LIMIT = 1000;
+    private static final String[] PAGE_PARAMETERS = {"sort", "order", "limit", "offset", "cursor"};
+    private static final int DEFAULT_SLOT_COUNT = 10;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String[] SLOT_KEYS = {"doctorId", "doctorName", "specialization", "start", "end"};
+    private static final boolean[] SLOT_NUMERIC = {true, false, false, false, false};
+    private static final String[] ANALYTICS_KEYS = {"periodStart", "doctorId", "label", "specialization", "appointments",
+        "completed", "cancelled", "noShows", "slots", "revenue", "cancellationRate", "noShowRate", "utilization"};
+    private static final boolean[] ANALYTICS_NUMERIC = {false, true, false, false, true, true, true, true, true, true, true, true, true};
+    private static final String[] ERROR_KEYS = {"error"};
+    private static final boolean[] ERROR_NUMERIC = {false};
+    
+    static {
+        // HttpServer writes headers and body separately; without TCP_NODELAY every response waits out the client's delayed ACK
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+    
+    private final DatabaseManager db;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Resource<Patient> patients;
+    private final Resource<Doctor> doctors;
+    private final Resource<Appointment> appointments;
+    
+    /** Binds the port (0 picks a free one); requests are served once {@link #start()} is called. */
+    public HospitalServer(DatabaseManager db, int port) throws IOException {
+        this.db = db;
+        ExecutorService virtual = virtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : threadPool();
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        patients = new Resource<>(BulkTransfer.Entity.PATIENTS, Patient.class, db::getPatientById, db::addPatient,
+            db::updatePatient, db::deletePatient, Patient::setPatientId, Patient::getPatientId, null);
+        doctors = new Resource<>(BulkTransfer.Entity.DOCTORS, Doctor.class, db::getDoctorById, db::addDoctor,
+            db::updateDoctor, db::deleteDoctor, Doctor::setDoctorId, Doctor::getDoctorId, null);
+        appointments = new Resource<>(BulkTransfer.Entity.APPOINTMENTS, Appointment.class, db::getAppointmentById,
+            db::addAppointment, db::updateAppointment, db::deleteAppointment, Appointment::setAppointmentId,
+            Appointment::getAppointmentId, this::checkReferences);
+        server.createContext("/patients", exchange -> handle(exchange, this::patients));
+        server.createContext("/doctors", exchange -> handle(exchange, this::doctors));
+        server.createContext("/appointments", exchange -> handle(exchange, this::appointments));
+        server.createContext("/slots", exchange -> handle(exchange, this::slots));
+        server.createContext("/analytics", exchange -> handle(exchange, this::analytics));
+    }
+    
+    /** Serves the shared store: {@code java server.HospitalServer [port]}, or the application's {@code --server} flag. */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        HospitalServer server = new HospitalServer(DatabaseManager.getInstance(), port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "hms-http-shutdown"));
+        server.start();
+        System.out.println("Hospital server listening on port " + server.getPort()
+            + (server.usesVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /** Stops accepting connections, gives running requests up to a second to finish, then stops their threads. */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+    
+    // Looked up reflectively so the server still builds and runs on Java 8
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+    
+    private static ExecutorService threadPool() {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hms-http-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    // Endpoints
+    private void patients(HttpExchange exchange, String method, int id) throws IOException {
+        if (id == 0 && method.equals("GET")) {
+            Map<String, String> query = query(exchange);
+            String text = query.get("q");
+            if (text == null && paged(query)) {
+                sendPage(exchange, db.getPatientsPage(pageRequest(query, PageRequest.Sort.ID)));
+            } else {
+                sendList(exchange, text == null ? db.getAllPatients()
+                    : db.searchPatients(text, number(query, "limit", DEFAULT_SEARCH_LIMIT)));
+            }
+            return;
+        }
+        crud(exchange, method, id, patients);
+    }
+    
+    private void doctors(HttpExchange exchange, String method, int id) throws IOException {
+        if (id == 0 && method.equals("GET")) {
+            Map<String, String> query = query(exchange);
+            if (paged(query)) {
+                sendPage(exchange, db.getDoctorsPage(pageRequest(query, PageRequest.Sort.ID)));
+            } else {
+                sendList(exchange, db.getAllDoctors());
+            }
+            return;
+        }
+        crud(exchange, method, id, doctors);
+    }
+    
+    private void appointments(HttpExchange exchange, String method, int id) throws IOException {
+        if (id == 0 && method.equals("GET")) {
+            Map<String, String> query = query(exchange);
+            String status = query.get("status");
+            AppointmentFilter filter = new AppointmentFilter(status != null ? status.trim().toUpperCase(Locale.ROOT) : null,
+                number(query, "doctorId", 0), number(query, "patientId", 0), time(query, "from", false), time(query, "to", true));
+            if (paged(query)) {
+                sendPage(exchange, db.getAppointmentsPage(filter, pageRequest(query, PageRequest.Sort.DATE)));
+            } else if (filter.isUnrestricted()) {
+                sendList(exchange, db.getAllAppointments());
+            } else {
+                List<AppointmentView> matches = db.getAppointmentViews(filter);
+                Iterable<Appointment> found = () -> matches.stream().map(AppointmentView::getAppointment).iterator();
+                sendList(exchange, found);
+            }
+            return;
+        }
+        crud(exchange, method, id, appointments);
+    }
+    
+    private void slots(HttpExchange exchange, String method, int id) throws IOException {
+        if (id != 0) {
+            throw new HttpError(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        if (!method.equals("GET")) {
+            throw new HttpError(405, method + " is not supported here");
+        }
+        Map<String, String> query = query(exchange);
+        LocalDateTime from = time(query, "from", false);
+        List<FreeSlot> slots = db.findFreeSlots(query.get("specialization"), from != null ? from : LocalDateTime.now(),
+            number(query, "count", DEFAULT_SLOT_COUNT));
+        sendList(exchange, slots);
+    }
+    
+    // Defaults to this month so far, by month and doctor
+    private void analytics(HttpExchange exchange, String method, int id) throws IOException {
+        if (id != 0) {
+            throw new HttpError(404, "No such resource: " + exchange.getRequestURI().getPath());
+        }
+        if (!method.equals("GET")) {
+            throw new HttpError(405, method + " is not supported here");
+        }
+        Map<String, String> query = query(exchange);
+        LocalDateTime to = time(query, "to", false);
+        LocalDate last = to != null ? to.toLocalDate() : LocalDate.now();
+        LocalDateTime from = time(query, "from", false);
+        AnalyticsReport.Period period;
+        try {
+            period = AnalyticsReport.Period.valueOf(query.getOrDefault("period", "month").trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("period must be day, week or month, not \"" + query.get("period") + "\"");
+        }
+        AnalyticsReport report = db.getAnalytics(from != null ? from.toLocalDate() : last.withDayOfMonth(1), last, period);
+        String by = query.getOrDefault("by", "doctor").trim();
+        if (by.equalsIgnoreCase("doctor")) {
+            sendList(exchange, report.getDoctorLines());
+        } else if (by.equalsIgnoreCase("specialization")) {
+            sendList(exchange, report.getSpecializationLines());
+        } else {
+            throw new IllegalArgumentException("by must be doctor or specialization, not \"" + by + "\"");
+        }
+    }
+    
+    private void checkReferences(Appointment appointment) {
+        if (db.getPatientById(appointment.getPatientId()) == null) {
+            throw new HttpError(422, "unknown patient id " + appointment.getPatientId());
+        }
+        if (db.getDoctorById(appointment.getDoctorId()) == null) {
+            throw new HttpError(422, "unknown doctor id " + appointment.getDoctorId());
+        }
+    }
+    
+    // Create on the collection; read, replace and delete on /{id}. Writes answer with the record as stored.
+    private <T> void crud(HttpExchange exchange, String method, int id, Resource<T> resource) throws IOException {
+        if (id == 0) {
+            if (!method.equals("POST")) {
+                throw new HttpError(405, method + " is not supported on a collection");
+            }
+            T record = readRecord(exchange, resource);
+            resource.add.accept(record);
+            int assigned = resource.idOf.applyAsInt(record);
+            exchange.getResponseHeaders().set("Location", exchange.getHttpContext().getPath() + "/" + assigned);
+            sendRecord(exchange, 201, stored(resource, assigned, record));
+            return;
+        }
+        switch (method) {
+            case "GET": {
+                T record = resource.find.apply(id);
+                if (record == null) {
+                    throw notFound(resource, id);
+                }
+                sendRecord(exchange, 200, record);
+                break;
+            }
+            case "PUT": {
+                T record = readRecord(exchange, resource);
+                resource.assignId.accept(record, id);
+                if (resource.find.apply(id) == null) {
+                    throw notFound(resource, id);
+                }
+                resource.update.accept(record);
+                sendRecord(exchange, 200, stored(resource, id, record));
+                break;
+            }
+            case "DELETE":
+                if (resource.find.apply(id) == null) {
+                    throw notFound(resource, id);
+                }
+                resource.delete.accept(id);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            default:
+                throw new HttpError(405, method + " is not supported on a record");
+        }
+    }
+    
+    // A record deleted again in the meantime is answered with what was written
+    private static <T> T stored(Resource<T> resource, int id, T written) {
+        T record = resource.find.apply(id);
+        return record != null ? record : written;
+    }
+    
+    private static HttpError notFound(Resource<?> resource, int id) {
+        return new HttpError(404, "No " + resource.entity + " record with id " + id);
+    }
+    
+    private <T> T readRecord(HttpExchange exchange, Resource<T> resource) throws IOException {
+        T record = resource.type.cast(BulkTransfer.parseJson(resource.entity, readBody(exchange)));
+        if (resource.check != null) {
+            resource.check.accept(record);
+        }
+        return record;
+    }
+    
+    // Request plumbing
+    private interface Route {
+        void handle(HttpExchange exchange, String method, int id) throws IOException;
+    }
+    
+    // Every failure becomes a JSON error unless the response has already started; the exchange is always closed
+    private void handle(HttpExchange exchange, Route route) {
+        try {
+            route.handle(exchange, exchange.getRequestMethod(), recordId(exchange));
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (BookingConflictException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error: " + e);
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    // 0 for the collection itself; the path below the context must otherwise be a positive id
+    private static int recordId(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getPath();
+        String rest = path.substring(exchange.getHttpContext().getPath().length());
+        if (rest.isEmpty() || rest.equals("/")) {
+            return 0;
+        }
+        if (rest.charAt(0) == '/') {
+            try {
+                int id = Integer.parseInt(rest.endsWith("/") ? rest.substring(1, rest.length() - 1) : rest.substring(1));
+                if (id > 0) {
+                    return id;
+                }
+            } catch (NumberFormatException e) {
+                // not an id
+            }
+        }
+        throw new HttpError(404, "No such resource: " + path);
+    }
+    
+    private static Map<String, String> query(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> values = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return values;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                values.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"), URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return values;
+    }
+    
+    private static int number(Map<String, String> query, String name, int absent) {
+        String value = query.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            return absent;
+        }
+        try {
+            int number = Integer.parseInt(value.trim());
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(name + " must be a non-negative whole number, not \"" + value + "\"");
+    }
+    
+    private static boolean paged(Map<String, String> query) {
+        for (String parameter : PAGE_PARAMETERS) {
+            if (query.containsKey(parameter)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static PageRequest pageRequest(Map<String, String> query, PageRequest.Sort defaultSort) {
+        PageRequest.Sort sort = defaultSort;
+        String value = query.get("sort");
+        if (value != null && !value.trim().isEmpty()) {
+            try {
+                sort = PageRequest.Sort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("sort must be id, name or date, not \"" + value + "\"");
+            }
+        }
+        String order = query.getOrDefault("order", "asc").trim();
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("order must be asc or desc, not \"" + order + "\"");
+        }
+        String cursor = query.get("cursor");
+        PageRequest request = new PageRequest(sort, order.equalsIgnoreCase("desc"), number(query, "offset", 0),
+            Math.min(number(query, "limit", DEFAULT_PAGE_LIMIT), MAX_PAGE_LIMIT),
+            cursor != null && !cursor.isEmpty() ? cursor : null);
+        // A client following a cursor had the total with the first page
+        return request.getCursor() != null ? request.withoutTotal() : request;
+    }
+    
+    // A bare date stands for the start of that day, or its end for an upper bound
+    private static LocalDateTime time(Map<String, String> query, String name, boolean upperBound) {
+        String value = query.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        value = value.trim();
+        try {
+            if (value.length() == 10) {
+                LocalDate date = LocalDate.parse(value);
+                return upperBound ? date.atTime(LocalTime.MAX) : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(value.replace(' ', 'T'));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must look like 2025-03-14 or 2025-03-14T09:30");
+        }
+    }
+    
+    private static String readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = exchange.getRequestBody()) {
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                if (body.size() + read > MAX_BODY) {
+                    throw new HttpError(413, "Request body is larger than " + MAX_BODY + " bytes");
+                }
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+    
+    // Streams the records as a JSON array, one element per line, writing each as it is read
+    private static void sendList(HttpExchange exchange, Iterable<?> records) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0); // length 0: chunked
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), STREAM_BUFFER)) {
+            out.write("[\n");
+            boolean first = true;
+            for (Object record : records) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                if (record instanceof FreeSlot) {
+                    writeSlot(out, (FreeSlot) record);
+                } else if (record instanceof AnalyticsReport.Line) {
+                    writeAnalytics(out, (AnalyticsReport.Line) record);
+                } else {
+                    BulkTransfer.writeJson(out, record);
+                }
+            }
+            out.write("]\n");
+        }
+    }
+    
+    private static void sendPage(HttpExchange exchange, Page<?> page) throws IOException {
+        if (page.getTotal() != Page.UNCOUNTED) {
+            exchange.getResponseHeaders().set("X-Total-Count", String.valueOf(page.getTotal()));
+        }
+        if (page.hasMore()) {
+            exchange.getResponseHeaders().set("X-Next-Cursor", URLEncoder.encode(page.getNextCursor(), "UTF-8"));
+        }
+        sendList(exchange, page.getItems());
+    }
+    
+    private static void writeSlot(Writer out, FreeSlot slot) throws IOException {
+        Doctor doctor = slot.getDoctor();
+        JsonLines.write(out, SLOT_KEYS, new String[] {String.valueOf(doctor.getDoctorId()), doctor.getName(),
+            doctor.getSpecialization(), slot.getStart().format(DATE_TIME), slot.getEnd().format(DATE_TIME)}, SLOT_NUMERIC);
+    }
+    
+    private static void writeAnalytics(Writer out, AnalyticsReport.Line line) throws IOException {
+        JsonLines.write(out, ANALYTICS_KEYS, new String[] {String.valueOf(line.getPeriodStart()), String.valueOf(line.getDoctorId()),
+            line.getLabel(), line.getSpecialization(), String.valueOf(line.getAppointments()), String.valueOf(line.getCompleted()),
+            String.valueOf(line.getCancelled()), String.valueOf(line.getNoShows()), String.valueOf(line.getSlots()),
+            String.valueOf(line.getRevenue()), String.valueOf(line.getCancellationRate()), String.valueOf(line.getNoShowRate()),
+            String.valueOf(line.getUtilization())}, ANALYTICS_NUMERIC);
+    }
+    
+    private static void sendRecord(HttpExchange exchange, int status, Object record) throws IOException {
+        StringWriter body = new StringWriter();
+        BulkTransfer.writeJson(body, record);
+        send(exchange, status, body.toString());
+    }
+    
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        if (exchange.getResponseCode() != -1) {
+            return; // the response has started; closing the exchange cuts it short
+        }
+        try {
+            StringWriter body = new StringWriter();
+            JsonLines.write(body, ERROR_KEYS, new String[] {message}, ERROR_NUMERIC);
+            send(exchange, status, body.toString());
+        } catch (IOException e) {
+            // the client has gone
+        }
+    }
+    
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    /** How the server finds, stores and identifies one kind of record. */
+    private static final class Resource<T> {
+        final BulkTransfer.Entity entity;
+        final Class<T> type;
+        final IntFunction<T> find;
+        final Consumer<T> add;
+        final Consumer<T> update;
+        final IntConsumer delete;
+        final ObjIntConsumer<T> assignId;
+        final ToIntFunction<T> idOf;
+        final Consumer<T> check; // extra validation before a write, or null
+        
+        Resource(BulkTransfer.Entity entity, Class<T> type, IntFunction<T> find, Consumer<T> add, Consumer<T> update,
+                 IntConsumer delete, ObjIntConsumer<T> assignId, ToIntFunction<T> idOf, Consumer<T> check) {
+            this.entity = entity;
+            this.type = type;
+            this.find = find;
+            this.add = add;
+            this.update = update;
+            this.delete = delete;
+            this.assignId = assignId;
+            this.idOf = idOf;
+            this.check = check;
+        }
+    }
+    
+    private static final class HttpError extends RuntimeException {
+        final int status;
+        
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
\ No newline at end of file